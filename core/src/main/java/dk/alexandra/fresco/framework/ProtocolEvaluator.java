@@ -30,6 +30,7 @@ public interface ProtocolEvaluator<ResourcePoolT extends ResourcePool> {
 
     private final int nativeProtocols;
     private final int batches;
+    private final int depthLowerBound;
 
     /**
      * Createes a new statistics object.
@@ -38,9 +39,20 @@ public interface ProtocolEvaluator<ResourcePoolT extends ResourcePool> {
      * @param batches the total of batches in the evaluation
      */
     public EvaluationStatistics(int nativeProtocols, int batches) {
+      this(nativeProtocols, batches, 0);
+    }
 
+    /**
+     * Creates a new statistics object.
+     *
+     * @param nativeProtocols the total number of native protocols in evaluation
+     * @param batches the total of batches in the evaluation
+     * @param depthLowerBound a lower bound on the depth of the evaluated computation
+     */
+    public EvaluationStatistics(int nativeProtocols, int batches, int depthLowerBound) {
       this.nativeProtocols = nativeProtocols;
       this.batches = batches;
+      this.depthLowerBound = depthLowerBound;
     }
 
     /**
@@ -60,5 +72,21 @@ public interface ProtocolEvaluator<ResourcePoolT extends ResourcePool> {
     public int getBatches() {
       return batches;
     }
+
+    /**
+     * Returns a lower bound on the depth of the evaluated computation, i.e., the least number of
+     * batches it could have been evaluated in.
+     * <p>
+     * This is the number of non-empty batches which were not filled. Every protocol available when
+     * such a batch was created was part of the batch, so each of these batches evaluated a step of
+     * the longest remaining chain of dependent protocols. The difference to {@link #getBatches()}
+     * is thus the number of batches lost because batches were full.
+     * </p>
+     *
+     * @return the lower bound, or 0 if not computed by the evaluator
+     */
+    public int getDepthLowerBound() {
+      return depthLowerBound;
+    }
   }
 }
@@ -1,5 +1,7 @@
 package dk.alexandra.fresco.framework.builder.numeric;
 
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElementVector;
 import dk.alexandra.fresco.framework.util.TransposeUtils;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,12 +29,24 @@ public interface Addable<T> {
   }
 
   /**
-   * Adds up elements in each column.
+   * Adds up elements in each column. If the rows are {@link FieldElementVector}s they are summed in
+   * place without transposing.
    *
    * @param rows rows to be added up
    * @return sum of rows
    */
+  @SuppressWarnings("unchecked")
   static <A extends Addable<A>> List<A> sumRows(List<List<A>> rows) {
+    if (rows.isEmpty()) {
+      throw new IllegalArgumentException("Cannot sum an empty list of rows");
+    }
+    if (rows.get(0) instanceof FieldElementVector) {
+      FieldElementVector sums = ((FieldElementVector) rows.get(0)).copy();
+      for (int i = 1; i < rows.size(); i++) {
+        sums.addInPlace((List<FieldElement>) rows.get(i));
+      }
+      return (List<A>) sums;
+    }
     List<List<A>> tilted = TransposeUtils.transpose(rows);
     List<A> sums = new ArrayList<>(tilted.size());
     for (List<A> row : tilted) {
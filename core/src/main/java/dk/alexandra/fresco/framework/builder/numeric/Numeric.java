@@ -4,6 +4,8 @@ import dk.alexandra.fresco.framework.DRes;
 import dk.alexandra.fresco.framework.builder.ComputationDirectory;
 import dk.alexandra.fresco.framework.value.SInt;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Basic interface for numeric applications. This is the interface which an arithmetic protocol
@@ -88,6 +90,27 @@ public interface Numeric extends ComputationDirectory {
    */
   DRes<SInt> mult(DRes<SInt> a, DRes<SInt> b);
 
+  /**
+   * Multiplies two lists of secret values pairwise and returns the list of products. The default
+   * implementation calls {@link #mult(DRes, DRes)} for each pair; protocol suites can override it
+   * to evaluate all the products in a single native protocol.
+   *
+   * @param a Secret values 1
+   * @param b Secret values 2, must have the same size as <code>a</code>
+   * @return A deferred result computing the list of a[i]*b[i]
+   */
+  default DRes<List<DRes<SInt>>> multAll(List<DRes<SInt>> a, List<DRes<SInt>> b) {
+    if (a.size() != b.size()) {
+      throw new IllegalArgumentException(
+          "Lists must have the same size, got " + a.size() + " and " + b.size());
+    }
+    List<DRes<SInt>> products = new ArrayList<>(a.size());
+    for (int i = 0; i < a.size(); i++) {
+      products.add(mult(a.get(i), b.get(i)));
+    }
+    return () -> products;
+  }
+
   /**
    * Multiplies a public value onto a secret value and returns the result.
    *
@@ -28,7 +28,7 @@ public class ProtocolBuilderNumeric extends ProtocolBuilderImpl<ProtocolBuilderN
   private RealLinearAlgebra realLinearAlgebra;
   private RealNumericContext realNumericContext;
 
-  ProtocolBuilderNumeric(BuilderFactoryNumeric factory, boolean parallel) {
+  protected ProtocolBuilderNumeric(BuilderFactoryNumeric factory, boolean parallel) {
     super(factory, parallel);
     this.factory = factory;
     this.basicNumericContext = factory.getBasicNumericContext();
@@ -0,0 +1,262 @@
+package dk.alexandra.fresco.framework.builder.numeric.compiled;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.FrescoLambda;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A numeric computation compiled to a flat list of instructions.
+ * <p>
+ * A program is compiled by running its computation once on a builder which records the numeric
+ * operations instead of creating native protocols, see {@link #compile(ProtocolBuilderNumeric,
+ * List, FrescoLambda)}. Each instruction writes a single register, which is identified by the
+ * index of the instruction. The instructions are stored by level, such that an instruction only
+ * depends on instructions of earlier levels.
+ * </p>
+ * <p>
+ * When the program is evaluated, each level is evaluated as one parallel step, creating the native
+ * protocols of the actual protocol suite directly from the instructions. This avoids running the
+ * lambdas and build steps of the original computation again, which is useful when the same
+ * computation is evaluated many times on different inputs.
+ * </p>
+ * <p>
+ * Only computations where the operations do not depend on the inputs can be compiled. In
+ * particular a computation cannot open values or give inputs itself, the inputs are the arguments
+ * of the program and the outputs are the secret values it returns. Computations which do so fail
+ * to compile with an {@link UnsupportedOperationException}.
+ * </p>
+ */
+public final class CompiledProgram {
+
+  static final int INPUT = 0;
+  static final int KNOWN = 1;
+  static final int ADD = 2;
+  static final int ADD_KNOWN = 3;
+  static final int SUB = 4;
+  static final int SUB_KNOWN = 5;
+  static final int SUB_FROM_KNOWN = 6;
+  static final int MULT = 7;
+  static final int MULT_KNOWN = 8;
+  static final int RANDOM_BIT = 9;
+  static final int RANDOM_ELEMENT = 10;
+
+  private final int[] opcodes;
+  private final int[] lefts;
+  private final int[] rights;
+  private final BigInteger[] constants;
+  private final int[] levelStart;
+  private final int[] inputParties;
+  private final int[] outputs;
+
+  CompiledProgram(int[] opcodes, int[] lefts, int[] rights, BigInteger[] constants,
+      int[] levelStart, int[] inputParties, int[] outputs) {
+    this.opcodes = opcodes;
+    this.lefts = lefts;
+    this.rights = rights;
+    this.constants = constants;
+    this.levelStart = levelStart;
+    this.inputParties = inputParties;
+    this.outputs = outputs;
+  }
+
+  /**
+   * Compiles a computation. The computation is given a secret value for each input and must return
+   * the secret outputs of the program.
+   *
+   * @param builder a builder of the protocol suite the program will be evaluated with, only used
+   *     for its numeric contexts
+   * @param inputParties the id of the party giving each input
+   * @param circuit the computation to compile
+   * @return the compiled program
+   */
+  public static CompiledProgram compile(ProtocolBuilderNumeric builder, List<Integer> inputParties,
+      FrescoLambda<List<DRes<SInt>>, ProtocolBuilderNumeric, List<DRes<SInt>>> circuit) {
+    return new ProgramRecorder().record(builder, inputParties, circuit);
+  }
+
+  /**
+   * Checks if an argument of an instruction refers to a register, as opposed to a constant or an
+   * input.
+   *
+   * @param opcode the instruction
+   * @param left true for the left argument, false for the right one
+   */
+  static boolean isRegister(int opcode, boolean left) {
+    switch (opcode) {
+      case ADD:
+      case SUB:
+      case MULT:
+        return true;
+      case ADD_KNOWN:
+      case SUB_FROM_KNOWN:
+      case MULT_KNOWN:
+        return !left;
+      case SUB_KNOWN:
+        return left;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Evaluates the program as part of a larger computation.
+   *
+   * @param builder the builder to evaluate the program in
+   * @param inputs the input of each input party, parties only need to give their own inputs, the
+   *     others may be null
+   * @return the secret outputs of the program
+   */
+  public DRes<List<DRes<SInt>>> evaluate(ProtocolBuilderNumeric builder,
+      List<BigInteger> inputs) {
+    if (inputs.size() != inputParties.length) {
+      throw new IllegalArgumentException(
+          "Expected " + inputParties.length + " inputs, but got " + inputs.size());
+    }
+    Execution execution = new Execution(inputs);
+    return builder.seq(seq -> {
+      for (int level = 0; level < getDepth(); level++) {
+        final int current = level;
+        seq.par(par -> {
+          execution.evaluateLevel(par, current);
+          return null;
+        });
+      }
+      return execution::outputs;
+    });
+  }
+
+  /**
+   * Creates an application which evaluates the program and opens its outputs to all parties.
+   *
+   * @param inputs the input of each input party, parties only need to give their own inputs, the
+   *     others may be null
+   * @return the application
+   */
+  public Application<List<BigInteger>, ProtocolBuilderNumeric> bind(List<BigInteger> inputs) {
+    return builder -> {
+      DRes<List<DRes<SInt>>> secret = evaluate(builder, inputs);
+      return builder.par(par -> {
+        Numeric numeric = par.numeric();
+        List<DRes<BigInteger>> opened = new ArrayList<>(outputs.length);
+        for (DRes<SInt> value : secret.out()) {
+          opened.add(numeric.open(value));
+        }
+        return () -> {
+          List<BigInteger> result = new ArrayList<>(opened.size());
+          for (DRes<BigInteger> value : opened) {
+            result.add(value.out());
+          }
+          return result;
+        };
+      });
+    };
+  }
+
+  /**
+   * Gets the number of instructions, including the inputs.
+   */
+  public int getNumberOfInstructions() {
+    return opcodes.length;
+  }
+
+  /**
+   * Gets the number of levels, i.e., the number of parallel steps used to evaluate the program.
+   */
+  public int getDepth() {
+    return levelStart.length - 1;
+  }
+
+  /**
+   * Gets the id of the party giving each input.
+   */
+  public List<Integer> getInputParties() {
+    List<Integer> parties = new ArrayList<>(inputParties.length);
+    for (int party : inputParties) {
+      parties.add(party);
+    }
+    return Collections.unmodifiableList(parties);
+  }
+
+  /**
+   * Gets the number of outputs.
+   */
+  public int getNumberOfOutputs() {
+    return outputs.length;
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledProgram{"
+        + "instructions=" + opcodes.length
+        + ", depth=" + getDepth()
+        + ", inputParties=" + Arrays.toString(inputParties)
+        + ", outputs=" + outputs.length
+        + '}';
+  }
+
+  /**
+   * The registers of a single evaluation of the program.
+   */
+  private class Execution {
+
+    private final List<BigInteger> inputs;
+    private final List<DRes<SInt>> registers;
+
+    Execution(List<BigInteger> inputs) {
+      this.inputs = inputs;
+      this.registers = new ArrayList<>(opcodes.length);
+    }
+
+    void evaluateLevel(ProtocolBuilderNumeric builder, int level) {
+      Numeric numeric = builder.numeric();
+      for (int i = levelStart[level]; i < levelStart[level + 1]; i++) {
+        registers.add(evaluate(numeric, opcodes[i], lefts[i], rights[i]));
+      }
+    }
+
+    private DRes<SInt> evaluate(Numeric numeric, int opcode, int left, int right) {
+      switch (opcode) {
+        case INPUT:
+          return numeric.input(inputs.get(left), inputParties[left]);
+        case KNOWN:
+          return numeric.known(constants[left]);
+        case ADD:
+          return numeric.add(registers.get(left), registers.get(right));
+        case ADD_KNOWN:
+          return numeric.add(constants[left], registers.get(right));
+        case SUB:
+          return numeric.sub(registers.get(left), registers.get(right));
+        case SUB_KNOWN:
+          return numeric.sub(registers.get(left), constants[right]);
+        case SUB_FROM_KNOWN:
+          return numeric.sub(constants[left], registers.get(right));
+        case MULT:
+          return numeric.mult(registers.get(left), registers.get(right));
+        case MULT_KNOWN:
+          return numeric.mult(constants[left], registers.get(right));
+        case RANDOM_BIT:
+          return numeric.randomBit();
+        case RANDOM_ELEMENT:
+          return numeric.randomElement();
+        default:
+          throw new IllegalStateException("Unknown instruction " + opcode);
+      }
+    }
+
+    List<DRes<SInt>> outputs() {
+      List<DRes<SInt>> result = new ArrayList<>(outputs.length);
+      for (int output : outputs) {
+        result.add(registers.get(output));
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package dk.alexandra.fresco.framework.builder.numeric.compiled;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.FrescoLambda;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches compiled programs, so a computation is only compiled the first time it is run.
+ * <p>
+ * A program is identified by a key, the party compiling it and the parties giving its inputs. By
+ * default the key is the computation instance itself, so a computation must be reused, e.g., kept
+ * in a field, for its program to be reused. Two instances are never assumed to compute the same
+ * thing, even if they are lambdas created at the same place in the code, since they may capture
+ * different values. Callers creating a new instance per run can instead give an explicit key,
+ * which must identify everything the operations of the computation depend on besides the number
+ * and owners of its inputs, e.g., the constants captured by the computation.
+ * </p>
+ */
+public class CompiledProgramCache {
+
+  private final Map<List<Object>, CompiledProgram> programs = new ConcurrentHashMap<>();
+
+  /**
+   * Gets the compiled program of a computation, compiling it if it is not already cached. The
+   * program is identified by the computation instance.
+   *
+   * @param builder a builder of the protocol suite the program will be evaluated with
+   * @param inputParties the id of the party giving each input
+   * @param circuit the computation
+   * @return the compiled program
+   */
+  public CompiledProgram get(ProtocolBuilderNumeric builder, List<Integer> inputParties,
+      FrescoLambda<List<DRes<SInt>>, ProtocolBuilderNumeric, List<DRes<SInt>>> circuit) {
+    return get(builder, circuit, inputParties, circuit);
+  }
+
+  /**
+   * Gets the compiled program of a computation identified by an explicit key, compiling it if it
+   * is not already cached.
+   *
+   * @param builder a builder of the protocol suite the program will be evaluated with
+   * @param key identifies the operations of the computation, must implement equals and hashCode
+   * @param inputParties the id of the party giving each input
+   * @param circuit the computation
+   * @return the compiled program
+   */
+  public CompiledProgram get(ProtocolBuilderNumeric builder, Object key,
+      List<Integer> inputParties,
+      FrescoLambda<List<DRes<SInt>>, ProtocolBuilderNumeric, List<DRes<SInt>>> circuit) {
+    List<Object> programKey = Arrays.asList(key, builder.getBasicNumericContext().getMyId(),
+        new ArrayList<>(inputParties));
+    return programs.computeIfAbsent(programKey,
+        ignored -> CompiledProgram.compile(builder, inputParties, circuit));
+  }
+
+  /**
+   * Creates an application which evaluates a computation through its cached program and opens the
+   * outputs to all parties.
+   *
+   * @param inputParties the id of the party giving each input
+   * @param inputs the input of each input party, parties only need to give their own inputs, the
+   *     others may be null
+   * @param circuit the computation
+   * @return the application
+   */
+  public Application<List<BigInteger>, ProtocolBuilderNumeric> application(
+      List<Integer> inputParties, List<BigInteger> inputs,
+      FrescoLambda<List<DRes<SInt>>, ProtocolBuilderNumeric, List<DRes<SInt>>> circuit) {
+    return application(circuit, inputParties, inputs, circuit);
+  }
+
+  /**
+   * Creates an application which evaluates a computation through its cached program, identified
+   * by an explicit key, and opens the outputs to all parties.
+   *
+   * @param key identifies the operations of the computation, must implement equals and hashCode
+   * @param inputParties the id of the party giving each input
+   * @param inputs the input of each input party, parties only need to give their own inputs, the
+   *     others may be null
+   * @param circuit the computation
+   * @return the application
+   */
+  public Application<List<BigInteger>, ProtocolBuilderNumeric> application(Object key,
+      List<Integer> inputParties, List<BigInteger> inputs,
+      FrescoLambda<List<DRes<SInt>>, ProtocolBuilderNumeric, List<DRes<SInt>>> circuit) {
+    return builder -> get(builder, key, inputParties, circuit).bind(inputs)
+        .buildComputation(builder);
+  }
+
+  /**
+   * Gets the number of cached programs.
+   */
+  public int size() {
+    return programs.size();
+  }
+
+  /**
+   * Removes all cached programs.
+   */
+  public void clear() {
+    programs.clear();
+  }
+}
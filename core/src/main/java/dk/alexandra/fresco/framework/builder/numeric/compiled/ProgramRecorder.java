@@ -0,0 +1,148 @@
+package dk.alexandra.fresco.framework.builder.numeric.compiled;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.builder.FrescoLambda;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.sce.evaluator.ProtocolCollectionList;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the instructions of a program by running its computation on a {@link
+ * RecordingBuilderFactory} and evaluating the resulting recording protocols locally.
+ */
+class ProgramRecorder {
+
+  private static final int BATCH_SIZE = 4096;
+
+  private final List<Integer> opcodes = new ArrayList<>();
+  private final List<Integer> lefts = new ArrayList<>();
+  private final List<Integer> rights = new ArrayList<>();
+  private final List<Integer> levels = new ArrayList<>();
+  private final List<BigInteger> constants = new ArrayList<>();
+
+  /**
+   * Records a program.
+   *
+   * @param target the builder the program is compiled for
+   * @param inputParties the party giving each input
+   * @param circuit the computation of the program
+   * @return the compiled program
+   */
+  CompiledProgram record(ProtocolBuilderNumeric target, List<Integer> inputParties,
+      FrescoLambda<List<DRes<SInt>>, ProtocolBuilderNumeric, List<DRes<SInt>>> circuit) {
+    ProtocolBuilderNumeric root = new RecordingBuilderFactory(target, this).createSequential();
+    List<DRes<SInt>> inputs = new ArrayList<>(inputParties.size());
+    for (int i = 0; i < inputParties.size(); i++) {
+      inputs.add(add(CompiledProgram.INPUT, i, -1, 1));
+    }
+    DRes<List<DRes<SInt>>> output = circuit.buildComputation(root, inputs);
+    ProtocolProducer producer = root.build();
+    do {
+      ProtocolCollectionList<ResourcePool> batch = new ProtocolCollectionList<>(BATCH_SIZE);
+      producer.getNextProtocols(batch);
+      for (NativeProtocol<?, ResourcePool> protocol : batch) {
+        if (!(protocol instanceof RecordingProtocol)) {
+          throw new UnsupportedOperationException("The native protocol "
+              + protocol.getClass().getName() + " cannot be part of a compiled program");
+        }
+        protocol.evaluate(0, null, null);
+      }
+    } while (producer.hasNextProtocols());
+    List<DRes<SInt>> outputValues = output.out();
+    int[] outputs = new int[outputValues.size()];
+    for (int i = 0; i < outputs.length; i++) {
+      outputs[i] = resolve(outputValues.get(i)).getIndex();
+    }
+    return build(inputParties, outputs);
+  }
+
+  /**
+   * Records an instruction and returns the register holding its result.
+   */
+  Register emit(int opcode, Register left, Register right, BigInteger constant) {
+    int level = 1 + Math.max(left == null ? 0 : left.getLevel(),
+        right == null ? 0 : right.getLevel());
+    int constantIndex = -1;
+    if (constant != null) {
+      constantIndex = constants.size();
+      constants.add(constant);
+    }
+    int leftArgument = left == null ? constantIndex : left.getIndex();
+    int rightArgument = right == null ? constantIndex : right.getIndex();
+    return add(opcode, leftArgument, rightArgument, level);
+  }
+
+  /**
+   * Resolves a value produced while recording to its register.
+   */
+  Register resolve(DRes<SInt> value) {
+    SInt resolved = value.out();
+    if (!(resolved instanceof Register)) {
+      throw new IllegalArgumentException(
+          "Only values computed in the compiled program can be used, got " + resolved);
+    }
+    return (Register) resolved;
+  }
+
+  private Register add(int opcode, int left, int right, int level) {
+    Register register = new Register(opcodes.size(), level);
+    opcodes.add(opcode);
+    lefts.add(left);
+    rights.add(right);
+    levels.add(level);
+    return register;
+  }
+
+  /**
+   * Orders the instructions by level, keeping the recorded order within a level, and renumbers the
+   * registers accordingly.
+   */
+  private CompiledProgram build(List<Integer> inputParties, int[] outputs) {
+    int size = opcodes.size();
+    int depth = 0;
+    for (int level : levels) {
+      depth = Math.max(depth, level);
+    }
+    // levelStart[level] is the index of the first instruction of the level, with levels counted
+    // from zero in the compiled program
+    int[] levelStart = new int[depth + 1];
+    for (int level : levels) {
+      levelStart[level]++;
+    }
+    for (int level = 1; level <= depth; level++) {
+      levelStart[level] += levelStart[level - 1];
+    }
+    int[] next = levelStart.clone();
+    int[] position = new int[size];
+    for (int i = 0; i < size; i++) {
+      position[i] = next[levels.get(i) - 1]++;
+    }
+    int[] sortedOpcodes = new int[size];
+    int[] sortedLefts = new int[size];
+    int[] sortedRights = new int[size];
+    for (int i = 0; i < size; i++) {
+      int opcode = opcodes.get(i);
+      sortedOpcodes[position[i]] = opcode;
+      sortedLefts[position[i]] = CompiledProgram.isRegister(opcode, true)
+          ? position[lefts.get(i)] : lefts.get(i);
+      sortedRights[position[i]] = CompiledProgram.isRegister(opcode, false)
+          ? position[rights.get(i)] : rights.get(i);
+    }
+    int[] sortedOutputs = new int[outputs.length];
+    for (int i = 0; i < outputs.length; i++) {
+      sortedOutputs[i] = position[outputs[i]];
+    }
+    int[] parties = new int[inputParties.size()];
+    for (int i = 0; i < parties.length; i++) {
+      parties[i] = inputParties.get(i);
+    }
+    return new CompiledProgram(sortedOpcodes, sortedLefts, sortedRights,
+        constants.toArray(new BigInteger[0]), levelStart, parties, sortedOutputs);
+  }
+}
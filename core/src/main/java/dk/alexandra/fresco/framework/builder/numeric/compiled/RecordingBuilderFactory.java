@@ -0,0 +1,43 @@
+package dk.alexandra.fresco.framework.builder.numeric.compiled;
+
+import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.lib.compare.MiscBigIntegerGenerators;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
+import dk.alexandra.fresco.lib.real.RealNumericContext;
+
+/**
+ * Builder factory used while recording a program. It has the same contexts as the builder the
+ * program is compiled for, but all numeric operations are recorded.
+ */
+class RecordingBuilderFactory implements BuilderFactoryNumeric {
+
+  private final ProtocolBuilderNumeric target;
+  private final ProgramRecorder recorder;
+
+  RecordingBuilderFactory(ProtocolBuilderNumeric target, ProgramRecorder recorder) {
+    this.target = target;
+    this.recorder = recorder;
+  }
+
+  @Override
+  public BasicNumericContext getBasicNumericContext() {
+    return target.getBasicNumericContext();
+  }
+
+  @Override
+  public RealNumericContext getRealNumericContext() {
+    return target.getRealNumericContext();
+  }
+
+  @Override
+  public Numeric createNumeric(ProtocolBuilderNumeric builder) {
+    return new RecordingNumeric(builder, recorder);
+  }
+
+  @Override
+  public MiscBigIntegerGenerators getBigIntegerHelper() {
+    return target.getBigIntegerHelper();
+  }
+}
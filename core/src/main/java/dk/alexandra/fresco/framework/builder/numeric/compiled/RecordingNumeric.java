@@ -0,0 +1,94 @@
+package dk.alexandra.fresco.framework.builder.numeric.compiled;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+
+/**
+ * Numeric computation directory which records instructions instead of creating the native
+ * protocols of a protocol suite.
+ */
+class RecordingNumeric implements Numeric {
+
+  private final ProtocolBuilderNumeric builder;
+  private final ProgramRecorder recorder;
+
+  RecordingNumeric(ProtocolBuilderNumeric builder, ProgramRecorder recorder) {
+    this.builder = builder;
+    this.recorder = recorder;
+  }
+
+  private DRes<SInt> append(int opcode, DRes<SInt> left, DRes<SInt> right, BigInteger constant) {
+    return builder.append(new RecordingProtocol(recorder, opcode, left, right, constant));
+  }
+
+  @Override
+  public DRes<SInt> add(DRes<SInt> a, DRes<SInt> b) {
+    return append(CompiledProgram.ADD, a, b, null);
+  }
+
+  @Override
+  public DRes<SInt> add(BigInteger a, DRes<SInt> b) {
+    return append(CompiledProgram.ADD_KNOWN, null, b, a);
+  }
+
+  @Override
+  public DRes<SInt> sub(DRes<SInt> a, DRes<SInt> b) {
+    return append(CompiledProgram.SUB, a, b, null);
+  }
+
+  @Override
+  public DRes<SInt> sub(BigInteger a, DRes<SInt> b) {
+    return append(CompiledProgram.SUB_FROM_KNOWN, null, b, a);
+  }
+
+  @Override
+  public DRes<SInt> sub(DRes<SInt> a, BigInteger b) {
+    return append(CompiledProgram.SUB_KNOWN, a, null, b);
+  }
+
+  @Override
+  public DRes<SInt> mult(DRes<SInt> a, DRes<SInt> b) {
+    return append(CompiledProgram.MULT, a, b, null);
+  }
+
+  @Override
+  public DRes<SInt> mult(BigInteger a, DRes<SInt> b) {
+    return append(CompiledProgram.MULT_KNOWN, null, b, a);
+  }
+
+  @Override
+  public DRes<SInt> randomBit() {
+    return append(CompiledProgram.RANDOM_BIT, null, null, null);
+  }
+
+  @Override
+  public DRes<SInt> randomElement() {
+    return append(CompiledProgram.RANDOM_ELEMENT, null, null, null);
+  }
+
+  @Override
+  public DRes<SInt> known(BigInteger value) {
+    return append(CompiledProgram.KNOWN, null, null, value);
+  }
+
+  @Override
+  public DRes<SInt> input(BigInteger value, int inputParty) {
+    throw new UnsupportedOperationException(
+        "Inputs of a compiled program must be given as arguments to the program");
+  }
+
+  @Override
+  public DRes<BigInteger> open(DRes<SInt> secretShare) {
+    throw new UnsupportedOperationException(
+        "A compiled program cannot open values, return the values as outputs instead");
+  }
+
+  @Override
+  public DRes<BigInteger> open(DRes<SInt> secretShare, int outputParty) {
+    throw new UnsupportedOperationException(
+        "A compiled program cannot open values, return the values as outputs instead");
+  }
+}
@@ -0,0 +1,46 @@
+package dk.alexandra.fresco.framework.builder.numeric.compiled;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+
+/**
+ * Native protocol which records an instruction when it is evaluated. The arguments are resolved
+ * at evaluation, exactly as a real native protocol would resolve them.
+ */
+class RecordingProtocol implements NativeProtocol<SInt, ResourcePool> {
+
+  private final ProgramRecorder recorder;
+  private final int opcode;
+  private final DRes<SInt> left;
+  private final DRes<SInt> right;
+  private final BigInteger constant;
+  private Register result;
+
+  RecordingProtocol(ProgramRecorder recorder, int opcode, DRes<SInt> left, DRes<SInt> right,
+      BigInteger constant) {
+    this.recorder = recorder;
+    this.opcode = opcode;
+    this.left = left;
+    this.right = right;
+    this.constant = constant;
+  }
+
+  @Override
+  public EvaluationStatus evaluate(int round, ResourcePool resourcePool, Network network) {
+    result = recorder.emit(opcode, resolve(left), resolve(right), constant);
+    return EvaluationStatus.IS_DONE;
+  }
+
+  private Register resolve(DRes<SInt> value) {
+    return value == null ? null : recorder.resolve(value);
+  }
+
+  @Override
+  public SInt out() {
+    return result;
+  }
+}
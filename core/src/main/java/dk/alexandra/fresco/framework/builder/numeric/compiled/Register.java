@@ -0,0 +1,45 @@
+package dk.alexandra.fresco.framework.builder.numeric.compiled;
+
+import dk.alexandra.fresco.framework.value.SInt;
+
+/**
+ * A secret value while a program is recorded. It only refers to the instruction computing it.
+ */
+final class Register implements SInt {
+
+  private final int index;
+  private final int level;
+
+  Register(int index, int level) {
+    this.index = index;
+    this.level = level;
+  }
+
+  /**
+   * Gets the index of the instruction computing this value.
+   */
+  int getIndex() {
+    return index;
+  }
+
+  /**
+   * Gets the level of the instruction computing this value, i.e., the length of the longest chain
+   * of instructions it depends on.
+   */
+  int getLevel() {
+    return level;
+  }
+
+  @Override
+  public SInt out() {
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "Register{"
+        + "index=" + index
+        + ", level=" + level
+        + '}';
+  }
+}
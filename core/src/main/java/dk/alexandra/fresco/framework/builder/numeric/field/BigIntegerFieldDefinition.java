@@ -95,4 +95,13 @@ public final class BigIntegerFieldDefinition implements FieldDefinition {
   public List<FieldElement> deserializeList(byte[] bytes) {
     return utils.deserializeList(bytes);
   }
+
+  /**
+   * Computes the inner product by summing the unreduced products as a {@link BigInteger}, reducing
+   * only the sum.
+   */
+  @Override
+  public FieldElement innerProduct(List<FieldElement> left, List<FieldElement> right) {
+    return utils.innerProduct(left, right);
+  }
 }
@@ -1,8 +1,10 @@
 package dk.alexandra.fresco.framework.builder.numeric.field;
 
 import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.framework.util.ChunkedReduction;
 import dk.alexandra.fresco.framework.util.StrictBitVector;
 import java.math.BigInteger;
+import java.util.List;
 
 /**
  * Describes a finite field.
@@ -85,5 +87,47 @@ public interface FieldDefinition extends ByteSerializer<FieldElement> {
    *     close to modulus
    */
   BigInteger convertToSigned(BigInteger asUnsigned);
-}
 
+  /**
+   * Creates a vector holding the supplied elements. Field definitions with a compact
+   * representation of elements should override this method to return a vector using that
+   * representation.
+   *
+   * @param elements the elements of the vector
+   * @return a new vector holding the elements
+   */
+  default FieldElementVector createVector(List<FieldElement> elements) {
+    return new GenericFieldElementVector(elements, this);
+  }
+
+  /**
+   * Computes the inner product of two lists of elements. Large inner products are split across the
+   * available processors. Field definitions should override this method to sum the products without
+   * reducing each of them, and reduce the sum only once.
+   *
+   * @param left the left factors
+   * @param right the right factors, must have the same size as the left factors
+   * @return the sum of the element-wise products
+   */
+  default FieldElement innerProduct(List<FieldElement> left, List<FieldElement> right) {
+    FieldUtils.checkSizes(left, right);
+    return ChunkedReduction.reduce(left.size(), (from, to) -> {
+      FieldElement sum = createElement(0);
+      for (int i = from; i < to; i++) {
+        sum = sum.add(left.get(i).multiply(right.get(i)));
+      }
+      return sum;
+    }, FieldElement::add);
+  }
+
+  /**
+   * Reads a list of serialized field elements into a vector, using the same format as {@link
+   * #deserializeList(byte[])}.
+   *
+   * @param bytes the serialized elements
+   * @return the deserialized vector
+   */
+  default FieldElementVector deserializeVector(byte[] bytes) {
+    return createVector(deserializeList(bytes));
+  }
+}
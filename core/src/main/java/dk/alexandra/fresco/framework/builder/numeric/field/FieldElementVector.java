@@ -0,0 +1,82 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A fixed size list of field elements supporting bulk arithmetic.
+ * <p>
+ * Vectors are created by {@link FieldDefinition#createVector(List)} and {@link
+ * FieldDefinition#deserializeVector(byte[])}, which lets a field definition store the elements in
+ * a compact representation, e.g., as one contiguous array of limbs. The bulk operations update
+ * the vector in place, so a computation over many elements does not need to allocate an
+ * intermediate element per operation. Since a vector is a {@link List} it can be passed anywhere a
+ * list of field elements is expected, and {@link FieldDefinition#serialize(List)} is able to
+ * serialize it directly.
+ * </p>
+ * <p>
+ * The size of a vector can not be changed, but elements may be replaced with {@link #set(int,
+ * FieldElement)}. Vectors are not thread safe.
+ * </p>
+ */
+public abstract class FieldElementVector extends AbstractList<FieldElement> implements
+    RandomAccess {
+
+  /**
+   * Creates a copy of this vector which can be modified independently of this vector.
+   *
+   * @return the copy
+   */
+  public abstract FieldElementVector copy();
+
+  /**
+   * Adds the elements of other to this vector, element-wise.
+   *
+   * @param other the elements to add, must have the same size as this vector
+   */
+  public abstract void addInPlace(List<FieldElement> other);
+
+  /**
+   * Subtracts the elements of other from this vector, element-wise.
+   *
+   * @param other the elements to subtract, must have the same size as this vector
+   */
+  public abstract void subtractInPlace(List<FieldElement> other);
+
+  /**
+   * Multiplies the elements of this vector with the elements of other, element-wise.
+   *
+   * @param other the factors, must have the same size as this vector
+   */
+  public abstract void multiplyInPlace(List<FieldElement> other);
+
+  /**
+   * Multiplies each element of this vector by a scalar.
+   *
+   * @param scalar the scalar
+   */
+  public abstract void scaleInPlace(FieldElement scalar);
+
+  /**
+   * Computes the inner product of this vector and other.
+   *
+   * @param other the other factors, must have the same size as this vector
+   * @return the sum of the element-wise products
+   */
+  public abstract FieldElement innerProduct(List<FieldElement> other);
+
+  /**
+   * Computes the sum of the elements of this vector.
+   *
+   * @return the sum
+   */
+  public abstract FieldElement sum();
+
+  void checkSize(List<FieldElement> other) {
+    if (other.size() != size()) {
+      throw new IllegalArgumentException(
+          "Vectors must have same size, got " + size() + " and " + other.size());
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package dk.alexandra.fresco.framework.builder.numeric.field;
 
+import dk.alexandra.fresco.framework.util.ChunkedReduction;
 import dk.alexandra.fresco.framework.util.StrictBitVector;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -108,6 +109,35 @@ final class FieldUtils {
     return elements;
   }
 
+  /**
+   * Computes the inner product of two lists by summing the products of the values without reducing
+   * them, and creating an element from the sum, which reduces it once.
+   *
+   * @param left the left factors
+   * @param right the right factors
+   * @return the inner product
+   */
+  FieldElement innerProduct(List<FieldElement> left, List<FieldElement> right) {
+    checkSizes(left, right);
+    return creator.apply(ChunkedReduction.reduce(left.size(), (from, to) -> {
+      BigInteger sum = BigInteger.ZERO;
+      for (int i = from; i < to; i++) {
+        sum = sum.add(toBigInteger.apply(left.get(i)).multiply(toBigInteger.apply(right.get(i))));
+      }
+      return sum;
+    }, BigInteger::add));
+  }
+
+  /**
+   * Checks that the factors of an inner product have the same size.
+   */
+  static void checkSizes(List<FieldElement> left, List<FieldElement> right) {
+    if (left.size() != right.size()) {
+      throw new IllegalArgumentException(
+          "Lists must have same size, got " + left.size() + " and " + right.size());
+    }
+  }
+
   /**
    * Implementation of {@link FieldDefinition#convertToSigned(BigInteger)}.
    *
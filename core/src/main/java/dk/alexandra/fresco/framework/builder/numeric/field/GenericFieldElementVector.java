@@ -0,0 +1,92 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+import java.util.List;
+
+/**
+ * A {@link FieldElementVector} for any field definition, storing the elements in an array and
+ * using the operations of the elements themselves, except for inner products which are computed by
+ * {@link FieldDefinition#innerProduct(List, List)}.
+ */
+final class GenericFieldElementVector extends FieldElementVector {
+
+  private final FieldElement[] elements;
+  private final FieldDefinition definition;
+
+  GenericFieldElementVector(List<FieldElement> elements, FieldDefinition definition) {
+    this.elements = elements.toArray(new FieldElement[0]);
+    this.definition = definition;
+  }
+
+  private GenericFieldElementVector(FieldElement[] elements, FieldDefinition definition) {
+    this.elements = elements;
+    this.definition = definition;
+  }
+
+  @Override
+  public FieldElement get(int index) {
+    return elements[index];
+  }
+
+  @Override
+  public FieldElement set(int index, FieldElement element) {
+    FieldElement previous = elements[index];
+    elements[index] = element;
+    return previous;
+  }
+
+  @Override
+  public int size() {
+    return elements.length;
+  }
+
+  @Override
+  public FieldElementVector copy() {
+    return new GenericFieldElementVector(elements.clone(), definition);
+  }
+
+  @Override
+  public void addInPlace(List<FieldElement> other) {
+    checkSize(other);
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = elements[i].add(other.get(i));
+    }
+  }
+
+  @Override
+  public void subtractInPlace(List<FieldElement> other) {
+    checkSize(other);
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = elements[i].subtract(other.get(i));
+    }
+  }
+
+  @Override
+  public void multiplyInPlace(List<FieldElement> other) {
+    checkSize(other);
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = elements[i].multiply(other.get(i));
+    }
+  }
+
+  @Override
+  public void scaleInPlace(FieldElement scalar) {
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = elements[i].multiply(scalar);
+    }
+  }
+
+  @Override
+  public FieldElement innerProduct(List<FieldElement> other) {
+    checkSize(other);
+    return definition.innerProduct(this, other);
+  }
+
+  @Override
+  public FieldElement sum() {
+    FieldElement result = definition.createElement(0);
+    for (FieldElement element : elements) {
+      result = result.add(element);
+    }
+    return result;
+  }
+}
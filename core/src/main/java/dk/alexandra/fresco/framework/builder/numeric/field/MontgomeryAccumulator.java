@@ -0,0 +1,77 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+/**
+ * A mutable sum of elements from a {@link MontgomeryFieldDefinition}, updated in place.
+ * <p>
+ * Intended for hot loops such as inner products and MAC computations, where the immutable {@link
+ * FieldElement} operations would allocate a new element per step. An accumulator is not thread
+ * safe.
+ * </p>
+ */
+public final class MontgomeryAccumulator {
+
+  private final MontgomeryModulus modulus;
+  private final long[] sum;
+  private final long[] product;
+  private final long[] scratch;
+
+  MontgomeryAccumulator(MontgomeryModulus modulus) {
+    this.modulus = modulus;
+    this.sum = new long[modulus.getLimbs()];
+    this.product = new long[modulus.getLimbs()];
+    this.scratch = new long[modulus.getLimbs() + 2];
+  }
+
+  /**
+   * Adds an element to the sum.
+   *
+   * @param element the element to add
+   */
+  public void add(FieldElement element) {
+    modulus.add(sum, MontgomeryFieldElement.extractLimbs(element), sum);
+  }
+
+  /**
+   * Subtracts an element from the sum.
+   *
+   * @param element the element to subtract
+   */
+  public void subtract(FieldElement element) {
+    modulus.subtract(sum, MontgomeryFieldElement.extractLimbs(element), sum);
+  }
+
+  /**
+   * Adds the product of two elements to the sum.
+   *
+   * @param left the left factor
+   * @param right the right factor
+   */
+  public void addProduct(FieldElement left, FieldElement right) {
+    long[] leftLimbs = MontgomeryFieldElement.extractLimbs(left);
+    long[] rightLimbs = MontgomeryFieldElement.extractLimbs(right);
+    if (sum.length == 1) {
+      product[0] = modulus.multiply(leftLimbs[0], rightLimbs[0]);
+    } else {
+      modulus.multiply(leftLimbs, rightLimbs, product, scratch);
+    }
+    modulus.add(sum, product, sum);
+  }
+
+  /**
+   * Gets the current sum as a new field element.
+   *
+   * @return the sum
+   */
+  public FieldElement get() {
+    return new MontgomeryFieldElement(sum.clone(), modulus);
+  }
+
+  /**
+   * Resets the sum to zero.
+   */
+  public void reset() {
+    for (int i = 0; i < sum.length; i++) {
+      sum[i] = 0;
+    }
+  }
+}
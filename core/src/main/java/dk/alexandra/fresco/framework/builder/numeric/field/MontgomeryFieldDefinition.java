@@ -0,0 +1,196 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A finite field for an odd modulus where elements are stored as fixed-width 64-bit limbs in
+ * Montgomery form. Arithmetic works directly on the limbs and avoids the {@link BigInteger}
+ * allocations and reductions done by {@link BigIntegerFieldDefinition}. Elements are serialized
+ * in the same format as the other field definitions, but without going through {@link
+ * BigInteger}.
+ * <p>
+ * For hot loops {@link #createAccumulator()} gives a sum which is updated in place.
+ * </p>
+ */
+public final class MontgomeryFieldDefinition implements FieldDefinition {
+
+  private final MontgomeryModulus modulus;
+  private final BigInteger modulusHalf;
+  private final int modulusBitLength;
+  private final int byteLength;
+
+  /**
+   * Construct a new field definition for a specified modulus.
+   *
+   * @param modulus the modulus, must be odd
+   */
+  public MontgomeryFieldDefinition(BigInteger modulus) {
+    this.modulus = new MontgomeryModulus(modulus);
+    this.modulusHalf = modulus.shiftRight(1);
+    this.modulusBitLength = modulus.bitLength();
+    this.byteLength = 1 + ((modulusBitLength - 1) / 8);
+  }
+
+  /**
+   * Construct a new field definition for a specified modulus.
+   *
+   * @param modulus the modulus as a string, must be odd
+   */
+  public MontgomeryFieldDefinition(String modulus) {
+    this(new BigInteger(modulus));
+  }
+
+  /**
+   * Creates a new accumulator for summing elements of this field in place.
+   *
+   * @return an accumulator holding zero
+   */
+  public MontgomeryAccumulator createAccumulator() {
+    return new MontgomeryAccumulator(modulus);
+  }
+
+  @Override
+  public FieldElement createElement(long value) {
+    return MontgomeryFieldElement.create(value, modulus);
+  }
+
+  @Override
+  public FieldElement createElement(String value) {
+    return MontgomeryFieldElement.create(value, modulus);
+  }
+
+  @Override
+  public FieldElement createElement(BigInteger value) {
+    return MontgomeryFieldElement.create(value, modulus);
+  }
+
+  @Override
+  public BigInteger getModulus() {
+    return modulus.getBigInteger();
+  }
+
+  @Override
+  public int getBitLength() {
+    return modulusBitLength;
+  }
+
+  @Override
+  public StrictBitVector convertToBitVector(FieldElement fieldElement) {
+    return new StrictBitVector(serialize(fieldElement));
+  }
+
+  @Override
+  public BigInteger convertToUnsigned(FieldElement value) {
+    return MontgomeryFieldElement.extractValue(value);
+  }
+
+  @Override
+  public BigInteger convertToSigned(BigInteger asUnsigned) {
+    return FieldUtils.convertRepresentation(asUnsigned, getModulus(), modulusHalf);
+  }
+
+  @Override
+  public byte[] serialize(FieldElement fieldElement) {
+    byte[] bytes = new byte[byteLength];
+    int limbs = modulus.getLimbs();
+    write(MontgomeryFieldElement.extractLimbs(fieldElement), 0, bytes, 0, new long[limbs],
+        new long[limbs + 2]);
+    return bytes;
+  }
+
+  @Override
+  public byte[] serialize(List<FieldElement> fieldElements) {
+    byte[] bytes = new byte[byteLength * fieldElements.size()];
+    int limbs = modulus.getLimbs();
+    long[] normal = new long[limbs];
+    long[] scratch = new long[limbs + 2];
+    if (fieldElements instanceof MontgomeryFieldElementVector) {
+      long[] values = ((MontgomeryFieldElementVector) fieldElements).getValues();
+      for (int i = 0; i < fieldElements.size(); i++) {
+        write(values, i * limbs, bytes, i * byteLength, normal, scratch);
+      }
+    } else {
+      for (int i = 0; i < fieldElements.size(); i++) {
+        write(MontgomeryFieldElement.extractLimbs(fieldElements.get(i)), 0, bytes,
+            i * byteLength, normal, scratch);
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public FieldElement deserialize(byte[] bytes) {
+    long[] limbs = new long[modulus.getLimbs()];
+    read(bytes, 0, limbs, 0, new long[limbs.length + 2]);
+    return new MontgomeryFieldElement(limbs, modulus);
+  }
+
+  @Override
+  public List<FieldElement> deserializeList(byte[] bytes) {
+    return new ArrayList<>(deserializeVector(bytes));
+  }
+
+  @Override
+  public FieldElementVector createVector(List<FieldElement> elements) {
+    return new MontgomeryFieldElementVector(elements, modulus);
+  }
+
+  /**
+   * Computes the inner product by accumulating the unreduced products of the limbs, reducing only
+   * the sum.
+   */
+  @Override
+  public FieldElement innerProduct(List<FieldElement> left, List<FieldElement> right) {
+    FieldUtils.checkSizes(left, right);
+    return MontgomeryFieldElementVector.innerProduct(left, right, modulus);
+  }
+
+  @Override
+  public FieldElementVector deserializeVector(byte[] bytes) {
+    int count = bytes.length / byteLength;
+    int limbs = modulus.getLimbs();
+    long[] values = new long[count * limbs];
+    long[] scratch = new long[limbs + 2];
+    for (int i = 0; i < count; i++) {
+      read(bytes, i * byteLength, values, i * limbs, scratch);
+    }
+    return new MontgomeryFieldElementVector(values, count, modulus);
+  }
+
+  /**
+   * Writes a value in normal form as a big-endian number of <code>byteLength</code> bytes.
+   */
+  private void write(long[] values, int valuesOffset, byte[] bytes, int offset, long[] normal,
+      long[] scratch) {
+    modulus.fromMontgomery(values, valuesOffset, normal, scratch);
+    int end = offset + byteLength - 1;
+    for (int i = 0; i < byteLength; i++) {
+      bytes[end - i] = (byte) (normal[i >>> 3] >>> ((i & 7) << 3));
+    }
+  }
+
+  /**
+   * Reads a big-endian number of <code>byteLength</code> bytes directly into limbs in Montgomery
+   * form.
+   */
+  private void read(byte[] bytes, int offset, long[] values, int valuesOffset, long[] scratch) {
+    int limbs = modulus.getLimbs();
+    Arrays.fill(values, valuesOffset, valuesOffset + limbs, 0L);
+    int end = offset + byteLength - 1;
+    for (int i = 0; i < byteLength; i++) {
+      values[valuesOffset + (i >>> 3)] |= (bytes[end - i] & 0xFFL) << ((i & 7) << 3);
+    }
+    if (!modulus.lessThanPrime(values, valuesOffset)) {
+      // Only happens for non-canonical input
+      long[] reduced = MontgomeryFieldElement.extractLimbs(createElement(MontgomeryModulus
+          .fromLimbs(Arrays.copyOfRange(values, valuesOffset, valuesOffset + limbs))));
+      System.arraycopy(reduced, 0, values, valuesOffset, limbs);
+    } else {
+      modulus.toMontgomery(values, valuesOffset, scratch);
+    }
+  }
+}
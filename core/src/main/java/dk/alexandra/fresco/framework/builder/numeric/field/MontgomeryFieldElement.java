@@ -0,0 +1,119 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+import dk.alexandra.fresco.framework.util.MathUtils;
+import java.math.BigInteger;
+
+/**
+ * An element in a field defined by a {@link MontgomeryModulus}. The value is stored in Montgomery
+ * form as fixed-width 64-bit limbs.
+ */
+final class MontgomeryFieldElement implements FieldElement {
+
+  private static final long serialVersionUID = 3140516735468208233L;
+
+  private final long[] value;
+  private final MontgomeryModulus modulus;
+
+  /**
+   * Wraps an array of limbs already in Montgomery form. The array is not copied.
+   */
+  MontgomeryFieldElement(long[] value, MontgomeryModulus modulus) {
+    this.value = value;
+    this.modulus = modulus;
+  }
+
+  static FieldElement create(BigInteger value, MontgomeryModulus modulus) {
+    BigInteger reduced = value.mod(modulus.getBigInteger());
+    long[] limbs = MontgomeryModulus.toLimbs(reduced, modulus.getLimbs());
+    modulus.toMontgomery(limbs, limbs, new long[modulus.getLimbs() + 2]);
+    return new MontgomeryFieldElement(limbs, modulus);
+  }
+
+  static FieldElement create(long value, MontgomeryModulus modulus) {
+    if (value < 0) {
+      return create(BigInteger.valueOf(value), modulus);
+    }
+    long[] limbs = new long[modulus.getLimbs()];
+    limbs[0] = value;
+    if (!modulus.lessThanPrime(limbs)) {
+      limbs[0] = Long.remainderUnsigned(value, modulus.getBigInteger().longValue());
+    }
+    modulus.toMontgomery(limbs, limbs, new long[modulus.getLimbs() + 2]);
+    return new MontgomeryFieldElement(limbs, modulus);
+  }
+
+  static FieldElement create(String string, MontgomeryModulus modulus) {
+    return create(new BigInteger(string), modulus);
+  }
+
+  @Override
+  public FieldElement add(FieldElement operand) {
+    long[] result = new long[value.length];
+    modulus.add(value, extractLimbs(operand), result);
+    return new MontgomeryFieldElement(result, modulus);
+  }
+
+  @Override
+  public FieldElement subtract(FieldElement operand) {
+    long[] result = new long[value.length];
+    modulus.subtract(value, extractLimbs(operand), result);
+    return new MontgomeryFieldElement(result, modulus);
+  }
+
+  @Override
+  public FieldElement negate() {
+    long[] result = new long[value.length];
+    modulus.negate(value, result);
+    return new MontgomeryFieldElement(result, modulus);
+  }
+
+  @Override
+  public FieldElement multiply(FieldElement operand) {
+    long[] other = extractLimbs(operand);
+    long[] result;
+    if (value.length == 1) {
+      result = new long[]{modulus.multiply(value[0], other[0])};
+    } else {
+      result = new long[value.length];
+      modulus.multiply(value, other, result, new long[value.length + 2]);
+    }
+    return new MontgomeryFieldElement(result, modulus);
+  }
+
+  @Override
+  public FieldElement sqrt() {
+    return create(MathUtils.modularSqrt(extractValue(this), getModulus()), modulus);
+  }
+
+  @Override
+  public FieldElement modInverse() {
+    return create(extractValue(this).modInverse(getModulus()), modulus);
+  }
+
+  /**
+   * Gets the limbs of an element in Montgomery form. The returned array must not be modified.
+   */
+  static long[] extractLimbs(FieldElement element) {
+    return ((MontgomeryFieldElement) element).value;
+  }
+
+  static BigInteger extractValue(FieldElement element) {
+    MontgomeryFieldElement montgomery = (MontgomeryFieldElement) element;
+    MontgomeryModulus modulus = montgomery.modulus;
+    long[] normal = new long[modulus.getLimbs()];
+    modulus.fromMontgomery(montgomery.value, normal, new long[modulus.getLimbs() + 2]);
+    return MontgomeryModulus.fromLimbs(normal);
+  }
+
+  private BigInteger getModulus() {
+    return modulus.getBigInteger();
+  }
+
+  @Override
+  public String toString() {
+    return "MontgomeryFieldElement{"
+        + "value=" + extractValue(this)
+        + ", modulus=" + modulus
+        + '}';
+  }
+}
@@ -0,0 +1,193 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+import dk.alexandra.fresco.framework.util.ChunkedReduction;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link FieldElementVector} for a {@link MontgomeryFieldDefinition} storing all elements in
+ * Montgomery form in a single array of limbs. Operations with another vector of this type work
+ * directly on the two arrays.
+ */
+final class MontgomeryFieldElementVector extends FieldElementVector {
+
+  private final MontgomeryModulus modulus;
+  private final int limbs;
+  private final int size;
+  private final long[] values;
+  private final long[] scratch;
+
+  /**
+   * Wraps an array of limbs already in Montgomery form. The array is not copied.
+   */
+  MontgomeryFieldElementVector(long[] values, int size, MontgomeryModulus modulus) {
+    this.modulus = modulus;
+    this.limbs = modulus.getLimbs();
+    this.size = size;
+    this.values = values;
+    this.scratch = new long[limbs + 2];
+  }
+
+  MontgomeryFieldElementVector(List<FieldElement> elements, MontgomeryModulus modulus) {
+    this(new long[elements.size() * modulus.getLimbs()], elements.size(), modulus);
+    for (int i = 0; i < size; i++) {
+      write(i, elements.get(i));
+    }
+  }
+
+  /**
+   * Gets the array of limbs backing this vector. The array must not be modified.
+   */
+  long[] getValues() {
+    return values;
+  }
+
+  @Override
+  public FieldElement get(int index) {
+    checkIndex(index);
+    int offset = index * limbs;
+    return new MontgomeryFieldElement(Arrays.copyOfRange(values, offset, offset + limbs),
+        modulus);
+  }
+
+  @Override
+  public FieldElement set(int index, FieldElement element) {
+    FieldElement previous = get(index);
+    write(index, element);
+    return previous;
+  }
+
+  private void write(int index, FieldElement element) {
+    System.arraycopy(MontgomeryFieldElement.extractLimbs(element), 0, values, index * limbs,
+        limbs);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public FieldElementVector copy() {
+    return new MontgomeryFieldElementVector(values.clone(), size, modulus);
+  }
+
+  @Override
+  public void addInPlace(List<FieldElement> other) {
+    checkSize(other);
+    long[] otherValues = valuesOf(other);
+    for (int i = 0, offset = 0; i < size; i++, offset += limbs) {
+      if (otherValues != null) {
+        modulus.add(values, offset, otherValues, offset, values, offset);
+      } else {
+        modulus.add(values, offset, limbsOf(other, i), 0, values, offset);
+      }
+    }
+  }
+
+  @Override
+  public void subtractInPlace(List<FieldElement> other) {
+    checkSize(other);
+    long[] otherValues = valuesOf(other);
+    for (int i = 0, offset = 0; i < size; i++, offset += limbs) {
+      if (otherValues != null) {
+        modulus.subtract(values, offset, otherValues, offset, values, offset);
+      } else {
+        modulus.subtract(values, offset, limbsOf(other, i), 0, values, offset);
+      }
+    }
+  }
+
+  @Override
+  public void multiplyInPlace(List<FieldElement> other) {
+    checkSize(other);
+    long[] otherValues = valuesOf(other);
+    for (int i = 0, offset = 0; i < size; i++, offset += limbs) {
+      if (otherValues != null) {
+        multiply(values, offset, otherValues, offset, values, offset);
+      } else {
+        multiply(values, offset, limbsOf(other, i), 0, values, offset);
+      }
+    }
+  }
+
+  @Override
+  public void scaleInPlace(FieldElement scalar) {
+    long[] scalarLimbs = MontgomeryFieldElement.extractLimbs(scalar);
+    for (int offset = 0; offset < values.length; offset += limbs) {
+      multiply(values, offset, scalarLimbs, 0, values, offset);
+    }
+  }
+
+  @Override
+  public FieldElement innerProduct(List<FieldElement> other) {
+    checkSize(other);
+    return innerProduct(this, other, modulus);
+  }
+
+  /**
+   * Computes the inner product of two lists of elements of a {@link MontgomeryFieldDefinition},
+   * working directly on the arrays of limbs of lists that are vectors of this type. The products
+   * are accumulated without reduction and the sum is reduced once, see {@link
+   * MontgomeryModulus#multiplyAccumulate(long[], int, long[], int, long[])}.
+   */
+  static FieldElement innerProduct(List<FieldElement> left, List<FieldElement> right,
+      MontgomeryModulus modulus) {
+    final int limbs = modulus.getLimbs();
+    long[] leftValues = valuesOf(left);
+    long[] rightValues = valuesOf(right);
+    long[] sum = ChunkedReduction.reduce(left.size(), (from, to) -> {
+      long[] accumulator = new long[2 * limbs + 1];
+      for (int i = from; i < to; i++) {
+        int offset = i * limbs;
+        if (leftValues != null && rightValues != null) {
+          modulus.multiplyAccumulate(leftValues, offset, rightValues, offset, accumulator);
+        } else if (leftValues != null) {
+          modulus.multiplyAccumulate(leftValues, offset, limbsOf(right, i), 0, accumulator);
+        } else if (rightValues != null) {
+          modulus.multiplyAccumulate(limbsOf(left, i), 0, rightValues, offset, accumulator);
+        } else {
+          modulus.multiplyAccumulate(limbsOf(left, i), 0, limbsOf(right, i), 0, accumulator);
+        }
+      }
+      return accumulator;
+    }, modulus::addWide);
+    return new MontgomeryFieldElement(modulus.reduceWide(sum), modulus);
+  }
+
+  @Override
+  public FieldElement sum() {
+    long[] sum = new long[limbs];
+    for (int offset = 0; offset < values.length; offset += limbs) {
+      modulus.add(sum, 0, values, offset, sum, 0);
+    }
+    return new MontgomeryFieldElement(sum, modulus);
+  }
+
+  private void multiply(long[] a, int aOffset, long[] b, int bOffset, long[] result,
+      int resultOffset) {
+    if (limbs == 1) {
+      result[resultOffset] = modulus.multiply(a[aOffset], b[bOffset]);
+    } else {
+      modulus.multiply(a, aOffset, b, bOffset, result, resultOffset, scratch);
+    }
+  }
+
+  private static long[] valuesOf(List<FieldElement> other) {
+    if (other instanceof MontgomeryFieldElementVector) {
+      return ((MontgomeryFieldElementVector) other).values;
+    } else {
+      return null;
+    }
+  }
+
+  private static long[] limbsOf(List<FieldElement> other, int index) {
+    return MontgomeryFieldElement.extractLimbs(other.get(index));
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
@@ -0,0 +1,457 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An odd modulus represented as fixed-width little-endian 64-bit limbs, with the arithmetic needed
+ * for computing in Montgomery form, i.e., where an element <i>a</i> is represented as <i>aR mod
+ * p</i> for <i>R = 2<sup>64n</sup></i> and <i>n</i> the number of limbs.
+ * <p>
+ * All methods operate on caller supplied arrays, so the hot paths do not allocate. The values are
+ * treated as unsigned and must be smaller than the modulus.
+ * </p>
+ */
+final class MontgomeryModulus implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+  private static final long LOWER_32 = 0xFFFFFFFFL;
+
+  private final BigInteger value;
+  private final int limbs;
+  private final long[] prime;
+  // -p^-1 mod 2^64
+  private final long inverse;
+  // R^2 mod p, i.e., the Montgomery form of R
+  private final long[] rSquared;
+  // 1 in normal form
+  private final long[] unit;
+
+  /**
+   * Creates a new modulus object. The modulus must be odd and larger than 1.
+   *
+   * @param value the underlying value to use as modulus.
+   */
+  MontgomeryModulus(BigInteger value) {
+    Objects.requireNonNull(value);
+    if (value.compareTo(BigInteger.ONE) <= 0 || !value.testBit(0)) {
+      throw new IllegalArgumentException("Only odd modulus larger than 1 is acceptable");
+    }
+    this.value = value;
+    this.limbs = (value.bitLength() + 63) / 64;
+    this.prime = toLimbs(value, limbs);
+    long inv = prime[0];
+    // Newton iteration, each step doubles the number of correct low bits
+    for (int i = 0; i < 5; i++) {
+      inv *= 2 - prime[0] * inv;
+    }
+    this.inverse = -inv;
+    this.rSquared = toLimbs(BigInteger.ONE.shiftLeft(128 * limbs).mod(value), limbs);
+    this.unit = new long[limbs];
+    this.unit[0] = 1;
+  }
+
+  BigInteger getBigInteger() {
+    return value;
+  }
+
+  int getLimbs() {
+    return limbs;
+  }
+
+  /**
+   * Computes the Montgomery product <i>a b R<sup>-1</sup> mod p</i>. The result array may be one of
+   * the operands.
+   *
+   * @param a the left operand
+   * @param b the right operand
+   * @param result array of length n receiving the result
+   * @param scratch array of length at least n + 2 used for intermediate results
+   */
+  void multiply(long[] a, long[] b, long[] result, long[] scratch) {
+    multiply(a, 0, b, 0, result, 0, scratch);
+  }
+
+  /**
+   * Computes the Montgomery product of values stored at the given offsets. The result may overlap
+   * one of the operands.
+   */
+  void multiply(long[] a, int aOffset, long[] b, int bOffset, long[] result, int resultOffset,
+      long[] scratch) {
+    final int n = limbs;
+    final long[] t = scratch;
+    Arrays.fill(t, 0, n + 2, 0L);
+    for (int i = 0; i < n; i++) {
+      // t = t + a * b[i]
+      final long bi = b[bOffset + i];
+      long carry = 0;
+      for (int j = 0; j < n; j++) {
+        final long aj = a[aOffset + j];
+        long lo = aj * bi;
+        long hi = multiplyHigh(aj, bi);
+        lo += t[j];
+        if (Long.compareUnsigned(lo, t[j]) < 0) {
+          hi++;
+        }
+        lo += carry;
+        if (Long.compareUnsigned(lo, carry) < 0) {
+          hi++;
+        }
+        t[j] = lo;
+        carry = hi;
+      }
+      long sum = t[n] + carry;
+      t[n + 1] = Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+      t[n] = sum;
+      // t = (t + m * p) / 2^64
+      final long m = t[0] * inverse;
+      long lo = m * prime[0];
+      carry = multiplyHigh(m, prime[0]);
+      if (Long.compareUnsigned(lo + t[0], lo) < 0) {
+        carry++;
+      }
+      for (int j = 1; j < n; j++) {
+        lo = m * prime[j];
+        long hi = multiplyHigh(m, prime[j]);
+        lo += t[j];
+        if (Long.compareUnsigned(lo, t[j]) < 0) {
+          hi++;
+        }
+        lo += carry;
+        if (Long.compareUnsigned(lo, carry) < 0) {
+          hi++;
+        }
+        t[j - 1] = lo;
+        carry = hi;
+      }
+      sum = t[n] + carry;
+      t[n - 1] = sum;
+      t[n] = t[n + 1] + (Long.compareUnsigned(sum, carry) < 0 ? 1 : 0);
+    }
+    if (t[n] != 0 || !lessThanPrime(t, 0)) {
+      subtractPrime(t, 0, result, resultOffset);
+    } else {
+      System.arraycopy(t, 0, result, resultOffset, n);
+    }
+  }
+
+  /**
+   * Computes the Montgomery product for a modulus of a single limb.
+   *
+   * @param a the left operand
+   * @param b the right operand
+   * @return <i>a b R<sup>-1</sup> mod p</i>
+   */
+  long multiply(long a, long b) {
+    final long p = prime[0];
+    long lo = a * b;
+    long hi = multiplyHigh(a, b);
+    long m = lo * inverse;
+    long mhi = multiplyHigh(m, p);
+    // lo + m * p = 0 mod 2^64, so it carries unless lo is zero
+    long carry = lo != 0 ? 1 : 0;
+    long sum = hi + mhi;
+    boolean overflow = Long.compareUnsigned(sum, hi) < 0;
+    sum += carry;
+    overflow |= Long.compareUnsigned(sum, carry) < 0;
+    if (overflow || Long.compareUnsigned(sum, p) >= 0) {
+      sum -= p;
+    }
+    return sum;
+  }
+
+  /**
+   * Adds the plain, unreduced product of two values to a wide accumulator, for computing sums of
+   * products with a single reduction, see {@link #reduceWide(long[])}. The accumulator holds
+   * <i>2n + 1</i> limbs, which is room for the sum of up to <i>2<sup>64</sup></i> products.
+   *
+   * @param a array holding the left operand
+   * @param aOffset the offset of the left operand
+   * @param b array holding the right operand
+   * @param bOffset the offset of the right operand
+   * @param accumulator the accumulator
+   */
+  void multiplyAccumulate(long[] a, int aOffset, long[] b, int bOffset, long[] accumulator) {
+    final int n = limbs;
+    if (n == 1) {
+      long lo = a[aOffset] * b[bOffset];
+      long hi = multiplyHigh(a[aOffset], b[bOffset]);
+      long sum = accumulator[0] + lo;
+      if (Long.compareUnsigned(sum, lo) < 0) {
+        // The upper word of a product is at most 2^64 - 2, so this does not overflow
+        hi++;
+      }
+      accumulator[0] = sum;
+      sum = accumulator[1] + hi;
+      if (Long.compareUnsigned(sum, hi) < 0) {
+        accumulator[2]++;
+      }
+      accumulator[1] = sum;
+      return;
+    }
+    for (int i = 0; i < n; i++) {
+      final long bi = b[bOffset + i];
+      long carry = 0;
+      for (int j = 0; j < n; j++) {
+        final long aj = a[aOffset + j];
+        long lo = aj * bi;
+        long hi = multiplyHigh(aj, bi);
+        lo += accumulator[i + j];
+        if (Long.compareUnsigned(lo, accumulator[i + j]) < 0) {
+          hi++;
+        }
+        lo += carry;
+        if (Long.compareUnsigned(lo, carry) < 0) {
+          hi++;
+        }
+        accumulator[i + j] = lo;
+        carry = hi;
+      }
+      for (int k = i + n; carry != 0; k++) {
+        long sum = accumulator[k] + carry;
+        carry = Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+        accumulator[k] = sum;
+      }
+    }
+  }
+
+  /**
+   * Adds one wide accumulator to another.
+   *
+   * @param accumulator the accumulator to add to
+   * @param other the accumulator to add
+   * @return the first accumulator
+   */
+  long[] addWide(long[] accumulator, long[] other) {
+    long carry = 0;
+    for (int i = 0; i < accumulator.length; i++) {
+      long sum = accumulator[i] + carry;
+      carry = Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+      long total = sum + other[i];
+      carry += Long.compareUnsigned(total, sum) < 0 ? 1 : 0;
+      accumulator[i] = total;
+    }
+    return accumulator;
+  }
+
+  /**
+   * Reduces a wide accumulator of products of elements in Montgomery form to the Montgomery form of
+   * the sum of the products of the elements, i.e., computes <i>t R<sup>-1</sup> mod p</i> for the
+   * accumulated value <i>t</i>.
+   *
+   * @param accumulator the accumulator, see {@link #multiplyAccumulate(long[], int, long[], int,
+   *     long[])}
+   * @return the reduced value
+   */
+  long[] reduceWide(long[] accumulator) {
+    long[] result = toLimbs(fromLimbs(accumulator).mod(value), limbs);
+    multiply(result, unit, result, new long[limbs + 2]);
+    return result;
+  }
+
+  /**
+   * Computes <i>a + b mod p</i>. The result array may be one of the operands.
+   */
+  void add(long[] a, long[] b, long[] result) {
+    add(a, 0, b, 0, result, 0);
+  }
+
+  /**
+   * Computes <i>a + b mod p</i> for values stored at the given offsets.
+   */
+  void add(long[] a, int aOffset, long[] b, int bOffset, long[] result, int resultOffset) {
+    long carry = 0;
+    for (int i = 0; i < limbs; i++) {
+      long x = a[aOffset + i];
+      long y = b[bOffset + i];
+      long sum = x + y + carry;
+      carry = ((x & y) | ((x | y) & ~sum)) >>> 63;
+      result[resultOffset + i] = sum;
+    }
+    if (carry != 0 || !lessThanPrime(result, resultOffset)) {
+      subtractPrime(result, resultOffset, result, resultOffset);
+    }
+  }
+
+  /**
+   * Computes <i>a - b mod p</i>. The result array may be one of the operands.
+   */
+  void subtract(long[] a, long[] b, long[] result) {
+    subtract(a, 0, b, 0, result, 0);
+  }
+
+  /**
+   * Computes <i>a - b mod p</i> for values stored at the given offsets.
+   */
+  void subtract(long[] a, int aOffset, long[] b, int bOffset, long[] result, int resultOffset) {
+    long borrow = 0;
+    for (int i = 0; i < limbs; i++) {
+      long x = a[aOffset + i];
+      long y = b[bOffset + i];
+      long diff = x - y - borrow;
+      borrow = ((~x & y) | ((~x | y) & diff)) >>> 63;
+      result[resultOffset + i] = diff;
+    }
+    if (borrow != 0) {
+      long carry = 0;
+      for (int i = 0; i < limbs; i++) {
+        long x = result[resultOffset + i];
+        long y = prime[i];
+        long sum = x + y + carry;
+        carry = ((x & y) | ((x | y) & ~sum)) >>> 63;
+        result[resultOffset + i] = sum;
+      }
+    }
+  }
+
+  /**
+   * Computes <i>-a mod p</i>. The result array may be the operand.
+   */
+  void negate(long[] a, long[] result) {
+    if (isZero(a)) {
+      Arrays.fill(result, 0, limbs, 0L);
+    } else {
+      long borrow = 0;
+      for (int i = 0; i < limbs; i++) {
+        long x = prime[i];
+        long y = a[i];
+        long diff = x - y - borrow;
+        borrow = ((~x & y) | ((~x | y) & diff)) >>> 63;
+        result[i] = diff;
+      }
+    }
+  }
+
+  /**
+   * Converts a reduced value in normal form to Montgomery form.
+   */
+  void toMontgomery(long[] a, long[] result, long[] scratch) {
+    if (limbs == 1) {
+      result[0] = multiply(a[0], rSquared[0]);
+    } else {
+      multiply(a, rSquared, result, scratch);
+    }
+  }
+
+  /**
+   * Converts a reduced value in normal form stored at the given offset to Montgomery form, in
+   * place.
+   */
+  void toMontgomery(long[] a, int offset, long[] scratch) {
+    if (limbs == 1) {
+      a[offset] = multiply(a[offset], rSquared[0]);
+    } else {
+      multiply(a, offset, rSquared, 0, a, offset, scratch);
+    }
+  }
+
+  /**
+   * Converts a value in Montgomery form to normal form.
+   */
+  void fromMontgomery(long[] a, long[] result, long[] scratch) {
+    fromMontgomery(a, 0, result, scratch);
+  }
+
+  /**
+   * Converts a value in Montgomery form stored at the given offset to normal form.
+   */
+  void fromMontgomery(long[] a, int offset, long[] result, long[] scratch) {
+    if (limbs == 1) {
+      result[0] = multiply(a[offset], 1L);
+    } else {
+      multiply(a, offset, unit, 0, result, 0, scratch);
+    }
+  }
+
+  boolean isZero(long[] a) {
+    for (int i = 0; i < limbs; i++) {
+      if (a[i] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tests if the first n limbs of the value is strictly smaller than the modulus.
+   */
+  boolean lessThanPrime(long[] a) {
+    return lessThanPrime(a, 0);
+  }
+
+  /**
+   * Tests if the value stored at the given offset is strictly smaller than the modulus.
+   */
+  boolean lessThanPrime(long[] a, int offset) {
+    for (int i = limbs - 1; i >= 0; i--) {
+      int compare = Long.compareUnsigned(a[offset + i], prime[i]);
+      if (compare != 0) {
+        return compare < 0;
+      }
+    }
+    return false;
+  }
+
+  private void subtractPrime(long[] a, int aOffset, long[] result, int resultOffset) {
+    long borrow = 0;
+    for (int i = 0; i < limbs; i++) {
+      long x = a[aOffset + i];
+      long y = prime[i];
+      long diff = x - y - borrow;
+      borrow = ((~x & y) | ((~x | y) & diff)) >>> 63;
+      result[resultOffset + i] = diff;
+    }
+  }
+
+  /**
+   * Computes the upper 64 bits of the unsigned 128 bit product of two longs.
+   */
+  static long multiplyHigh(long a, long b) {
+    long a0 = a & LOWER_32;
+    long a1 = a >>> 32;
+    long b0 = b & LOWER_32;
+    long b1 = b >>> 32;
+    long p00 = a0 * b0;
+    long p01 = a0 * b1;
+    long p10 = a1 * b0;
+    long p11 = a1 * b1;
+    long middle = (p00 >>> 32) + (p01 & LOWER_32) + (p10 & LOWER_32);
+    return p11 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+  }
+
+  /**
+   * Converts a non-negative value to little-endian limbs.
+   */
+  static long[] toLimbs(BigInteger value, int limbs) {
+    long[] result = new long[limbs];
+    for (int i = 0; i < limbs; i++) {
+      result[i] = value.shiftRight(64 * i).longValue();
+    }
+    return result;
+  }
+
+  /**
+   * Converts little-endian limbs to a non-negative value.
+   */
+  static BigInteger fromLimbs(long[] limbs) {
+    byte[] bytes = new byte[limbs.length * 8];
+    for (int i = 0; i < limbs.length; i++) {
+      long limb = limbs[i];
+      int offset = bytes.length - 8 * (i + 1);
+      for (int j = 7; j >= 0; j--) {
+        bytes[offset + j] = (byte) limb;
+        limb >>>= 8;
+      }
+    }
+    return new BigInteger(1, bytes);
+  }
+
+  @Override
+  public String toString() {
+    return "MontgomeryModulus{"
+        + "value=" + value
+        + '}';
+  }
+}
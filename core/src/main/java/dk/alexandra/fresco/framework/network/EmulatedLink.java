@@ -0,0 +1,81 @@
+package dk.alexandra.fresco.framework.network;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The properties of a link to another party emulated by a {@link NetworkEmulationDecorator}.
+ */
+public class EmulatedLink {
+
+  /**
+   * The bandwidth of a link with no cap on the bandwidth.
+   */
+  public static final long UNLIMITED_BANDWIDTH = 0;
+
+  private final Duration latency;
+  private final Duration jitter;
+  private final long bytesPerSecond;
+
+  /**
+   * Creates a link.
+   *
+   * @param latency the one-way latency of a message
+   * @param jitter the maximum deviation from the latency, each message is delayed by the latency
+   *     plus or minus a uniformly random amount up to the jitter
+   * @param bytesPerSecond the bandwidth of the link, or {@link #UNLIMITED_BANDWIDTH}
+   */
+  public EmulatedLink(Duration latency, Duration jitter, long bytesPerSecond) {
+    Objects.requireNonNull(latency);
+    Objects.requireNonNull(jitter);
+    if (latency.isNegative() || jitter.isNegative()) {
+      throw new IllegalArgumentException("Latency and jitter must be non-negative");
+    }
+    if (bytesPerSecond < 0) {
+      throw new IllegalArgumentException("Bandwidth must be non-negative");
+    }
+    this.latency = latency;
+    this.jitter = jitter;
+    this.bytesPerSecond = bytesPerSecond;
+  }
+
+  /**
+   * Creates a link with a fixed latency and no cap on the bandwidth.
+   *
+   * @param latency the one-way latency of a message
+   */
+  public EmulatedLink(Duration latency) {
+    this(latency, Duration.ZERO, UNLIMITED_BANDWIDTH);
+  }
+
+  public Duration getLatency() {
+    return latency;
+  }
+
+  public Duration getJitter() {
+    return jitter;
+  }
+
+  public long getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  /**
+   * Computes the time it takes to put a message on the link.
+   *
+   * @param bytes the length of the message
+   * @return the transmission time in nanoseconds
+   */
+  long transmissionNanos(int bytes) {
+    if (bytesPerSecond == UNLIMITED_BANDWIDTH) {
+      return 0;
+    }
+    return (long) (bytes * 1e9 / bytesPerSecond);
+  }
+
+  @Override
+  public String toString() {
+    return "EmulatedLink [latency=" + latency + ", jitter=" + jitter + ", bytesPerSecond="
+        + bytesPerSecond + "]";
+  }
+}
@@ -0,0 +1,227 @@
+package dk.alexandra.fresco.framework.network;
+
+import dk.alexandra.fresco.framework.util.SpscRingBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A network between parties running in the same JVM, such that computations with many parties and
+ * many gates can be simulated in a single process without sockets.
+ * <p>
+ * Each ordered pair of parties has its own channel, which is a chain of lock-free single producer,
+ * single consumer {@link SpscRingBuffer}s. When a ring buffer is full the sender links a new one to
+ * the chain, so sending never blocks, just like sending on a socket with ample buffer space. The
+ * receiver first yields a few times while waiting for a message and then parks until the sender
+ * wakes it up.
+ * </p>
+ * <p>
+ * Messages are passed by reference and are not copied, so the sender must not modify an array
+ * after sending it. As for the other networks, the network of a party must only be used by one
+ * thread at a time, but that thread may change between uses, e.g. between the applications run by
+ * a {@link dk.alexandra.fresco.framework.sce.SecureComputationEngine}.
+ * </p>
+ * <p>
+ * Closing the network of a party fails its own sends and receives, and makes the other parties
+ * fail when they receive from it, once they have received the messages it sent before closing.
+ * </p>
+ */
+public class InMemoryNetwork implements CloseableNetwork {
+
+  /**
+   * The default number of messages held by each ring buffer of a channel.
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+  private static final int YIELDS = 64;
+
+  private final int myId;
+  private final Channel[][] channels;
+  private volatile boolean closed;
+
+  private InMemoryNetwork(int myId, Channel[][] channels) {
+    this.myId = myId;
+    this.channels = channels;
+  }
+
+  /**
+   * Creates connected networks for a number of parties, using the {@link #DEFAULT_CAPACITY}.
+   *
+   * @param noOfParties the number of parties
+   * @return the networks, the network of party i at index i - 1
+   */
+  public static List<InMemoryNetwork> createNetworks(int noOfParties) {
+    return createNetworks(noOfParties, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates connected networks for a number of parties.
+   *
+   * @param noOfParties the number of parties
+   * @param capacity the number of messages held by each ring buffer of a channel
+   * @return the networks, the network of party i at index i - 1
+   */
+  public static List<InMemoryNetwork> createNetworks(int noOfParties, int capacity) {
+    if (noOfParties < 1) {
+      throw new IllegalArgumentException("Number of parties must be positive, was " + noOfParties);
+    }
+    Channel[][] channels = new Channel[noOfParties][noOfParties];
+    for (int from = 0; from < noOfParties; from++) {
+      for (int to = 0; to < noOfParties; to++) {
+        channels[from][to] = new Channel(from + 1, capacity);
+      }
+    }
+    List<InMemoryNetwork> networks = new ArrayList<>(noOfParties);
+    for (int id = 1; id <= noOfParties; id++) {
+      networks.add(new InMemoryNetwork(id, channels));
+    }
+    return Collections.unmodifiableList(networks);
+  }
+
+  @Override
+  public void send(int partyId, byte[] data) {
+    checkOpen();
+    checkPartyId(partyId);
+    channels[myId - 1][partyId - 1].offer(data);
+  }
+
+  @Override
+  public byte[] receive(int partyId) {
+    checkOpen();
+    checkPartyId(partyId);
+    return channels[partyId - 1][myId - 1].take(myId);
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("P" + myId + ": Network is closed");
+    }
+  }
+
+  private void checkPartyId(int partyId) {
+    if (partyId < 1 || partyId > getNoOfParties()) {
+      throw new IllegalArgumentException(
+          "Party id " + partyId + " not in range 1 ... " + getNoOfParties());
+    }
+  }
+
+  @Override
+  public int getNoOfParties() {
+    return channels.length;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (int other = 0; other < channels.length; other++) {
+      channels[myId - 1][other].close();
+      channels[other][myId - 1].close();
+    }
+  }
+
+  /**
+   * The messages sent from one party to another.
+   */
+  private static class Channel {
+
+    private final int senderId;
+    private final int capacity;
+    // The segment messages are added to. Only used by the producer.
+    private Segment producerSegment;
+    // The segment messages are taken from. Only used by the consumer.
+    private Segment consumerSegment;
+    private volatile Thread waiting;
+    private volatile boolean closed;
+
+    Channel(int senderId, int capacity) {
+      this.senderId = senderId;
+      this.capacity = capacity;
+      this.producerSegment = new Segment(capacity);
+      this.consumerSegment = producerSegment;
+    }
+
+    void offer(byte[] data) {
+      if (!producerSegment.buffer.offer(data)) {
+        Segment next = new Segment(capacity);
+        next.buffer.offer(data);
+        producerSegment.next = next;
+        producerSegment = next;
+      }
+      wakeUp();
+    }
+
+    private void wakeUp() {
+      Thread consumer = waiting;
+      if (consumer != null) {
+        LockSupport.unpark(consumer);
+      }
+    }
+
+    private byte[] poll() {
+      byte[] data = consumerSegment.buffer.poll();
+      if (data == null && consumerSegment.next != null) {
+        // The producer only links a new segment once the current one is full, so any message
+        // added to the current segment before that is visible now
+        data = consumerSegment.buffer.poll();
+        if (data == null) {
+          consumerSegment = consumerSegment.next;
+          data = consumerSegment.buffer.poll();
+        }
+      }
+      return data;
+    }
+
+    byte[] take(int receiverId) {
+      byte[] data = poll();
+      for (int i = 0; data == null && i < YIELDS; i++) {
+        Thread.yield();
+        data = poll();
+      }
+      if (data != null) {
+        return data;
+      }
+      waiting = Thread.currentThread();
+      try {
+        while ((data = poll()) == null) {
+          if (closed) {
+            data = poll();
+            if (data == null) {
+              throw new IllegalStateException(
+                  "P" + receiverId + ": Network to P" + senderId + " is closed");
+            }
+            return data;
+          }
+          if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException(
+                "P" + receiverId + ": Interrupted while receiving from P" + senderId);
+          }
+          LockSupport.park(this);
+        }
+        return data;
+      } finally {
+        waiting = null;
+      }
+    }
+
+    void close() {
+      closed = true;
+      wakeUp();
+    }
+  }
+
+  /**
+   * A ring buffer in the chain of a channel.
+   */
+  private static class Segment {
+
+    private final SpscRingBuffer<byte[]> buffer;
+    private volatile Segment next;
+
+    Segment(int capacity) {
+      this.buffer = new SpscRingBuffer<>(capacity);
+    }
+  }
+}
@@ -0,0 +1,360 @@
+package dk.alexandra.fresco.framework.network;
+
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Carries many logical channels over a single underlying network, such that several applications,
+ * or an application and a preprocessing supplier, can run at the same time over one set of
+ * connections, e.g. a single {@link dk.alexandra.fresco.framework.network.socket.SocketNetwork}.
+ * <p>
+ * A channel is opened by giving it the same id at all parties, and is itself a
+ * {@link CloseableNetwork}. Each message is sent on the underlying network as a frame tagged with
+ * the id of its channel, and one thread per party reads the frames from the underlying network and
+ * hands the messages to the channels. Messages arriving for a channel that is not yet opened are
+ * kept until it is.
+ * </p>
+ * <p>
+ * Each channel has a window of messages it may send to a party before that party has received
+ * them. The receiver grants new credit as the messages are received. Sending never blocks: messages
+ * beyond the window are queued by the sending channel and sent as credit arrives. A channel that is
+ * not being read thus uses memory at the sender rather than blocking the channels sharing the
+ * connection, and two parties may send any number of messages to each other before receiving. The
+ * channels take turns on the underlying network through a fair lock per party.
+ * </p>
+ * <p>
+ * If the underlying network fails to receive from a party, e.g. because that party closed its
+ * network, the channels fail when they receive from that party, once they have received the
+ * messages that arrived before the failure, or send to it without credit. The channels keep
+ * working with the other parties.
+ * </p>
+ * <p>
+ * The underlying network must allow one thread to send while another thread receives from each
+ * party, which is the case for the socket networks and the {@link InMemoryNetwork}. Within a
+ * channel the usual rule applies, i.e., only one thread at a time uses it.
+ * </p>
+ */
+public class MultiplexedNetwork implements Closeable {
+
+  /**
+   * The default number of messages a channel may send to a party ahead of the party receiving
+   * them.
+   */
+  public static final int DEFAULT_WINDOW = 1024;
+  private static final Logger logger = LoggerFactory.getLogger(MultiplexedNetwork.class);
+  private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+  private static final byte DATA = 0;
+  private static final byte CREDIT = 1;
+  private static final int HEADER_LENGTH = Byte.BYTES + Integer.BYTES;
+
+  private final int myId;
+  private final CloseableNetwork network;
+  private final int window;
+  private final Map<Integer, ChannelState> channels;
+  private final ReentrantLock[] sendLocks;
+  private final List<Thread> demultiplexers;
+  private volatile boolean closed;
+  // Why receiving from each party failed, if it did
+  private final AtomicReferenceArray<RuntimeException> failures;
+
+  /**
+   * Creates a multiplexed network with the {@link #DEFAULT_WINDOW}.
+   *
+   * @param myId the id of this party
+   * @param network the underlying network, which is closed with this network
+   */
+  public MultiplexedNetwork(int myId, CloseableNetwork network) {
+    this(myId, network, DEFAULT_WINDOW);
+  }
+
+  /**
+   * Creates a multiplexed network.
+   *
+   * @param myId the id of this party
+   * @param network the underlying network, which is closed with this network
+   * @param window the number of messages a channel may send to a party ahead of the party
+   *     receiving them, must be the same at all parties
+   */
+  public MultiplexedNetwork(int myId, CloseableNetwork network, int window) {
+    if (window < 1) {
+      throw new IllegalArgumentException("Window must be positive, was " + window);
+    }
+    this.myId = myId;
+    this.network = Objects.requireNonNull(network);
+    this.window = window;
+    this.channels = new ConcurrentHashMap<>();
+    int noOfParties = network.getNoOfParties();
+    this.sendLocks = new ReentrantLock[noOfParties];
+    this.failures = new AtomicReferenceArray<>(noOfParties);
+    this.demultiplexers = new ArrayList<>(noOfParties - 1);
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      sendLocks[partyId - 1] = new ReentrantLock(true);
+      if (partyId != myId) {
+        final int otherId = partyId;
+        Thread thread = new Thread(() -> demultiplex(otherId),
+            "Multiplexer-P" + myId + "-from-P" + otherId);
+        thread.setDaemon(true);
+        demultiplexers.add(thread);
+      }
+    }
+    demultiplexers.forEach(Thread::start);
+  }
+
+  /**
+   * Opens a channel. A channel can be opened again after it has been closed, in which case any
+   * messages not received before closing it are received on the new channel.
+   *
+   * @param channelId the id of the channel, which must be the same at all parties
+   * @return the channel
+   * @throws IllegalStateException if the channel is already open
+   */
+  public CloseableNetwork openChannel(int channelId) {
+    checkOpen();
+    ChannelState state = getState(channelId);
+    synchronized (state) {
+      if (state.open) {
+        throw new IllegalStateException("Channel " + channelId + " is already open");
+      }
+      state.open = true;
+    }
+    return new Channel(state);
+  }
+
+  /**
+   * Gets the number of parties of the underlying network.
+   *
+   * @return the number of parties
+   */
+  public int getNoOfParties() {
+    return network.getNoOfParties();
+  }
+
+  private ChannelState getState(int channelId) {
+    return channels.computeIfAbsent(channelId, ChannelState::new);
+  }
+
+  private void demultiplex(int partyId) {
+    try {
+      while (!closed) {
+        ByteBuffer frame = ByteBuffer.wrap(network.receive(partyId));
+        byte type = frame.get();
+        ChannelState state = getState(frame.getInt());
+        if (type == DATA) {
+          byte[] data = new byte[frame.remaining()];
+          frame.get(data);
+          state.incoming[partyId - 1].add(data);
+        } else {
+          state.grant(partyId, frame.getInt());
+        }
+      }
+    } catch (RuntimeException e) {
+      if (!closed) {
+        // This is also how a party closing its network shows, so only fail the channels if used
+        logger.debug("P{}: Stopped receiving from P{}", myId, partyId, e);
+        failures.set(partyId - 1, e);
+      }
+    }
+  }
+
+  private void sendFrame(int partyId, byte type, int channelId, byte[] payload) {
+    byte[] frame = ByteBuffer.allocate(HEADER_LENGTH + payload.length)
+        .put(type)
+        .putInt(channelId)
+        .put(payload)
+        .array();
+    ReentrantLock lock = sendLocks[partyId - 1];
+    lock.lock();
+    try {
+      network.send(partyId, frame);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("P" + myId + ": Multiplexed network is closed");
+    }
+  }
+
+  private void checkReceiving(int partyId) {
+    RuntimeException failure = failures.get(partyId - 1);
+    if (failure != null) {
+      throw new RuntimeException("P" + myId + ": Stopped receiving from P" + partyId, failure);
+    }
+  }
+
+  /**
+   * Closes the underlying network, which fails any channels still in use.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    ExceptionConverter.safe(() -> {
+      network.close();
+      return null;
+    }, "Unable to close the underlying network");
+    for (Thread thread : demultiplexers) {
+      thread.interrupt();
+    }
+  }
+
+  /**
+   * The messages and credit of a channel, kept for as long as the multiplexed network is open.
+   */
+  private class ChannelState {
+
+    private final int id;
+    // Messages received from each party
+    private final BlockingQueue<byte[]>[] incoming;
+    // Messages waiting for credit to be sent to each party, also guarding the credit
+    private final Queue<byte[]>[] outgoing;
+    // Messages that may still be sent to each party
+    private final int[] credits;
+    // Messages received from each party since credit was last granted
+    private final int[] received;
+    private boolean open;
+
+    @SuppressWarnings("unchecked")
+    ChannelState(int id) {
+      this.id = id;
+      int noOfParties = getNoOfParties();
+      this.incoming = new BlockingQueue[noOfParties];
+      this.outgoing = new Queue[noOfParties];
+      this.credits = new int[noOfParties];
+      this.received = new int[noOfParties];
+      for (int i = 0; i < noOfParties; i++) {
+        incoming[i] = new LinkedBlockingQueue<>();
+        outgoing[i] = new ArrayDeque<>();
+        credits[i] = window;
+      }
+    }
+
+    /**
+     * Sends a message if there is credit and no earlier message is waiting, and queues it
+     * otherwise.
+     */
+    void send(int partyId, byte[] data) {
+      Queue<byte[]> queue = outgoing[partyId - 1];
+      synchronized (queue) {
+        if (queue.isEmpty() && credits[partyId - 1] > 0) {
+          credits[partyId - 1]--;
+          sendFrame(partyId, DATA, id, data);
+        } else {
+          // Credit is granted through the messages received from the party
+          checkReceiving(partyId);
+          queue.add(data);
+        }
+      }
+    }
+
+    /**
+     * Adds credit granted by a party and sends the queued messages it allows.
+     */
+    void grant(int partyId, int credit) {
+      Queue<byte[]> queue = outgoing[partyId - 1];
+      synchronized (queue) {
+        credits[partyId - 1] += credit;
+        while (credits[partyId - 1] > 0 && !queue.isEmpty()) {
+          credits[partyId - 1]--;
+          sendFrame(partyId, DATA, id, queue.remove());
+        }
+      }
+    }
+  }
+
+  /**
+   * A logical channel on the multiplexed network.
+   */
+  private class Channel implements CloseableNetwork {
+
+    private final ChannelState state;
+    private volatile boolean channelClosed;
+
+    Channel(ChannelState state) {
+      this.state = state;
+    }
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      checkChannel(partyId);
+      if (partyId == myId) {
+        state.incoming[partyId - 1].add(data);
+        return;
+      }
+      state.send(partyId, data);
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      checkChannel(partyId);
+      BlockingQueue<byte[]> queue = state.incoming[partyId - 1];
+      byte[] data;
+      while ((data = ExceptionConverter.safe(
+          () -> queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS),
+          "Interrupted while receiving")) == null) {
+        checkChannel(partyId);
+        // Messages are queued before a failure is recorded, so none are left behind
+        if (queue.isEmpty()) {
+          checkReceiving(partyId);
+        }
+      }
+      if (partyId != myId && ++state.received[partyId - 1] >= (window + 1) / 2) {
+        byte[] grant = ByteBuffer.allocate(Integer.BYTES).putInt(state.received[partyId - 1])
+            .array();
+        state.received[partyId - 1] = 0;
+        sendFrame(partyId, CREDIT, state.id, grant);
+      }
+      return data;
+    }
+
+    private void checkChannel(int partyId) {
+      if (channelClosed) {
+        throw new IllegalStateException("P" + myId + ": Channel " + state.id + " is closed");
+      }
+      checkOpen();
+      if (partyId < 1 || partyId > getNoOfParties()) {
+        throw new IllegalArgumentException(
+            "Party id " + partyId + " not in range 1 ... " + getNoOfParties());
+      }
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return MultiplexedNetwork.this.getNoOfParties();
+    }
+
+    /**
+     * Closes the channel, leaving the multiplexed network open.
+     */
+    @Override
+    public void close() {
+      if (channelClosed) {
+        return;
+      }
+      channelClosed = true;
+      synchronized (state) {
+        state.open = false;
+      }
+    }
+  }
+}
@@ -0,0 +1,226 @@
+package dk.alexandra.fresco.framework.network;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emulates a wide area network on top of another network, typically one over the loopback
+ * interface, such that round heavy protocols can be benchmarked realistically on a single machine.
+ * <p>
+ * The links to the other parties are given as {@link EmulatedLink}s. A message sent on a link
+ * first waits for the messages before it to be transmitted, then takes its length divided by the
+ * bandwidth to transmit, and is then delivered to the underlying network after the latency plus
+ * or minus the jitter. Like TCP, a link delivers its messages in order, so a message is never
+ * delivered before the message sent before it. The jitter is drawn from a generator seeded by the
+ * id of this party, so runs can be reproduced.
+ * </p>
+ * <p>
+ * Sending does not block the caller: the messages are held back by a single delivery thread,
+ * which is woken up at the delivery time of the next message using the monotonic
+ * {@link System#nanoTime()} clock. Receiving is passed directly to the underlying network. Closing
+ * the network delivers the pending messages before closing the underlying network.
+ * </p>
+ */
+public class NetworkEmulationDecorator implements CloseableNetwork {
+
+  private final int myId;
+  private final CloseableNetwork delegate;
+  private final Map<Integer, Link> links;
+  private final Random random;
+  private final DelayQueue<DelayedMessage> queue;
+  private final Thread deliverer;
+  private long sequence;
+  private volatile boolean closed;
+  private volatile RuntimeException failure;
+
+  /**
+   * Creates a network with the same link to all other parties.
+   *
+   * @param myId the id of this party
+   * @param network the underlying network
+   * @param link the link to each of the other parties
+   */
+  public NetworkEmulationDecorator(int myId, CloseableNetwork network, EmulatedLink link) {
+    this(myId, network, linksToAll(myId, network.getNoOfParties(), link));
+  }
+
+  /**
+   * Creates a network with a link to each of the given parties. Messages to other parties are
+   * sent directly on the underlying network.
+   *
+   * @param myId the id of this party
+   * @param network the underlying network
+   * @param links the links, by the id of the other party
+   */
+  public NetworkEmulationDecorator(int myId, CloseableNetwork network,
+      Map<Integer, EmulatedLink> links) {
+    this.myId = myId;
+    this.delegate = Objects.requireNonNull(network);
+    this.links = new HashMap<>();
+    for (Map.Entry<Integer, EmulatedLink> entry : links.entrySet()) {
+      this.links.put(entry.getKey(), new Link(Objects.requireNonNull(entry.getValue())));
+    }
+    this.random = new Random(myId);
+    this.queue = new DelayQueue<>();
+    this.deliverer = new Thread(this::deliver, "Emulated-network-P" + myId);
+    this.deliverer.setDaemon(true);
+    this.deliverer.start();
+  }
+
+  private static Map<Integer, EmulatedLink> linksToAll(int myId, int noOfParties,
+      EmulatedLink link) {
+    Map<Integer, EmulatedLink> links = new HashMap<>();
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      if (partyId != myId) {
+        links.put(partyId, link);
+      }
+    }
+    return links;
+  }
+
+  @Override
+  public void send(int partyId, byte[] data) {
+    if (closed) {
+      throw new IllegalStateException("P" + myId + ": Network is closed");
+    }
+    checkFailure();
+    if (partyId < 1 || partyId > getNoOfParties()) {
+      throw new IllegalArgumentException(
+          "Party id " + partyId + " not in range 1 ... " + getNoOfParties());
+    }
+    Link link = links.get(partyId);
+    if (link == null) {
+      delegate.send(partyId, data);
+    } else {
+      schedule(partyId, data, link);
+    }
+  }
+
+  private synchronized void schedule(int partyId, byte[] data, Link link) {
+    long now = System.nanoTime();
+    long transmitted = Math.max(now, link.freeAt) + link.properties.transmissionNanos(data.length);
+    link.freeAt = transmitted;
+    long delivery = Math.max(transmitted + link.properties.getLatency().toNanos() + jitter(link),
+        link.lastDelivery);
+    link.lastDelivery = delivery;
+    queue.add(new DelayedMessage(partyId, data, delivery, sequence++));
+  }
+
+  private long jitter(Link link) {
+    long jitter = link.properties.getJitter().toNanos();
+    if (jitter == 0) {
+      return 0;
+    }
+    long deviation = (long) ((2 * random.nextDouble() - 1) * jitter);
+    return Math.max(deviation, -link.properties.getLatency().toNanos());
+  }
+
+  private void deliver() {
+    try {
+      while (true) {
+        DelayedMessage message = queue.take();
+        if (message.data == null) {
+          return;
+        }
+        delegate.send(message.partyId, message.data);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      failure = e;
+    }
+  }
+
+  private void checkFailure() {
+    if (failure != null) {
+      throw new RuntimeException("P" + myId + ": Failed to deliver a message", failure);
+    }
+  }
+
+  @Override
+  public byte[] receive(int partyId) {
+    checkFailure();
+    return delegate.receive(partyId);
+  }
+
+  @Override
+  public int getNoOfParties() {
+    return delegate.getNoOfParties();
+  }
+
+  /**
+   * Delivers the pending messages and closes the underlying network.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    synchronized (this) {
+      long last = System.nanoTime();
+      for (Link link : links.values()) {
+        last = Math.max(last, link.lastDelivery);
+      }
+      queue.add(new DelayedMessage(0, null, last, sequence++));
+    }
+    try {
+      deliverer.join();
+    } catch (InterruptedException e) {
+      deliverer.interrupt();
+      Thread.currentThread().interrupt();
+    }
+    delegate.close();
+    checkFailure();
+  }
+
+  /**
+   * The state of a link to another party.
+   */
+  private static class Link {
+
+    private final EmulatedLink properties;
+    private long freeAt = Long.MIN_VALUE;
+    private long lastDelivery = Long.MIN_VALUE;
+
+    Link(EmulatedLink properties) {
+      this.properties = properties;
+    }
+  }
+
+  /**
+   * A message waiting to be delivered. A message without data stops the delivery thread.
+   */
+  private static class DelayedMessage implements Delayed {
+
+    private final int partyId;
+    private final byte[] data;
+    private final long deliveryNanos;
+    private final long sequence;
+
+    DelayedMessage(int partyId, byte[] data, long deliveryNanos, long sequence) {
+      this.partyId = partyId;
+      this.data = data;
+      this.deliveryNanos = deliveryNanos;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(deliveryNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      DelayedMessage message = (DelayedMessage) other;
+      int result = Long.compare(deliveryNanos - message.deliveryNanos, 0);
+      return result != 0 ? result : Long.compare(sequence, message.sequence);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package dk.alexandra.fresco.framework.network.socket;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
+import javax.net.ServerSocketFactory;
+
+/**
+ * A {@link ServerSocketFactory} creating server sockets backed by a {@link ServerSocketChannel}.
+ * Sockets accepted by these server sockets are backed by a
+ * {@link java.nio.channels.SocketChannel}, as needed by the {@link NioSocketNetwork}.
+ */
+class ChannelServerSocketFactory extends ServerSocketFactory {
+
+  @Override
+  public ServerSocket createServerSocket(int port) throws IOException {
+    return createServerSocket(port, 0, null);
+  }
+
+  @Override
+  public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+    return createServerSocket(port, backlog, null);
+  }
+
+  @Override
+  public ServerSocket createServerSocket(int port, int backlog, InetAddress address)
+      throws IOException {
+    ServerSocketChannel channel = ServerSocketChannel.open();
+    try {
+      channel.bind(new InetSocketAddress(address, port), backlog);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return channel.socket();
+  }
+}
@@ -0,0 +1,46 @@
+package dk.alexandra.fresco.framework.network.socket;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import javax.net.SocketFactory;
+
+/**
+ * A {@link SocketFactory} creating sockets backed by a {@link SocketChannel}. This allows the
+ * {@link Connector} to set up the connections used by the {@link NioSocketNetwork}.
+ */
+class ChannelSocketFactory extends SocketFactory {
+
+  @Override
+  public Socket createSocket(String host, int port) throws IOException {
+    return SocketChannel.open(new InetSocketAddress(host, port)).socket();
+  }
+
+  @Override
+  public Socket createSocket(InetAddress host, int port) throws IOException {
+    return SocketChannel.open(new InetSocketAddress(host, port)).socket();
+  }
+
+  @Override
+  public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+      throws IOException {
+    return createSocket(new InetSocketAddress(host, port).getAddress(), port, localHost,
+        localPort);
+  }
+
+  @Override
+  public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+      int localPort) throws IOException {
+    SocketChannel channel = SocketChannel.open();
+    try {
+      channel.bind(new InetSocketAddress(localAddress, localPort));
+      channel.connect(new InetSocketAddress(address, port));
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return channel.socket();
+  }
+}
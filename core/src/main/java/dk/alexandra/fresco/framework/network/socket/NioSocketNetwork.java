@@ -0,0 +1,567 @@
+package dk.alexandra.fresco.framework.network.socket;
+
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import dk.alexandra.fresco.framework.util.SpscRingBuffer;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import javax.net.ServerSocketFactory;
+import javax.net.SocketFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link CloseableNetwork} implementation based on Java's nio API.
+ *
+ * <p>
+ * As opposed to the {@link SocketNetwork}, which uses two threads for each external party, all
+ * communication is handled by a single selector thread operating on non-blocking
+ * {@link SocketChannel}s. The wire format is the same as for the {@link SocketNetwork}, i.e., each
+ * message is prefixed by an integer indicating the byte length of the message.
+ * </p>
+ * <p>
+ * Sending is non-blocking: messages are queued and written by the selector thread, which uses
+ * gathering writes so that all messages queued for a party are written in a single system call.
+ * Incoming data is read into a direct buffer for each party, and completed messages are handed
+ * to the receiving thread through a {@link SpscRingBuffer}. If the receiving thread falls behind
+ * and the ring buffer fills up, reading from the given party is suspended until there is room
+ * again, leaving the rest of the data in the socket buffers.
+ * </p>
+ * <p>
+ * The sockets given to this network must be backed by a {@link SocketChannel}, e.g., created via
+ * {@link SocketChannel#open()}. The {@link #NioSocketNetwork(NetworkConfiguration)} constructor
+ * takes care of this.
+ * </p>
+ */
+public class NioSocketNetwork implements CloseableNetwork {
+
+  private static final Logger logger = LoggerFactory.getLogger(NioSocketNetwork.class);
+  private static final long RECEIVE_TIMEOUT_NANOS = Duration.ofMillis(100).toNanos();
+  private static final Duration CLOSE_TIMEOUT = Duration.ofMinutes(1);
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+  private static final int INCOMING_CAPACITY = 1 << 10;
+  private static final int MAX_GATHERED_MESSAGES = 64;
+  private static final int HEADER_BYTES = Integer.BYTES;
+  private static final int END_OF_STREAM_MARKER = -1;
+  private static final byte[] END_OF_STREAM = new byte[0];
+  private final BlockingQueue<byte[]> selfQueue;
+  private final NetworkConfiguration conf;
+  private boolean alive;
+  private final Peer[] peers;
+  private final Selector selector;
+  private final Queue<Peer> pendingUpdates;
+  private final Thread selectorThread;
+  private volatile boolean stopping;
+
+  /**
+   * Creates a network with the given a configuration and a mapping from party ids to sockets.
+   *
+   * <p>
+   * The mapping of party ids to sockets must be consistent with the network configuration. I.e.,
+   * there should be exactly one mapping for each opposing party (but not for the local party).
+   * Also, the sockets must be connected, open and backed by a {@link SocketChannel}.
+   * </p>
+   *
+   * @param conf the network configuration
+   * @param socketMap a mapping from party ids to the socket to be used for communicating with
+   *     the given party.
+   * @throws IllegalArgumentException if {@code socketMap} and {@code conf} are inconsistent or
+   *     the sockets are not open, connected and backed by a channel.
+   */
+  public NioSocketNetwork(NetworkConfiguration conf, Map<Integer, Socket> socketMap) {
+    Objects.requireNonNull(conf);
+    Objects.requireNonNull(socketMap);
+    for (int i = 1; i < conf.noOfParties() + 1; i++) {
+      if (i == conf.getMyId()) {
+        continue;
+      }
+      if (!socketMap.containsKey(i)) {
+        throw new IllegalArgumentException("Missing socket for P" + i);
+      }
+      Socket s = socketMap.get(i);
+      if (s.isClosed()) {
+        throw new IllegalArgumentException("Closed socket for P" + i);
+      }
+      if (!s.isConnected()) {
+        throw new IllegalArgumentException("Unconnected socket for P" + i);
+      }
+      if (s.getChannel() == null) {
+        throw new IllegalArgumentException("Socket for P" + i + " is not backed by a channel");
+      }
+    }
+    this.conf = conf;
+    this.alive = true;
+    this.selfQueue = new LinkedBlockingQueue<>();
+    this.peers = new Peer[conf.noOfParties() + 1];
+    this.pendingUpdates = new ConcurrentLinkedQueue<>();
+    if (conf.noOfParties() > 1) {
+      this.selector = ExceptionConverter.safe(Selector::open, "Unable to open selector");
+      for (Entry<Integer, Socket> entry : socketMap.entrySet()) {
+        final int id = entry.getKey();
+        inRange(id);
+        SocketChannel channel = entry.getValue().getChannel();
+        peers[id] = ExceptionConverter.safe(() -> {
+          channel.configureBlocking(false);
+          channel.socket().setTcpNoDelay(true);
+          Peer peer = new Peer(id, channel);
+          peer.key = channel.register(selector, SelectionKey.OP_READ, peer);
+          return peer;
+        }, "Unable to register channel for P" + id);
+      }
+      this.selectorThread = new Thread(this::run);
+      this.selectorThread.setDaemon(true);
+      this.selectorThread.setName("nio-network-" + conf.getMyId());
+      this.selectorThread.start();
+    } else {
+      this.selector = null;
+      this.selectorThread = null;
+    }
+  }
+
+  /**
+   * Default constructor using one minute timeout.
+   *
+   * @param conf the configuration to load the network from.
+   */
+  public NioSocketNetwork(NetworkConfiguration conf) {
+    this(conf, Connector.DEFAULT_CONNECTION_TIMEOUT);
+  }
+
+  /**
+   * Creates a network connecting to the other parties using the given timeout.
+   *
+   * @param conf the configuration to load the network from.
+   * @param timeout duration to wait for the other parties to connect
+   */
+  public NioSocketNetwork(NetworkConfiguration conf, Duration timeout) {
+    this(conf, newConnector(conf, timeout).getSocketMap());
+  }
+
+  /**
+   * Creates a {@link NetworkConnector} producing sockets suitable for this network.
+   *
+   * @param conf the configuration defining the network to connect
+   * @param timeout duration to wait until timeout
+   * @return a connector holding channel backed sockets
+   */
+  static NetworkConnector newConnector(NetworkConfiguration conf, Duration timeout) {
+    SocketFactory socketFactory = new ChannelSocketFactory();
+    ServerSocketFactory serverFactory = new ChannelServerSocketFactory();
+    return new Connector(conf, timeout, socketFactory, serverFactory);
+  }
+
+  @Override
+  public void send(int partyId, byte[] data) {
+    if (partyId == conf.getMyId()) {
+      this.selfQueue.add(data);
+    } else {
+      inRange(partyId);
+      Peer peer = peers[partyId];
+      if (stopping || peer.writeFailed || !selectorThread.isAlive()) {
+        throw new RuntimeException(
+            "P" + conf.getMyId() + ": Unable to send to P" + partyId + ". Network not running");
+      }
+      peer.outgoing.add(data);
+      scheduleWrite(peer);
+    }
+  }
+
+  @Override
+  public byte[] receive(final int partyId) {
+    if (partyId == conf.getMyId()) {
+      return ExceptionConverter.safe(selfQueue::take, "Receiving from self failed");
+    }
+    inRange(partyId);
+    Peer peer = peers[partyId];
+    byte[] data = peer.incoming.poll();
+    while (data == null) {
+      peer.waiter = Thread.currentThread();
+      data = peer.incoming.poll();
+      if (data == null) {
+        // The ring buffer may have filled up and been drained before reading was suspended
+        resumeIfSuspended(peer);
+        if (peer.closed) {
+          peer.waiter = null;
+          data = peer.incoming.poll();
+          if (data == null) {
+            throw new RuntimeException("P" + conf.getMyId() + ": Unable to recieve from P"
+                + partyId + ". Receiver not running");
+          }
+        } else {
+          LockSupport.parkNanos(this, RECEIVE_TIMEOUT_NANOS);
+        }
+      }
+      peer.waiter = null;
+    }
+    resumeIfSuspended(peer);
+    return data;
+  }
+
+  /**
+   * Asks the selector thread to resume reading from a peer if reading was suspended due to a full
+   * ring buffer.
+   */
+  private void resumeIfSuspended(Peer peer) {
+    if (peer.readSuspended.get() && peer.readSuspended.compareAndSet(true, false)) {
+      pendingUpdates.add(peer);
+      selector.wakeup();
+    }
+  }
+
+  /**
+   * Check if a party ID is in the range of known parties.
+   *
+   * @param partyId an ID for a party
+   */
+  private void inRange(final int partyId) {
+    if (!(0 < partyId && partyId < getNoOfParties() + 1)) {
+      throw new IllegalArgumentException(
+          "Party id " + partyId + " not in range 1 ... " + getNoOfParties());
+    }
+  }
+
+  private void scheduleWrite(Peer peer) {
+    if (peer.writeScheduled.compareAndSet(false, true)) {
+      pendingUpdates.add(peer);
+      selector.wakeup();
+    }
+  }
+
+  /**
+   * The selector loop. Runs until the network is closed and all queued messages (including the
+   * end of stream markers) have been written.
+   */
+  private void run() {
+    try {
+      while (!(stopping && allFlushed())) {
+        selector.select();
+        Peer updated;
+        while ((updated = pendingUpdates.poll()) != null) {
+          if (updated.stalled != null && !updated.readSuspended.get()) {
+            resumeRead(updated);
+          }
+          write(updated);
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          Peer peer = (Peer) key.attachment();
+          if (key.isValid() && key.isReadable()) {
+            read(peer);
+          }
+          if (key.isValid() && key.isWritable()) {
+            write(peer);
+          }
+        }
+      }
+    } catch (Exception e) {
+      logger.error("P" + conf.getMyId() + ": Selector failed unexpectedly", e);
+    } finally {
+      for (Peer peer : peers) {
+        if (peer != null) {
+          closePeer(peer);
+        }
+      }
+    }
+  }
+
+  private boolean allFlushed() {
+    for (Peer peer : peers) {
+      if (peer != null && !peer.writeFailed
+          && (peer.gatherOffset < peer.gatherLength || !peer.outgoing.isEmpty())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes as many of the queued messages for the given peer as possible without blocking. If
+   * the socket cannot take any more data, the peer is registered for write readiness.
+   */
+  private void write(Peer peer) {
+    peer.writeScheduled.set(false);
+    if (peer.writeFailed) {
+      peer.outgoing.clear();
+      return;
+    }
+    try {
+      while (true) {
+        if (peer.gatherOffset == peer.gatherLength && !peer.gather()) {
+          setInterest(peer, SelectionKey.OP_WRITE, false);
+          return;
+        }
+        peer.channel.write(peer.buffers, peer.gatherOffset,
+            peer.gatherLength - peer.gatherOffset);
+        while (peer.gatherOffset < peer.gatherLength
+            && !peer.buffers[peer.gatherOffset].hasRemaining()) {
+          peer.buffers[peer.gatherOffset++] = null;
+        }
+        if (peer.gatherOffset < peer.gatherLength) {
+          setInterest(peer, SelectionKey.OP_WRITE, true);
+          return;
+        }
+      }
+    } catch (IOException e) {
+      if (!stopping) {
+        logger.error("P" + conf.getMyId() + ": Sending to P" + peer.id + " failed", e);
+      }
+      peer.writeFailed = true;
+      peer.outgoing.clear();
+      peer.gatherOffset = peer.gatherLength;
+    }
+  }
+
+  /**
+   * Reads whatever is available from the given peer and hands off completed messages.
+   */
+  private void read(Peer peer) {
+    try {
+      int read = peer.channel.read(peer.readBuffer);
+      if (read < 0) {
+        closePeer(peer);
+        return;
+      }
+    } catch (IOException e) {
+      if (!stopping && !peer.closed) {
+        logger.error("P" + conf.getMyId() + ": Receiving from P" + peer.id + " failed", e);
+      }
+      closePeer(peer);
+      return;
+    }
+    peer.readBuffer.flip();
+    processReadBuffer(peer);
+    peer.readBuffer.compact();
+  }
+
+  /**
+   * Tries to hand off a message previously stalled due to a full ring buffer, and continues
+   * processing buffered data if successful.
+   */
+  private void resumeRead(Peer peer) {
+    byte[] message = peer.stalled;
+    peer.stalled = null;
+    if (!deliver(peer, message)) {
+      stall(peer, message);
+      return;
+    }
+    peer.readBuffer.flip();
+    processReadBuffer(peer);
+    peer.readBuffer.compact();
+    if (peer.stalled == null && !peer.closed) {
+      setInterest(peer, SelectionKey.OP_READ, true);
+    }
+  }
+
+  /**
+   * Parses length prefixed messages from the read buffer (in read mode) of the given peer.
+   */
+  private void processReadBuffer(Peer peer) {
+    ByteBuffer buffer = peer.readBuffer;
+    while (true) {
+      if (peer.message == null) {
+        while (peer.headerBytes < HEADER_BYTES && buffer.hasRemaining()) {
+          peer.header = (peer.header << Byte.SIZE) | (buffer.get() & 0xFF);
+          peer.headerBytes++;
+        }
+        if (peer.headerBytes < HEADER_BYTES) {
+          return;
+        }
+        int length = peer.header;
+        peer.header = 0;
+        peer.headerBytes = 0;
+        if (length < 0) {
+          closePeer(peer);
+          return;
+        }
+        peer.message = new byte[length];
+        peer.messageOffset = 0;
+      }
+      int count = Math.min(buffer.remaining(), peer.message.length - peer.messageOffset);
+      buffer.get(peer.message, peer.messageOffset, count);
+      peer.messageOffset += count;
+      if (peer.messageOffset < peer.message.length) {
+        return;
+      }
+      byte[] message = peer.message;
+      peer.message = null;
+      if (!deliver(peer, message)) {
+        stall(peer, message);
+        return;
+      }
+    }
+  }
+
+  private boolean deliver(Peer peer, byte[] message) {
+    if (peer.incoming.offer(message)) {
+      Thread waiter = peer.waiter;
+      if (waiter != null) {
+        LockSupport.unpark(waiter);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private void stall(Peer peer, byte[] message) {
+    peer.stalled = message;
+    setInterest(peer, SelectionKey.OP_READ, false);
+    peer.readSuspended.set(true);
+    Thread waiter = peer.waiter;
+    if (waiter != null) {
+      LockSupport.unpark(waiter);
+    }
+  }
+
+  private void setInterest(Peer peer, int operation, boolean enabled) {
+    SelectionKey key = peer.key;
+    if (key.isValid()) {
+      int ops = key.interestOps();
+      key.interestOps(enabled ? ops | operation : ops & ~operation);
+    }
+  }
+
+  private void closePeer(Peer peer) {
+    peer.closed = true;
+    setInterest(peer, SelectionKey.OP_READ, false);
+    Thread waiter = peer.waiter;
+    if (waiter != null) {
+      LockSupport.unpark(waiter);
+    }
+  }
+
+  /**
+   * Closes the network down and releases held resources. This will block until all queued
+   * messages have been written, or for at most one minute if the selector thread does not stop.
+   */
+  @Override
+  public void close() {
+    if (alive) {
+      alive = false;
+      if (conf.noOfParties() < 2) {
+        logger.info("P{}: Network closed", conf.getMyId());
+        return;
+      }
+      ExceptionConverter.safe(() -> {
+        for (Peer peer : peers) {
+          if (peer != null) {
+            peer.outgoing.add(END_OF_STREAM);
+            scheduleWrite(peer);
+          }
+        }
+        stopping = true;
+        selector.wakeup();
+        selectorThread.join(CLOSE_TIMEOUT.toMillis());
+        if (selectorThread.isAlive()) {
+          logger.warn("P{}: Selector thread did not stop within {}, closing connections anyway",
+              conf.getMyId(), CLOSE_TIMEOUT);
+          selectorThread.interrupt();
+        }
+        for (Peer peer : peers) {
+          if (peer != null) {
+            peer.channel.close();
+          }
+        }
+        selector.close();
+        logger.info("P{}: Network closed", conf.getMyId());
+        return null;
+      }, "Unable to properly close the network.");
+    } else {
+      logger.info("P{}: Network already closed", conf.getMyId());
+    }
+  }
+
+  @Override
+  public int getNoOfParties() {
+    return this.conf.noOfParties();
+  }
+
+  /**
+   * The state kept for each of the external parties.
+   */
+  private static class Peer {
+
+    private final int id;
+    private final SocketChannel channel;
+    private SelectionKey key;
+    // Sending, the queue is written by the caller of send, the rest by the selector thread
+    private final Queue<byte[]> outgoing;
+    private final AtomicBoolean writeScheduled;
+    private final ByteBuffer[] headers;
+    private final ByteBuffer[] buffers;
+    private int gatherOffset;
+    private int gatherLength;
+    private volatile boolean writeFailed;
+    // Receiving, handed off from the selector thread to the caller of receive
+    private final ByteBuffer readBuffer;
+    private final SpscRingBuffer<byte[]> incoming;
+    private final AtomicBoolean readSuspended;
+    private int header;
+    private int headerBytes;
+    private byte[] message;
+    private int messageOffset;
+    private byte[] stalled;
+    private volatile Thread waiter;
+    private volatile boolean closed;
+
+    Peer(int id, SocketChannel channel) {
+      this.id = id;
+      this.channel = channel;
+      this.outgoing = new ConcurrentLinkedQueue<>();
+      this.writeScheduled = new AtomicBoolean(false);
+      this.headers = new ByteBuffer[MAX_GATHERED_MESSAGES];
+      ByteBuffer headerBuffer = ByteBuffer.allocateDirect(HEADER_BYTES * MAX_GATHERED_MESSAGES);
+      for (int i = 0; i < MAX_GATHERED_MESSAGES; i++) {
+        headerBuffer.limit((i + 1) * HEADER_BYTES).position(i * HEADER_BYTES);
+        headers[i] = headerBuffer.slice();
+      }
+      this.buffers = new ByteBuffer[2 * MAX_GATHERED_MESSAGES];
+      this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+      this.incoming = new SpscRingBuffer<>(INCOMING_CAPACITY);
+      this.readSuspended = new AtomicBoolean(false);
+    }
+
+    /**
+     * Moves queued messages into the array of buffers for the next gathering write.
+     *
+     * @return true if any messages were queued
+     */
+    boolean gather() {
+      int length = 0;
+      int messages = 0;
+      byte[] data;
+      while (messages < MAX_GATHERED_MESSAGES && (data = outgoing.poll()) != null) {
+        ByteBuffer header = headers[messages++];
+        header.clear();
+        if (data == END_OF_STREAM) {
+          header.putInt(END_OF_STREAM_MARKER).flip();
+          buffers[length++] = header;
+        } else {
+          header.putInt(data.length).flip();
+          buffers[length++] = header;
+          buffers[length++] = ByteBuffer.wrap(data);
+        }
+      }
+      gatherOffset = 0;
+      gatherLength = length;
+      return length > 0;
+    }
+  }
+}
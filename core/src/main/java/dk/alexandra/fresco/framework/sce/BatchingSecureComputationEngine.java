@@ -0,0 +1,296 @@
+package dk.alexandra.fresco.framework.sce;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.BuilderFactory;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolEvaluator.EvaluationStatistics;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.builder.ProtocolBuilder;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.lib.helper.ParallelProtocolProducer;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs many small applications by merging them into shared evaluations, such that the round
+ * latency and the work done by the {@link ProtocolSuite.RoundSynchronization}, e.g. MAC checks, is
+ * shared by all applications evaluated together rather than paid by each of them.
+ * <p>
+ * Applications are submitted with {@link #submit(Application)} and queued. A single thread takes
+ * the queued applications, builds each of them with its own sequential builder and evaluates all
+ * of them in parallel with one call to the {@link ProtocolEvaluator}, so their native protocols
+ * share the batches of the evaluator. The futures of the applications are completed when the whole
+ * evaluation they are part of is done.
+ * </p>
+ * <p>
+ * An application which fails to build is left out of the evaluation and only its future fails.
+ * Building an application must therefore fail at all parties alike. If the evaluation fails, e.g.
+ * because a MAC check fails or a party stops responding, the parties can no longer be assumed to
+ * agree on the messages sent, so the futures of all applications in it fail and the engine stops.
+ * </p>
+ * <p>
+ * All parties must submit the same applications in the same order. Party 1 decides how many of
+ * the queued applications to evaluate together and sends the number to the other parties, which
+ * then wait until they have the same number of applications queued. The resource pool and the
+ * network are used by the thread of this engine only, from it is created until it is closed.
+ * </p>
+ *
+ * @param <ResourcePoolT> the type of resource pool
+ * @param <BuilderT> the type of builder the applications use
+ */
+public class BatchingSecureComputationEngine
+    <ResourcePoolT extends ResourcePool, BuilderT extends ProtocolBuilder> implements Closeable {
+
+  /**
+   * The default maximum number of applications evaluated together.
+   */
+  public static final int DEFAULT_MAX_APPLICATIONS = 1024;
+  private static final Logger logger =
+      LoggerFactory.getLogger(BatchingSecureComputationEngine.class);
+  private static final int LEADER_ID = 1;
+
+  private final ProtocolSuite<ResourcePoolT, BuilderT> protocolSuite;
+  private final ProtocolEvaluator<ResourcePoolT> evaluator;
+  private final ResourcePoolT resourcePool;
+  private final Network network;
+  private final int maxApplications;
+  private final BlockingQueue<PendingApplication<?>> queue;
+  private volatile boolean closed;
+  private boolean stopping;
+
+  /**
+   * Creates an engine evaluating at most {@link #DEFAULT_MAX_APPLICATIONS} applications together.
+   *
+   * @param protocolSuite the protocol suite to evaluate the applications with
+   * @param evaluator the evaluator to evaluate the applications with
+   * @param resourcePool the resource pool to evaluate the applications with
+   * @param network the network to evaluate the applications on
+   */
+  public BatchingSecureComputationEngine(ProtocolSuite<ResourcePoolT, BuilderT> protocolSuite,
+      ProtocolEvaluator<ResourcePoolT> evaluator, ResourcePoolT resourcePool, Network network) {
+    this(protocolSuite, evaluator, resourcePool, network, DEFAULT_MAX_APPLICATIONS);
+  }
+
+  /**
+   * Creates an engine.
+   *
+   * @param protocolSuite the protocol suite to evaluate the applications with
+   * @param evaluator the evaluator to evaluate the applications with
+   * @param resourcePool the resource pool to evaluate the applications with
+   * @param network the network to evaluate the applications on
+   * @param maxApplications the maximum number of applications evaluated together, only used by
+   *     party 1
+   */
+  public BatchingSecureComputationEngine(ProtocolSuite<ResourcePoolT, BuilderT> protocolSuite,
+      ProtocolEvaluator<ResourcePoolT> evaluator, ResourcePoolT resourcePool, Network network,
+      int maxApplications) {
+    if (maxApplications < 1) {
+      throw new IllegalArgumentException(
+          "Maximum number of applications must be positive, was " + maxApplications);
+    }
+    this.protocolSuite = Objects.requireNonNull(protocolSuite);
+    this.evaluator = Objects.requireNonNull(evaluator);
+    this.resourcePool = Objects.requireNonNull(resourcePool);
+    this.network = Objects.requireNonNull(network);
+    this.maxApplications = maxApplications;
+    this.queue = new LinkedBlockingQueue<>();
+    Thread thread = new Thread(this::run, "SCE-batching-P" + resourcePool.getMyId());
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Queues an application for evaluation.
+   *
+   * @param application the application
+   * @param <OutputT> the type of output of the application
+   * @return a future holding the output of the application once evaluated
+   * @throws IllegalStateException if the engine is closed
+   */
+  public <OutputT> Future<OutputT> submit(Application<OutputT, BuilderT> application) {
+    PendingApplication<OutputT> pending = new PendingApplication<>(Objects.requireNonNull(
+        application));
+    // Synchronized with the engine stopping, so an application is never queued after the queue is
+    // drained for the last time
+    synchronized (queue) {
+      if (closed) {
+        throw new IllegalStateException("P" + resourcePool.getMyId() + ": Engine is closed");
+      }
+      queue.add(pending);
+    }
+    return pending.future;
+  }
+
+  private void run() {
+    try {
+      List<PendingApplication<?>> batch;
+      while ((batch = nextBatch()) != null) {
+        evaluate(batch);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      logger.error("P" + resourcePool.getMyId() + ": Batching engine failed", e);
+    } finally {
+      List<PendingApplication<?>> remaining = new ArrayList<>();
+      synchronized (queue) {
+        closed = true;
+        queue.drainTo(remaining);
+      }
+      for (PendingApplication<?> pending : remaining) {
+        pending.fail(notEvaluated());
+      }
+    }
+  }
+
+  /**
+   * Gets the applications to evaluate together next, agreeing on the number with the other
+   * parties.
+   *
+   * @return the applications or null if the engine is closed
+   */
+  private List<PendingApplication<?>> nextBatch() throws InterruptedException {
+    List<PendingApplication<?>> batch = new ArrayList<>();
+    if (resourcePool.getMyId() == LEADER_ID) {
+      if (!stopping) {
+        batch.add(queue.take());
+        queue.drainTo(batch, maxApplications - 1);
+      }
+      int count = 0;
+      while (count < batch.size() && batch.get(count).application != null) {
+        count++;
+      }
+      if (count < batch.size()) {
+        // Close was requested, so evaluate the applications submitted before that and then stop
+        stopping = true;
+        for (PendingApplication<?> pending : batch.subList(count, batch.size())) {
+          pending.fail(notEvaluated());
+        }
+        batch.subList(count, batch.size()).clear();
+      }
+      byte[] message = ByteBuffer.allocate(Integer.BYTES).putInt(count).array();
+      for (int partyId = 1; partyId <= resourcePool.getNoOfParties(); partyId++) {
+        if (partyId != LEADER_ID) {
+          network.send(partyId, message);
+        }
+      }
+      if (count == 0) {
+        return null;
+      }
+    } else {
+      int count = ByteBuffer.wrap(network.receive(LEADER_ID)).getInt();
+      for (int i = 0; i < count; i++) {
+        PendingApplication<?> pending = queue.take();
+        if (pending.application == null) {
+          throw new IllegalStateException("P" + resourcePool.getMyId()
+              + ": Closed while P" + LEADER_ID + " evaluates " + count + " applications");
+        }
+        batch.add(pending);
+      }
+      if (count == 0) {
+        return null;
+      }
+    }
+    return batch;
+  }
+
+  private static IllegalStateException notEvaluated() {
+    return new IllegalStateException("Engine closed before evaluating the application");
+  }
+
+  private void evaluate(List<PendingApplication<?>> batch) {
+    long then = System.currentTimeMillis();
+    List<PendingApplication<?>> built = new ArrayList<>(batch.size());
+    try {
+      BuilderFactory<BuilderT> builderFactory = protocolSuite.init(resourcePool);
+      List<ProtocolProducer> producers = new ArrayList<>(batch.size());
+      for (PendingApplication<?> pending : batch) {
+        try {
+          producers.add(pending.build(builderFactory));
+          built.add(pending);
+        } catch (RuntimeException e) {
+          // Nothing has been sent yet, so only this application fails
+          pending.fail(e);
+        }
+      }
+      EvaluationStatistics statistics =
+          evaluator.eval(new ParallelProtocolProducer(producers), resourcePool, network);
+      logger.debug("Evaluated " + built.size() + " applications in "
+          + (System.currentTimeMillis() - then) + " ms: a total of "
+          + statistics.getNativeProtocols() + " native protocols in " + statistics.getBatches()
+          + " batches.");
+    } catch (RuntimeException e) {
+      for (PendingApplication<?> pending : batch) {
+        pending.fail(e);
+      }
+      throw e;
+    }
+    for (PendingApplication<?> pending : built) {
+      pending.complete();
+    }
+  }
+
+  /**
+   * Stops the engine once the applications already submitted at party 1 are evaluated. Any
+   * applications left are failed. The resource pool and the network are not closed.
+   */
+  @Override
+  public void close() {
+    synchronized (queue) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      queue.add(new PendingApplication<>(null));
+    }
+  }
+
+  /**
+   * An application waiting for evaluation. An application of null requests the engine to close.
+   */
+  private class PendingApplication<OutputT> {
+
+    private final Application<OutputT, BuilderT> application;
+    private final CompletableFuture<OutputT> future;
+    private DRes<OutputT> output;
+
+    PendingApplication(Application<OutputT, BuilderT> application) {
+      this.application = application;
+      this.future = new CompletableFuture<>();
+    }
+
+    ProtocolProducer build(BuilderFactory<BuilderT> builderFactory) {
+      BuilderT builder = builderFactory.createSequential();
+      output = application.buildComputation(builder);
+      return builder.build();
+    }
+
+    void complete() {
+      try {
+        future.complete(output.out());
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      } finally {
+        application.close();
+      }
+    }
+
+    void fail(Exception e) {
+      if (application != null) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+}
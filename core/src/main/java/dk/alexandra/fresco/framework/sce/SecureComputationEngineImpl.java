@@ -82,7 +82,8 @@ public class SecureComputationEngineImpl
 
     logger.debug("Evaluator done."
         + " Evaluated a total of " + eval.getNativeProtocols()
-        + " native protocols in " + eval.getBatches() + " batches.");
+        + " native protocols in " + eval.getBatches() + " batches,"
+        + " the depth is at least " + eval.getDepthLowerBound() + " batches.");
 
     long now = System.currentTimeMillis();
     long timeSpent = now - then;
@@ -0,0 +1,272 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Protocol evaluator which evaluates native protocols in batches like {@link
+ * BatchedProtocolEvaluator}, but tunes the batch size while evaluating and builds the next batch
+ * on a helper thread.
+ * <p>
+ * For each batch the evaluator measures the CPU time used by the evaluating thread and the time
+ * spent waiting on the network, i.e., the wall time not spent on the CPU. The waiting time is
+ * dominated by the round trips of the batch and does not grow much with the batch size, while the
+ * CPU time grows linearly. The batch size is chosen such that the waiting time is the given target
+ * fraction of the time spent on a batch. Since all parties must evaluate the same batches, the
+ * parties exchange their proposed batch size every few batches and all use the smallest proposal.
+ * </p>
+ * <p>
+ * Only the CPU time of the evaluating thread is measured. With a strategy evaluating the protocols
+ * of a batch on other threads, such as {@link ParallelBatchedStrategy}, the work done by those
+ * threads is counted as waiting, so the evaluator underestimates the cost of each protocol and
+ * tends towards larger batches than the target fraction calls for, bounded by the maximum batch
+ * size. Use a lower maximum batch size with such strategies.
+ * </p>
+ * <p>
+ * The next batch is built while the round synchronization of the current batch, e.g., a mac check,
+ * is running. The next batch cannot be built while the current batch is evaluated, since the lazy
+ * steps of an application may read the outputs of the current batch when they are expanded.
+ * </p>
+ *
+ * @param <ResourcePoolT> The resource pool type to use
+ */
+public class AdaptiveBatchedProtocolEvaluator<ResourcePoolT extends ResourcePool>
+    implements ProtocolEvaluator<ResourcePoolT> {
+
+  public static final int DEFAULT_INITIAL_BATCH_SIZE = 4096;
+  public static final int DEFAULT_MIN_BATCH_SIZE = 256;
+  public static final int DEFAULT_MAX_BATCH_SIZE = 65536;
+  public static final double DEFAULT_TARGET_WAIT_FRACTION = 0.1;
+  public static final int DEFAULT_TUNING_INTERVAL = 8;
+  private static final double SMOOTHING = 0.25;
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(AdaptiveBatchedProtocolEvaluator.class);
+
+  private final BatchEvaluationStrategy<ResourcePoolT> batchEvaluator;
+  private final ProtocolSuite<ResourcePoolT, ?> protocolSuite;
+  private final int initialBatchSize;
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final double targetWaitFraction;
+  private final int tuningInterval;
+  private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+  private int batchSize;
+  private double cpuTimePerProtocol;
+  private double waitTimePerBatch;
+
+  /**
+   * Creates an evaluator with the default tuning parameters.
+   *
+   * @param batchEvaluator the strategy used to evaluate each batch
+   * @param protocolSuite the protocol suite
+   */
+  public AdaptiveBatchedProtocolEvaluator(BatchEvaluationStrategy<ResourcePoolT> batchEvaluator,
+      ProtocolSuite<ResourcePoolT, ?> protocolSuite) {
+    this(batchEvaluator, protocolSuite, DEFAULT_INITIAL_BATCH_SIZE, DEFAULT_MIN_BATCH_SIZE,
+        DEFAULT_MAX_BATCH_SIZE, DEFAULT_TARGET_WAIT_FRACTION, DEFAULT_TUNING_INTERVAL);
+  }
+
+  /**
+   * Creates an evaluator. The tuning parameters must be the same for all parties.
+   *
+   * @param batchEvaluator the strategy used to evaluate each batch
+   * @param protocolSuite the protocol suite
+   * @param initialBatchSize the batch size used until the first tuning
+   * @param minBatchSize the smallest batch size to use
+   * @param maxBatchSize the largest batch size to use
+   * @param targetWaitFraction the fraction of the time of a batch which should be spent waiting on
+   *     the network
+   * @param tuningInterval the number of batches between each tuning of the batch size
+   */
+  public AdaptiveBatchedProtocolEvaluator(BatchEvaluationStrategy<ResourcePoolT> batchEvaluator,
+      ProtocolSuite<ResourcePoolT, ?> protocolSuite, int initialBatchSize, int minBatchSize,
+      int maxBatchSize, double targetWaitFraction, int tuningInterval) {
+    if (minBatchSize <= 0 || minBatchSize > initialBatchSize || initialBatchSize > maxBatchSize) {
+      throw new IllegalArgumentException("Batch sizes must satisfy 0 < min <= initial <= max, was "
+          + minBatchSize + ", " + initialBatchSize + ", " + maxBatchSize);
+    }
+    if (targetWaitFraction <= 0 || targetWaitFraction >= 1) {
+      throw new IllegalArgumentException(
+          "Target wait fraction must be between 0 and 1, was " + targetWaitFraction);
+    }
+    if (tuningInterval <= 0) {
+      throw new IllegalArgumentException(
+          "Tuning interval must be positive, was " + tuningInterval);
+    }
+    this.batchEvaluator = batchEvaluator;
+    this.protocolSuite = protocolSuite;
+    this.initialBatchSize = initialBatchSize;
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.targetWaitFraction = targetWaitFraction;
+    this.tuningInterval = tuningInterval;
+    this.batchSize = initialBatchSize;
+  }
+
+  @Override
+  public EvaluationStatistics eval(ProtocolProducer protocolProducer, ResourcePoolT resourcePool,
+      Network network) {
+    int batch = 0;
+    int totalProtocols = 0;
+    int totalBatches = 0;
+    int partialBatches = 0;
+    batchSize = initialBatchSize;
+    cpuTimePerProtocol = 0;
+    waitTimePerBatch = 0;
+
+    NetworkBatchDecorator networkBatchDecorator =
+        new NetworkBatchDecorator(resourcePool.getNoOfParties(), network);
+    ProtocolSuite.RoundSynchronization<ResourcePoolT> roundSynchronization =
+        protocolSuite.createRoundSynchronization();
+    ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "fresco-batch-prefetch");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      // like the batched evaluator, the first batch is evaluated even if it is empty
+      ProtocolCollectionList<ResourcePoolT> protocols = new ProtocolCollectionList<>(batchSize);
+      protocolProducer.getNextProtocols(protocols);
+      while (protocols != null) {
+        int size = protocols.size();
+        boolean partial = size > 0 && protocols.hasFreeCapacity();
+        roundSynchronization.beforeBatch(protocols, resourcePool, network);
+        long cpuStart = threadCpuTime();
+        long wallStart = System.nanoTime();
+        batchEvaluator.processBatch(protocols, resourcePool, networkBatchDecorator);
+        long wall = System.nanoTime() - wallStart;
+        long cpu = threadCpuTime() - cpuStart;
+        logger.trace("Done evaluating batch: " + batch++ + " with " + size + " native protocols");
+        if (size == 0) {
+          logger.debug("Batch " + batch + " is empty");
+        }
+        totalProtocols += size;
+        totalBatches += 1;
+        if (partial) {
+          partialBatches += 1;
+        }
+        if (threadBean.isCurrentThreadCpuTimeSupported()) {
+          observe(size, cpu, wall);
+        }
+        if (totalBatches % tuningInterval == 0) {
+          batchSize = agree(network, resourcePool.getMyId(), proposeBatchSize());
+          logger.debug("Batch size tuned to " + batchSize);
+        }
+        int nextBatchSize = batchSize;
+        Future<ProtocolCollectionList<ResourcePoolT>> next =
+            prefetcher.submit(() -> nextBatch(protocolProducer, nextBatchSize));
+        roundSynchronization.finishedBatch(size, resourcePool, network);
+        protocols = await(next);
+      }
+    } finally {
+      prefetcher.shutdownNow();
+    }
+    roundSynchronization.finishedEval(resourcePool, network);
+    return new EvaluationStatistics(totalProtocols, totalBatches, partialBatches);
+  }
+
+  /**
+   * Returns the batch size currently used. The batch size is reset at the start of each
+   * evaluation.
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  private ProtocolCollectionList<ResourcePoolT> nextBatch(ProtocolProducer protocolProducer,
+      int capacity) {
+    if (!protocolProducer.hasNextProtocols()) {
+      return null;
+    }
+    ProtocolCollectionList<ResourcePoolT> protocols = new ProtocolCollectionList<>(capacity);
+    protocolProducer.getNextProtocols(protocols);
+    return protocols;
+  }
+
+  private ProtocolCollectionList<ResourcePoolT> await(
+      Future<ProtocolCollectionList<ResourcePoolT>> next) {
+    try {
+      return next.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while building the next batch", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException("Failed to build the next batch", e.getCause());
+    }
+  }
+
+  private long threadCpuTime() {
+    return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : 0;
+  }
+
+  /**
+   * Records the CPU time and wall time of evaluating a batch of the given size, in nanoseconds.
+   */
+  void observe(int size, long cpu, long wall) {
+    if (size == 0) {
+      return;
+    }
+    double perProtocol = (double) cpu / size;
+    double wait = Math.max(0, wall - cpu);
+    if (cpuTimePerProtocol == 0) {
+      cpuTimePerProtocol = perProtocol;
+      waitTimePerBatch = wait;
+    } else {
+      cpuTimePerProtocol += SMOOTHING * (perProtocol - cpuTimePerProtocol);
+      waitTimePerBatch += SMOOTHING * (wait - waitTimePerBatch);
+    }
+  }
+
+  /**
+   * Computes the batch size for which the waiting time is the target fraction of the time of a
+   * batch. The batch size is changed by at most a factor of two per tuning.
+   */
+  int proposeBatchSize() {
+    if (cpuTimePerProtocol == 0) {
+      return batchSize;
+    }
+    double ideal =
+        waitTimePerBatch * (1 - targetWaitFraction) / (targetWaitFraction * cpuTimePerProtocol);
+    double bounded = Math.max(batchSize / 2.0, Math.min(batchSize * 2.0, ideal));
+    return (int) Math.max(minBatchSize, Math.min(maxBatchSize, bounded));
+  }
+
+  /**
+   * Exchanges the proposed batch sizes with the other parties and returns the smallest proposal.
+   */
+  static int agree(Network network, int myId, int proposal) {
+    int noOfParties = network.getNoOfParties();
+    if (noOfParties == 1) {
+      return proposal;
+    }
+    byte[] message = ByteBuffer.allocate(Integer.BYTES).putInt(proposal).array();
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      if (partyId != myId) {
+        network.send(partyId, message);
+      }
+    }
+    int agreed = proposal;
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      if (partyId != myId) {
+        agreed = Math.min(agreed, ByteBuffer.wrap(network.receive(partyId)).getInt());
+      }
+    }
+    return agreed;
+  }
+}
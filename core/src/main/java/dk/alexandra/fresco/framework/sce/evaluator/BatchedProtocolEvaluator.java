@@ -45,6 +45,7 @@ public class BatchedProtocolEvaluator<ResourcePoolT extends ResourcePool>
     int batch = 0;
     int totalProtocols = 0;
     int totalBatches = 0;
+    int partialBatches = 0;
 
     NetworkBatchDecorator networkBatchDecorator = createSceNetwork(resourcePool, network);
     ProtocolSuite.RoundSynchronization<ResourcePoolT> roundSynchronization =
@@ -53,6 +54,7 @@ public class BatchedProtocolEvaluator<ResourcePoolT extends ResourcePool>
       ProtocolCollectionList<ResourcePoolT> protocols = new ProtocolCollectionList<>(maxBatchSize);
       protocolProducer.getNextProtocols(protocols);
       int size = protocols.size();
+      boolean partial = size > 0 && protocols.hasFreeCapacity();
 
       roundSynchronization.beforeBatch(protocols, resourcePool, network);
       batchEvaluator.processBatch(protocols, resourcePool, networkBatchDecorator);
@@ -62,11 +64,14 @@ public class BatchedProtocolEvaluator<ResourcePoolT extends ResourcePool>
       }
       totalProtocols += size;
       totalBatches += 1;
+      if (partial) {
+        partialBatches += 1;
+      }
       roundSynchronization.finishedBatch(size, resourcePool, network);
     } while (protocolProducer.hasNextProtocols());
 
     roundSynchronization.finishedEval(resourcePool, network);
-    return new EvaluationStatistics(totalProtocols, totalBatches);
+    return new EvaluationStatistics(totalProtocols, totalBatches, partialBatches);
   }
 
   private NetworkBatchDecorator createSceNetwork(ResourcePool resourcePool, Network network) {
@@ -0,0 +1,59 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import java.util.List;
+
+/**
+ * Keeps updates of shared state made by native protocols in a deterministic order when protocols
+ * are evaluated concurrently by the {@link ParallelBatchedStrategy}.
+ * <p>
+ * While a thread evaluates a slice of a round, updates passed to {@link #apply(Runnable)} are
+ * collected instead of being applied. The strategy applies the collected updates slice by slice
+ * once all slices of the round are done, so shared state such as an
+ * {@link dk.alexandra.fresco.framework.util.OpenedValueStore} is updated in the same order by all
+ * parties. Outside a parallel round updates are applied immediately.
+ * </p>
+ */
+public final class DeferredUpdates {
+
+  private static final ThreadLocal<List<Runnable>> DEFERRED = new ThreadLocal<>();
+
+  private DeferredUpdates() {
+  }
+
+  /**
+   * Checks if updates made by the current thread are deferred.
+   *
+   * @return true if the current thread evaluates a slice of a parallel round
+   */
+  public static boolean isDeferring() {
+    return DEFERRED.get() != null;
+  }
+
+  /**
+   * Applies an update of shared state, or defers it until the current parallel round is done.
+   *
+   * @param update the update to apply
+   */
+  public static void apply(Runnable update) {
+    List<Runnable> deferred = DEFERRED.get();
+    if (deferred == null) {
+      update.run();
+    } else {
+      deferred.add(update);
+    }
+  }
+
+  /**
+   * Starts collecting the updates made by the current thread in the given list.
+   */
+  static void begin(List<Runnable> updates) {
+    DEFERRED.set(updates);
+  }
+
+  /**
+   * Stops collecting the updates made by the current thread.
+   */
+  static void end() {
+    DEFERRED.remove();
+  }
+}
@@ -1,10 +1,7 @@
 package dk.alexandra.fresco.framework.sce.evaluator;
 
 import dk.alexandra.fresco.framework.network.Network;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Default network for the evaluators, this interface bridges the raw network4
@@ -13,33 +10,53 @@ import java.util.Map;
  * on the network.
  * <br/>
  * It is important to call flush to empty all buffers after sending and before receiving data
+ * <p>
+ * Each message in a batch is prefixed by its length encoded as an unsigned varint, i.e., seven
+ * bits per byte with the high bit set on all but the last byte. Messages shorter than 128 bytes
+ * thus carry a single byte of overhead, while messages of arbitrary size are supported. The
+ * output buffers are kept between calls to {@link #flush()}, so a steady state evaluation does not
+ * allocate new buffers per round. Messages are copied into the buffers when sent, so the caller
+ * may reuse its arrays.
+ * </p>
  */
 public class NetworkBatchDecorator implements Network {
 
-  private int noOfParties;
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+
+  private final int noOfParties;
   private final Network network;
-  private Map<Integer, ByteArrayOutputStream> output;
-  private Map<Integer, ByteArrayInputStream> input;
+  private final OutputBuffer[] output;
+  private final byte[][] input;
+  private final int[] inputOffset;
 
   public NetworkBatchDecorator(int noOfParties, Network network) {
     this.noOfParties = noOfParties;
     this.network = network;
-    this.output = new HashMap<>();
-    this.input = new HashMap<>();
+    this.output = new OutputBuffer[noOfParties];
+    this.input = new byte[noOfParties][];
+    this.inputOffset = new int[noOfParties];
   }
 
   @Override
   public byte[] receive(int id) {
-    ByteArrayInputStream byteInputStream = input.get(id);
-    if (byteInputStream == null) {
-      byte[] partyData = network.receive(id);
-      byteInputStream = new ByteArrayInputStream(partyData);
-      input.put(id, byteInputStream);
+    int index = id - 1;
+    byte[] partyData = input[index];
+    if (partyData == null) {
+      partyData = network.receive(id);
+      input[index] = partyData;
+      inputOffset[index] = 0;
     }
-
-    int count = byteInputStream.read();
-    byte[] bytes = new byte[count];
-    byteInputStream.read(bytes, 0, count);
+    int offset = inputOffset[index];
+    int count = 0;
+    int shift = 0;
+    byte current;
+    do {
+      current = partyData[offset++];
+      count |= (current & 0x7F) << shift;
+      shift += 7;
+    } while ((current & 0x80) != 0);
+    byte[] bytes = Arrays.copyOfRange(partyData, offset, offset + count);
+    inputOffset[index] = offset + count;
     return bytes;
   }
 
@@ -50,28 +67,100 @@ public class NetworkBatchDecorator implements Network {
 
   @Override
   public void send(int id, byte[] data) {
-    ByteArrayOutputStream buffer = this.output
-        .computeIfAbsent(id, (i) -> new ByteArrayOutputStream());
-    if (data.length > Byte.MAX_VALUE) {
-      throw new IllegalStateException(
-          "Current implementation only supports small packages, data.length=" + data.length);
+    int index = id - 1;
+    OutputBuffer buffer = output[index];
+    if (buffer == null) {
+      buffer = new OutputBuffer();
+      output[index] = buffer;
     }
-    buffer.write(data.length);
-    buffer.write(data, 0, data.length);
+    buffer.writeMessage(data);
   }
 
   /**
    * Flushes the internal buffers and sends the (remaining) pieces over the wire.
    */
   public void flush() {
-    for (int i = 1; i <= noOfParties; i++) {
-      if (output.containsKey(i)) {
-        ByteArrayOutputStream byteArrayOutputStream = output.get(i);
-        byte[] data = byteArrayOutputStream.toByteArray();
-        network.send(i, data);
+    for (int i = 0; i < noOfParties; i++) {
+      if (output[i] != null && !output[i].isEmpty()) {
+        network.send(i + 1, output[i].toByteArray());
+        output[i].reset();
+      }
+    }
+    Arrays.fill(input, null);
+  }
+
+  /**
+   * Computes the number of bytes needed to encode a length as a varint.
+   */
+  static int varIntLength(int value) {
+    int length = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * Writes a length as a varint into the given array.
+   *
+   * @return the offset just after the written varint
+   */
+  static int writeVarInt(byte[] buffer, int offset, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[offset++] = (byte) value;
+    return offset;
+  }
+
+  /**
+   * Growable byte buffer holding the length prefixed messages for a single party. Unlike a
+   * {@link java.io.ByteArrayOutputStream} it is not synchronized and is reused between rounds.
+   */
+  static class OutputBuffer {
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int count;
+
+    void writeMessage(byte[] data) {
+      ensureCapacity(count + varIntLength(data.length) + data.length);
+      count = writeVarInt(buffer, count, data.length);
+      System.arraycopy(data, 0, buffer, count, data.length);
+      count += data.length;
+    }
+
+    boolean isEmpty() {
+      return count == 0;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, count);
+    }
+
+    int size() {
+      return count;
+    }
+
+    /**
+     * Copies the content of the buffer into the given array.
+     *
+     * @return the offset just after the copied content
+     */
+    int copyTo(byte[] destination, int offset) {
+      System.arraycopy(buffer, 0, destination, offset, count);
+      return offset + count;
+    }
+
+    void reset() {
+      count = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1));
       }
-      output.remove(i);
     }
-    input.clear();
   }
 }
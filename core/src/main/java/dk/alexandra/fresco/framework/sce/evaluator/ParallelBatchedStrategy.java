@@ -0,0 +1,335 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.NativeProtocol.EvaluationStatus;
+import dk.alexandra.fresco.framework.ProtocolCollection;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.NetworkBatchDecorator.OutputBuffer;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Batched evaluation strategy which evaluates the protocols of a round on multiple cores.
+ * <p>
+ * The batch is split into slices of a fixed number of protocols, in the order of the batch. Each
+ * round works as in {@link BatchedStrategy}, except that the slices are evaluated concurrently in a
+ * {@link ForkJoinPool}. Each slice has its own ordered buffers of outgoing and incoming messages.
+ * At the end of a round the outgoing messages of all slices are sent as a single message per
+ * party, prefixed by the size of each slice's part, and the receiving party hands each part to the
+ * matching slice. The messages of a slice are thus in the same order as in {@link
+ * BatchedStrategy}, no matter how the slices are scheduled.
+ * </p>
+ * <p>
+ * For this to work all parties must use this strategy with the same slice size. Batches which fit
+ * in a single slice are evaluated exactly as by {@link BatchedStrategy}.
+ * </p>
+ * <p>
+ * The first round is evaluated sequentially, since this is where native protocols take
+ * pre-processed material from the resource pool, and this has to happen in the same order for all
+ * parties. The following rounds run concurrently, so anything the protocols share in those rounds
+ * must be safe to use from several threads. This includes the resource pool and the objects it
+ * hands out, e.g., the message digest of the SPDZ suite is kept per thread. Updates to shared
+ * state whose order matters, such as storing opened values, must go through {@link
+ * DeferredUpdates}, which applies the updates in the order of the slices once the round is done.
+ * </p>
+ */
+public class ParallelBatchedStrategy<ResourcePoolT extends ResourcePool>
+    implements BatchEvaluationStrategy<ResourcePoolT> {
+
+  /**
+   * The default number of protocols in a slice.
+   */
+  public static final int DEFAULT_SLICE_SIZE = 256;
+
+  private final int sliceSize;
+  private final ForkJoinPool pool;
+  private final BatchedStrategy<ResourcePoolT> singleSlice = new BatchedStrategy<>();
+
+  /**
+   * Creates a strategy with the default slice size using the common fork-join pool.
+   */
+  public ParallelBatchedStrategy() {
+    this(DEFAULT_SLICE_SIZE, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a strategy with the given slice size and pool.
+   *
+   * @param sliceSize the number of protocols in a slice, must be the same for all parties
+   * @param pool the pool evaluating the slices
+   */
+  public ParallelBatchedStrategy(int sliceSize, ForkJoinPool pool) {
+    if (sliceSize <= 0) {
+      throw new IllegalArgumentException("Slice size must be positive, was " + sliceSize);
+    }
+    this.sliceSize = sliceSize;
+    this.pool = pool;
+  }
+
+  @Override
+  public void processBatch(ProtocolCollection<ResourcePoolT> protocols,
+      ResourcePoolT resourcePool, NetworkBatchDecorator networkBatchDecorator) {
+    if (protocols.size() <= sliceSize) {
+      singleSlice.processBatch(protocols, resourcePool, networkBatchDecorator);
+      return;
+    }
+    Incoming incoming = new Incoming(networkBatchDecorator);
+    List<Slice> slices = new ArrayList<>();
+    Iterator<NativeProtocol<?, ResourcePoolT>> iterator = protocols.iterator();
+    Slice current = null;
+    while (iterator.hasNext()) {
+      if (current == null || current.protocols.size() == sliceSize) {
+        current = new Slice(slices.size(), incoming, networkBatchDecorator.getNoOfParties());
+        slices.add(current);
+      }
+      current.protocols.add(iterator.next());
+      iterator.remove();
+    }
+    incoming.noOfSlices = slices.size();
+    int round = 0;
+    boolean hasMoreRounds = true;
+    while (hasMoreRounds) {
+      if (round == 0) {
+        for (Slice slice : slices) {
+          slice.evaluate(round, resourcePool);
+        }
+      } else {
+        evaluateInParallel(slices, round, resourcePool);
+      }
+      send(slices, networkBatchDecorator);
+      networkBatchDecorator.flush();
+      hasMoreRounds = false;
+      for (Slice slice : slices) {
+        slice.clearInput();
+        hasMoreRounds |= !slice.protocols.isEmpty();
+      }
+      incoming.clear();
+      round++;
+    }
+  }
+
+  private void evaluateInParallel(List<Slice> slices, int round, ResourcePoolT resourcePool) {
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(slices.size());
+    for (Slice slice : slices) {
+      if (!slice.protocols.isEmpty()) {
+        tasks.add(ForkJoinTask.adapt(() -> slice.evaluateDeferred(round, resourcePool)));
+      }
+    }
+    pool.invoke(ForkJoinTask.adapt(() -> {
+      ForkJoinTask.invokeAll(tasks);
+    }));
+    for (Slice slice : slices) {
+      slice.applyUpdates();
+    }
+  }
+
+  /**
+   * Sends the messages of all slices to each party as a single message. The message starts with the
+   * number of slices followed by the size of the part of each slice, and then the parts in order.
+   */
+  private void send(List<Slice> slices, Network network) {
+    for (int party = 0; party < network.getNoOfParties(); party++) {
+      int headerLength = NetworkBatchDecorator.varIntLength(slices.size());
+      int bodyLength = 0;
+      for (Slice slice : slices) {
+        int size = slice.outputSize(party);
+        headerLength += NetworkBatchDecorator.varIntLength(size);
+        bodyLength += size;
+      }
+      if (bodyLength == 0) {
+        continue;
+      }
+      byte[] message = new byte[headerLength + bodyLength];
+      int offset = NetworkBatchDecorator.writeVarInt(message, 0, slices.size());
+      for (Slice slice : slices) {
+        offset = NetworkBatchDecorator.writeVarInt(message, offset, slice.outputSize(party));
+      }
+      for (Slice slice : slices) {
+        offset = slice.copyOutput(party, message, offset);
+      }
+      network.send(party + 1, message);
+    }
+  }
+
+  /**
+   * The incoming messages of the current round, received lazily from each party and split into
+   * the parts of each slice.
+   */
+  private static class Incoming {
+
+    private final Network network;
+    private final byte[][] data;
+    private final int[][] partStart;
+    private int noOfSlices;
+
+    Incoming(Network network) {
+      this.network = network;
+      this.data = new byte[network.getNoOfParties()][];
+      this.partStart = new int[network.getNoOfParties()][];
+    }
+
+    /**
+     * Returns the message received from a party, receiving it if it has not yet been received in
+     * this round.
+     */
+    synchronized byte[] get(int party) {
+      if (data[party] == null) {
+        byte[] message = network.receive(party + 1);
+        int[] offset = new int[1];
+        int count = readVarInt(message, offset);
+        if (count != noOfSlices) {
+          throw new IllegalStateException("Party " + (party + 1) + " sent " + count
+              + " slices but expected " + noOfSlices
+              + ". All parties must evaluate the same batches with the same slice size");
+        }
+        int[] starts = new int[noOfSlices + 1];
+        int[] sizes = new int[noOfSlices];
+        for (int i = 0; i < noOfSlices; i++) {
+          sizes[i] = readVarInt(message, offset);
+        }
+        starts[0] = offset[0];
+        for (int i = 0; i < noOfSlices; i++) {
+          starts[i + 1] = starts[i] + sizes[i];
+        }
+        partStart[party] = starts;
+        data[party] = message;
+      }
+      return data[party];
+    }
+
+    synchronized int start(int party, int slice) {
+      return partStart[party][slice];
+    }
+
+    synchronized int end(int party, int slice) {
+      return partStart[party][slice + 1];
+    }
+
+    void clear() {
+      Arrays.fill(data, null);
+      Arrays.fill(partStart, null);
+    }
+  }
+
+  /**
+   * Reads a varint at the offset stored in the given array and moves the offset past it.
+   */
+  private static int readVarInt(byte[] data, int[] offset) {
+    int value = 0;
+    int shift = 0;
+    byte current;
+    do {
+      current = data[offset[0]++];
+      value |= (current & 0x7F) << shift;
+      shift += 7;
+    } while ((current & 0x80) != 0);
+    return value;
+  }
+
+  /**
+   * A slice of the batch along with its own network buffers. The slice is used as the network of
+   * its protocols.
+   */
+  private class Slice implements Network {
+
+    private final int index;
+    private final Incoming incoming;
+    private final List<NativeProtocol<?, ResourcePoolT>> protocols = new LinkedList<>();
+    private final List<Runnable> updates = new ArrayList<>();
+    private final OutputBuffer[] output;
+    private final byte[][] input;
+    private final int[] inputOffset;
+    private final int[] inputEnd;
+
+    Slice(int index, Incoming incoming, int noOfParties) {
+      this.index = index;
+      this.incoming = incoming;
+      this.output = new OutputBuffer[noOfParties];
+      this.input = new byte[noOfParties][];
+      this.inputOffset = new int[noOfParties];
+      this.inputEnd = new int[noOfParties];
+    }
+
+    void evaluate(int round, ResourcePoolT resourcePool) {
+      Iterator<NativeProtocol<?, ResourcePoolT>> iterator = protocols.iterator();
+      while (iterator.hasNext()) {
+        NativeProtocol<?, ResourcePoolT> protocol = iterator.next();
+        EvaluationStatus status = protocol.evaluate(round, resourcePool, this);
+        if (status.equals(EvaluationStatus.IS_DONE)) {
+          iterator.remove();
+        }
+      }
+    }
+
+    void evaluateDeferred(int round, ResourcePoolT resourcePool) {
+      DeferredUpdates.begin(updates);
+      try {
+        evaluate(round, resourcePool);
+      } finally {
+        DeferredUpdates.end();
+      }
+    }
+
+    void applyUpdates() {
+      for (Runnable update : updates) {
+        update.run();
+      }
+      updates.clear();
+    }
+
+    int outputSize(int party) {
+      return output[party] == null ? 0 : output[party].size();
+    }
+
+    int copyOutput(int party, byte[] destination, int offset) {
+      if (output[party] == null) {
+        return offset;
+      }
+      int end = output[party].copyTo(destination, offset);
+      output[party].reset();
+      return end;
+    }
+
+    void clearInput() {
+      Arrays.fill(input, null);
+    }
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      int party = partyId - 1;
+      if (output[party] == null) {
+        output[party] = new OutputBuffer();
+      }
+      output[party].writeMessage(data);
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      int party = partyId - 1;
+      if (input[party] == null) {
+        input[party] = incoming.get(party);
+        inputOffset[party] = incoming.start(party, index);
+        inputEnd[party] = incoming.end(party, index);
+      }
+      int[] offset = {inputOffset[party]};
+      if (offset[0] >= inputEnd[party]) {
+        throw new IllegalStateException("No more messages from party " + partyId
+            + " for slice " + index);
+      }
+      int length = readVarInt(input[party], offset);
+      inputOffset[party] = offset[0] + length;
+      return Arrays.copyOfRange(input[party], offset[0], offset[0] + length);
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return output.length;
+    }
+  }
+}
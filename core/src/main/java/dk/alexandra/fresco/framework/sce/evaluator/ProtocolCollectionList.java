@@ -3,37 +3,120 @@ package dk.alexandra.fresco.framework.sce.evaluator;
 import dk.alexandra.fresco.framework.NativeProtocol;
 import dk.alexandra.fresco.framework.ProtocolCollection;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.NoSuchElementException;
 
+/**
+ * A protocol collection backed by an array.
+ * <p>
+ * Protocols removed through the iterator are only cleared from their slot. The remaining protocols
+ * are moved together, keeping their order, when the collection is iterated again. Evaluating a
+ * round thus costs a single pass over the array, no matter how many protocols finish in the
+ * round.
+ * </p>
+ */
 public class ProtocolCollectionList<ResourcePoolT extends ResourcePool>
     implements ProtocolCollection<ResourcePoolT> {
 
-  private int capacity;
-  private List<NativeProtocol<?, ResourcePoolT>> protocols;
+  private static final int INITIAL_ARRAY_SIZE = 16;
 
+  private final int capacity;
+  private NativeProtocol<?, ResourcePoolT>[] protocols;
+  private int length;
+  private int removed;
+
+  /**
+   * Creates a new collection.
+   *
+   * @param capacity the number of protocols the collection has room for
+   */
   public ProtocolCollectionList(int capacity) {
     this.capacity = capacity;
-    this.protocols = new LinkedList<>();
+    this.protocols = newArray(Math.max(1, Math.min(capacity, INITIAL_ARRAY_SIZE)));
   }
 
   @Override
   public void addProtocol(NativeProtocol<?, ResourcePoolT> protocol) {
-    protocols.add(protocol);
+    if (length == protocols.length) {
+      compact();
+      if (length == protocols.length) {
+        protocols = Arrays.copyOf(protocols, protocols.length * 2);
+      }
+    }
+    protocols[length++] = protocol;
   }
 
   @Override
   public boolean hasFreeCapacity() {
-    return protocols.size() < capacity;
+    return size() < capacity;
   }
 
   @Override
   public Iterator<NativeProtocol<?, ResourcePoolT>> iterator() {
-    return protocols.iterator();
+    compact();
+    return new CompactingIterator();
   }
 
+  @Override
   public int size() {
-    return protocols.size();
+    return length - removed;
+  }
+
+  /**
+   * Moves the remaining protocols to the front of the array.
+   */
+  private void compact() {
+    if (removed == 0) {
+      return;
+    }
+    int write = 0;
+    for (int read = 0; read < length; read++) {
+      if (protocols[read] != null) {
+        protocols[write++] = protocols[read];
+      }
+    }
+    Arrays.fill(protocols, write, length, null);
+    length = write;
+    removed = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <ResourcePoolT extends ResourcePool> NativeProtocol<?, ResourcePoolT>[] newArray(
+      int size) {
+    return (NativeProtocol<?, ResourcePoolT>[]) new NativeProtocol<?, ?>[size];
+  }
+
+  private class CompactingIterator implements Iterator<NativeProtocol<?, ResourcePoolT>> {
+
+    private int next;
+    private int current = -1;
+
+    @Override
+    public boolean hasNext() {
+      while (next < length && protocols[next] == null) {
+        next++;
+      }
+      return next < length;
+    }
+
+    @Override
+    public NativeProtocol<?, ResourcePoolT> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = next++;
+      return protocols[current];
+    }
+
+    @Override
+    public void remove() {
+      if (current < 0) {
+        throw new IllegalStateException("No protocol to remove");
+      }
+      protocols[current] = null;
+      current = -1;
+      removed++;
+    }
   }
 }
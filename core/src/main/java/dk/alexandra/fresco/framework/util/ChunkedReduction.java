@@ -0,0 +1,82 @@
+package dk.alexandra.fresco.framework.util;
+
+import java.util.function.BinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Reduces a range of indices by splitting it into chunks, reducing each chunk on its own and
+ * combining the results. Large ranges are split across the available processors, small ranges are
+ * reduced as a single chunk on the calling thread.
+ * <p>
+ * The combining operation must be associative and commutative, e.g., addition in a field or ring,
+ * as the chunks are combined in no particular order.
+ * </p>
+ */
+public final class ChunkedReduction {
+
+  /**
+   * The default minimum number of indices reduced by each processor.
+   */
+  public static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 15;
+
+  private ChunkedReduction() {
+    // Should not be instantiated
+  }
+
+  /**
+   * Reduces the indices <i>0, ..., size - 1</i> with chunks of at least
+   * {@link #DEFAULT_MIN_CHUNK_SIZE} indices.
+   *
+   * @param size the number of indices
+   * @param chunk reduces the indices from the first, inclusive, to the second, exclusive
+   * @param combine combines the results of two chunks
+   * @param <T> the type of the result
+   * @return the combined result
+   */
+  public static <T> T reduce(int size, ChunkFunction<T> chunk, BinaryOperator<T> combine) {
+    return reduce(size, DEFAULT_MIN_CHUNK_SIZE, chunk, combine);
+  }
+
+  /**
+   * Reduces the indices <i>0, ..., size - 1</i>.
+   *
+   * @param size the number of indices
+   * @param minChunkSize the minimum number of indices reduced by each processor
+   * @param chunk reduces the indices from the first, inclusive, to the second, exclusive
+   * @param combine combines the results of two chunks
+   * @param <T> the type of the result
+   * @return the combined result
+   */
+  public static <T> T reduce(int size, int minChunkSize, ChunkFunction<T> chunk,
+      BinaryOperator<T> combine) {
+    int chunks = Math.min(Runtime.getRuntime().availableProcessors(),
+        size / Math.max(1, minChunkSize));
+    if (chunks <= 1) {
+      return chunk.apply(0, size);
+    }
+    return IntStream.range(0, chunks)
+        .parallel()
+        .mapToObj(i -> chunk.apply((int) ((long) size * i / chunks),
+            (int) ((long) size * (i + 1) / chunks)))
+        .reduce(combine)
+        .get();
+  }
+
+  /**
+   * Reduces a chunk of indices.
+   *
+   * @param <T> the type of the result
+   */
+  @FunctionalInterface
+  public interface ChunkFunction<T> {
+
+    /**
+     * Reduces the indices from <i>from</i>, inclusive, to <i>to</i>, exclusive.
+     *
+     * @param from the first index
+     * @param to the index after the last index
+     * @return the result for the chunk
+     */
+    T apply(int from, int to);
+  }
+}
@@ -0,0 +1,62 @@
+package dk.alexandra.fresco.framework.util;
+
+import dk.alexandra.fresco.framework.builder.Computation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds the computations building protocols on the current thread, such that protocols can be
+ * attributed to the computations creating them.
+ * <p>
+ * A frame of the stack belongs to a computation if its class implements {@link Computation}. This
+ * includes lambdas and helper methods of the computation, since they are compiled to methods of the
+ * same class. Whether a class is a computation is only looked up once.
+ * </p>
+ */
+public final class ComputationStack {
+
+  private static final ConcurrentMap<String, Boolean> computations = new ConcurrentHashMap<>();
+
+  private ComputationStack() {
+    // Should not be instantiated
+  }
+
+  /**
+   * Gets the classes of the computations currently building protocols, outermost first. A
+   * computation calling itself, directly or through its lambdas, is only given once.
+   *
+   * @return the names of the classes of the computations
+   */
+  public static List<String> current() {
+    StackTraceElement[] trace = Thread.currentThread().getStackTrace();
+    List<String> stack = new ArrayList<>();
+    for (StackTraceElement element : trace) {
+      String className = element.getClassName();
+      if ((stack.isEmpty() || !stack.get(stack.size() - 1).equals(className))
+          && isComputation(className)) {
+        stack.add(className);
+      }
+    }
+    Collections.reverse(stack);
+    return stack;
+  }
+
+  private static boolean isComputation(String className) {
+    return computations.computeIfAbsent(className, ComputationStack::lookup);
+  }
+
+  private static boolean lookup(String className) {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    if (loader == null) {
+      loader = ComputationStack.class.getClassLoader();
+    }
+    try {
+      return Computation.class.isAssignableFrom(Class.forName(className, false, loader));
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+}
@@ -1,10 +1,16 @@
 package dk.alexandra.fresco.framework.util;
 
+import dk.alexandra.fresco.framework.sce.evaluator.DeferredUpdates;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Implements {@link OpenedValueStore}.
+ * <p>
+ * Values pushed while evaluating a round with the {@link
+ * dk.alexandra.fresco.framework.sce.evaluator.ParallelBatchedStrategy} are stored through {@link
+ * DeferredUpdates} to keep them in the same order for all parties.
+ * </p>
  */
 public class OpenedValueStoreImpl<AuthT, OpenT> implements OpenedValueStore<AuthT, OpenT> {
 
@@ -18,12 +24,20 @@ public class OpenedValueStoreImpl<AuthT, OpenT> implements OpenedValueStore<Auth
 
   @Override
   public void pushOpenedValues(List<AuthT> newSharesWithMacs, List<OpenT> newOpenedValues) {
+    if (DeferredUpdates.isDeferring()) {
+      DeferredUpdates.apply(() -> pushOpenedValues(newSharesWithMacs, newOpenedValues));
+      return;
+    }
     sharesWithMacs.addAll(newSharesWithMacs);
     openValues.addAll(newOpenedValues);
   }
 
   @Override
   public void pushOpenedValue(AuthT newShareWithMac, OpenT newOpenedValue) {
+    if (DeferredUpdates.isDeferring()) {
+      DeferredUpdates.apply(() -> pushOpenedValue(newShareWithMac, newOpenedValue));
+      return;
+    }
     sharesWithMacs.add(newShareWithMac);
     openValues.add(newOpenedValue);
   }
@@ -0,0 +1,122 @@
+package dk.alexandra.fresco.framework.util;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free queue for handing off elements from a single producer thread to a single
+ * consumer thread.
+ *
+ * <p>
+ * Elements are stored in a ring buffer with a capacity rounded up to the nearest power of two. The
+ * producer and the consumer each keep a cached copy of the other side's position, so in the common
+ * case neither {@link #offer(Object)} nor {@link #poll()} touches memory written by the other
+ * thread. The buffer is only safe to use if at most one thread calls {@link #offer(Object)} and at
+ * most one (possibly different) thread calls {@link #poll()}.
+ * </p>
+ *
+ * @param <T> the type of elements held in the buffer
+ */
+public class SpscRingBuffer<T> {
+
+  private final Object[] elements;
+  private final int mask;
+  // Index of the next element to be consumed. Only written by the consumer.
+  private final AtomicLong head;
+  // Index of the next element to be produced. Only written by the producer.
+  private final AtomicLong tail;
+  // Producer local copy of head
+  private long cachedHead;
+  // Consumer local copy of tail
+  private long cachedTail;
+
+  /**
+   * Creates a new ring buffer.
+   *
+   * @param capacity the minimum number of elements the buffer should be able to hold
+   */
+  public SpscRingBuffer(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^30, was " + capacity);
+    }
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    this.elements = new Object[size];
+    this.mask = size - 1;
+    this.head = new AtomicLong();
+    this.tail = new AtomicLong();
+  }
+
+  /**
+   * Adds an element to the buffer if there is room for it. Must only be called by the producer.
+   *
+   * @param element the element to add
+   * @return true if the element was added, false if the buffer is full
+   */
+  public boolean offer(T element) {
+    Objects.requireNonNull(element);
+    long currentTail = tail.get();
+    if (currentTail - cachedHead >= elements.length) {
+      cachedHead = head.get();
+      if (currentTail - cachedHead >= elements.length) {
+        return false;
+      }
+    }
+    elements[(int) currentTail & mask] = element;
+    tail.set(currentTail + 1);
+    return true;
+  }
+
+  /**
+   * Removes the oldest element from the buffer. Must only be called by the consumer.
+   *
+   * @return the oldest element or null if the buffer is empty
+   */
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    long currentHead = head.get();
+    if (currentHead >= cachedTail) {
+      cachedTail = tail.get();
+      if (currentHead >= cachedTail) {
+        return null;
+      }
+    }
+    int index = (int) currentHead & mask;
+    T element = (T) elements[index];
+    elements[index] = null;
+    head.lazySet(currentHead + 1);
+    return element;
+  }
+
+  /**
+   * Gets the number of elements currently in the buffer. The result is only a snapshot if called
+   * while the producer or consumer is active.
+   *
+   * @return the number of elements in the buffer
+   */
+  public int size() {
+    long currentHead = head.get();
+    return (int) (tail.get() - currentHead);
+  }
+
+  /**
+   * Tests if the buffer is empty. The result is only a snapshot if called while the producer or
+   * consumer is active.
+   *
+   * @return true if the buffer holds no elements
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Gets the number of elements the buffer can hold.
+   *
+   * @return the capacity
+   */
+  public int capacity() {
+    return elements.length;
+  }
+}
@@ -0,0 +1,59 @@
+package dk.alexandra.fresco.lib.helper;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.ProtocolCollection;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import java.util.List;
+
+/**
+ * A protocol producer for a number of independent native protocols, stored in a single array.
+ * <p>
+ * This replaces a run of {@link SingleProtocolProducer}s in a {@link ParallelProtocolProducer}, so
+ * the protocols are added to a batch in a single loop instead of asking each single producer in
+ * turn. The protocols are produced in the order given.
+ * </p>
+ */
+public class FlatProtocolProducer implements ProtocolProducer {
+
+  private final NativeProtocol<?, ?>[] protocols;
+  private int next;
+
+  /**
+   * Creates a producer for the protocols of the given single protocol producers. The single
+   * producers should not be used as producers afterwards, but can still be used to get the results
+   * of their protocols.
+   *
+   * @param producers the single protocol producers to flatten
+   */
+  public FlatProtocolProducer(List<SingleProtocolProducer<?>> producers) {
+    this.protocols = new NativeProtocol<?, ?>[producers.size()];
+    int i = 0;
+    for (SingleProtocolProducer<?> producer : producers) {
+      protocols[i++] = producer.flatten();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <ResourcePoolT extends ResourcePool> void getNextProtocols(
+      ProtocolCollection<ResourcePoolT> protocolCollection) {
+    while (next < protocols.length && protocolCollection.hasFreeCapacity()) {
+      protocolCollection.addProtocol((NativeProtocol<?, ResourcePoolT>) protocols[next]);
+      // Drop the reference to ensure garbage collection once the protocol is evaluated
+      protocols[next++] = null;
+    }
+  }
+
+  @Override
+  public boolean hasNextProtocols() {
+    return next < protocols.length;
+  }
+
+  @Override
+  public String toString() {
+    return "FlatProtocolProducer{"
+        + "remaining=" + (protocols.length - next)
+        + '}';
+  }
+}
@@ -30,6 +30,15 @@ public class LazyProtocolProducerDecorator implements ProtocolProducer {
     return getInnerProtocolProducer().hasNextProtocols();
   }
 
+  /**
+   * Gets the inner producer without creating it.
+   *
+   * @return the inner producer, or null if it has not been created yet
+   */
+  ProtocolProducer peekInnerProtocolProducer() {
+    return innerProtocolProducer;
+  }
+
   ProtocolProducer getInnerProtocolProducer() {
     if (innerProtocolProducer == null) {
       innerProtocolProducer = child.get();
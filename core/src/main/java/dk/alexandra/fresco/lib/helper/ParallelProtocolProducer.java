@@ -4,27 +4,68 @@ import dk.alexandra.fresco.framework.ProtocolCollection;
 import dk.alexandra.fresco.framework.ProtocolProducer;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * A parallel producer contains a set of protocols producer that are asked to fill the collection
  * eagerly. Given some of the producers are lazy initialized this performs best - and hence does a
  * breadth first search for more protocols. THis skews the evalueration of the protocols in favor of
  * the first, but delivers the best performance in terms of memory.
+ * <p>
+ * Consecutive single protocols are flattened into a {@link FlatProtocolProducer} when the producer
+ * is created.
+ * </p>
+ * <p>
+ * When a batch could not hold the protocols of all branches, the branches are ordered by their
+ * estimated remaining depth before the next batch is filled. Long chains of dependent protocols
+ * are thus not deferred behind wide but shallow branches, which would increase the number of
+ * rounds beyond the depth of the computation. Each branch is estimated when the first batch
+ * overflows and afterwards only when it has added protocols to a batch, since the other branches
+ * have not changed. Keeping the branches in a queue per estimate then makes the cost of ordering
+ * proportional to the size of the batch rather than to the number of branches.
+ * </p>
  */
 public class ParallelProtocolProducer implements ProtocolProducer {
 
   private final Deque<ProtocolProducer> subProducers;
+  private List<Deque<ProtocolProducer>> byDepth;
+  private boolean overflowed;
+  private int visited;
 
   public ParallelProtocolProducer(List<ProtocolProducer> protocols) {
-    subProducers = new ArrayDeque<>(protocols);
+    subProducers = new ArrayDeque<>(protocols.size());
+    List<SingleProtocolProducer<?>> run = new ArrayList<>();
+    for (ProtocolProducer producer : protocols) {
+      if (producer instanceof SingleProtocolProducer) {
+        run.add((SingleProtocolProducer<?>) producer);
+      } else {
+        addRun(run);
+        subProducers.add(producer);
+      }
+    }
+    addRun(run);
+  }
+
+  /**
+   * Adds a run of single protocol producers as one flat producer, keeping the order of the
+   * protocols.
+   */
+  private void addRun(List<SingleProtocolProducer<?>> run) {
+    if (run.size() == 1) {
+      subProducers.add(run.get(0));
+    } else if (run.size() > 1) {
+      subProducers.add(new FlatProtocolProducer(run));
+    }
+    run.clear();
   }
 
   @Override
   public boolean hasNextProtocols() {
-    for (Iterator<ProtocolProducer> iterator = subProducers.iterator(); iterator.hasNext(); ) {
+    for (Iterator<ProtocolProducer> iterator = branches(); iterator.hasNext(); ) {
       ProtocolProducer producer = iterator.next();
       if (producer.hasNextProtocols()) {
         return true;
@@ -38,15 +79,108 @@ public class ParallelProtocolProducer implements ProtocolProducer {
   @Override
   public <ResourcePoolT extends ResourcePool> void getNextProtocols(
       ProtocolCollection<ResourcePoolT> protocolCollection) {
-    Iterator<ProtocolProducer> iterator = subProducers.iterator();
+    if (overflowed) {
+      prioritize();
+    }
+    visited = 0;
+    Iterator<ProtocolProducer> iterator = branches();
     while (iterator.hasNext() && protocolCollection.hasFreeCapacity()) {
       ProtocolProducer producer = iterator.next();
       if (producer.hasNextProtocols()) {
         producer.getNextProtocols(protocolCollection);
+        visited++;
       } else {
         iterator.remove();
       }
     }
+    overflowed = iterator.hasNext();
+  }
+
+  /**
+   * Orders the branches by their estimated remaining depth, deepest first. Branches with the same
+   * estimate keep their order.
+   * <p>
+   * The first time all branches are estimated. Later only the branches which added protocols to the
+   * last batch are estimated again. These are the first branches, so moving them to the front of
+   * the queue of their new estimate keeps the order of branches with the same estimate.
+   * </p>
+   */
+  private void prioritize() {
+    int count = visited;
+    if (byDepth == null) {
+      byDepth = new ArrayList<>(RemainingDepth.LIMIT + 1);
+      for (int depth = 0; depth <= RemainingDepth.LIMIT; depth++) {
+        byDepth.add(new ArrayDeque<>());
+      }
+      count = subProducers.size();
+    }
+    ProtocolProducer[] branches = new ProtocolProducer[count];
+    int polled = 0;
+    while (polled < count && (branches[polled] = pollFirst()) != null) {
+      polled++;
+    }
+    for (int i = polled - 1; i >= 0; i--) {
+      byDepth.get(RemainingDepth.estimate(branches[i])).addFirst(branches[i]);
+    }
   }
 
+  /**
+   * Removes the first branch, or returns null if there are no branches.
+   */
+  private ProtocolProducer pollFirst() {
+    if (!subProducers.isEmpty() || byDepth == null) {
+      return subProducers.pollFirst();
+    }
+    for (int depth = RemainingDepth.LIMIT; depth > 0; depth--) {
+      if (!byDepth.get(depth).isEmpty()) {
+        return byDepth.get(depth).pollFirst();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets the branches of this producer which are not done.
+   */
+  Iterator<ProtocolProducer> branches() {
+    return byDepth == null ? subProducers.iterator() : new BranchIterator();
+  }
+
+  /**
+   * Iterates the branches which have not been ordered yet followed by the queues of the ordered
+   * branches, deepest first.
+   */
+  private class BranchIterator implements Iterator<ProtocolProducer> {
+
+    private int depth = RemainingDepth.LIMIT + 1;
+    private Iterator<ProtocolProducer> current = subProducers.iterator();
+    private Iterator<ProtocolProducer> last;
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext() && depth > 1) {
+        depth--;
+        current = byDepth.get(depth).iterator();
+      }
+      return current.hasNext();
+    }
+
+    @Override
+    public ProtocolProducer next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      last = current;
+      return current.next();
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      last.remove();
+      last = null;
+    }
+  }
 }
@@ -0,0 +1,78 @@
+package dk.alexandra.fresco.lib.helper;
+
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import java.util.Iterator;
+
+/**
+ * Estimates the number of batches a protocol producer needs before it is done.
+ * <p>
+ * The estimate only looks at the part of the producer tree which has already been created. Lazy
+ * producers which have not been expanded, and producers of unknown types, count as a single
+ * batch. Steps of a sequential producer add up and branches of a parallel producer count as the
+ * deepest one. The estimate is capped and at most {@link #MAX_PRODUCERS} producers are looked at,
+ * including the branches of nested parallel producers, after which any remaining steps count as a
+ * single batch. The cost of estimating is thus bounded no matter the size of the tree.
+ * </p>
+ */
+final class RemainingDepth {
+
+  /**
+   * The largest estimate returned.
+   */
+  static final int LIMIT = 64;
+
+  /**
+   * The number of branches of a parallel producer which are considered.
+   */
+  private static final int MAX_BRANCHES = 16;
+
+  /**
+   * The number of producers which are looked at for a single estimate.
+   */
+  static final int MAX_PRODUCERS = 256;
+
+  private int producers = MAX_PRODUCERS;
+
+  private RemainingDepth() {
+  }
+
+  /**
+   * Estimates the remaining depth of a producer.
+   *
+   * @param producer the producer
+   * @return the estimate, between 1 and {@link #LIMIT}
+   */
+  static int estimate(ProtocolProducer producer) {
+    return Math.max(1, new RemainingDepth().estimate(producer, LIMIT));
+  }
+
+  private int estimate(ProtocolProducer producer, int budget) {
+    if (budget <= 0 || producers <= 0) {
+      return 0;
+    }
+    producers--;
+    if (producer instanceof SequentialProtocolProducer) {
+      int depth = 0;
+      Iterator<ProtocolProducer> steps = ((SequentialProtocolProducer) producer).steps();
+      while (steps.hasNext() && depth < budget) {
+        depth += Math.max(1, estimate(steps.next(), budget - depth));
+      }
+      return Math.min(depth, budget);
+    } else if (producer instanceof ParallelProtocolProducer) {
+      int depth = 0;
+      int branches = 0;
+      Iterator<ProtocolProducer> iterator = ((ParallelProtocolProducer) producer).branches();
+      while (iterator.hasNext() && branches++ < MAX_BRANCHES && depth < budget
+          && producers > 0) {
+        depth = Math.max(depth, estimate(iterator.next(), budget));
+      }
+      return depth;
+    } else if (producer instanceof LazyProtocolProducerDecorator) {
+      ProtocolProducer inner =
+          ((LazyProtocolProducerDecorator) producer).peekInnerProtocolProducer();
+      return inner == null ? 1 : estimate(inner, budget);
+    } else {
+      return 1;
+    }
+  }
+}
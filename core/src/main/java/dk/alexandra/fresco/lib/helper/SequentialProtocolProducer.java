@@ -66,6 +66,13 @@ public class SequentialProtocolProducer implements ProtocolProducer {
     return !protocolProducers.isEmpty();
   }
 
+  /**
+   * Gets the remaining steps, starting with the current one.
+   */
+  Iterator<ProtocolProducer> steps() {
+    return protocolProducers.iterator();
+  }
+
   @Override
   public String toString() {
     return "SequentialProtocolProducer{"
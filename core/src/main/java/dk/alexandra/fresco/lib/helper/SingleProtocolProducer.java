@@ -39,6 +39,17 @@ public class SingleProtocolProducer<T> implements ProtocolProducer, DRes<T> {
         + '}';
   }
 
+  /**
+   * Hands the protocol over to a {@link FlatProtocolProducer}, which will produce it instead of
+   * this producer.
+   *
+   * @return the native protocol of this producer
+   */
+  NativeProtocol<T, ?> flatten() {
+    evaluated = true;
+    return protocol;
+  }
+
   @Override
   public T out() {
     if (result == null) {
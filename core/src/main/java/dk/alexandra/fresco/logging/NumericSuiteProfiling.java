@@ -0,0 +1,192 @@
+package dk.alexandra.fresco.logging;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.builder.numeric.AdvancedNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.Collections;
+import dk.alexandra.fresco.framework.builder.numeric.Comparison;
+import dk.alexandra.fresco.framework.builder.numeric.Debug;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.NumericResourcePool;
+import dk.alexandra.fresco.framework.builder.numeric.PreprocessedValues;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.lib.compare.MiscBigIntegerGenerators;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
+import dk.alexandra.fresco.lib.real.AdvancedRealNumeric;
+import dk.alexandra.fresco.lib.real.RealLinearAlgebra;
+import dk.alexandra.fresco.lib.real.RealNumeric;
+import dk.alexandra.fresco.lib.real.RealNumericContext;
+import dk.alexandra.fresco.suite.ProtocolSuiteNumeric;
+
+/**
+ * Attributes the native protocols of a numeric suite to the computations creating them, for a
+ * {@link ProtocolProfiler}.
+ * <p>
+ * The stack of computations is found from the call stack when a builder appends its first native
+ * protocol, and is used for all protocols of that builder. Since walking the call stack is costly,
+ * only one builder out of a given interval is attributed. The measurements of the computations are
+ * then those of the sampled protocols, while the measurements of each class of native protocol are
+ * still complete.
+ * </p>
+ * <p>
+ * Computations are built lazily, so a step which is built after the computation containing it has
+ * returned only shows the computations on the call stack at that time. Protocols built outside of
+ * any computation are not attributed.
+ * </p>
+ *
+ * @param <ResourcePoolT> the resource pool of the original decorated suite.
+ */
+public class NumericSuiteProfiling<ResourcePoolT extends NumericResourcePool>
+    implements ProtocolSuiteNumeric<ResourcePoolT> {
+
+  private final ProtocolSuiteNumeric<ResourcePoolT> delegateSuite;
+  private final ProtocolProfiler<?> profiler;
+  private final int sampleInterval;
+
+  /**
+   * Creates a new profiling decorator attributing every builder.
+   *
+   * @param protocolSuite the original protocol suite
+   * @param profiler the profiler evaluating the protocols of the suite
+   */
+  public NumericSuiteProfiling(ProtocolSuiteNumeric<ResourcePoolT> protocolSuite,
+      ProtocolProfiler<?> profiler) {
+    this(protocolSuite, profiler, 1);
+  }
+
+  /**
+   * Creates a new profiling decorator.
+   *
+   * @param protocolSuite the original protocol suite
+   * @param profiler the profiler evaluating the protocols of the suite
+   * @param sampleInterval attribute one builder out of this many
+   */
+  public NumericSuiteProfiling(ProtocolSuiteNumeric<ResourcePoolT> protocolSuite,
+      ProtocolProfiler<?> profiler, int sampleInterval) {
+    if (sampleInterval <= 0) {
+      throw new IllegalArgumentException(
+          "Sample interval must be positive, was " + sampleInterval);
+    }
+    this.delegateSuite = protocolSuite;
+    this.profiler = profiler;
+    this.sampleInterval = sampleInterval;
+  }
+
+  @Override
+  public BuilderFactoryNumeric init(ResourcePoolT resourcePool) {
+    return new ProfilingFactory(delegateSuite.init(resourcePool));
+  }
+
+  @Override
+  public RoundSynchronization<ResourcePoolT> createRoundSynchronization() {
+    return delegateSuite.createRoundSynchronization();
+  }
+
+  /**
+   * A builder which attributes its native protocols to the computations creating them.
+   */
+  private class ProfilingBuilder extends ProtocolBuilderNumeric {
+
+    private final boolean sampled;
+    private String stack;
+
+    ProfilingBuilder(BuilderFactoryNumeric factory, boolean parallel) {
+      super(factory, parallel);
+      this.sampled = profiler.sample(sampleInterval);
+    }
+
+    @Override
+    public <T> DRes<T> append(NativeProtocol<T, ?> nativeProtocol) {
+      if (sampled) {
+        if (stack == null) {
+          stack = ProtocolProfiler.currentComputations();
+        }
+        profiler.attribute(nativeProtocol, stack);
+      }
+      return super.append(nativeProtocol);
+    }
+  }
+
+  /**
+   * Delegates to the factory of the original suite, but creates profiling builders.
+   */
+  private class ProfilingFactory implements BuilderFactoryNumeric {
+
+    private final BuilderFactoryNumeric delegate;
+
+    ProfilingFactory(BuilderFactoryNumeric delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public BasicNumericContext getBasicNumericContext() {
+      return delegate.getBasicNumericContext();
+    }
+
+    @Override
+    public RealNumericContext getRealNumericContext() {
+      return delegate.getRealNumericContext();
+    }
+
+    @Override
+    public Numeric createNumeric(ProtocolBuilderNumeric builder) {
+      return delegate.createNumeric(builder);
+    }
+
+    @Override
+    public MiscBigIntegerGenerators getBigIntegerHelper() {
+      return delegate.getBigIntegerHelper();
+    }
+
+    @Override
+    public Comparison createComparison(ProtocolBuilderNumeric builder) {
+      return delegate.createComparison(builder);
+    }
+
+    @Override
+    public AdvancedNumeric createAdvancedNumeric(ProtocolBuilderNumeric builder) {
+      return delegate.createAdvancedNumeric(builder);
+    }
+
+    @Override
+    public Collections createCollections(ProtocolBuilderNumeric builder) {
+      return delegate.createCollections(builder);
+    }
+
+    @Override
+    public PreprocessedValues createPreprocessedValues(ProtocolBuilderNumeric builder) {
+      return delegate.createPreprocessedValues(builder);
+    }
+
+    @Override
+    public RealNumeric createRealNumeric(ProtocolBuilderNumeric builder) {
+      return delegate.createRealNumeric(builder);
+    }
+
+    @Override
+    public AdvancedRealNumeric createAdvancedRealNumeric(ProtocolBuilderNumeric builder) {
+      return delegate.createAdvancedRealNumeric(builder);
+    }
+
+    @Override
+    public RealLinearAlgebra createRealLinearAlgebra(ProtocolBuilderNumeric builder) {
+      return delegate.createRealLinearAlgebra(builder);
+    }
+
+    @Override
+    public Debug createDebug(ProtocolBuilderNumeric builder) {
+      return delegate.createDebug(builder);
+    }
+
+    @Override
+    public ProtocolBuilderNumeric createSequential() {
+      return new ProfilingBuilder(this, false);
+    }
+
+    @Override
+    public ProtocolBuilderNumeric createParallel() {
+      return new ProfilingBuilder(this, true);
+    }
+  }
+}
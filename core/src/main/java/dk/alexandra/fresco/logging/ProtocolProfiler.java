@@ -0,0 +1,315 @@
+package dk.alexandra.fresco.logging;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.ProtocolCollection;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchEvaluationStrategy;
+import dk.alexandra.fresco.framework.sce.evaluator.NetworkBatchDecorator;
+import dk.alexandra.fresco.framework.sce.evaluator.ProtocolCollectionList;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.util.ComputationStack;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Profiles the native protocols evaluated by a batch evaluation strategy.
+ * <p>
+ * Each native protocol of a batch is wrapped before the batch is handed to the decorated strategy.
+ * The wrapper measures the wall-clock time spent in the protocol, the number of rounds, the bytes
+ * it sends and receives and, if a counter is given, the pre-processed material it consumes in its
+ * first round. The time spent waiting for the other parties in the network is measured on its own
+ * and not included in the time spent in the protocol. The measurements are added up for each class of native protocol when the protocol
+ * is done. The protocols are only wrapped while the strategy evaluates them, so round
+ * synchronizations still see the original protocols.
+ * </p>
+ * <p>
+ * Protocols can also be attributed to the computations that created them, see {@link
+ * NumericSuiteProfiling}. The measurements are then also added up for each stack of computations
+ * and can be written as folded stacks, the input format of most flame graph tools.
+ * </p>
+ *
+ * @param <ResourcePoolT> the resource pool of the decorated strategy
+ */
+public class ProtocolProfiler<ResourcePoolT extends ResourcePool>
+    implements BatchEvaluationStrategy<ResourcePoolT>, PerformanceLogger {
+
+  public static final String PROTOCOL_PREFIX = "PROTOCOL_";
+  public static final String COMPUTATION_PREFIX = "COMPUTATION_";
+
+  /**
+   * The measurements taken for each native protocol. The time spent in a protocol, TIME_NS, does
+   * not include the time spent receiving from the network, WAIT_NS.
+   */
+  public enum Metric {
+    COUNT, TIME_NS, WAIT_NS, ROUNDS, BYTES_SENT, BYTES_RECEIVED, PREPROCESSING
+  }
+
+  private static final Metric[] METRICS = Metric.values();
+  private static final String SEPARATOR = ";";
+
+  private final BatchEvaluationStrategy<ResourcePoolT> delegate;
+  private final ToLongFunction<? super ResourcePoolT> preprocessingCounter;
+  private final ConcurrentMap<Class<?>, ClassStats> byClass = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Stats> byStack = new ConcurrentHashMap<>();
+  private final Map<NativeProtocol<?, ?>, String> owners =
+      Collections.synchronizedMap(new IdentityHashMap<>());
+  private final AtomicLong builders = new AtomicLong();
+
+  /**
+   * Creates a profiler which does not count pre-processed material.
+   *
+   * @param delegate the strategy evaluating the protocols
+   */
+  public ProtocolProfiler(BatchEvaluationStrategy<ResourcePoolT> delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Creates a profiler.
+   *
+   * @param delegate the strategy evaluating the protocols
+   * @param preprocessingCounter gives the amount of pre-processed material consumed so far from a
+   *     resource pool, may be null
+   */
+  public ProtocolProfiler(BatchEvaluationStrategy<ResourcePoolT> delegate,
+      ToLongFunction<? super ResourcePoolT> preprocessingCounter) {
+    this.delegate = delegate;
+    this.preprocessingCounter = preprocessingCounter;
+  }
+
+  @Override
+  public void processBatch(ProtocolCollection<ResourcePoolT> protocols,
+      ResourcePoolT resourcePool, NetworkBatchDecorator network) {
+    ProtocolCollectionList<ResourcePoolT> profiled =
+        new ProtocolCollectionList<>(protocols.size());
+    boolean attributed = !owners.isEmpty();
+    for (NativeProtocol<?, ResourcePoolT> protocol : protocols) {
+      ClassStats classStats =
+          byClass.computeIfAbsent(protocol.getClass(), ignored -> new ClassStats());
+      Stats stackStats = null;
+      if (attributed) {
+        String owner = owners.remove(protocol);
+        if (owner != null) {
+          stackStats = byStack.computeIfAbsent(owner + SEPARATOR + protocol.getClass().getName(),
+              ignored -> new Stats());
+        }
+      }
+      profiled.addProtocol(new ProfiledProtocol<>(protocol, classStats, stackStats));
+    }
+    delegate.processBatch(profiled, resourcePool, network);
+  }
+
+  /**
+   * Decides whether the protocols of a new builder should be attributed to their computations.
+   *
+   * @param interval attribute one builder out of this many
+   * @return true if the builder should be attributed
+   */
+  boolean sample(int interval) {
+    return builders.getAndIncrement() % interval == 0;
+  }
+
+  /**
+   * Attributes a native protocol to a stack of computations.
+   *
+   * @param protocol the native protocol
+   * @param stack the computations, outermost first, separated by semicolons, protocols are not
+   *     attributed to an empty stack
+   */
+  void attribute(NativeProtocol<?, ?> protocol, String stack) {
+    if (!stack.isEmpty()) {
+      owners.put(protocol, stack);
+    }
+  }
+
+  /**
+   * Gets the stack of computations currently building protocols, outermost first and separated by
+   * semicolons, see {@link ComputationStack}.
+   *
+   * @return the stack of computations
+   */
+  static String currentComputations() {
+    return String.join(SEPARATOR, ComputationStack.current());
+  }
+
+  /**
+   * Writes the measurements of the attributed protocols as folded stacks, one line per stack of
+   * computations and class of native protocol, followed by the value of the metric. Protocols
+   * which are not attributed are written as stacks of just their class.
+   *
+   * @param out where to write the stacks
+   * @param metric the metric to write
+   * @throws IOException if writing fails
+   */
+  public void writeFoldedStacks(Appendable out, Metric metric) throws IOException {
+    for (Map.Entry<String, Stats> entry : byStack.entrySet()) {
+      writeStack(out, entry.getKey(), entry.getValue().get(metric));
+    }
+    for (Map.Entry<Class<?>, ClassStats> entry : byClass.entrySet()) {
+      writeStack(out, entry.getKey().getName(), entry.getValue().unattributed.get(metric));
+    }
+  }
+
+  private static void writeStack(Appendable out, String stack, long value) throws IOException {
+    if (value > 0) {
+      out.append(stack).append(' ').append(Long.toString(value)).append('\n');
+    }
+  }
+
+  @Override
+  public void reset() {
+    byClass.clear();
+    byStack.clear();
+    owners.clear();
+  }
+
+  /**
+   * Gives the measurements of each class of native protocol, with keys of the form
+   * <code>PROTOCOL_&lt;metric&gt;_&lt;class&gt;</code>, and of each computation protocols are
+   * attributed to, with keys of the form <code>COMPUTATION_&lt;metric&gt;_&lt;class&gt;</code>. The
+   * measurements of a computation include those of the computations it calls.
+   */
+  @Override
+  public Map<String, Long> getLoggedValues() {
+    Map<String, Long> values = new HashMap<>();
+    for (Map.Entry<Class<?>, ClassStats> entry : byClass.entrySet()) {
+      addAll(values, PROTOCOL_PREFIX, entry.getKey().getName(), entry.getValue().total);
+    }
+    for (Map.Entry<String, Stats> entry : byStack.entrySet()) {
+      String[] frames = entry.getKey().split(SEPARATOR);
+      Set<String> computations = new HashSet<>();
+      for (int i = 0; i < frames.length - 1; i++) {
+        if (computations.add(frames[i])) {
+          addAll(values, COMPUTATION_PREFIX, frames[i], entry.getValue());
+        }
+      }
+    }
+    return values;
+  }
+
+  private static void addAll(Map<String, Long> values, String prefix, String name, Stats stats) {
+    for (Metric metric : METRICS) {
+      values.merge(prefix + metric + "_" + name, stats.get(metric), Long::sum);
+    }
+  }
+
+  /**
+   * The sum of the measurements of a number of protocols.
+   */
+  private static class Stats {
+
+    private final LongAdder[] values = new LongAdder[METRICS.length];
+
+    Stats() {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = new LongAdder();
+      }
+    }
+
+    void add(long time, long wait, long rounds, long sent, long received, long preprocessing) {
+      values[Metric.COUNT.ordinal()].increment();
+      values[Metric.TIME_NS.ordinal()].add(time);
+      values[Metric.WAIT_NS.ordinal()].add(wait);
+      values[Metric.ROUNDS.ordinal()].add(rounds);
+      values[Metric.BYTES_SENT.ordinal()].add(sent);
+      values[Metric.BYTES_RECEIVED.ordinal()].add(received);
+      values[Metric.PREPROCESSING.ordinal()].add(preprocessing);
+    }
+
+    long get(Metric metric) {
+      return values[metric.ordinal()].sum();
+    }
+  }
+
+  /**
+   * The measurements of a class of native protocol, in total and for the protocols which are not
+   * attributed to any computation.
+   */
+  private static class ClassStats {
+
+    private final Stats total = new Stats();
+    private final Stats unattributed = new Stats();
+  }
+
+  /**
+   * Wraps a native protocol while it is evaluated. The wrapper is also the network given to the
+   * protocol, so it can count the bytes sent and received.
+   */
+  private class ProfiledProtocol<OutputT>
+      implements NativeProtocol<OutputT, ResourcePoolT>, Network {
+
+    private final NativeProtocol<OutputT, ResourcePoolT> protocol;
+    private final ClassStats classStats;
+    private final Stats stackStats;
+    private Network network;
+    private long time;
+    private long wait;
+    private long rounds;
+    private long sent;
+    private long received;
+    private long preprocessing;
+
+    ProfiledProtocol(NativeProtocol<OutputT, ResourcePoolT> protocol, ClassStats classStats,
+        Stats stackStats) {
+      this.protocol = protocol;
+      this.classStats = classStats;
+      this.stackStats = stackStats;
+    }
+
+    @Override
+    public EvaluationStatus evaluate(int round, ResourcePoolT resourcePool, Network network) {
+      this.network = network;
+      boolean countPreprocessing = round == 0 && preprocessingCounter != null;
+      long before = countPreprocessing ? preprocessingCounter.applyAsLong(resourcePool) : 0;
+      long start = System.nanoTime();
+      long waitBefore = wait;
+      EvaluationStatus status = protocol.evaluate(round, resourcePool, this);
+      time += System.nanoTime() - start - (wait - waitBefore);
+      if (countPreprocessing) {
+        preprocessing += preprocessingCounter.applyAsLong(resourcePool) - before;
+      }
+      rounds++;
+      if (status == EvaluationStatus.IS_DONE) {
+        classStats.total.add(time, wait, rounds, sent, received, preprocessing);
+        Stats stats = stackStats != null ? stackStats : classStats.unattributed;
+        stats.add(time, wait, rounds, sent, received, preprocessing);
+      }
+      return status;
+    }
+
+    @Override
+    public OutputT out() {
+      return protocol.out();
+    }
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      sent += data.length;
+      network.send(partyId, data);
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      long start = System.nanoTime();
+      byte[] data = network.receive(partyId);
+      wait += System.nanoTime() - start;
+      received += data.length;
+      return data;
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return network.getNoOfParties();
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package dk.alexandra.fresco.suite.cost;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The costs of an application counted by the {@link CostEstimationProtocolSuite}.
+ * <p>
+ * Besides the number of native operations of each type, this holds the pre-processed material the
+ * application consumes, the number of communication rounds and the number of bytes each party
+ * sends, following the model of {@link Operation}. Field elements are counted with the length of
+ * their serialization and the digests used to validate broadcasts as 32 bytes.
+ * </p>
+ */
+public class CostEstimate {
+
+  /**
+   * The length of the digest used to validate a broadcast.
+   */
+  static final int DIGEST_LENGTH = 32;
+
+  private final int noOfParties;
+  private final int elementLength;
+  private final Map<Operation, Long> operations = new EnumMap<>(Operation.class);
+  private final Map<String, Map<Operation, Long>> byComputation = new TreeMap<>();
+  private final long[] inputMasks;
+  private final long[] bytesSent;
+  private long expPipeElements;
+  private long rounds;
+  private long batches;
+  private int batchRounds;
+
+  /**
+   * Creates an empty estimate.
+   *
+   * @param noOfParties the number of parties
+   * @param elementLength the length of a serialized field element
+   */
+  public CostEstimate(int noOfParties, int elementLength) {
+    this.noOfParties = noOfParties;
+    this.elementLength = elementLength;
+    this.inputMasks = new long[noOfParties];
+    this.bytesSent = new long[noOfParties];
+  }
+
+  /**
+   * Counts a native operation.
+   *
+   * @param operation the operation
+   * @param party the input or output party of the operation, if any
+   * @param size the length of an exponentiation pipe, otherwise ignored
+   * @param computation the computation which created the operation, may be null
+   */
+  void record(Operation operation, int party, int size, String computation) {
+    operations.merge(operation, 1L, Long::sum);
+    if (computation != null) {
+      byComputation.computeIfAbsent(computation, ignored -> new EnumMap<>(Operation.class))
+          .merge(operation, 1L, Long::sum);
+    }
+    batchRounds = Math.max(batchRounds, operation.getRounds());
+    int others = noOfParties - 1;
+    switch (operation) {
+      case MULT:
+        sendFromAll(2L * elementLength * others);
+        break;
+      case INPUT:
+        inputMasks[party - 1]++;
+        bytesSent[party - 1] += (long) elementLength * others;
+        sendFromAll((long) DIGEST_LENGTH * others);
+        break;
+      case OPEN:
+        sendFromAll((long) elementLength * others);
+        break;
+      case OPEN_TO_PARTY:
+        sendFromAll(elementLength);
+        bytesSent[party - 1] -= elementLength;
+        break;
+      case EXP_PIPE:
+        expPipeElements += size;
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void sendFromAll(long bytes) {
+    for (int i = 0; i < noOfParties; i++) {
+      bytesSent[i] += bytes;
+    }
+  }
+
+  /**
+   * Ends the current batch, adding the rounds of its slowest operation to the total.
+   */
+  void finishBatch() {
+    rounds += batchRounds;
+    batches++;
+    batchRounds = 0;
+  }
+
+  /**
+   * Gets the number of native operations of a given type.
+   *
+   * @param operation the type of operation
+   * @return the number of operations
+   */
+  public long getCount(Operation operation) {
+    return operations.getOrDefault(operation, 0L);
+  }
+
+  /**
+   * Gets the number of native operations of each type, for each computation creating them. A
+   * computation is identified by the name of its class. Only counted if enabled in the suite.
+   *
+   * @return the operations by computation
+   */
+  public Map<String, Map<Operation, Long>> getCountByComputation() {
+    return Collections.unmodifiableMap(byComputation);
+  }
+
+  /**
+   * Gets the number of multiplication triples consumed.
+   */
+  public long getTriples() {
+    return getCount(Operation.MULT);
+  }
+
+  /**
+   * Gets the number of input masks of a party consumed.
+   *
+   * @param party the id of the input party
+   * @return the number of input masks
+   */
+  public long getInputMasks(int party) {
+    return inputMasks[party - 1];
+  }
+
+  /**
+   * Gets the number of random bits consumed.
+   */
+  public long getRandomBits() {
+    return getCount(Operation.RANDOM_BIT);
+  }
+
+  /**
+   * Gets the number of random elements consumed.
+   */
+  public long getRandomElements() {
+    return getCount(Operation.RANDOM_ELEMENT);
+  }
+
+  /**
+   * Gets the number of exponentiation pipes consumed.
+   */
+  public long getExpPipes() {
+    return getCount(Operation.EXP_PIPE);
+  }
+
+  /**
+   * Gets the total length of the exponentiation pipes consumed.
+   */
+  public long getExpPipeElements() {
+    return expPipeElements;
+  }
+
+  /**
+   * Gets the number of communication rounds.
+   */
+  public long getRounds() {
+    return rounds;
+  }
+
+  /**
+   * Gets the number of batches the evaluator used.
+   */
+  public long getBatches() {
+    return batches;
+  }
+
+  /**
+   * Gets the number of bytes a party sends to the other parties.
+   *
+   * @param party the id of the party
+   * @return the number of bytes sent
+   */
+  public long getBytesSent(int party) {
+    return bytesSent[party - 1];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder bytes = new StringBuilder();
+    for (int i = 1; i <= noOfParties; i++) {
+      bytes.append(i == 1 ? "" : ", ").append(i).append('=').append(getBytesSent(i));
+    }
+    return "CostEstimate{"
+        + "operations=" + operations
+        + ", rounds=" + rounds
+        + ", batches=" + batches
+        + ", bytesSent={" + bytes + "}"
+        + ", expPipeElements=" + expPipeElements
+        + '}';
+  }
+}
@@ -0,0 +1,272 @@
+package dk.alexandra.fresco.suite.cost;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.PreprocessedValues;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.util.ComputationStack;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.compare.MiscBigIntegerGenerators;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
+import dk.alexandra.fresco.lib.real.RealNumericContext;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticSInt;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * A {@link BuilderFactoryNumeric} implementation for the {@link CostEstimationProtocolSuite}.
+ * <p>
+ * Every numeric operation becomes a single {@link CostEstimationProtocol}, which counts the
+ * operation and computes its result in the clear, such that applications which open values and
+ * branch on them can still be built. Inputs of other parties are not known, so they are taken to
+ * be zero, and random values are drawn from a fixed seed.
+ * </p>
+ * <p>
+ * Like in the SPDZ protocol suite, additions, subtractions and multiplications by known values are
+ * local operations. Given a cost estimate they are counted when they are built and computed when
+ * first needed, so they do not take part in any batch. As in SPDZ, an operation on a chain of
+ * {@link #MAX_LOCAL_DEPTH} local values is a native protocol instead, bounding the recursion.
+ * </p>
+ */
+public class CostEstimationBuilderFactory implements BuilderFactoryNumeric {
+
+  /**
+   * The name used for operations which are not created by a computation.
+   */
+  static final String APPLICATION = "application";
+
+  /**
+   * The maximum number of local values computed in a chain before a native protocol is used.
+   */
+  static final int MAX_LOCAL_DEPTH = 512;
+
+  private final BasicNumericContext basicNumericContext;
+  private final RealNumericContext realNumericContext;
+  private final boolean breakdown;
+  private final CostEstimate costEstimate;
+  private final Random rand;
+  private MiscBigIntegerGenerators mog;
+
+  /**
+   * Creates a builder factory which counts the basic numeric operations.
+   *
+   * @param basicNumericContext the numeric context we work within
+   * @param realNumericContext the real numeric context we work within
+   * @param breakdown whether to attribute each operation to the computation creating it, which
+   *     requires a stack trace for every operation
+   */
+  public CostEstimationBuilderFactory(BasicNumericContext basicNumericContext,
+      RealNumericContext realNumericContext, boolean breakdown) {
+    this(basicNumericContext, realNumericContext, breakdown, null);
+  }
+
+  /**
+   * Creates a builder factory which counts the basic numeric operations, counting the local
+   * operations as they are built.
+   *
+   * @param basicNumericContext the numeric context we work within
+   * @param realNumericContext the real numeric context we work within
+   * @param breakdown whether to attribute each operation to the computation creating it, which
+   *     requires a stack trace for every operation
+   * @param costEstimate the estimate counting the local operations, if null local operations are
+   *     native protocols
+   */
+  public CostEstimationBuilderFactory(BasicNumericContext basicNumericContext,
+      RealNumericContext realNumericContext, boolean breakdown, CostEstimate costEstimate) {
+    this.basicNumericContext = basicNumericContext;
+    this.realNumericContext = realNumericContext;
+    this.breakdown = breakdown;
+    this.costEstimate = costEstimate;
+    this.rand = new Random(0);
+  }
+
+  @Override
+  public BasicNumericContext getBasicNumericContext() {
+    return basicNumericContext;
+  }
+
+  @Override
+  public RealNumericContext getRealNumericContext() {
+    return realNumericContext;
+  }
+
+  /**
+   * Finds the computation creating the current operation, i.e., the innermost computation on the
+   * stack, see {@link ComputationStack}.
+   */
+  private String computation() {
+    if (!breakdown) {
+      return null;
+    }
+    List<String> computations = ComputationStack.current();
+    return computations.isEmpty() ? APPLICATION : computations.get(computations.size() - 1);
+  }
+
+  private <OutputT> DRes<OutputT> append(ProtocolBuilderNumeric builder, Operation operation,
+      int party, int size, Supplier<OutputT> function) {
+    return builder.append(
+        new CostEstimationProtocol<>(operation, party, size, computation(), function));
+  }
+
+  private DRes<SInt> append(ProtocolBuilderNumeric builder, Operation operation,
+      Supplier<FieldElement> function) {
+    return append(builder, operation, 0, 0, () -> new DummyArithmeticSInt(function.get()));
+  }
+
+  /**
+   * Counts a local operation and returns its result computed when first needed, or appends it as a
+   * native protocol if there is no cost estimate or an operand is too deep a chain of local values.
+   */
+  @SafeVarargs
+  private final DRes<SInt> local(ProtocolBuilderNumeric builder, Operation operation,
+      Supplier<FieldElement> function, DRes<SInt>... operands) {
+    int depth = 0;
+    for (DRes<SInt> operand : operands) {
+      depth = Math.max(depth, LocalValue.depthOf(operand));
+    }
+    if (costEstimate == null || depth >= MAX_LOCAL_DEPTH) {
+      return append(builder, operation, function);
+    }
+    costEstimate.record(operation, 0, 0, computation());
+    return new LocalValue(() -> new DummyArithmeticSInt(function.get()), depth + 1);
+  }
+
+  private FieldElement createElement(BigInteger value) {
+    return basicNumericContext.getFieldDefinition().createElement(value);
+  }
+
+  private static FieldElement value(DRes<SInt> value) {
+    return ((DummyArithmeticSInt) value.out()).getValue();
+  }
+
+  private FieldElement sampleElement() {
+    BigInteger r;
+    BigInteger modulus = basicNumericContext.getModulus();
+    do {
+      r = new BigInteger(modulus.bitLength(), rand);
+    } while (r.compareTo(modulus) >= 0);
+    return createElement(r);
+  }
+
+  @Override
+  public Numeric createNumeric(ProtocolBuilderNumeric builder) {
+    FieldDefinition fieldDefinition = basicNumericContext.getFieldDefinition();
+    return new Numeric() {
+
+      @Override
+      public DRes<SInt> add(DRes<SInt> a, DRes<SInt> b) {
+        return local(builder, Operation.ADD, () -> value(a).add(value(b)), a, b);
+      }
+
+      @Override
+      public DRes<SInt> add(BigInteger a, DRes<SInt> b) {
+        return local(builder, Operation.ADD, () -> createElement(a).add(value(b)), b);
+      }
+
+      @Override
+      public DRes<SInt> sub(DRes<SInt> a, DRes<SInt> b) {
+        return local(builder, Operation.SUB, () -> value(a).subtract(value(b)), a, b);
+      }
+
+      @Override
+      public DRes<SInt> sub(BigInteger a, DRes<SInt> b) {
+        return local(builder, Operation.SUB, () -> createElement(a).subtract(value(b)), b);
+      }
+
+      @Override
+      public DRes<SInt> sub(DRes<SInt> a, BigInteger b) {
+        return local(builder, Operation.SUB, () -> value(a).subtract(createElement(b)), a);
+      }
+
+      @Override
+      public DRes<SInt> mult(DRes<SInt> a, DRes<SInt> b) {
+        return append(builder, Operation.MULT, () -> value(a).multiply(value(b)));
+      }
+
+      @Override
+      public DRes<SInt> mult(BigInteger a, DRes<SInt> b) {
+        return local(builder, Operation.MULT_KNOWN, () -> createElement(a).multiply(value(b)), b);
+      }
+
+      @Override
+      public DRes<SInt> randomBit() {
+        return append(builder, Operation.RANDOM_BIT,
+            () -> createElement(BigInteger.valueOf(rand.nextInt(2))));
+      }
+
+      @Override
+      public DRes<SInt> randomElement() {
+        return append(builder, Operation.RANDOM_ELEMENT, () -> sampleElement());
+      }
+
+      @Override
+      public DRes<SInt> known(BigInteger value) {
+        return append(builder, Operation.KNOWN, () -> createElement(value));
+      }
+
+      @Override
+      public DRes<SInt> input(BigInteger value, int inputParty) {
+        BigInteger input = value != null ? value : BigInteger.ZERO;
+        return append(builder, Operation.INPUT, inputParty, 0,
+            () -> new DummyArithmeticSInt(createElement(input)));
+      }
+
+      @Override
+      public DRes<BigInteger> open(DRes<SInt> secretShare) {
+        return append(builder, Operation.OPEN, 0, 0,
+            () -> fieldDefinition.convertToUnsigned(value(secretShare)));
+      }
+
+      @Override
+      public DRes<BigInteger> open(DRes<SInt> secretShare, int outputParty) {
+        return append(builder, Operation.OPEN_TO_PARTY, outputParty, 0,
+            () -> basicNumericContext.getMyId() == outputParty
+                ? fieldDefinition.convertToUnsigned(value(secretShare))
+                : null);
+      }
+    };
+  }
+
+  @Override
+  public PreprocessedValues createPreprocessedValues(ProtocolBuilderNumeric builder) {
+    return pipeLength -> {
+      if (pipeLength < 0) {
+        throw new IllegalArgumentException(
+            "Can not create an exponentiation pipe of length less than 0");
+      }
+      DRes<List<FieldElement>> pipe =
+          append(builder, Operation.EXP_PIPE, 0, pipeLength + 2, () -> {
+            FieldElement r = sampleElement();
+            List<FieldElement> values = new ArrayList<>(pipeLength + 2);
+            values.add(r.modInverse());
+            FieldElement power = r;
+            for (int i = 0; i <= pipeLength; i++) {
+              values.add(power);
+              power = power.multiply(r);
+            }
+            return values;
+          });
+      return () -> {
+        List<DRes<SInt>> values = new ArrayList<>(pipeLength + 2);
+        for (FieldElement value : pipe.out()) {
+          values.add(new DummyArithmeticSInt(value));
+        }
+        return values;
+      };
+    };
+  }
+
+  @Override
+  public MiscBigIntegerGenerators getBigIntegerHelper() {
+    if (mog == null) {
+      mog = new MiscBigIntegerGenerators(basicNumericContext.getModulus());
+    }
+    return mog;
+  }
+}
@@ -0,0 +1,45 @@
+package dk.alexandra.fresco.suite.cost;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.network.Network;
+import java.util.function.Supplier;
+
+/**
+ * The single native protocol of the {@link CostEstimationProtocolSuite}. It counts its operation
+ * and computes its result in the clear, without communicating.
+ *
+ * @param <OutputT> the type of the result
+ */
+class CostEstimationProtocol<OutputT>
+    implements NativeProtocol<OutputT, CostEstimationResourcePool> {
+
+  private final Operation operation;
+  private final int party;
+  private final int size;
+  private final String computation;
+  private Supplier<OutputT> function;
+  private OutputT out;
+
+  CostEstimationProtocol(Operation operation, int party, int size, String computation,
+      Supplier<OutputT> function) {
+    this.operation = operation;
+    this.party = party;
+    this.size = size;
+    this.computation = computation;
+    this.function = function;
+  }
+
+  @Override
+  public EvaluationStatus evaluate(int round, CostEstimationResourcePool resourcePool,
+      Network network) {
+    resourcePool.getCostEstimate().record(operation, party, size, computation);
+    out = function.get();
+    function = null;
+    return EvaluationStatus.IS_DONE;
+  }
+
+  @Override
+  public OutputT out() {
+    return out;
+  }
+}
@@ -0,0 +1,95 @@
+package dk.alexandra.fresco.suite.cost;
+
+import dk.alexandra.fresco.framework.ProtocolCollection;
+import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
+import dk.alexandra.fresco.lib.real.RealNumericContext;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import dk.alexandra.fresco.suite.ProtocolSuiteNumeric;
+
+/**
+ * A {@link ProtocolSuite} which estimates the costs of running an application with a real
+ * arithmetic protocol suite, without doing any cryptography or communication.
+ * <p>
+ * The application is built and evaluated by a single party, which counts the native operations,
+ * the pre-processed material they consume, the communication rounds and the bytes sent by each
+ * party, see {@link CostEstimate}. The rounds of a batch are those of its slowest operation, so the
+ * estimate depends on the evaluator and batch size used, just like a real run. The values are
+ * computed in the clear, where the inputs of other parties are taken to be zero, so applications
+ * which branch on opened values follow the path of those inputs. <b>NB: Do NOT use in
+ * production!</b>
+ * </p>
+ */
+public class CostEstimationProtocolSuite
+    implements ProtocolSuiteNumeric<CostEstimationResourcePool> {
+
+  private final FieldDefinition fieldDefinition;
+  private final int maxBitLength;
+  private final int precision;
+  private final boolean breakdown;
+
+  /**
+   * Creates a cost estimation suite without a breakdown by computation.
+   *
+   * @param fieldDefinition the field of the protocol suite being estimated
+   * @param maxBitLength the maximum bit length of the numbers used
+   * @param precision the precision of fixed point numbers
+   */
+  public CostEstimationProtocolSuite(FieldDefinition fieldDefinition, int maxBitLength,
+      int precision) {
+    this(fieldDefinition, maxBitLength, precision, false);
+  }
+
+  /**
+   * Creates a cost estimation suite.
+   *
+   * @param fieldDefinition the field of the protocol suite being estimated
+   * @param maxBitLength the maximum bit length of the numbers used
+   * @param precision the precision of fixed point numbers
+   * @param breakdown whether to count the operations of each computation, see {@link
+   *     CostEstimate#getCountByComputation()}, which slows down building the application
+   */
+  public CostEstimationProtocolSuite(FieldDefinition fieldDefinition, int maxBitLength,
+      int precision, boolean breakdown) {
+    this.fieldDefinition = fieldDefinition;
+    this.maxBitLength = maxBitLength;
+    this.precision = precision;
+    this.breakdown = breakdown;
+  }
+
+  FieldDefinition getFieldDefinition() {
+    return fieldDefinition;
+  }
+
+  @Override
+  public BuilderFactoryNumeric init(CostEstimationResourcePool resourcePool) {
+    BasicNumericContext basicNumericContext = new BasicNumericContext(maxBitLength,
+        resourcePool.getMyId(), resourcePool.getNoOfParties(), fieldDefinition);
+    RealNumericContext realNumericContext = new RealNumericContext(precision);
+    return new CostEstimationBuilderFactory(basicNumericContext, realNumericContext, breakdown,
+        resourcePool.getCostEstimate());
+  }
+
+  @Override
+  public RoundSynchronization<CostEstimationResourcePool> createRoundSynchronization() {
+    return new RoundSynchronization<CostEstimationResourcePool>() {
+
+      @Override
+      public void finishedBatch(int gatesEvaluated, CostEstimationResourcePool resourcePool,
+          Network network) {
+        resourcePool.getCostEstimate().finishBatch();
+      }
+
+      @Override
+      public void finishedEval(CostEstimationResourcePool resourcePool, Network network) {
+      }
+
+      @Override
+      public void beforeBatch(ProtocolCollection<CostEstimationResourcePool> protocols,
+          CostEstimationResourcePool resourcePool, Network network) {
+      }
+    };
+  }
+}
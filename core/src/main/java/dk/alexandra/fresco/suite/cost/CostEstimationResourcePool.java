@@ -0,0 +1,16 @@
+package dk.alexandra.fresco.suite.cost;
+
+import dk.alexandra.fresco.framework.builder.numeric.NumericResourcePool;
+
+/**
+ * Interface for the resource pool of the {@link CostEstimationProtocolSuite}.
+ */
+public interface CostEstimationResourcePool extends NumericResourcePool {
+
+  /**
+   * Gets the costs counted so far.
+   *
+   * @return the cost estimate
+   */
+  CostEstimate getCostEstimate();
+}
@@ -0,0 +1,42 @@
+package dk.alexandra.fresco.suite.cost;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
+
+/**
+ * Implements the resource pool needed for the {@link CostEstimationProtocolSuite}.
+ */
+public class CostEstimationResourcePoolImpl extends ResourcePoolImpl
+    implements CostEstimationResourcePool {
+
+  private final FieldDefinition fieldDefinition;
+  private final CostEstimate costEstimate;
+
+  /**
+   * Constructs a new resource pool for estimating costs.
+   *
+   * @param myId id of the party whose view of the application is used
+   * @param noOfPlayers number of parties the costs are estimated for
+   * @param fieldDefinition definition of the finite field in which arithmetic takes place
+   */
+  public CostEstimationResourcePoolImpl(int myId, int noOfPlayers,
+      FieldDefinition fieldDefinition) {
+    super(myId, noOfPlayers);
+    this.fieldDefinition = fieldDefinition;
+    this.costEstimate = new CostEstimate(noOfPlayers, elementLength(fieldDefinition));
+  }
+
+  private static int elementLength(FieldDefinition fieldDefinition) {
+    return fieldDefinition.serialize(fieldDefinition.createElement(0)).length;
+  }
+
+  @Override
+  public FieldDefinition getFieldDefinition() {
+    return fieldDefinition;
+  }
+
+  @Override
+  public CostEstimate getCostEstimate() {
+    return costEstimate;
+  }
+}
@@ -0,0 +1,92 @@
+package dk.alexandra.fresco.suite.cost;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.SequentialStrategy;
+
+/**
+ * Runs applications with the {@link CostEstimationProtocolSuite} to estimate their costs.
+ */
+public final class CostEstimator {
+
+  /**
+   * The batch size used when none is given, which is the default of {@link
+   * BatchedProtocolEvaluator}.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 4096;
+
+  private CostEstimator() {
+  }
+
+  /**
+   * Estimates the costs of an application, evaluated with the default batch size.
+   *
+   * @param application the application
+   * @param suite the cost estimation suite
+   * @param myId the id of the party whose view of the application is used
+   * @param noOfParties the number of parties
+   * @return the estimated costs
+   */
+  public static <OutputT> CostEstimate estimate(
+      Application<OutputT, ProtocolBuilderNumeric> application,
+      CostEstimationProtocolSuite suite, int myId, int noOfParties) {
+    return estimate(application, suite, myId, noOfParties, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Estimates the costs of an application.
+   *
+   * @param application the application
+   * @param suite the cost estimation suite
+   * @param myId the id of the party whose view of the application is used
+   * @param noOfParties the number of parties
+   * @param maxBatchSize the maximum number of native protocols in a batch
+   * @return the estimated costs
+   */
+  public static <OutputT> CostEstimate estimate(
+      Application<OutputT, ProtocolBuilderNumeric> application,
+      CostEstimationProtocolSuite suite, int myId, int noOfParties, int maxBatchSize) {
+    CostEstimationResourcePoolImpl resourcePool =
+        new CostEstimationResourcePoolImpl(myId, noOfParties, suite.getFieldDefinition());
+    SecureComputationEngine<CostEstimationResourcePool, ProtocolBuilderNumeric> sce =
+        new SecureComputationEngineImpl<>(suite,
+            new BatchedProtocolEvaluator<>(new SequentialStrategy<>(), suite, maxBatchSize));
+    try {
+      sce.runApplication(application, resourcePool, new NoNetwork(noOfParties));
+    } finally {
+      sce.shutdownSCE();
+    }
+    return resourcePool.getCostEstimate();
+  }
+
+  /**
+   * A network which is never used, since the cost estimation suite does not communicate.
+   */
+  private static class NoNetwork implements Network {
+
+    private final int noOfParties;
+
+    NoNetwork(int noOfParties) {
+      this.noOfParties = noOfParties;
+    }
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      throw new IllegalStateException("Cost estimation does not communicate");
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      throw new IllegalStateException("Cost estimation does not communicate");
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return noOfParties;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package dk.alexandra.fresco.suite.cost;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.util.function.Supplier;
+
+/**
+ * The result of a local operation, computed the first time it is needed rather than by a native
+ * protocol, like the local operations of the SPDZ protocol suite.
+ * <p>
+ * Since computing a value also computes any local values it depends on, each value keeps track of
+ * the length of the longest such chain, its depth, so the builder can bound the recursion.
+ * </p>
+ */
+final class LocalValue implements DRes<SInt> {
+
+  private final int depth;
+  private Supplier<SInt> computation;
+  private SInt value;
+
+  LocalValue(Supplier<SInt> computation, int depth) {
+    this.computation = computation;
+    this.depth = depth;
+  }
+
+  /**
+   * Gets the number of local values that must be computed to compute a given value, including the
+   * value itself.
+   *
+   * @param value the value
+   * @return the depth of the value, or zero if it is not a local value still to be computed
+   */
+  static int depthOf(DRes<SInt> value) {
+    if (value instanceof LocalValue) {
+      LocalValue local = (LocalValue) value;
+      return local.value == null ? local.depth : 0;
+    }
+    return 0;
+  }
+
+  @Override
+  public SInt out() {
+    if (value == null) {
+      value = computation.get();
+      computation = null;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,78 @@
+package dk.alexandra.fresco.suite.cost;
+
+/**
+ * The native operations counted by the {@link CostEstimationProtocolSuite}, along with the number
+ * of communication rounds each of them takes.
+ * <p>
+ * The rounds and the messages counted for each operation follow the SPDZ protocol suite, which is
+ * also the model for the pre-processed material consumed.
+ * </p>
+ */
+public enum Operation {
+
+  /**
+   * Addition of two secret values, or a secret and a public value. A local operation, which
+   * does not take part in a batch.
+   */
+  ADD(0),
+  /**
+   * Subtraction of two secret values, or a secret and a public value. A local operation, which
+   * does not take part in a batch.
+   */
+  SUB(0),
+  /**
+   * Multiplication of a secret value by a public value. A local operation, which does not take
+   * part in a batch.
+   */
+  MULT_KNOWN(0),
+  /**
+   * Multiplication of two secret values. Consumes a multiplication triple, each party sends two
+   * field elements to every other party.
+   */
+  MULT(1),
+  /**
+   * A public value as a secret value.
+   */
+  KNOWN(0),
+  /**
+   * Input of a value by one of the parties. Consumes an input mask of the input party, which sends
+   * a field element to every other party, after which all parties broadcast a digest to validate
+   * the broadcast.
+   */
+  INPUT(2),
+  /**
+   * Opening a value to all parties. Each party sends a field element to every other party.
+   */
+  OPEN(1),
+  /**
+   * Opening a value to a single party. Every other party sends a field element to that party.
+   */
+  OPEN_TO_PARTY(1),
+  /**
+   * A pre-processed random bit.
+   */
+  RANDOM_BIT(0),
+  /**
+   * A pre-processed random element.
+   */
+  RANDOM_ELEMENT(0),
+  /**
+   * A pre-processed exponentiation pipe.
+   */
+  EXP_PIPE(0);
+
+  private final int rounds;
+
+  Operation(int rounds) {
+    this.rounds = rounds;
+  }
+
+  /**
+   * Gets the number of communication rounds of the operation.
+   *
+   * @return the number of rounds
+   */
+  public int getRounds() {
+    return rounds;
+  }
+}
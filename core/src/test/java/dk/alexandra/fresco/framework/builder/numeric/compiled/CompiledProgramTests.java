@@ -0,0 +1,170 @@
+package dk.alexandra.fresco.framework.builder.numeric.compiled;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThread;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.builder.FrescoLambda;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.hamcrest.core.Is;
+import org.junit.Assert;
+
+/**
+ * Generic tests of compiled programs, which can be run with any arithmetic protocol suite.
+ */
+public class CompiledProgramTests {
+
+  /**
+   * Computes (x * y + 7, 3 * x_0 - y_0, 5 - x_0, y_0 - 2) for vectors x and y of three values from
+   * party 1 and 2 respectively.
+   */
+  private static final FrescoLambda<List<DRes<SInt>>, ProtocolBuilderNumeric,
+      List<DRes<SInt>>> CIRCUIT = (builder, inputs) -> builder.seq(seq -> {
+        List<DRes<SInt>> x = inputs.subList(0, 3);
+        List<DRes<SInt>> y = inputs.subList(3, 6);
+        return seq.advancedNumeric().innerProduct(x, y);
+      }).par((par, innerProduct) -> {
+        Numeric numeric = par.numeric();
+        DRes<SInt> first = numeric.add(numeric.known(BigInteger.valueOf(7)), innerProduct);
+        DRes<SInt> second = numeric.sub(numeric.mult(BigInteger.valueOf(3), inputs.get(0)),
+            inputs.get(3));
+        DRes<SInt> third = numeric.sub(BigInteger.valueOf(5), inputs.get(0));
+        DRes<SInt> fourth = numeric.sub(inputs.get(3), BigInteger.valueOf(2));
+        return () -> Arrays.asList(first, second, third, fourth);
+      });
+
+  private static final List<Integer> INPUT_PARTIES = Arrays.asList(1, 1, 1, 2, 2, 2);
+
+  /**
+   * Creates a computation adding a constant to a single input. All the computations are instances
+   * of the same lambda class.
+   */
+  private static FrescoLambda<List<DRes<SInt>>, ProtocolBuilderNumeric,
+      List<DRes<SInt>>> addConstant(int constant) {
+    return (builder, inputs) -> {
+      DRes<SInt> sum = builder.numeric().add(BigInteger.valueOf(constant), inputs.get(0));
+      return () -> Arrays.asList(sum);
+    };
+  }
+
+  public static class TestCompiledProgram<ResourcePoolT extends ResourcePool>
+      extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
+
+    @Override
+    public TestThread<ResourcePoolT, ProtocolBuilderNumeric> next() {
+      return new TestThread<ResourcePoolT, ProtocolBuilderNumeric>() {
+        @Override
+        public void test() {
+          CompiledProgramCache cache = new CompiledProgramCache();
+          for (int run = 0; run < 3; run++) {
+            int[] x = {run + 1, run + 2, run + 3};
+            int[] y = {2 * run + 4, 5, run + 6};
+            List<BigInteger> inputs = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+              int party = INPUT_PARTIES.get(i);
+              int value = i < 3 ? x[i] : y[i - 3];
+              inputs.add(party == conf.getMyId() ? BigInteger.valueOf(value) : null);
+            }
+            List<BigInteger> output =
+                runApplication(cache.application(INPUT_PARTIES, inputs, CIRCUIT));
+            BigInteger modulus = getFieldDefinition().getModulus();
+            int innerProduct = x[0] * y[0] + x[1] * y[1] + x[2] * y[2];
+            List<BigInteger> expected = Arrays.asList(
+                BigInteger.valueOf(innerProduct + 7),
+                BigInteger.valueOf(3 * x[0] - y[0]).mod(modulus),
+                BigInteger.valueOf(5 - x[0]).mod(modulus),
+                BigInteger.valueOf(y[0] - 2).mod(modulus));
+            Assert.assertThat(output, Is.is(expected));
+            Assert.assertThat(cache.size(), Is.is(1));
+          }
+        }
+      };
+    }
+  }
+
+  public static class TestCompiledProgramCapturedConstants<ResourcePoolT extends ResourcePool>
+      extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
+
+    @Override
+    public TestThread<ResourcePoolT, ProtocolBuilderNumeric> next() {
+      return new TestThread<ResourcePoolT, ProtocolBuilderNumeric>() {
+        @Override
+        public void test() {
+          CompiledProgramCache cache = new CompiledProgramCache();
+          List<Integer> inputParties = Arrays.asList(1);
+          List<BigInteger> inputs = Arrays.asList(conf.getMyId() == 1 ? BigInteger.TEN : null);
+          // Instances of the same lambda capturing different constants get their own programs
+          for (int constant : new int[]{7, 11, 7}) {
+            List<BigInteger> output = runApplication(
+                cache.application(inputParties, inputs, addConstant(constant)));
+            Assert.assertThat(output, Is.is(Arrays.asList(BigInteger.valueOf(10 + constant))));
+          }
+          Assert.assertThat(cache.size(), Is.is(3));
+          cache.clear();
+          // An explicit key lets new instances share a program
+          for (int constant : new int[]{7, 11, 7}) {
+            List<BigInteger> output = runApplication(
+                cache.application("add " + constant, inputParties, inputs,
+                    addConstant(constant)));
+            Assert.assertThat(output, Is.is(Arrays.asList(BigInteger.valueOf(10 + constant))));
+          }
+          Assert.assertThat(cache.size(), Is.is(2));
+        }
+      };
+    }
+  }
+
+  public static class TestCompileDepth<ResourcePoolT extends ResourcePool>
+      extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
+
+    @Override
+    public TestThread<ResourcePoolT, ProtocolBuilderNumeric> next() {
+      return new TestThread<ResourcePoolT, ProtocolBuilderNumeric>() {
+        @Override
+        public void test() {
+          Application<CompiledProgram, ProtocolBuilderNumeric> app = builder -> {
+            CompiledProgram program = CompiledProgram.compile(builder, INPUT_PARTIES, CIRCUIT);
+            return () -> program;
+          };
+          CompiledProgram program = runApplication(app);
+          Assert.assertThat(program.getNumberOfOutputs(), Is.is(4));
+          Assert.assertThat(program.getInputParties(), Is.is(INPUT_PARTIES));
+          // inputs, products, two levels summing the three products and finally adding 7
+          Assert.assertThat(program.getDepth(), Is.is(5));
+        }
+      };
+    }
+  }
+
+  public static class TestCompileOpenFails<ResourcePoolT extends ResourcePool>
+      extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
+
+    @Override
+    public TestThread<ResourcePoolT, ProtocolBuilderNumeric> next() {
+      return new TestThread<ResourcePoolT, ProtocolBuilderNumeric>() {
+        @Override
+        public void test() {
+          Application<Boolean, ProtocolBuilderNumeric> app = builder -> {
+            try {
+              CompiledProgram.compile(builder, Arrays.asList(1), (seq, inputs) -> {
+                seq.numeric().open(inputs.get(0));
+                return () -> inputs;
+              });
+              return () -> false;
+            } catch (UnsupportedOperationException e) {
+              return () -> true;
+            }
+          };
+          Assert.assertTrue(runApplication(app));
+        }
+      };
+    }
+  }
+}
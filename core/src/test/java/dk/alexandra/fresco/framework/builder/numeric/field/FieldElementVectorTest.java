@@ -0,0 +1,233 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+import static org.junit.Assert.assertThat;
+
+import dk.alexandra.fresco.framework.builder.numeric.Addable;
+import dk.alexandra.fresco.framework.util.ChunkedReduction;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.hamcrest.core.Is;
+import org.hamcrest.core.IsInstanceOf;
+import org.junit.Test;
+
+public class FieldElementVectorTest {
+
+  private static final BigInteger MODULUS =
+      new BigInteger("340282366920938463463374607431768211283");
+  private static final int SIZE = 25;
+
+  /**
+   * Runs the test on the vectors of a single and multi limb montgomery field as well as the
+   * generic vector.
+   */
+  private void testDefinition(Consumer<FieldDefinition> test) {
+    test.accept(new BigIntegerFieldDefinition(MODULUS));
+    test.accept(new MontgomeryFieldDefinition(MODULUS));
+    test.accept(new MontgomeryFieldDefinition(new BigInteger("18446744073709551557")));
+  }
+
+  private List<BigInteger> randomValues(FieldDefinition definition, Random random) {
+    List<BigInteger> values = new ArrayList<>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      values.add(new BigInteger(definition.getBitLength(), random).mod(definition.getModulus()));
+    }
+    return values;
+  }
+
+  private List<FieldElement> toElements(FieldDefinition definition, List<BigInteger> values) {
+    return values.stream().map(definition::createElement).collect(Collectors.toList());
+  }
+
+  private List<BigInteger> toValues(FieldDefinition definition, List<FieldElement> elements) {
+    return elements.stream().map(definition::convertToUnsigned).collect(Collectors.toList());
+  }
+
+  @Test
+  public void getAndSet() {
+    testDefinition(definition -> {
+      List<BigInteger> values = randomValues(definition, new Random(1));
+      FieldElementVector vector = definition.createVector(toElements(definition, values));
+      assertThat(vector.size(), Is.is(SIZE));
+      assertThat(toValues(definition, vector), Is.is(values));
+      FieldElement previous = vector.set(3, definition.createElement(42));
+      assertThat(definition.convertToUnsigned(previous), Is.is(values.get(3)));
+      assertThat(definition.convertToUnsigned(vector.get(3)), Is.is(BigInteger.valueOf(42)));
+    });
+  }
+
+  @Test
+  public void copyIsIndependent() {
+    testDefinition(definition -> {
+      List<BigInteger> values = randomValues(definition, new Random(2));
+      FieldElementVector vector = definition.createVector(toElements(definition, values));
+      FieldElementVector copy = vector.copy();
+      copy.addInPlace(vector);
+      assertThat(toValues(definition, vector), Is.is(values));
+    });
+  }
+
+  @Test
+  public void arithmetic() {
+    testDefinition(definition -> {
+      Random random = new Random(3);
+      BigInteger modulus = definition.getModulus();
+      List<BigInteger> left = randomValues(definition, random);
+      List<BigInteger> right = randomValues(definition, random);
+      List<FieldElement> rightElements = toElements(definition, right);
+      // Both with a plain list and a vector as the other operand
+      for (List<FieldElement> other : Arrays
+          .asList(rightElements, definition.createVector(rightElements))) {
+        FieldElementVector sum = definition.createVector(toElements(definition, left));
+        sum.addInPlace(other);
+        FieldElementVector difference = definition.createVector(toElements(definition, left));
+        difference.subtractInPlace(other);
+        FieldElementVector product = definition.createVector(toElements(definition, left));
+        product.multiplyInPlace(other);
+        BigInteger innerProduct = BigInteger.ZERO;
+        for (int i = 0; i < SIZE; i++) {
+          BigInteger a = left.get(i);
+          BigInteger b = right.get(i);
+          assertThat(definition.convertToUnsigned(sum.get(i)), Is.is(a.add(b).mod(modulus)));
+          assertThat(definition.convertToUnsigned(difference.get(i)),
+              Is.is(a.subtract(b).mod(modulus)));
+          assertThat(definition.convertToUnsigned(product.get(i)),
+              Is.is(a.multiply(b).mod(modulus)));
+          innerProduct = innerProduct.add(a.multiply(b));
+        }
+        FieldElementVector vector = definition.createVector(toElements(definition, left));
+        assertThat(definition.convertToUnsigned(vector.innerProduct(other)),
+            Is.is(innerProduct.mod(modulus)));
+      }
+    });
+  }
+
+  @Test
+  public void largeInnerProduct() {
+    // Enough elements to be split in chunks, using the largest elements to test the carries
+    int size = 3 * ChunkedReduction.DEFAULT_MIN_CHUNK_SIZE + 7;
+    Consumer<FieldDefinition> test = definition -> {
+      Random random = new Random(7);
+      BigInteger modulus = definition.getModulus();
+      List<FieldElement> left = new ArrayList<>(size);
+      List<FieldElement> right = new ArrayList<>(size);
+      BigInteger innerProduct = BigInteger.ZERO;
+      for (int i = 0; i < size; i++) {
+        BigInteger a = i % 2 == 0 ? modulus.subtract(BigInteger.ONE)
+            : new BigInteger(definition.getBitLength(), random).mod(modulus);
+        BigInteger b = i % 3 == 0 ? modulus.subtract(BigInteger.ONE)
+            : new BigInteger(definition.getBitLength(), random).mod(modulus);
+        left.add(definition.createElement(a));
+        right.add(definition.createElement(b));
+        innerProduct = innerProduct.add(a.multiply(b));
+      }
+      BigInteger expected = innerProduct.mod(modulus);
+      FieldElementVector leftVector = definition.createVector(left);
+      FieldElementVector rightVector = definition.createVector(right);
+      assertThat(definition.convertToUnsigned(definition.innerProduct(left, right)),
+          Is.is(expected));
+      assertThat(definition.convertToUnsigned(definition.innerProduct(left, rightVector)),
+          Is.is(expected));
+      assertThat(definition.convertToUnsigned(definition.innerProduct(leftVector, right)),
+          Is.is(expected));
+      assertThat(definition.convertToUnsigned(leftVector.innerProduct(rightVector)),
+          Is.is(expected));
+    };
+    testDefinition(test);
+    test.accept(new MersennePrimeFieldDefinition(127, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void innerProductDifferentSizes() {
+    BigIntegerFieldDefinition definition = new BigIntegerFieldDefinition(MODULUS);
+    definition.innerProduct(Arrays.asList(definition.createElement(1)), new ArrayList<>());
+  }
+
+  @Test
+  public void scaleAndSum() {
+    testDefinition(definition -> {
+      List<BigInteger> values = randomValues(definition, new Random(4));
+      BigInteger scalar = BigInteger.valueOf(12345);
+      FieldElementVector vector = definition.createVector(toElements(definition, values));
+      vector.scaleInPlace(definition.createElement(scalar));
+      BigInteger sum = BigInteger.ZERO;
+      for (int i = 0; i < SIZE; i++) {
+        BigInteger expected = values.get(i).multiply(scalar).mod(definition.getModulus());
+        assertThat(definition.convertToUnsigned(vector.get(i)), Is.is(expected));
+        sum = sum.add(expected);
+      }
+      assertThat(definition.convertToUnsigned(vector.sum()),
+          Is.is(sum.mod(definition.getModulus())));
+    });
+  }
+
+  @Test
+  public void serialize() {
+    testDefinition(definition -> {
+      List<BigInteger> values = randomValues(definition, new Random(5));
+      List<FieldElement> elements = toElements(definition, values);
+      FieldElementVector vector = definition.createVector(elements);
+      byte[] bytes = definition.serialize(vector);
+      assertThat(bytes, Is.is(definition.serialize(elements)));
+      FieldElementVector deserialized = definition.deserializeVector(bytes);
+      assertThat(toValues(definition, deserialized), Is.is(values));
+    });
+  }
+
+  @Test
+  public void montgomeryDeserializeListIsModifiable() {
+    MontgomeryFieldDefinition definition = new MontgomeryFieldDefinition(MODULUS);
+    List<FieldElement> elements = definition.deserializeList(new byte[32]);
+    assertThat(elements, IsInstanceOf.instanceOf(ArrayList.class));
+    elements.add(definition.createElement(1));
+    assertThat(elements.size(), Is.is(3));
+  }
+
+  @Test
+  public void sumRows() {
+    testDefinition(definition -> {
+      Random random = new Random(6);
+      List<List<FieldElement>> rows = new ArrayList<>();
+      List<BigInteger> expected = new ArrayList<>();
+      for (int i = 0; i < SIZE; i++) {
+        expected.add(BigInteger.ZERO);
+      }
+      for (int row = 0; row < 4; row++) {
+        List<BigInteger> values = randomValues(definition, random);
+        for (int i = 0; i < SIZE; i++) {
+          expected.set(i, expected.get(i).add(values.get(i)).mod(definition.getModulus()));
+        }
+        rows.add(definition.createVector(toElements(definition, values)));
+      }
+      List<BigInteger> firstRow = toValues(definition, rows.get(0));
+      List<FieldElement> sums = Addable.sumRows(rows);
+      assertThat(toValues(definition, sums), Is.is(expected));
+      // The first row is not modified
+      assertThat(toValues(definition, rows.get(0)), Is.is(firstRow));
+    });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sumNoRows() {
+    Addable.sumRows(new ArrayList<List<FieldElement>>());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void differentSizes() {
+    MontgomeryFieldDefinition definition = new MontgomeryFieldDefinition(MODULUS);
+    FieldElementVector vector = definition
+        .createVector(Arrays.asList(definition.createElement(1), definition.createElement(2)));
+    vector.addInPlace(Arrays.asList(definition.createElement(1)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void fixedSize() {
+    MontgomeryFieldDefinition definition = new MontgomeryFieldDefinition(MODULUS);
+    FieldElementVector vector = definition.createVector(Arrays.asList(definition.createElement(1)));
+    vector.add(definition.createElement(2));
+  }
+}
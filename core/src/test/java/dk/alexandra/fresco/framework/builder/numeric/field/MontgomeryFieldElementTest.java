@@ -0,0 +1,201 @@
+package dk.alexandra.fresco.framework.builder.numeric.field;
+
+import static org.junit.Assert.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.hamcrest.core.Is;
+import org.hamcrest.core.StringContains;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MontgomeryFieldElementTest {
+
+  private static final List<BigInteger> MODULI = Arrays.asList(
+      BigInteger.valueOf(113),
+      // 2^61 - 1
+      BigInteger.ONE.shiftLeft(61).subtract(BigInteger.ONE),
+      // 2^64 - 59
+      new BigInteger("18446744073709551557"),
+      // 2^128 - 173
+      new BigInteger("340282366920938463463374607431768211283"),
+      // 2^192 - 237
+      new BigInteger("6277101735386680763835789423207666416102355444464034512659"),
+      // 2^255 - 19
+      BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19))
+  );
+
+  private MontgomeryModulus modulus;
+  private FieldElement element1;
+  private FieldElement element2;
+  private FieldElement element3;
+
+  @Before
+  public void setUp() {
+    modulus = new MontgomeryModulus(BigInteger.valueOf(113));
+    element1 = MontgomeryFieldElement.create(9, modulus);
+    element2 = MontgomeryFieldElement.create(25, modulus);
+    element3 = MontgomeryFieldElement.create(49, modulus);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullModulus() {
+    new MontgomeryModulus(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void evenModulus() {
+    new MontgomeryModulus(BigInteger.valueOf(114));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void modulusOne() {
+    new MontgomeryModulus(BigInteger.ONE);
+  }
+
+  @Test
+  public void creators() {
+    testCreation(27, 27);
+    testCreation(27 + 113, 27);
+    testCreation(27 - 113, 27);
+    testCreation(-1, 113 - 1);
+    testCreation(0, 0);
+  }
+
+  private void testCreation(int value, int expected) {
+    FieldElement element1 = MontgomeryFieldElement.create(value, modulus);
+    FieldElement element2 = MontgomeryFieldElement.create("" + value, modulus);
+    FieldElement element3 = MontgomeryFieldElement.create(BigInteger.valueOf(value), modulus);
+    assertThat(MontgomeryFieldElement.extractValue(element1), Is.is(BigInteger.valueOf(expected)));
+    assertThat(MontgomeryFieldElement.extractValue(element2), Is.is(BigInteger.valueOf(expected)));
+    assertThat(MontgomeryFieldElement.extractValue(element3), Is.is(BigInteger.valueOf(expected)));
+  }
+
+  @Test
+  public void createFromLongLargerThanModulus() {
+    for (BigInteger prime : MODULI) {
+      MontgomeryModulus modulus = new MontgomeryModulus(prime);
+      FieldElement element = MontgomeryFieldElement.create(Long.MAX_VALUE, modulus);
+      assertThat(MontgomeryFieldElement.extractValue(element),
+          Is.is(BigInteger.valueOf(Long.MAX_VALUE).mod(prime)));
+      element = MontgomeryFieldElement.create(Long.MIN_VALUE, modulus);
+      assertThat(MontgomeryFieldElement.extractValue(element),
+          Is.is(BigInteger.valueOf(Long.MIN_VALUE).mod(prime)));
+    }
+  }
+
+  @Test
+  public void negate() {
+    assertThat(MontgomeryFieldElement.extractValue(element1.negate()),
+        Is.is(BigInteger.valueOf(113 - 9)));
+    assertThat(MontgomeryFieldElement.extractValue(element2.negate()),
+        Is.is(BigInteger.valueOf(113 - 25)));
+    assertThat(MontgomeryFieldElement.extractValue(element3.negate()),
+        Is.is(BigInteger.valueOf(113 - 49)));
+    assertThat(MontgomeryFieldElement.extractValue(
+        MontgomeryFieldElement.create(0, modulus).negate()), Is.is(BigInteger.ZERO));
+  }
+
+  @Test
+  public void sqrt() {
+    FieldElement sqrt = MontgomeryFieldElement.create(2, modulus).sqrt();
+    assertThat(MontgomeryFieldElement.extractValue(sqrt), Is.is(BigInteger.valueOf(62)));
+  }
+
+  @Test
+  public void modInverse() {
+    assertThat(MontgomeryFieldElement.extractValue(
+        MontgomeryFieldElement.create(27, modulus).modInverse()), Is.is(BigInteger.valueOf(67)));
+    assertThat(MontgomeryFieldElement.extractValue(
+        MontgomeryFieldElement.create(112, modulus).modInverse()), Is.is(BigInteger.valueOf(112)));
+  }
+
+  @Test
+  public void arithmeticMatchesBigInteger() {
+    Random random = new Random(42);
+    for (BigInteger prime : MODULI) {
+      MontgomeryModulus modulus = new MontgomeryModulus(prime);
+      List<BigInteger> values = new ArrayList<>();
+      values.add(BigInteger.ZERO);
+      values.add(BigInteger.ONE);
+      values.add(prime.subtract(BigInteger.ONE));
+      values.add(prime.shiftRight(1));
+      for (int i = 0; i < 20; i++) {
+        values.add(new BigInteger(prime.bitLength() + 8, random).mod(prime));
+      }
+      for (BigInteger a : values) {
+        for (BigInteger b : values) {
+          FieldElement left = MontgomeryFieldElement.create(a, modulus);
+          FieldElement right = MontgomeryFieldElement.create(b, modulus);
+          assertThat(MontgomeryFieldElement.extractValue(left.add(right)),
+              Is.is(a.add(b).mod(prime)));
+          assertThat(MontgomeryFieldElement.extractValue(left.subtract(right)),
+              Is.is(a.subtract(b).mod(prime)));
+          assertThat(MontgomeryFieldElement.extractValue(left.multiply(right)),
+              Is.is(a.multiply(b).mod(prime)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void accumulator() {
+    Random random = new Random(7);
+    for (BigInteger prime : MODULI) {
+      MontgomeryFieldDefinition definition = new MontgomeryFieldDefinition(prime);
+      MontgomeryAccumulator accumulator = definition.createAccumulator();
+      BigInteger expected = BigInteger.ZERO;
+      for (int i = 0; i < 50; i++) {
+        BigInteger a = new BigInteger(prime.bitLength(), random).mod(prime);
+        BigInteger b = new BigInteger(prime.bitLength(), random).mod(prime);
+        accumulator.addProduct(definition.createElement(a), definition.createElement(b));
+        accumulator.add(definition.createElement(a));
+        accumulator.subtract(definition.createElement(b));
+        expected = expected.add(a.multiply(b)).add(a).subtract(b).mod(prime);
+      }
+      assertThat(definition.convertToUnsigned(accumulator.get()), Is.is(expected));
+      accumulator.reset();
+      assertThat(definition.convertToUnsigned(accumulator.get()), Is.is(BigInteger.ZERO));
+    }
+  }
+
+  @Test
+  public void serializeMatchesBigIntegerDefinition() {
+    Random random = new Random(1);
+    for (BigInteger prime : MODULI) {
+      MontgomeryFieldDefinition montgomery = new MontgomeryFieldDefinition(prime);
+      BigIntegerFieldDefinition reference = new BigIntegerFieldDefinition(prime);
+      List<FieldElement> elements = new ArrayList<>();
+      List<FieldElement> referenceElements = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        BigInteger value = new BigInteger(prime.bitLength(), random).mod(prime);
+        elements.add(montgomery.createElement(value));
+        referenceElements.add(reference.createElement(value));
+      }
+      byte[] bytes = montgomery.serialize(elements);
+      assertThat(bytes, Is.is(reference.serialize(referenceElements)));
+      List<FieldElement> deserialized = montgomery.deserializeList(bytes);
+      for (int i = 0; i < elements.size(); i++) {
+        assertThat(montgomery.convertToUnsigned(deserialized.get(i)),
+            Is.is(reference.convertToUnsigned(referenceElements.get(i))));
+      }
+    }
+  }
+
+  @Test
+  public void deserializeNonCanonical() {
+    MontgomeryFieldDefinition definition = new MontgomeryFieldDefinition(modulus
+        .getBigInteger());
+    FieldElement element = definition.deserialize(new byte[]{(byte) 200});
+    assertThat(definition.convertToUnsigned(element), Is.is(BigInteger.valueOf(200 - 113)));
+  }
+
+  @Test
+  public void toStringTest() {
+    FieldElement element = MontgomeryFieldElement.create(BigInteger.valueOf(78), modulus);
+    assertThat(element.toString(), StringContains.containsString("78"));
+  }
+}
@@ -1,6 +1,7 @@
 package dk.alexandra.fresco.framework.network;
 
 import dk.alexandra.fresco.framework.sce.evaluator.NetworkBatchDecorator;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,25 +66,59 @@ public class NetworkBatchDecoratorTest {
     Assert.assertArrayEquals(new byte[]{1, 123}, transmissions.get(3));
   }
 
-  @Test(expected = RuntimeException.class)
-  public void errorOnBigPackets() throws Exception {
-    networkBatchDecorator.sendToAll(
-        new byte[]{
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-        });
+  @Test
+  public void sendSeveral() throws Exception {
+    networkBatchDecorator.send(1, new byte[]{123});
+    networkBatchDecorator.send(1, new byte[]{});
+    networkBatchDecorator.send(1, new byte[]{4, 5});
+    networkBatchDecorator.flush();
+    Assert.assertEquals(1, transmissions.size());
+    Assert.assertArrayEquals(new byte[]{1, 123, 0, 2, 4, 5}, transmissions.get(1));
+  }
 
+  @Test
+  public void sendCopiesMessage() throws Exception {
+    byte[] data = new byte[]{123};
+    networkBatchDecorator.send(1, data);
+    data[0] = 42;
+    networkBatchDecorator.flush();
+    Assert.assertArrayEquals(new byte[]{1, 123}, transmissions.get(1));
+  }
+
+  @Test
+  public void sendAndReceiveBigPackets() throws Exception {
+    byte[] small = new byte[]{42};
+    byte[] medium = new byte[200];
+    Arrays.fill(medium, (byte) 7);
+    byte[] big = new byte[100000];
+    for (int i = 0; i < big.length; i++) {
+      big[i] = (byte) i;
+    }
+    networkBatchDecorator.send(2, medium);
+    networkBatchDecorator.send(3, big);
+    networkBatchDecorator.send(3, small);
+    networkBatchDecorator.send(3, medium);
+    networkBatchDecorator.flush();
+    Assert.assertEquals(2 + medium.length, transmissions.get(2).length);
+    Assert.assertEquals((byte) 0xC8, transmissions.get(2)[0]);
+    Assert.assertEquals((byte) 0x01, transmissions.get(2)[1]);
+    Assert.assertArrayEquals(medium, networkBatchDecorator.receive(2));
+    Assert.assertArrayEquals(big, networkBatchDecorator.receive(3));
+    Assert.assertArrayEquals(small, networkBatchDecorator.receive(3));
+    Assert.assertArrayEquals(medium, networkBatchDecorator.receive(3));
+  }
+
+  @Test
+  public void reuseBuffersAcrossFlushes() throws Exception {
+    for (int round = 0; round < 3; round++) {
+      networkBatchDecorator.send(1, new byte[]{(byte) round});
+      networkBatchDecorator.send(1, new byte[]{(byte) (round + 1)});
+      networkBatchDecorator.flush();
+      Assert.assertArrayEquals(new byte[]{1, (byte) round, 1, (byte) (round + 1)},
+          transmissions.get(1));
+      Assert.assertArrayEquals(new byte[]{(byte) round}, networkBatchDecorator.receive(1));
+      Assert.assertArrayEquals(new byte[]{(byte) (round + 1)}, networkBatchDecorator.receive(1));
+    }
   }
 
   private class DummyNetwork implements Network {
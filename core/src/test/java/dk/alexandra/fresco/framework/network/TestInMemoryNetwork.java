@@ -0,0 +1,190 @@
+package dk.alexandra.fresco.framework.network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestInMemoryNetwork {
+
+  private static final int TWO_MINUTE_TIMEOUT_MILLIS = 120000;
+  private List<InMemoryNetwork> networks = new ArrayList<>();
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    networks.forEach(InMemoryNetwork::close);
+    executor.shutdownNow();
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testCircularSend() throws Exception {
+    int noOfParties = 5;
+    networks = InMemoryNetwork.createNetworks(noOfParties);
+    List<Future<byte[]>> received = new ArrayList<>();
+    for (int id = 1; id <= noOfParties; id++) {
+      InMemoryNetwork network = networks.get(id - 1);
+      int next = id % noOfParties + 1;
+      int previous = (id + noOfParties - 2) % noOfParties + 1;
+      byte[] data = new byte[]{(byte) id};
+      received.add(executor.submit(() -> {
+        network.send(next, data);
+        return network.receive(previous);
+      }));
+    }
+    for (int id = 1; id <= noOfParties; id++) {
+      int previous = (id + noOfParties - 2) % noOfParties + 1;
+      assertArrayEquals(new byte[]{(byte) previous}, received.get(id - 1).get());
+    }
+  }
+
+  @Test
+  public void testMessagesAreNotCopied() {
+    networks = InMemoryNetwork.createNetworks(2);
+    byte[] data = new byte[1024];
+    networks.get(0).send(2, data);
+    assertSame(data, networks.get(1).receive(1));
+  }
+
+  @Test
+  public void testSelfSend() {
+    networks = InMemoryNetwork.createNetworks(1);
+    networks.get(0).send(1, new byte[]{0x01});
+    assertArrayEquals(new byte[]{0x01}, networks.get(0).receive(1));
+  }
+
+  @Test
+  public void testSendBeyondCapacity() {
+    networks = InMemoryNetwork.createNetworks(2, 4);
+    for (int i = 0; i < 100; i++) {
+      networks.get(0).send(2, new byte[]{(byte) i});
+    }
+    for (int i = 0; i < 100; i++) {
+      assertArrayEquals(new byte[]{(byte) i}, networks.get(1).receive(1));
+    }
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testManyMessagesWhileReceiving() throws Exception {
+    int noOfMessages = 100000;
+    networks = InMemoryNetwork.createNetworks(2, 16);
+    Future<?> sender = executor.submit(() -> {
+      for (int i = 0; i < noOfMessages; i++) {
+        networks.get(0).send(2, new byte[]{(byte) i});
+      }
+    });
+    for (int i = 0; i < noOfMessages; i++) {
+      assertArrayEquals(new byte[]{(byte) i}, networks.get(1).receive(1));
+    }
+    sender.get();
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testSendAfterClose() {
+    networks = InMemoryNetwork.createNetworks(2);
+    networks.get(0).close();
+    networks.get(0).send(2, new byte[]{});
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testReceiveAfterClose() {
+    networks = InMemoryNetwork.createNetworks(2);
+    networks.get(0).close();
+    networks.get(0).receive(2);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testReceiveFromClosedParty() {
+    networks = InMemoryNetwork.createNetworks(2);
+    networks.get(0).send(2, new byte[]{0x01});
+    networks.get(0).close();
+    // Messages sent before closing are still delivered
+    assertArrayEquals(new byte[]{0x01}, networks.get(1).receive(1));
+    try {
+      networks.get(1).receive(1);
+    } catch (IllegalStateException e) {
+      return;
+    }
+    throw new AssertionError("Receiving from a closed party should fail");
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testCloseWakesUpReceiver() throws Exception {
+    networks = InMemoryNetwork.createNetworks(2);
+    Future<byte[]> receiver = executor.submit(() -> networks.get(1).receive(1));
+    Thread.sleep(100);
+    networks.get(0).close();
+    try {
+      receiver.get();
+    } catch (java.util.concurrent.ExecutionException e) {
+      assertEquals(IllegalStateException.class, e.getCause().getClass());
+      return;
+    }
+    throw new AssertionError("Receiving from a closed party should fail");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSendToTooLargePartyId() {
+    networks = InMemoryNetwork.createNetworks(1);
+    networks.get(0).send(2, new byte[]{0x01});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReceiveFromNegativePartyId() {
+    networks = InMemoryNetwork.createNetworks(1);
+    networks.get(0).receive(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoParties() {
+    InMemoryNetwork.createNetworks(0);
+  }
+
+  @Test
+  public void testSecureComputationEngine() {
+    runWithEngine(new BasicArithmeticTests.TestInputFromAll<>(), 3);
+    runWithEngine(new BasicArithmeticTests.TestSumAndMult<>(), 5);
+  }
+
+  private void runWithEngine(
+      TestThreadRunner.TestThreadFactory<DummyArithmeticResourcePool, ProtocolBuilderNumeric> test,
+      int noOfParties) {
+    BigIntegerFieldDefinition fieldDefinition = new BigIntegerFieldDefinition(
+        "6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+    networks = InMemoryNetwork.createNetworks(noOfParties);
+    Map<Integer, TestThreadRunner.TestThreadConfiguration<DummyArithmeticResourcePool,
+        ProtocolBuilderNumeric>> conf = new HashMap<>();
+    for (int playerId = 1; playerId <= noOfParties; playerId++) {
+      int id = playerId;
+      DummyArithmeticProtocolSuite suite = new DummyArithmeticProtocolSuite(fieldDefinition, 200,
+          16);
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(suite, new BatchedProtocolEvaluator<>(
+              EvaluationStrategy.PARALLEL_BATCHED.getStrategy(), suite));
+      conf.put(id, new TestThreadRunner.TestThreadConfiguration<>(sce,
+          () -> new DummyArithmeticResourcePoolImpl(id, noOfParties, fieldDefinition),
+          () -> networks.get(id - 1)));
+    }
+    TestThreadRunner.run(test, conf);
+  }
+}
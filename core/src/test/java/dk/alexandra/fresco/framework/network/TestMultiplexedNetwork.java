@@ -0,0 +1,313 @@
+package dk.alexandra.fresco.framework.network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.NetworkUtil;
+import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestMultiplexedNetwork {
+
+  private static final int TWO_MINUTE_TIMEOUT_MILLIS = 120000;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private List<MultiplexedNetwork> networks = new ArrayList<>();
+
+  @After
+  public void tearDown() {
+    networks.forEach(MultiplexedNetwork::close);
+    executor.shutdownNow();
+  }
+
+  private List<MultiplexedNetwork> createSocketNetworks(int noOfParties) throws Exception {
+    Map<Integer, NetworkConfiguration> confs =
+        NetworkUtil.getNetworkConfigurations(noOfParties);
+    List<Future<SocketNetwork>> futures = new ArrayList<>(noOfParties);
+    for (int id = 1; id <= noOfParties; id++) {
+      NetworkConfiguration conf = confs.get(id);
+      futures.add(executor.submit(() -> new SocketNetwork(conf)));
+    }
+    List<MultiplexedNetwork> networks = new ArrayList<>(noOfParties);
+    for (int id = 1; id <= noOfParties; id++) {
+      networks.add(new MultiplexedNetwork(id, futures.get(id - 1).get()));
+    }
+    return networks;
+  }
+
+  private List<MultiplexedNetwork> createInMemoryNetworks(int noOfParties, int window) {
+    List<InMemoryNetwork> inMemoryNetworks = InMemoryNetwork.createNetworks(noOfParties);
+    List<MultiplexedNetwork> networks = new ArrayList<>(noOfParties);
+    for (int id = 1; id <= noOfParties; id++) {
+      networks.add(new MultiplexedNetwork(id, inMemoryNetworks.get(id - 1), window));
+    }
+    return networks;
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testConcurrentChannels() throws Exception {
+    int noOfParties = 3;
+    int noOfChannels = 4;
+    int noOfMessages = 2000;
+    networks = createSocketNetworks(noOfParties);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int channelId = 0; channelId < noOfChannels; channelId++) {
+      for (int id = 1; id <= noOfParties; id++) {
+        CloseableNetwork channel = networks.get(id - 1).openChannel(channelId);
+        int myId = id;
+        int channelTag = channelId;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < noOfMessages; i++) {
+            for (int other = 1; other <= noOfParties; other++) {
+              channel.send(other, message(channelTag, myId, i));
+            }
+            for (int other = 1; other <= noOfParties; other++) {
+              assertArrayEquals(message(channelTag, other, i), channel.receive(other));
+            }
+          }
+          return null;
+        }));
+      }
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+
+  private static byte[] message(int channelId, int partyId, int index) {
+    return ByteBuffer.allocate(3 * Integer.BYTES).putInt(channelId).putInt(partyId).putInt(index)
+        .array();
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testBlockedChannelDoesNotBlockOthers() throws Exception {
+    networks = createInMemoryNetworks(2, 4);
+    CloseableNetwork bulk = networks.get(0).openChannel(1);
+    CloseableNetwork bulkReceiver = networks.get(1).openChannel(1);
+    // The window is used up after four messages, so the rest wait at the sender
+    for (int i = 0; i < 10; i++) {
+      bulk.send(2, new byte[]{(byte) i});
+    }
+    CloseableNetwork other = networks.get(0).openChannel(2);
+    other.send(2, new byte[]{42});
+    assertArrayEquals(new byte[]{42}, networks.get(1).openChannel(2).receive(1));
+    for (int i = 0; i < 10; i++) {
+      assertArrayEquals(new byte[]{(byte) i}, bulkReceiver.receive(1));
+    }
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendBeyondWindowBeforeReceiving() throws Exception {
+    networks = createInMemoryNetworks(2, 4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int id = 1; id <= 2; id++) {
+      CloseableNetwork channel = networks.get(id - 1).openChannel(0);
+      int otherId = 3 - id;
+      futures.add(executor.submit(() -> {
+        // Both parties send more than the window before receiving anything
+        for (int i = 0; i < 100; i++) {
+          channel.send(otherId, new byte[]{(byte) i});
+        }
+        for (int i = 0; i < 100; i++) {
+          assertArrayEquals(new byte[]{(byte) i}, channel.receive(otherId));
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testManyMessagesWithSmallWindow() throws Exception {
+    networks = createInMemoryNetworks(2, 3);
+    CloseableNetwork sender = networks.get(0).openChannel(0);
+    CloseableNetwork receiver = networks.get(1).openChannel(0);
+    Future<?> sending = executor.submit(() -> {
+      for (int i = 0; i < 10000; i++) {
+        sender.send(2, new byte[]{(byte) i});
+      }
+    });
+    for (int i = 0; i < 10000; i++) {
+      assertArrayEquals(new byte[]{(byte) i}, receiver.receive(1));
+    }
+    sending.get();
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendBeforeOpened() {
+    networks = createInMemoryNetworks(2, 16);
+    networks.get(0).openChannel(7).send(2, new byte[]{0x01});
+    assertArrayEquals(new byte[]{0x01}, networks.get(1).openChannel(7).receive(1));
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSelfSend() {
+    networks = createInMemoryNetworks(1, 16);
+    CloseableNetwork channel = networks.get(0).openChannel(0);
+    channel.send(1, new byte[]{0x01});
+    assertArrayEquals(new byte[]{0x01}, channel.receive(1));
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testReopenChannel() throws Exception {
+    networks = createInMemoryNetworks(2, 16);
+    CloseableNetwork channel = networks.get(0).openChannel(0);
+    channel.send(2, new byte[]{0x01});
+    channel.send(2, new byte[]{0x02});
+    CloseableNetwork receiver = networks.get(1).openChannel(0);
+    assertArrayEquals(new byte[]{0x01}, receiver.receive(1));
+    receiver.close();
+    assertArrayEquals(new byte[]{0x02}, networks.get(1).openChannel(0).receive(1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testOpenTwice() {
+    networks = createInMemoryNetworks(2, 16);
+    networks.get(0).openChannel(0);
+    networks.get(0).openChannel(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSendOnClosedChannel() throws Exception {
+    networks = createInMemoryNetworks(2, 16);
+    CloseableNetwork channel = networks.get(0).openChannel(0);
+    channel.close();
+    networks.get(0).openChannel(1).send(2, new byte[]{0x01});
+    channel.send(2, new byte[]{0x01});
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testReceiveAfterClose() {
+    networks = createInMemoryNetworks(2, 16);
+    CloseableNetwork channel = networks.get(0).openChannel(0);
+    networks.get(0).close();
+    channel.receive(2);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testReceiveSentBeforePeerClosed() {
+    networks = createInMemoryNetworks(2, 16);
+    CloseableNetwork sender = networks.get(1).openChannel(0);
+    CloseableNetwork receiver = networks.get(0).openChannel(0);
+    sender.send(1, new byte[]{0x01});
+    networks.get(1).close();
+    assertArrayEquals(new byte[]{0x01}, receiver.receive(2));
+    try {
+      receiver.receive(2);
+      fail("Receiving from a closed party should fail");
+    } catch (RuntimeException e) {
+      assertFalse(e instanceof IllegalStateException);
+    }
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testPeerClosingDoesNotFailOtherParties() {
+    networks = createInMemoryNetworks(3, 16);
+    networks.get(2).close();
+    CloseableNetwork receiver = networks.get(0).openChannel(0);
+    networks.get(1).openChannel(0).send(1, new byte[]{0x01});
+    assertArrayEquals(new byte[]{0x01}, receiver.receive(2));
+    receiver.send(2, new byte[]{0x02});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSendToTooLargePartyId() {
+    networks = createInMemoryNetworks(2, 16);
+    networks.get(0).openChannel(0).send(3, new byte[]{0x01});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonPositiveWindow() {
+    new MultiplexedNetwork(1, InMemoryNetwork.createNetworks(1).get(0), 0);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testConcurrentApplications() throws Exception {
+    int noOfParties = 2;
+    int noOfApplications = 4;
+    networks = createSocketNetworks(noOfParties);
+    BigIntegerFieldDefinition fieldDefinition = new BigIntegerFieldDefinition(
+        "6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+    List<SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric>> engines =
+        new ArrayList<>(noOfParties);
+    List<Future<BigInteger>> results = new ArrayList<>();
+    for (int id = 1; id <= noOfParties; id++) {
+      DummyArithmeticProtocolSuite suite = new DummyArithmeticProtocolSuite(fieldDefinition, 200,
+          16);
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(suite, new BatchedProtocolEvaluator<>(
+              EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy(), suite));
+      engines.add(sce);
+      for (int app = 0; app < noOfApplications; app++) {
+        results.add(sce.startApplication(new InnerProduct(app, 100),
+            new DummyArithmeticResourcePoolImpl(id, noOfParties, fieldDefinition),
+            networks.get(id - 1).openChannel(app)));
+      }
+    }
+    for (int id = 1; id <= noOfParties; id++) {
+      for (int app = 0; app < noOfApplications; app++) {
+        BigInteger expected = BigInteger.ZERO;
+        for (int i = 0; i < 100; i++) {
+          expected = expected.add(BigInteger.valueOf((long) (app + i) * i));
+        }
+        assertEquals(expected, results.get((id - 1) * noOfApplications + app).get());
+      }
+    }
+    engines.forEach(SecureComputationEngine::shutdownSCE);
+  }
+
+  /**
+   * Computes the inner product of (offset, offset + 1, ...) input by party 1 and (0, 1, ...) input
+   * by party 2.
+   */
+  private static class InnerProduct implements Application<BigInteger, ProtocolBuilderNumeric> {
+
+    private final int offset;
+    private final int length;
+
+    InnerProduct(int offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public DRes<BigInteger> buildComputation(ProtocolBuilderNumeric builder) {
+      return builder.seq(seq -> {
+        Numeric numeric = seq.numeric();
+        List<DRes<SInt>> left = new ArrayList<>(length);
+        List<DRes<SInt>> right = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+          left.add(numeric.input(BigInteger.valueOf(offset + i), 1));
+          right.add(numeric.input(BigInteger.valueOf(i), 2));
+        }
+        return seq.advancedNumeric().innerProduct(left, right);
+      }).seq((seq, product) -> seq.numeric().open(product));
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package dk.alexandra.fresco.framework.network;
+
+import static dk.alexandra.fresco.framework.network.socket.Connector.DEFAULT_CONNECTION_TIMEOUT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.network.socket.NioSocketNetwork;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class TestNetworkEmulationDecorator extends AbstractCloseableNetworkTest {
+
+  private EmulatedLink link = new EmulatedLink(Duration.ofMillis(1), Duration.ofMillis(1),
+      EmulatedLink.UNLIMITED_BANDWIDTH);
+
+  @Override
+  protected CloseableNetwork newCloseableNetwork(NetworkConfiguration conf) {
+    return newCloseableNetwork(conf, DEFAULT_CONNECTION_TIMEOUT);
+  }
+
+  @Override
+  protected CloseableNetwork newCloseableNetwork(NetworkConfiguration conf, Duration timeout) {
+    return new NetworkEmulationDecorator(conf.getMyId(), new NioSocketNetwork(conf, timeout), link);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testLatency() throws Exception {
+    link = new EmulatedLink(Duration.ofMillis(50));
+    networks = createNetworks(2);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> echo = executor.submit(() -> networks.get(2).send(1, networks.get(2).receive(1)));
+    long start = System.nanoTime();
+    networks.get(1).send(2, new byte[]{42});
+    long sent = System.nanoTime();
+    assertArrayEquals(new byte[]{42}, networks.get(1).receive(2));
+    long received = System.nanoTime();
+    echo.get();
+    executor.shutdown();
+    // sending does not wait for the latency, a round trip takes twice the latency
+    assertTrue(sent - start < Duration.ofMillis(25).toNanos());
+    assertTrue(received - start >= Duration.ofMillis(100).toNanos());
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testBandwidth() {
+    link = new EmulatedLink(Duration.ZERO, Duration.ZERO, 1_000_000);
+    networks = createNetworks(2);
+    long start = System.nanoTime();
+    for (int i = 0; i < 10; i++) {
+      networks.get(1).send(2, new byte[10_000]);
+    }
+    for (int i = 0; i < 10; i++) {
+      networks.get(2).receive(1);
+    }
+    // 100 KB at 1 MB per second
+    assertTrue(System.nanoTime() - start >= Duration.ofMillis(100).toNanos());
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testJitterKeepsOrder() {
+    link = new EmulatedLink(Duration.ofMillis(2), Duration.ofMillis(2),
+        EmulatedLink.UNLIMITED_BANDWIDTH);
+    networks = createNetworks(2);
+    for (int i = 0; i < 200; i++) {
+      networks.get(1).send(2, new byte[]{(byte) i});
+    }
+    for (int i = 0; i < 200; i++) {
+      assertArrayEquals(new byte[]{(byte) i}, networks.get(2).receive(1));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeLatency() {
+    new EmulatedLink(Duration.ofMillis(-1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBandwidth() {
+    new EmulatedLink(Duration.ZERO, Duration.ZERO, -1);
+  }
+}
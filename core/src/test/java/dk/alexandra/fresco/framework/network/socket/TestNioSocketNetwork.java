@@ -0,0 +1,106 @@
+package dk.alexandra.fresco.framework.network.socket;
+
+import static dk.alexandra.fresco.framework.network.socket.Connector.DEFAULT_CONNECTION_TIMEOUT;
+import static org.junit.Assert.assertArrayEquals;
+
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.network.AbstractCloseableNetworkTest;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class TestNioSocketNetwork extends AbstractCloseableNetworkTest {
+
+  @Override
+  protected CloseableNetwork newCloseableNetwork(NetworkConfiguration conf) {
+    return newCloseableNetwork(conf, DEFAULT_CONNECTION_TIMEOUT);
+  }
+
+  @Override
+  protected CloseableNetwork newCloseableNetwork(NetworkConfiguration conf, Duration timeout) {
+    return new NioSocketNetwork(conf, timeout);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  @SuppressWarnings("resource")
+  public void testSocketWithoutChannel()
+      throws InterruptedException, ExecutionException, IOException {
+    final int numParties = 2;
+    List<NetworkConfiguration> confs = getNetConfs(numParties);
+    ExecutorService es = Executors.newFixedThreadPool(numParties);
+    List<Future<NetworkConnector>> fs = new ArrayList<>(numParties);
+    try {
+      for (int i = 0; i < numParties; i++) {
+        final int id = i;
+        fs.add(es.submit(() -> new Connector(confs.get(id), DEFAULT_CONNECTION_TIMEOUT)));
+      }
+      new NioSocketNetwork(confs.get(0), fs.get(0).get().getSocketMap());
+    } finally {
+      for (Future<NetworkConnector> futureConn : fs) {
+        for (Socket s : futureConn.get().getSocketMap().values()) {
+          s.close();
+        }
+      }
+      es.shutdownNow();
+    }
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testStoppedReceiver() throws InterruptedException, ExecutionException, IOException {
+    final int numParties = 2;
+    List<NetworkConfiguration> confs = getNetConfs(numParties);
+    ExecutorService es = Executors.newFixedThreadPool(numParties);
+    List<Future<NetworkConnector>> fs = new ArrayList<>(numParties);
+    CloseableNetwork network = null;
+    try {
+      for (int i = 0; i < numParties; i++) {
+        final int id = i;
+        fs.add(es.submit(() -> NioSocketNetwork.newConnector(confs.get(id),
+            DEFAULT_CONNECTION_TIMEOUT)));
+      }
+      Map<Integer, Socket> socketMap1 = fs.get(0).get().getSocketMap();
+      Map<Integer, Socket> socketMap2 = fs.get(1).get().getSocketMap();
+      network = new NioSocketNetwork(confs.get(0), socketMap1);
+      DataOutputStream out = new DataOutputStream(socketMap2.get(1).getOutputStream());
+      out.writeInt(1);
+      out.write(42);
+      out.writeInt(-1);
+      assertArrayEquals(new byte[] { 42 }, network.receive(2));
+      network.receive(2);
+    } finally {
+      for (Future<NetworkConnector> futureConn : fs) {
+        for (Socket s : futureConn.get().getSocketMap().values()) {
+          s.close();
+        }
+      }
+      if (network != null) {
+        network.close();
+      }
+      es.shutdownNow();
+    }
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testReceiverFallingBehind() throws InterruptedException {
+    networks = createNetworks(2);
+    final int numMessages = 20000;
+    for (int i = 0; i < numMessages; i++) {
+      networks.get(1).send(2, new byte[] { (byte) i, (byte) (i >>> 8) });
+    }
+    // Give the selector time to fill up the ring buffer and suspend reading
+    Thread.sleep(200);
+    for (int i = 0; i < numMessages; i++) {
+      assertArrayEquals(new byte[] { (byte) i, (byte) (i >>> 8) }, networks.get(2).receive(1));
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package dk.alexandra.fresco.framework.sce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.util.ModulusFinder;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestBatchingSecureComputationEngine {
+
+  private final BigIntegerFieldDefinition fieldDefinition = new BigIntegerFieldDefinition(
+      ModulusFinder.findSuitableModulus(64));
+  private final List<BatchingSecureComputationEngine<DummyArithmeticResourcePool,
+      ProtocolBuilderNumeric>> engines = new ArrayList<>();
+
+  @After
+  public void tearDown() {
+    engines.forEach(BatchingSecureComputationEngine::close);
+  }
+
+  private BatchingSecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric>
+      createEngine(int myId, Network network, ProtocolEvaluator<DummyArithmeticResourcePool>
+      evaluator, DummyArithmeticProtocolSuite suite) {
+    BatchingSecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> engine =
+        new BatchingSecureComputationEngine<>(suite, evaluator,
+            new DummyArithmeticResourcePoolImpl(myId, network.getNoOfParties(), fieldDefinition),
+            network);
+    engines.add(engine);
+    return engine;
+  }
+
+  private static Application<BigInteger, ProtocolBuilderNumeric> multiply(int value) {
+    return builder -> {
+      Numeric numeric = builder.numeric();
+      return numeric.open(numeric.mult(numeric.input(BigInteger.valueOf(value), 1),
+          numeric.input(BigInteger.valueOf(value + 1), builder.getBasicNumericContext()
+              .getNoOfParties())));
+    };
+  }
+
+  @Test(timeout = 60000)
+  public void testMergesApplications() throws Exception {
+    int noOfParties = 2;
+    int noOfApplications = 200;
+    List<InMemoryNetwork> networks = InMemoryNetwork.createNetworks(noOfParties);
+    CountDownLatch submitted = new CountDownLatch(1);
+    List<CountingEvaluator> evaluators = new ArrayList<>();
+    List<List<Future<BigInteger>>> results = new ArrayList<>();
+    for (int id = 1; id <= noOfParties; id++) {
+      DummyArithmeticProtocolSuite suite = new DummyArithmeticProtocolSuite(fieldDefinition, 64,
+          0);
+      // Party 1 holds back its first evaluation until everything is submitted, so any applications
+      // not in the first evaluation are evaluated together in the second
+      CountingEvaluator evaluator = new CountingEvaluator(
+          new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy(),
+              suite), id == 1 ? submitted : new CountDownLatch(0));
+      evaluators.add(evaluator);
+      BatchingSecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> engine =
+          createEngine(id, networks.get(id - 1), evaluator, suite);
+      List<Future<BigInteger>> partyResults = new ArrayList<>(noOfApplications);
+      for (int i = 0; i < noOfApplications; i++) {
+        partyResults.add(engine.submit(multiply(i)));
+      }
+      results.add(partyResults);
+    }
+    submitted.countDown();
+    for (List<Future<BigInteger>> partyResults : results) {
+      for (int i = 0; i < noOfApplications; i++) {
+        assertEquals(BigInteger.valueOf((long) i * (i + 1)), partyResults.get(i).get());
+      }
+    }
+    int evaluations = evaluators.get(0).evaluations.get();
+    assertTrue(evaluations <= 2);
+    assertEquals(evaluations, evaluators.get(1).evaluations.get());
+  }
+
+  @Test(timeout = 60000)
+  public void testFailingApplication() throws Exception {
+    DummyArithmeticProtocolSuite suite = new DummyArithmeticProtocolSuite(fieldDefinition, 64, 0);
+    CountDownLatch submitted = new CountDownLatch(1);
+    BatchingSecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> engine =
+        createEngine(1, InMemoryNetwork.createNetworks(1).get(0), new CountingEvaluator(
+            new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL.getStrategy(), suite),
+            submitted), suite);
+    // Holds back the first evaluation, so the failing application and its sibling are evaluated
+    // together
+    Future<BigInteger> first = engine.submit(multiply(1));
+    Future<Object> failing = engine.submit(builder -> {
+      throw new IllegalArgumentException();
+    });
+    Future<BigInteger> sibling = engine.submit(multiply(2));
+    submitted.countDown();
+    assertFailsWith(IllegalArgumentException.class, failing);
+    assertEquals(BigInteger.valueOf(2), first.get());
+    assertEquals(BigInteger.valueOf(6), sibling.get());
+    assertEquals(BigInteger.valueOf(12), engine.submit(multiply(3)).get());
+  }
+
+  @Test(timeout = 60000)
+  public void testFailingEvaluation() throws Exception {
+    DummyArithmeticProtocolSuite suite = new DummyArithmeticProtocolSuite(fieldDefinition, 64, 0);
+    BatchingSecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> engine =
+        createEngine(1, InMemoryNetwork.createNetworks(1).get(0),
+            new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL.getStrategy(), suite),
+            suite);
+    // Built while the application is evaluated
+    Future<Object> failing = engine.submit(builder -> builder.seq(seq -> {
+      throw new IllegalArgumentException();
+    }));
+    assertFailsWith(IllegalArgumentException.class, failing);
+    // The parties may no longer agree on the messages sent, so the engine stops
+    assertFailsWith(IllegalStateException.class, submitAfterStop(engine, multiply(3)));
+  }
+
+  /**
+   * Submits an application once the engine has stopped, returning a failed future if submitting
+   * throws.
+   */
+  private static Future<BigInteger> submitAfterStop(
+      BatchingSecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> engine,
+      Application<BigInteger, ProtocolBuilderNumeric> application) throws InterruptedException {
+    CompletableFuture<BigInteger> future = new CompletableFuture<>();
+    try {
+      Future<BigInteger> submitted = engine.submit(application);
+      // Submitted before the engine stopped, so it is failed when the queue is drained
+      future.complete(submitted.get());
+    } catch (IllegalStateException e) {
+      future.completeExceptionally(e);
+    } catch (ExecutionException e) {
+      future.completeExceptionally(e.getCause());
+    }
+    return future;
+  }
+
+  private static void assertFailsWith(Class<? extends Exception> expected, Future<?> future)
+      throws InterruptedException {
+    try {
+      future.get();
+      fail("Application should fail");
+    } catch (ExecutionException e) {
+      assertTrue(expected.isInstance(e.getCause()));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSubmitAfterClose() {
+    DummyArithmeticProtocolSuite suite = new DummyArithmeticProtocolSuite(fieldDefinition, 64, 0);
+    BatchingSecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> engine =
+        createEngine(1, InMemoryNetwork.createNetworks(1).get(0),
+            new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL.getStrategy(), suite),
+            suite);
+    engine.close();
+    engine.submit(multiply(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonPositiveMaxApplications() {
+    DummyArithmeticProtocolSuite suite = new DummyArithmeticProtocolSuite(fieldDefinition, 64, 0);
+    new BatchingSecureComputationEngine<>(suite,
+        new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL.getStrategy(), suite),
+        new DummyArithmeticResourcePoolImpl(1, 1, fieldDefinition),
+        InMemoryNetwork.createNetworks(1).get(0), 0);
+  }
+
+  /**
+   * Counts the evaluations, optionally holding back the first one.
+   */
+  private static class CountingEvaluator implements ProtocolEvaluator<DummyArithmeticResourcePool> {
+
+    private final ProtocolEvaluator<DummyArithmeticResourcePool> delegate;
+    private final CountDownLatch latch;
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    CountingEvaluator(ProtocolEvaluator<DummyArithmeticResourcePool> delegate,
+        CountDownLatch latch) {
+      this.delegate = delegate;
+      this.latch = latch;
+    }
+
+    @Override
+    public EvaluationStatistics eval(ProtocolProducer protocolProducer,
+        DummyArithmeticResourcePool resourcePool, Network network) {
+      if (evaluations.incrementAndGet() == 1) {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      return delegate.eval(protocolProducer, resourcePool, network);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import static org.junit.Assert.assertEquals;
+
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class TestAdaptiveBatchedProtocolEvaluator {
+
+  private AdaptiveBatchedProtocolEvaluator<DummyArithmeticResourcePool> create(int initial,
+      int min, int max, double fraction, int interval) {
+    return new AdaptiveBatchedProtocolEvaluator<>(new BatchedStrategy<>(),
+        null, initial, min, max, fraction, interval);
+  }
+
+  @Test
+  public void testInitialBatchSize() {
+    assertEquals(1024, create(1024, 16, 2048, 0.5, 1).getBatchSize());
+    assertEquals(1024, create(1024, 16, 2048, 0.5, 1).proposeBatchSize());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMinLargerThanInitial() {
+    create(16, 32, 64, 0.1, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInitialLargerThanMax() {
+    create(128, 32, 64, 0.1, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonPositiveMin() {
+    create(16, 0, 64, 0.1, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTargetWaitFraction() {
+    create(16, 1, 64, 1.0, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTuningInterval() {
+    create(16, 1, 64, 0.1, 0);
+  }
+
+  /**
+   * Observes a batch of the given size taking a microsecond of CPU time per protocol and the given
+   * time waiting on the network.
+   */
+  private void observe(AdaptiveBatchedProtocolEvaluator<?> evaluator, int size, long wait) {
+    long cpu = size * 1000L;
+    evaluator.observe(size, cpu, cpu + wait);
+  }
+
+  @Test
+  public void testIdealBatchSize() {
+    // With a target wait fraction of a half the waiting time should equal the CPU time
+    AdaptiveBatchedProtocolEvaluator<?> evaluator = create(1024, 16, 4096, 0.5, 1);
+    observe(evaluator, 1024, 1500 * 1000L);
+    assertEquals(1500, evaluator.proposeBatchSize());
+  }
+
+  @Test
+  public void testGrowsAtMostDoubleWhenWaiting() {
+    AdaptiveBatchedProtocolEvaluator<?> evaluator = create(1024, 16, 65536, 0.5, 1);
+    observe(evaluator, 1024, 1000 * 1000 * 1000L);
+    assertEquals(2048, evaluator.proposeBatchSize());
+  }
+
+  @Test
+  public void testShrinksAtMostHalfWhenComputing() {
+    AdaptiveBatchedProtocolEvaluator<?> evaluator = create(1024, 16, 65536, 0.5, 1);
+    observe(evaluator, 1024, 1000L);
+    assertEquals(512, evaluator.proposeBatchSize());
+  }
+
+  @Test
+  public void testBoundedByMinAndMax() {
+    AdaptiveBatchedProtocolEvaluator<?> evaluator = create(32, 24, 48, 0.5, 1);
+    observe(evaluator, 32, 0);
+    assertEquals(24, evaluator.proposeBatchSize());
+    evaluator = create(32, 24, 48, 0.5, 1);
+    observe(evaluator, 32, 1000 * 1000 * 1000L);
+    assertEquals(48, evaluator.proposeBatchSize());
+  }
+
+  @Test
+  public void testSmoothedObservations() {
+    AdaptiveBatchedProtocolEvaluator<?> evaluator = create(1024, 16, 4096, 0.5, 1);
+    observe(evaluator, 1024, 1000 * 1000L);
+    // An empty batch is ignored
+    evaluator.observe(0, 0, 1000 * 1000 * 1000L);
+    assertEquals(1000, evaluator.proposeBatchSize());
+    // The waiting time moves a quarter of the way towards the new observation
+    observe(evaluator, 1024, 5000 * 1000L);
+    assertEquals(2000, evaluator.proposeBatchSize());
+  }
+
+  @Test
+  public void testAgreeOnSmallestProposal() throws Exception {
+    List<InMemoryNetwork> networks = InMemoryNetwork.createNetworks(3);
+    List<Integer> proposals = Arrays.asList(100, 50, 200);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      List<Future<Integer>> agreed = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        int myId = i + 1;
+        agreed.add(executor.submit(() -> AdaptiveBatchedProtocolEvaluator
+            .agree(networks.get(myId - 1), myId, proposals.get(myId - 1))));
+      }
+      for (Future<Integer> future : agreed) {
+        assertEquals(50, future.get().intValue());
+      }
+    } finally {
+      executor.shutdownNow();
+      for (InMemoryNetwork network : networks) {
+        network.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.suite.dummy.bool.DummyBooleanNotProtocol;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+
+public class TestProtocolCollectionList {
+
+  @Test
+  public void testRemoveAndCompact() {
+    ProtocolCollectionList<ResourcePool> collection = new ProtocolCollectionList<>(100);
+    List<NativeProtocol<?, ResourcePool>> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      DummyBooleanNotProtocol protocol = new DummyBooleanNotProtocol(null);
+      collection.addProtocol(protocol);
+      if (i % 3 == 0) {
+        expected.add(protocol);
+      }
+    }
+    assertFalse(collection.hasFreeCapacity());
+    Iterator<NativeProtocol<?, ResourcePool>> iterator = collection.iterator();
+    for (int i = 0; iterator.hasNext(); i++) {
+      iterator.next();
+      if (i % 3 != 0) {
+        iterator.remove();
+      }
+    }
+    assertEquals(expected.size(), collection.size());
+    assertTrue(collection.hasFreeCapacity());
+    List<NativeProtocol<?, ResourcePool>> remaining = new ArrayList<>();
+    collection.forEach(remaining::add);
+    assertEquals(expected, remaining);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRemoveTwice() {
+    ProtocolCollectionList<ResourcePool> collection = new ProtocolCollectionList<>(1);
+    collection.addProtocol(new DummyBooleanNotProtocol(null));
+    Iterator<NativeProtocol<?, ResourcePool>> iterator = collection.iterator();
+    iterator.next();
+    iterator.remove();
+    iterator.remove();
+  }
+}
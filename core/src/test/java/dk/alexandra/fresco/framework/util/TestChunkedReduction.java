@@ -0,0 +1,40 @@
+package dk.alexandra.fresco.framework.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.BitSet;
+import org.junit.Test;
+
+public class TestChunkedReduction {
+
+  @Test
+  public void testSum() {
+    for (int size : new int[]{0, 1, 1000, 3 * ChunkedReduction.DEFAULT_MIN_CHUNK_SIZE + 5}) {
+      long sum = ChunkedReduction.reduce(size, (from, to) -> {
+        long chunkSum = 0;
+        for (int i = from; i < to; i++) {
+          chunkSum += i;
+        }
+        return chunkSum;
+      }, Long::sum);
+      assertEquals((long) size * (size - 1) / 2, sum);
+    }
+  }
+
+  @Test
+  public void testChunksCoverIndicesOnce() {
+    int size = 1001;
+    BitSet covered = ChunkedReduction.reduce(size, 1, (from, to) -> {
+      BitSet chunk = new BitSet(size);
+      chunk.set(from, to);
+      return chunk;
+    }, (first, second) -> {
+      assertFalse(first.intersects(second));
+      first.or(second);
+      return first;
+    });
+    assertEquals(size, covered.cardinality());
+    assertEquals(size, covered.length());
+  }
+}
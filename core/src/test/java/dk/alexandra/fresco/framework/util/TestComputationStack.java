@@ -0,0 +1,60 @@
+package dk.alexandra.fresco.framework.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.Computation;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class TestComputationStack {
+
+  @Test
+  public void testOutermostFirst() {
+    List<List<String>> stacks = new ArrayList<>();
+    new Outer(stacks).buildComputation(null);
+    assertEquals(1, stacks.size());
+    // the lambda of the outer computation is part of it
+    assertEquals(Arrays.asList(Outer.class.getName(), Inner.class.getName()), stacks.get(0));
+  }
+
+  @Test
+  public void testNoComputation() {
+    assertTrue(ComputationStack.current().isEmpty());
+  }
+
+  private static class Outer implements Computation<Void, ProtocolBuilderNumeric> {
+
+    private final List<List<String>> stacks;
+
+    Outer(List<List<String>> stacks) {
+      this.stacks = stacks;
+    }
+
+    @Override
+    public DRes<Void> buildComputation(ProtocolBuilderNumeric builder) {
+      Runnable inner = () -> new Inner(stacks).buildComputation(builder);
+      inner.run();
+      return null;
+    }
+  }
+
+  private static class Inner implements Computation<Void, ProtocolBuilderNumeric> {
+
+    private final List<List<String>> stacks;
+
+    Inner(List<List<String>> stacks) {
+      this.stacks = stacks;
+    }
+
+    @Override
+    public DRes<Void> buildComputation(ProtocolBuilderNumeric builder) {
+      stacks.add(ComputationStack.current());
+      return null;
+    }
+  }
+}
@@ -82,6 +82,41 @@ public class BasicArithmeticTests {
     }
   }
 
+  /**
+   * Inputs many values in a single batch, alternating between the parties, and opens them.
+   */
+  public static class TestLotsOfInputs<ResourcePoolT extends ResourcePool>
+      extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
+
+    private static final int NO_OF_INPUTS = 1000;
+
+    @Override
+    public TestThread<ResourcePoolT, ProtocolBuilderNumeric> next() {
+      return new TestThread<ResourcePoolT, ProtocolBuilderNumeric>() {
+        @Override
+        public void test() {
+          Application<List<DRes<BigInteger>>, ProtocolBuilderNumeric> app = producer -> {
+            int noOfParties = producer.getBasicNumericContext().getNoOfParties();
+            DRes<List<DRes<SInt>>> inputs = producer.par(par -> {
+              Numeric numeric = par.numeric();
+              List<DRes<SInt>> closed = new ArrayList<>(NO_OF_INPUTS);
+              for (int i = 0; i < NO_OF_INPUTS; i++) {
+                closed.add(numeric.input(BigInteger.valueOf(i), i % noOfParties + 1));
+              }
+              return () -> closed;
+            });
+            return producer.collections().openList(inputs);
+          };
+          List<DRes<BigInteger>> output = runApplication(app);
+          Assert.assertEquals(NO_OF_INPUTS, output.size());
+          for (int i = 0; i < NO_OF_INPUTS; i++) {
+            Assert.assertEquals(i, output.get(i).out().intValue());
+          }
+        }
+      };
+    }
+  }
+
   public static class TestOutputToSingleParty<ResourcePoolT extends ResourcePool>
       extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
 
@@ -604,6 +639,51 @@ public class BasicArithmeticTests {
     }
   }
 
+  /**
+   * Test multiplying two lists of secret values pairwise with {@link Numeric#multAll(List, List)}.
+   */
+  public static class TestMultAll<ResourcePoolT extends ResourcePool>
+      extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
+
+    @Override
+    public TestThread<ResourcePoolT, ProtocolBuilderNumeric> next() {
+      return new TestThread<ResourcePoolT, ProtocolBuilderNumeric>() {
+
+        @Override
+        public void test() {
+          final int size = 100;
+          List<BigInteger> left = new ArrayList<>();
+          List<BigInteger> right = new ArrayList<>();
+          for (int i = 0; i < size; i++) {
+            left.add(BigInteger.valueOf(i));
+            right.add(BigInteger.valueOf(3 * i + 7));
+          }
+          Application<List<BigInteger>, ProtocolBuilderNumeric> app =
+              producer -> producer.par(par -> {
+                Numeric numeric = par.numeric();
+                List<DRes<SInt>> leftClosed =
+                    left.stream().map(numeric::known).collect(Collectors.toList());
+                List<DRes<SInt>> rightClosed =
+                    right.stream().map(numeric::known).collect(Collectors.toList());
+                return Pair.lazy(leftClosed, rightClosed);
+              }).par((par, pair) -> par.numeric().multAll(pair.getFirst(), pair.getSecond())
+              ).par((par, products) -> {
+                Numeric numeric = par.numeric();
+                List<DRes<BigInteger>> opened =
+                    products.stream().map(numeric::open).collect(Collectors.toList());
+                return () -> opened.stream().map(DRes::out).collect(Collectors.toList());
+              });
+          List<BigInteger> output = runApplication(app);
+
+          Assert.assertThat(output.size(), Is.is(size));
+          for (int i = 0; i < size; i++) {
+            Assert.assertEquals(left.get(i).multiply(right.get(i)), output.get(i));
+          }
+        }
+      };
+    }
+  }
+
   /**
    * Test a computation of doing a many multiplications and additions alternating between the two.
    * This should ensure batches with both types of protocols.
@@ -0,0 +1,148 @@
+package dk.alexandra.fresco.lib.helper;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.sce.evaluator.ProtocolCollectionList;
+import dk.alexandra.fresco.suite.dummy.bool.DummyBooleanNotProtocol;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.hamcrest.core.Is;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelProtocolProducerTest {
+
+  @Test
+  public void testFlattenedOrderAndCapacity() {
+    List<NativeProtocol<?, ?>> expected = new ArrayList<>();
+    List<ProtocolProducer> producers = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      addSingle(producers, expected);
+    }
+    producers.add(new LazyProtocolProducerDecorator(() -> {
+      List<ProtocolProducer> inner = new ArrayList<>();
+      addSingle(inner, expected);
+      return new SequentialProtocolProducer(inner);
+    }));
+    for (int i = 0; i < 3; i++) {
+      addSingle(producers, expected);
+    }
+    ParallelProtocolProducer producer = new ParallelProtocolProducer(producers);
+
+    List<NativeProtocol<?, ?>> produced = new ArrayList<>();
+    int batches = 0;
+    while (producer.hasNextProtocols()) {
+      ProtocolCollectionList<?> batch = new ProtocolCollectionList<>(4);
+      producer.getNextProtocols(batch);
+      Assert.assertThat(batch.size() <= 4, Is.is(true));
+      batch.forEach(produced::add);
+      batches++;
+    }
+    Assert.assertThat(batches, Is.is(3));
+    // the lazy producer is expanded when reached, after the protocols created up front
+    List<NativeProtocol<?, ?>> reordered = new ArrayList<>(expected.subList(0, 6));
+    reordered.add(expected.get(expected.size() - 1));
+    reordered.addAll(expected.subList(6, expected.size() - 1));
+    Assert.assertThat(produced, Is.is(reordered));
+  }
+
+  @Test
+  public void testCriticalPathPrioritized() {
+    List<NativeProtocol<?, ?>> ignored = new ArrayList<>();
+    List<ProtocolProducer> wide = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      addSingle(wide, ignored);
+    }
+    List<ProtocolProducer> chain = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      addSingle(chain, ignored);
+    }
+    SequentialProtocolProducer deep = new SequentialProtocolProducer(chain);
+    Assert.assertThat(RemainingDepth.estimate(deep), Is.is(4));
+    wide.add(deep);
+    ParallelProtocolProducer producer = new ParallelProtocolProducer(wide);
+    Assert.assertThat(RemainingDepth.estimate(producer), Is.is(4));
+
+    List<Integer> sizes = new ArrayList<>();
+    while (producer.hasNextProtocols()) {
+      ProtocolCollectionList<?> batch = new ProtocolCollectionList<>(4);
+      producer.getNextProtocols(batch);
+      sizes.add(batch.size());
+    }
+    // the chain is started as soon as the first batch overflows, instead of after all of the
+    // wide protocols, which would take six batches
+    Assert.assertThat(sizes, Is.is(Arrays.asList(4, 4, 2, 1, 1)));
+  }
+
+  @Test
+  public void testUnexpandedLazyCountsAsOne() {
+    List<ProtocolProducer> steps = new ArrayList<>();
+    steps.add(new LazyProtocolProducerDecorator(() -> {
+      throw new IllegalStateException("Must not be expanded by the estimate");
+    }));
+    steps.add(new LazyProtocolProducerDecorator(() -> null));
+    Assert.assertThat(RemainingDepth.estimate(new SequentialProtocolProducer(steps)), Is.is(2));
+  }
+
+  @Test
+  public void testEstimateBoundedForNestedParallel() {
+    // sixteen branches on each of six levels, sharing the producers of a level, is far more than
+    // the estimate may look at
+    int[] estimated = new int[1];
+    ProtocolProducer producer = countingChain(1, estimated);
+    for (int level = 0; level < 6; level++) {
+      producer = new ParallelProtocolProducer(Collections.nCopies(16, producer));
+      List<ProtocolProducer> steps = new ArrayList<>(Collections.singletonList(producer));
+      addSingle(steps, new ArrayList<>());
+      producer = new SequentialProtocolProducer(steps);
+    }
+    Assert.assertThat(RemainingDepth.estimate(producer), Is.is(7));
+    Assert.assertThat(estimated[0] <= RemainingDepth.MAX_PRODUCERS, Is.is(true));
+  }
+
+  @Test
+  public void testOnlyVisitedBranchesEstimatedAgain() {
+    int width = 1000;
+    int[] estimated = new int[1];
+    List<ProtocolProducer> branches = new ArrayList<>();
+    for (int i = 0; i < width; i++) {
+      branches.add(countingChain(2, estimated));
+    }
+    ParallelProtocolProducer producer = new ParallelProtocolProducer(branches);
+    int batches = 0;
+    while (producer.hasNextProtocols()) {
+      ProtocolCollectionList<?> batch = new ProtocolCollectionList<>(4);
+      producer.getNextProtocols(batch);
+      batches++;
+    }
+    Assert.assertThat(batches, Is.is(2 * width / 4));
+    // every branch once when the first batch overflows, then the four branches of each batch
+    Assert.assertThat(estimated[0] <= width + 4 * batches, Is.is(true));
+  }
+
+  /**
+   * Creates a sequential producer of single protocols, counting how often it is estimated.
+   */
+  private ProtocolProducer countingChain(int length, int[] estimated) {
+    List<ProtocolProducer> steps = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      addSingle(steps, new ArrayList<>());
+    }
+    return new SequentialProtocolProducer(steps) {
+      @Override
+      Iterator<ProtocolProducer> steps() {
+        estimated[0]++;
+        return super.steps();
+      }
+    };
+  }
+
+  private void addSingle(List<ProtocolProducer> producers, List<NativeProtocol<?, ?>> expected) {
+    DummyBooleanNotProtocol protocol = new DummyBooleanNotProtocol(null);
+    producers.add(new SingleProtocolProducer<>(protocol));
+    expected.add(protocol);
+  }
+}
@@ -0,0 +1,214 @@
+package dk.alexandra.fresco.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.NetworkUtil;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.sce.evaluator.NetworkBatchDecorator;
+import dk.alexandra.fresco.framework.sce.evaluator.ProtocolCollectionList;
+import dk.alexandra.fresco.framework.sce.evaluator.SequentialStrategy;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import dk.alexandra.fresco.lib.compare.CompareTests;
+import dk.alexandra.fresco.logging.ProtocolProfiler.Metric;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticCloseProtocol;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticMultProtocol;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TestProtocolProfiler {
+
+  private final BigIntegerFieldDefinition fieldDefinition = new BigIntegerFieldDefinition(
+      "6703903964971298549787012499123814115273848577471136527425966013026501536706464354255445443244279389455058889493431223951165286470575994074291745908195329");
+
+  @Test
+  public void testSingleProtocol() {
+    long[] preprocessing = new long[1];
+    ProtocolProfiler<ResourcePool> profiler =
+        new ProtocolProfiler<>(new SequentialStrategy<>(), rp -> preprocessing[0]);
+    ProtocolCollectionList<ResourcePool> protocols = new ProtocolCollectionList<>(1);
+    protocols.addProtocol(new NativeProtocol<Void, ResourcePool>() {
+      @Override
+      public EvaluationStatus evaluate(int round, ResourcePool resourcePool, Network network) {
+        if (round == 0) {
+          preprocessing[0] += 2;
+          network.send(2, new byte[3]);
+          return EvaluationStatus.HAS_MORE_ROUNDS;
+        }
+        return EvaluationStatus.IS_DONE;
+      }
+
+      @Override
+      public Void out() {
+        return null;
+      }
+    });
+    profiler.processBatch(protocols, new ResourcePoolImpl(1, 2),
+        new NetworkBatchDecorator(2, new SilentNetwork()));
+
+    String name = ProtocolProfiler.PROTOCOL_PREFIX + "%s_" + TestProtocolProfiler.class.getName()
+        + "$1";
+    Map<String, Long> values = profiler.getLoggedValues();
+    assertEquals(1L, (long) values.get(String.format(name, Metric.COUNT)));
+    assertEquals(2L, (long) values.get(String.format(name, Metric.ROUNDS)));
+    assertEquals(3L, (long) values.get(String.format(name, Metric.BYTES_SENT)));
+    assertEquals(0L, (long) values.get(String.format(name, Metric.BYTES_RECEIVED)));
+    assertEquals(2L, (long) values.get(String.format(name, Metric.PREPROCESSING)));
+    profiler.reset();
+    assertEquals(0, profiler.getLoggedValues().size());
+  }
+
+  @Test
+  public void testWaitNotIncludedInTime() {
+    ProtocolProfiler<ResourcePool> profiler = new ProtocolProfiler<>(new SequentialStrategy<>());
+    ProtocolCollectionList<ResourcePool> protocols = new ProtocolCollectionList<>(1);
+    protocols.addProtocol(new NativeProtocol<Void, ResourcePool>() {
+      @Override
+      public EvaluationStatus evaluate(int round, ResourcePool resourcePool, Network network) {
+        if (round == 0) {
+          network.send(2, new byte[1]);
+          return EvaluationStatus.HAS_MORE_ROUNDS;
+        }
+        network.receive(2);
+        return EvaluationStatus.IS_DONE;
+      }
+
+      @Override
+      public Void out() {
+        return null;
+      }
+    });
+    profiler.processBatch(protocols, new ResourcePoolImpl(1, 2),
+        new NetworkBatchDecorator(2, new SlowNetwork()));
+
+    String name = ProtocolProfiler.PROTOCOL_PREFIX + "%s_" + TestProtocolProfiler.class.getName()
+        + "$2";
+    Map<String, Long> values = profiler.getLoggedValues();
+    long wait = values.get(String.format(name, Metric.WAIT_NS));
+    assertTrue(wait >= TimeUnit.MILLISECONDS.toNanos(200));
+    assertTrue(values.get(String.format(name, Metric.TIME_NS)) < wait);
+  }
+
+  @Test
+  public void testAttributedToComputations() throws Exception {
+    TestThreadRunner.TestThreadFactory<DummyArithmeticResourcePool, ProtocolBuilderNumeric> f
+        = new CompareTests.TestCompareLT<>();
+
+    Map<Integer, NetworkConfiguration> netConf = getNetConf();
+    Map<Integer, TestThreadRunner.TestThreadConfiguration<DummyArithmeticResourcePool,
+        ProtocolBuilderNumeric>> conf = new HashMap<>();
+    List<ProtocolProfiler<DummyArithmeticResourcePool>> profilers =
+        Collections.synchronizedList(new ArrayList<>());
+    for (int playerId : netConf.keySet()) {
+      NetworkConfiguration partyNetConf = netConf.get(playerId);
+      ProtocolProfiler<DummyArithmeticResourcePool> profiler =
+          new ProtocolProfiler<>(EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy());
+      if (playerId == 1) {
+        profilers.add(profiler);
+      }
+      NumericSuiteProfiling<DummyArithmeticResourcePool> ps = new NumericSuiteProfiling<>(
+          new DummyArithmeticProtocolSuite(fieldDefinition, 200, 16), profiler);
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce
+          = new SecureComputationEngineImpl<>(ps, new BatchedProtocolEvaluator<>(profiler, ps));
+      conf.put(playerId, new TestThreadRunner.TestThreadConfiguration<>(sce,
+          () -> new DummyArithmeticResourcePoolImpl(playerId, netConf.keySet().size(),
+              fieldDefinition),
+          () -> new SocketNetwork(partyNetConf)));
+    }
+    TestThreadRunner.run(f, conf);
+
+    ProtocolProfiler<DummyArithmeticResourcePool> profiler = profilers.get(0);
+    Map<String, Long> values = profiler.getLoggedValues();
+    String mult = DummyArithmeticMultProtocol.class.getName();
+    String close = DummyArithmeticCloseProtocol.class.getName();
+    assertTrue(values.get(ProtocolProfiler.PROTOCOL_PREFIX + Metric.COUNT + "_" + mult) > 0);
+    assertEquals(2L,
+        (long) values.get(ProtocolProfiler.PROTOCOL_PREFIX + Metric.COUNT + "_" + close));
+    assertTrue(values.get(ProtocolProfiler.PROTOCOL_PREFIX + Metric.BYTES_SENT + "_" + close) > 0);
+    assertTrue(values.keySet().stream().anyMatch(key -> key.startsWith(
+        ProtocolProfiler.COMPUTATION_PREFIX + Metric.COUNT + "_dk.alexandra.fresco.lib.compare")));
+
+    StringBuilder stacks = new StringBuilder();
+    profiler.writeFoldedStacks(stacks, Metric.COUNT);
+    long multCount = 0;
+    boolean attributed = false;
+    for (String line : stacks.toString().split("\n")) {
+      String[] stackAndValue = line.split(" ");
+      assertEquals(2, stackAndValue.length);
+      if (stackAndValue[0].endsWith(mult)) {
+        attributed |= stackAndValue[0].contains(";");
+        multCount += Long.parseLong(stackAndValue[1]);
+      }
+    }
+    assertTrue(attributed);
+    assertEquals((long) values.get(ProtocolProfiler.PROTOCOL_PREFIX + Metric.COUNT + "_" + mult),
+        multCount);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonPositiveSampleInterval() {
+    new NumericSuiteProfiling<>(new DummyArithmeticProtocolSuite(fieldDefinition, 200, 16),
+        new ProtocolProfiler<>(new SequentialStrategy<>()), 0);
+  }
+
+  private Map<Integer, NetworkConfiguration> getNetConf() {
+    int noOfParties = 2;
+    List<Integer> ports = new ArrayList<>(noOfParties);
+    for (int i = 1; i <= noOfParties; i++) {
+      ports.add(9100 + i * (noOfParties - 1));
+    }
+    return NetworkUtil.getNetworkConfigurations(ports);
+  }
+
+  private static class SilentNetwork implements Network {
+
+    @Override
+    public void send(int partyId, byte[] data) {
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      return new byte[0];
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return 2;
+    }
+  }
+
+  /**
+   * Waits before receiving a batch holding a single empty message.
+   */
+  private static class SlowNetwork extends SilentNetwork {
+
+    @Override
+    public byte[] receive(int partyId) {
+      ExceptionConverter.safe(() -> {
+        Thread.sleep(200);
+        return null;
+      }, "Interrupted");
+      return new byte[1];
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package dk.alexandra.fresco.suite.cost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.Computation;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.MersennePrimeFieldDefinition;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+import java.util.Map;
+import org.junit.Test;
+
+public class TestCostEstimationProtocolSuite {
+
+  private static final FieldDefinition FIELD = new MersennePrimeFieldDefinition(512, 569);
+  private static final int ELEMENT_LENGTH = 64;
+
+  private final Application<BigInteger, ProtocolBuilderNumeric> application = builder -> {
+    DRes<SInt[]> inputs = builder.par(par -> {
+      DRes<SInt> x = par.numeric().input(BigInteger.valueOf(3), 1);
+      DRes<SInt> y = par.numeric().input(null, 2);
+      return () -> new SInt[]{x.out(), y.out()};
+    });
+    return builder.seq(seq -> {
+      Numeric numeric = seq.numeric();
+      DRes<SInt> product = numeric.mult(inputs.out()[0], inputs.out()[1]);
+      return numeric.open(numeric.add(product, inputs.out()[0]));
+    });
+  };
+
+  private <OutputT> CostEstimate estimate(Application<OutputT, ProtocolBuilderNumeric> application,
+      boolean breakdown) {
+    return CostEstimator.estimate(application,
+        new CostEstimationProtocolSuite(FIELD, 200, 16, breakdown), 1, 2);
+  }
+
+  @Test
+  public void testOperations() {
+    CostEstimate estimate = estimate(application, false);
+    assertEquals(2, estimate.getCount(Operation.INPUT));
+    assertEquals(1, estimate.getCount(Operation.MULT));
+    assertEquals(1, estimate.getCount(Operation.ADD));
+    assertEquals(1, estimate.getCount(Operation.OPEN));
+    assertEquals(0, estimate.getCount(Operation.SUB));
+    assertEquals(1, estimate.getTriples());
+    assertEquals(1, estimate.getInputMasks(1));
+    assertEquals(1, estimate.getInputMasks(2));
+    assertEquals(0, estimate.getCountByComputation().size());
+  }
+
+  @Test
+  public void testRounds() {
+    // inputs, then the multiplication and the opening, the addition is local
+    CostEstimate estimate = estimate(application, false);
+    assertEquals(3, estimate.getBatches());
+    assertEquals(2 + 1 + 1, estimate.getRounds());
+  }
+
+  @Test
+  public void testLocalOperations() {
+    int additions = 2 * CostEstimationBuilderFactory.MAX_LOCAL_DEPTH;
+    CostEstimate estimate = estimate(builder -> {
+      Numeric numeric = builder.numeric();
+      DRes<SInt> x = numeric.input(BigInteger.ONE, 1);
+      DRes<SInt> sum = x;
+      for (int i = 0; i < additions; i++) {
+        sum = numeric.add(sum, x);
+      }
+      return numeric.open(sum);
+    }, false);
+    assertEquals(additions, estimate.getCount(Operation.ADD));
+    // the input, the addition ending the first chain of local values and the opening
+    assertEquals(3, estimate.getBatches());
+    assertEquals(2 + 0 + 1, estimate.getRounds());
+  }
+
+  @Test
+  public void testBytesSent() {
+    CostEstimate estimate = estimate(application, false);
+    long inputs = ELEMENT_LENGTH + 2 * CostEstimate.DIGEST_LENGTH;
+    long mult = 2 * ELEMENT_LENGTH;
+    long open = ELEMENT_LENGTH;
+    assertEquals(inputs + mult + open, estimate.getBytesSent(1));
+    assertEquals(inputs + mult + open, estimate.getBytesSent(2));
+  }
+
+  @Test
+  public void testOpenToParty() {
+    CostEstimate estimate = estimate(builder -> {
+      Numeric numeric = builder.numeric();
+      return numeric.open(numeric.known(BigInteger.ONE), 2);
+    }, false);
+    assertEquals(1, estimate.getCount(Operation.OPEN_TO_PARTY));
+    assertEquals(ELEMENT_LENGTH, estimate.getBytesSent(1));
+    assertEquals(0, estimate.getBytesSent(2));
+  }
+
+  @Test
+  public void testExponentiationPipe() {
+    CostEstimate estimate = estimate(builder -> builder
+        .seq(seq -> seq.preprocessedValues().getExponentiationPipe(3))
+        .seq((seq, pipe) -> seq.numeric().open(seq.numeric().mult(pipe.get(0), pipe.get(1)))),
+        false);
+    assertEquals(1, estimate.getExpPipes());
+    assertEquals(5, estimate.getExpPipeElements());
+    assertEquals(1, estimate.getTriples());
+  }
+
+  @Test
+  public void testCountByComputation() {
+    CostEstimate estimate = estimate(builder -> {
+      DRes<SInt> x = builder.numeric().input(BigInteger.valueOf(2), 1);
+      return builder.seq(new Square(x));
+    }, true);
+    Map<String, Map<Operation, Long>> counts = estimate.getCountByComputation();
+    assertEquals(2, counts.size());
+    assertEquals(Long.valueOf(1),
+        counts.get(CostEstimationBuilderFactory.APPLICATION).get(Operation.INPUT));
+    assertEquals(Long.valueOf(1), counts.get(Square.class.getName()).get(Operation.MULT));
+    assertNull(counts.get(Square.class.getName()).get(Operation.INPUT));
+  }
+
+  private static class Square implements Computation<SInt, ProtocolBuilderNumeric> {
+
+    private final DRes<SInt> value;
+
+    Square(DRes<SInt> value) {
+      this.value = value;
+    }
+
+    @Override
+    public DRes<SInt> buildComputation(ProtocolBuilderNumeric builder) {
+      return builder.numeric().mult(value, value);
+    }
+  }
+}
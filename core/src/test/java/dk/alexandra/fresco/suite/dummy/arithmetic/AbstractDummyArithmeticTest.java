@@ -11,6 +11,7 @@ import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
 import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
 import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.AdaptiveBatchedProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchEvaluationStrategy;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
@@ -44,6 +45,7 @@ public abstract class AbstractDummyArithmeticTest {
   protected static final EvaluationStrategy DEFAULT_EVALUATION_STRATEGY
       = EvaluationStrategy.SEQUENTIAL_BATCHED;
   protected static final boolean DEFAULT_PERFORMANCE_LOGGING = false;
+  protected static final boolean DEFAULT_ADAPTIVE_BATCHING = false;
 
   /**
    * Runs test using the {@link TestParameters} class to set parameters.
@@ -60,7 +62,8 @@ public abstract class AbstractDummyArithmeticTest {
         p.modulus,
         p.maxBitLength,
         p.fixedPointPrecesion,
-        p.performanceLogging);
+        p.performanceLogging,
+        p.adaptiveBatching);
   }
 
   /**
@@ -71,14 +74,14 @@ public abstract class AbstractDummyArithmeticTest {
       TestThreadRunner.TestThreadFactory<DummyArithmeticResourcePool, ProtocolBuilderNumeric> f,
       EvaluationStrategy evalStrategy, int noOfParties) {
     runTest(f, evalStrategy, noOfParties, DEFAULT_FIELD, DEFAULT_MAX_BIT_LENGTH,
-        DEFAULT_FIXED_POINT_PRECISION, DEFAULT_PERFORMANCE_LOGGING);
+        DEFAULT_FIXED_POINT_PRECISION, DEFAULT_PERFORMANCE_LOGGING, DEFAULT_ADAPTIVE_BATCHING);
   }
 
   private void runTest(
       TestThreadRunner.TestThreadFactory<DummyArithmeticResourcePool, ProtocolBuilderNumeric> f,
       EvaluationStrategy evalStrategy, int noOfParties, FieldDefinition fieldDefinition,
       int maxBitLength,
-      int fixedPointPrecision, boolean logPerformance) {
+      int fixedPointPrecision, boolean logPerformance, boolean adaptiveBatching) {
     List<Integer> ports = new ArrayList<>(noOfParties);
     for (int i = 1; i <= noOfParties; i++) {
       ports.add(9000 + i * (noOfParties - 1));
@@ -106,8 +109,9 @@ public abstract class AbstractDummyArithmeticTest {
         batchEvaluationStrategy = new BatchEvaluationLoggingDecorator<>(batchEvaluationStrategy);
         aggregate.add((PerformanceLogger) batchEvaluationStrategy);
       }
-      ProtocolEvaluator<DummyArithmeticResourcePool> evaluator =
-          new BatchedProtocolEvaluator<>(batchEvaluationStrategy, ps);
+      ProtocolEvaluator<DummyArithmeticResourcePool> evaluator = adaptiveBatching
+          ? new AdaptiveBatchedProtocolEvaluator<>(batchEvaluationStrategy, ps)
+          : new BatchedProtocolEvaluator<>(batchEvaluationStrategy, ps);
       if (logPerformance) {
         evaluator = new EvaluatorLoggingDecorator<>(evaluator);
         aggregate.add((PerformanceLogger) evaluator);
@@ -153,6 +157,7 @@ public abstract class AbstractDummyArithmeticTest {
     private int numParties = DEFAULT_PARTIES;
     private EvaluationStrategy evaluationStrategy = DEFAULT_EVALUATION_STRATEGY;
     private boolean performanceLogging = DEFAULT_PERFORMANCE_LOGGING;
+    private boolean adaptiveBatching = DEFAULT_ADAPTIVE_BATCHING;
 
     public TestParameters field(FieldDefinition field) {
       this.modulus = field;
@@ -183,5 +188,10 @@ public abstract class AbstractDummyArithmeticTest {
       this.performanceLogging = performanceLogging;
       return this;
     }
+
+    public TestParameters adaptiveBatching(boolean adaptiveBatching) {
+      this.adaptiveBatching = adaptiveBatching;
+      return this;
+    }
   }
 }
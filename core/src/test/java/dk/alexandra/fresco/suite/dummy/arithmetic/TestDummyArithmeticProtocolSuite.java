@@ -5,8 +5,10 @@ import static org.junit.Assert.assertThat;
 
 import dk.alexandra.fresco.framework.DRes;
 import dk.alexandra.fresco.framework.builder.numeric.ExponentiationPipeTests;
+import dk.alexandra.fresco.framework.builder.numeric.compiled.CompiledProgramTests;
 import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
 import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
 import dk.alexandra.fresco.framework.util.ModulusFinder;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.arithmetic.AdvancedNumericTests.TestMinInfFrac;
@@ -78,6 +80,56 @@ public class TestDummyArithmeticProtocolSuite extends AbstractDummyArithmeticTes
         .get(NetworkLoggingDecorator.NETWORK_TOTAL_BYTES), is((long) 0));
   }
 
+  @Test
+  public void test_Lots_Of_Mults_Parallel_Batched() {
+    runTest(new BasicArithmeticTests.TestLotsMult<>(), new TestParameters()
+        .numParties(2)
+        .evaluationStrategy(EvaluationStrategy.PARALLEL_BATCHED));
+  }
+
+  @Test
+  public void test_Compiled_Program() {
+    runTest(new CompiledProgramTests.TestCompiledProgram<>(), new TestParameters().numParties(2));
+  }
+
+  @Test
+  public void test_Compiled_Program_Captured_Constants() {
+    runTest(new CompiledProgramTests.TestCompiledProgramCapturedConstants<>(),
+        new TestParameters().numParties(2));
+  }
+
+  @Test
+  public void test_Compiled_Program_Depth() {
+    runTest(new CompiledProgramTests.TestCompileDepth<>(), new TestParameters().numParties(2));
+  }
+
+  @Test
+  public void test_Compiled_Program_Open_Fails() {
+    runTest(new CompiledProgramTests.TestCompileOpenFails<>(), new TestParameters().numParties(2));
+  }
+
+  @Test
+  public void test_Lots_Of_Mults_Adaptive_Batching() {
+    runTest(new BasicArithmeticTests.TestLotsMult<>(), new TestParameters()
+        .numParties(2)
+        .adaptiveBatching(true));
+  }
+
+  @Test
+  public void test_Lots_Of_Mults_Adaptive_Batching_Parallel() {
+    runTest(new BasicArithmeticTests.TestLotsMult<>(), new TestParameters()
+        .numParties(2)
+        .evaluationStrategy(EvaluationStrategy.PARALLEL_BATCHED)
+        .adaptiveBatching(true));
+  }
+
+  @Test
+  public void test_Sum_And_Output_Adaptive_Batching() {
+    runTest(new BasicArithmeticTests.TestSumAndMult<>(), new TestParameters()
+        .numParties(2)
+        .adaptiveBatching(true));
+  }
+
   @Test
   public void test_AddPublicValue_Sequential() {
     runTest(new BasicArithmeticTests.TestAddPublicValue<>(), new TestParameters());
@@ -93,6 +145,11 @@ public class TestDummyArithmeticProtocolSuite extends AbstractDummyArithmeticTes
     runTest(new BasicArithmeticTests.TestSimpleMultAndAdd<>(), new TestParameters());
   }
 
+  @Test
+  public void test_MultAll_Sequential() {
+    runTest(new BasicArithmeticTests.TestMultAll<>(), new TestParameters());
+  }
+
   @Test
   public void testSumAndOutputSequential() {
     runTest(new BasicArithmeticTests.TestSumAndMult<>(), new TestParameters());
@@ -5,7 +5,11 @@ import dk.alexandra.fresco.framework.ProtocolEvaluator;
 import dk.alexandra.fresco.framework.builder.ProtocolBuilder;
 import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
 import dk.alexandra.fresco.framework.configuration.NetworkConfigurationImpl;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.network.EmulatedLink;
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.NetworkEmulationDecorator;
+import dk.alexandra.fresco.framework.network.socket.NioSocketNetwork;
 import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
 import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
 import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
@@ -22,6 +26,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -42,6 +47,11 @@ import org.apache.commons.cli.ParseException;
  */
 public class CmdLineUtil<ResourcePoolT extends ResourcePool, BuilderT extends ProtocolBuilder> {
 
+  private static final String[] NETWORK_TYPES = {"socket", "nio"};
+  private static final String LATENCY = "latency";
+  private static final String JITTER = "jitter";
+  private static final String BANDWIDTH = "bandwidth";
+
   private final Options options;
   private Options appOptions;
   private CommandLine cmd;
@@ -121,6 +131,25 @@ public class CmdLineUtil<ResourcePoolT extends ResourcePool, BuilderT extends Pr
             + EvaluationStrategy.SEQUENTIAL)
         .longOpt("evaluator").required(false).hasArg(true).build());
 
+    options.addOption(Option.builder("n")
+        .desc("The network implementation to use. Can be one of: "
+            + Arrays.toString(NETWORK_TYPES) + ". Defaults to " + NETWORK_TYPES[0])
+        .longOpt("network").required(false).hasArg(true).build());
+
+    options.addOption(Option.builder().longOpt(LATENCY)
+        .desc("Emulates a one-way latency in milliseconds on the links to the other parties. "
+            + "Defaults to no emulation")
+        .required(false).hasArg(true).build());
+
+    options.addOption(Option.builder().longOpt(JITTER)
+        .desc("The maximum deviation in milliseconds from the emulated latency. Defaults to 0")
+        .required(false).hasArg(true).build());
+
+    options.addOption(Option.builder().longOpt(BANDWIDTH)
+        .desc("Emulates a bandwidth in megabits per second on the links to the other parties. "
+            + "Defaults to no limit")
+        .required(false).hasArg(true).build());
+
     options.addOption(Option.builder("b")
         .desc(
             "The maximum number of native protocols kept in memory at any point in time. "
@@ -192,10 +221,48 @@ public class CmdLineUtil<ResourcePoolT extends ResourcePool, BuilderT extends Pr
     }
 
     this.networkConfiguration = new NetworkConfigurationImpl(myId, parties);
+    Supplier<CloseableNetwork> baseNetwork = getEmulatedNetwork(myId, getBaseNetwork());
     if (logPerformance) {
-      this.network = () -> new NetworkLoggingDecorator(new SocketNetwork(networkConfiguration));
+      this.network = () -> new NetworkLoggingDecorator(baseNetwork.get());
+    } else {
+      this.network = baseNetwork::get;
+    }
+  }
+
+  private Supplier<CloseableNetwork> getBaseNetwork() throws ParseException {
+    String networkType = this.cmd.getOptionValue("n", NETWORK_TYPES[0]).toLowerCase();
+    if (networkType.equals("socket")) {
+      return () -> new SocketNetwork(networkConfiguration);
+    } else if (networkType.equals("nio")) {
+      return () -> new NioSocketNetwork(networkConfiguration);
     } else {
-      this.network = () -> new SocketNetwork(networkConfiguration);
+      throw new ParseException("Unknown network: " + networkType + ". Must be one of "
+          + Arrays.toString(NETWORK_TYPES));
+    }
+  }
+
+  private Supplier<CloseableNetwork> getEmulatedNetwork(int myId,
+      Supplier<CloseableNetwork> baseNetwork) throws ParseException {
+    if (!cmd.hasOption(LATENCY) && !cmd.hasOption(JITTER) && !cmd.hasOption(BANDWIDTH)) {
+      return baseNetwork;
+    }
+    Duration latency = Duration.ofNanos((long) (parseNonNegativeDouble(LATENCY) * 1e6));
+    Duration jitter = Duration.ofNanos((long) (parseNonNegativeDouble(JITTER) * 1e6));
+    long bytesPerSecond = (long) (parseNonNegativeDouble(BANDWIDTH) * 1e6 / Byte.SIZE);
+    EmulatedLink link = new EmulatedLink(latency, jitter, bytesPerSecond);
+    return () -> new NetworkEmulationDecorator(myId, baseNetwork.get(), link);
+  }
+
+  private double parseNonNegativeDouble(String optionId) throws ParseException {
+    String opStr = this.cmd.getOptionValue(optionId, "0");
+    try {
+      double res = Double.parseDouble(opStr);
+      if (!(res >= 0) || Double.isInfinite(res)) {
+        throw new ParseException(optionId + " must be a non-negative number");
+      }
+      return res;
+    } catch (NumberFormatException e) {
+      throw new ParseException("Cannot parse '" + opStr + "' as a number");
     }
   }
 
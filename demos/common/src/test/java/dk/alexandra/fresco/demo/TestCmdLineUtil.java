@@ -11,6 +11,8 @@ import dk.alexandra.fresco.framework.builder.binary.ProtocolBuilderBinary;
 import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
 import dk.alexandra.fresco.framework.network.CloseableNetwork;
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.NetworkEmulationDecorator;
+import dk.alexandra.fresco.framework.network.socket.NioSocketNetwork;
 import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
@@ -138,6 +140,31 @@ public class TestCmdLineUtil {
     assertTrue(cmd.getSce() instanceof SecureComputationEngineImpl);
   }
 
+  @Test
+  public void testNioNetworkFromCmdLine() {
+    CmdLineUtil<ResourcePoolImpl, ProtocolBuilderBinary> cmd = parseAndCloseNetwork("dummybool",
+        "-n", "nio");
+    assertTrue(cmd.getNetwork() instanceof NioSocketNetwork);
+    assertTrue(cmd.getProtocolSuite() instanceof DummyBooleanProtocolSuite);
+  }
+
+  @Test
+  public void testEmulatedNetworkFromCmdLine() {
+    CmdLineUtil<ResourcePoolImpl, ProtocolBuilderBinary> cmd = parseAndCloseNetwork("dummybool",
+        "--latency", "20", "--jitter", "2.5", "--bandwidth", "100");
+    assertTrue(cmd.getNetwork() instanceof NetworkEmulationDecorator);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeLatency() {
+    parseIncorrectArgs(getArgs(1, "dummybool", "--latency", "-1"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidNetwork() {
+    parseIncorrectArgs("-s", "dummybool", "-p", "1:localhost:8080", "-i", "1", "-n", "fail");
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testBadProtocolSuiteFromCmdLine() {
     parseIncorrectArgs(getArgs(1, "not-a-protocolsuite", "-b", "4048"));
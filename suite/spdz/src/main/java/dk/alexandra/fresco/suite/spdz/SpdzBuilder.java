@@ -1,6 +1,7 @@
 package dk.alexandra.fresco.suite.spdz;
 
 import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.NativeProtocol;
 import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
 import dk.alexandra.fresco.framework.builder.numeric.Numeric;
 import dk.alexandra.fresco.framework.builder.numeric.PreprocessedValues;
@@ -9,12 +10,14 @@ import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.compare.MiscBigIntegerGenerators;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
 import dk.alexandra.fresco.lib.real.RealNumericContext;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzAddProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzAddProtocolKnownLeft;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzInputProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzKnownSIntProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzMultProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzMultProtocolKnownLeft;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzMultVectorProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputSingleProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputToAllProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzRandomProtocol;
@@ -22,19 +25,41 @@ import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocolKnownLeft;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocolKnownRight;
 import java.math.BigInteger;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Basic native builder for the SPDZ protocol suite.
+ * <p>
+ * Additions, subtractions and multiplications by known values are local operations on the shares,
+ * so they are not appended as native protocols but returned as values computed when first needed.
+ * They are thus not part of any batch and do not add rounds. Operations involving a known value
+ * need the resource pool, and are appended as native protocols if the builder is created without
+ * one. To bound the recursion when computing a long chain of local values, an operation on a value
+ * at depth {@link #MAX_LOCAL_DEPTH} is appended as a native protocol as well.
+ * </p>
  */
 public class SpdzBuilder implements BuilderFactoryNumeric {
 
+  /**
+   * The maximum number of local values computed in a chain before a native protocol is used.
+   */
+  static final int MAX_LOCAL_DEPTH = 512;
+
   private BasicNumericContext basicNumericContext;
   private MiscBigIntegerGenerators miscOIntGenerators;
   private RealNumericContext realNumericContext;
+  private final SpdzResourcePool resourcePool;
 
   SpdzBuilder(BasicNumericContext basicNumericContext, RealNumericContext realNumericContext) {
+    this(basicNumericContext, realNumericContext, null);
+  }
+
+  SpdzBuilder(BasicNumericContext basicNumericContext, RealNumericContext realNumericContext,
+      SpdzResourcePool resourcePool) {
     this.basicNumericContext = basicNumericContext;
     this.realNumericContext = realNumericContext;
+    this.resourcePool = resourcePool;
   }
 
   @Override
@@ -61,34 +86,45 @@ public class SpdzBuilder implements BuilderFactoryNumeric {
     return new Numeric() {
       @Override
       public DRes<SInt> add(DRes<SInt> a, DRes<SInt> b) {
-        SpdzAddProtocol spdzAddProtocol = new SpdzAddProtocol(a, b);
-        return protocolBuilder.append(spdzAddProtocol);
+        return local(protocolBuilder, () -> spdz(a).add(spdz(b)),
+            () -> new SpdzAddProtocol(a, b), a, b);
       }
 
       @Override
       public DRes<SInt> add(BigInteger a, DRes<SInt> b) {
-        SpdzAddProtocolKnownLeft spdzAddProtocolKnownLeft = new SpdzAddProtocolKnownLeft(a, b);
-        return protocolBuilder.append(spdzAddProtocolKnownLeft);
+        if (resourcePool == null) {
+          return protocolBuilder.append(new SpdzAddProtocolKnownLeft(a, b));
+        }
+        return local(protocolBuilder,
+            () -> SpdzKnownSIntProtocol.createKnownSpdzElement(resourcePool, a).add(spdz(b)),
+            () -> new SpdzAddProtocolKnownLeft(a, b), b);
       }
 
       @Override
       public DRes<SInt> sub(DRes<SInt> a, DRes<SInt> b) {
-        SpdzSubtractProtocol spdzSubtractProtocol = new SpdzSubtractProtocol(a, b);
-        return protocolBuilder.append(spdzSubtractProtocol);
+        return local(protocolBuilder, () -> spdz(a).subtract(spdz(b)),
+            () -> new SpdzSubtractProtocol(a, b), a, b);
       }
 
       @Override
       public DRes<SInt> sub(BigInteger a, DRes<SInt> b) {
-        SpdzSubtractProtocolKnownLeft spdzSubtractProtocolKnownLeft =
-            new SpdzSubtractProtocolKnownLeft(a, b);
-        return protocolBuilder.append(spdzSubtractProtocolKnownLeft);
+        if (resourcePool == null) {
+          return protocolBuilder.append(new SpdzSubtractProtocolKnownLeft(a, b));
+        }
+        return local(protocolBuilder,
+            () -> SpdzKnownSIntProtocol.createKnownSpdzElement(resourcePool, a)
+                .subtract(spdz(b)),
+            () -> new SpdzSubtractProtocolKnownLeft(a, b), b);
       }
 
       @Override
       public DRes<SInt> sub(DRes<SInt> a, BigInteger b) {
-        SpdzSubtractProtocolKnownRight spdzSubtractProtocolKnownRight =
-            new SpdzSubtractProtocolKnownRight(a, b);
-        return protocolBuilder.append(spdzSubtractProtocolKnownRight);
+        if (resourcePool == null) {
+          return protocolBuilder.append(new SpdzSubtractProtocolKnownRight(a, b));
+        }
+        return local(protocolBuilder,
+            () -> spdz(a).subtract(SpdzKnownSIntProtocol.createKnownSpdzElement(resourcePool, b)),
+            () -> new SpdzSubtractProtocolKnownRight(a, b), a);
       }
 
       @Override
@@ -97,10 +133,20 @@ public class SpdzBuilder implements BuilderFactoryNumeric {
         return protocolBuilder.append(spdzMultProtocol);
       }
 
+      @Override
+      public DRes<List<DRes<SInt>>> multAll(List<DRes<SInt>> a, List<DRes<SInt>> b) {
+        if (a.size() != b.size()) {
+          throw new IllegalArgumentException(
+              "Lists must have the same size, got " + a.size() + " and " + b.size());
+        }
+        return protocolBuilder.append(new SpdzMultVectorProtocol(a, b));
+      }
+
       @Override
       public DRes<SInt> mult(BigInteger a, DRes<SInt> b) {
-        SpdzMultProtocolKnownLeft spdzMultProtocol4 = new SpdzMultProtocolKnownLeft(a, b);
-        return protocolBuilder.append(spdzMultProtocol4);
+        return local(protocolBuilder,
+            () -> spdz(b).multiply(basicNumericContext.getFieldDefinition().createElement(a)),
+            () -> new SpdzMultProtocolKnownLeft(a, b), b);
       }
 
       @Override
@@ -139,6 +185,28 @@ public class SpdzBuilder implements BuilderFactoryNumeric {
     };
   }
 
+  /**
+   * Returns a local value computing the result of a linear operation, or appends a native protocol
+   * computing it if any operand is too deep a chain of local values.
+   */
+  @SafeVarargs
+  private static DRes<SInt> local(ProtocolBuilderNumeric protocolBuilder,
+      Supplier<SpdzSInt> computation, Supplier<NativeProtocol<SInt, ?>> protocol,
+      DRes<SInt>... operands) {
+    int depth = 0;
+    for (DRes<SInt> operand : operands) {
+      depth = Math.max(depth, SpdzLocalValue.depthOf(operand));
+    }
+    if (depth >= MAX_LOCAL_DEPTH) {
+      return protocolBuilder.append(protocol.get());
+    }
+    return new SpdzLocalValue(computation, depth + 1);
+  }
+
+  private static SpdzSInt spdz(DRes<SInt> value) {
+    return (SpdzSInt) value.out();
+  }
+
   @Override
   public MiscBigIntegerGenerators getBigIntegerHelper() {
     if (miscOIntGenerators == null) {
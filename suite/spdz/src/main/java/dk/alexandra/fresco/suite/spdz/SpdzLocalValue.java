@@ -0,0 +1,58 @@
+package dk.alexandra.fresco.suite.spdz;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import java.util.function.Supplier;
+
+/**
+ * The result of a local, linear operation on SPDZ shares, e.g. an addition, computed the first
+ * time it is needed rather than by a native protocol.
+ * <p>
+ * The value is computed at most once and the operands are released afterwards. Since computing a
+ * value also computes any local values it depends on, each value keeps track of the length of the
+ * longest such chain, its depth, so the builder can bound the recursion.
+ * </p>
+ */
+final class SpdzLocalValue implements DRes<SInt> {
+
+  private final int depth;
+  private volatile Supplier<SpdzSInt> computation;
+  private volatile SpdzSInt value;
+
+  SpdzLocalValue(Supplier<SpdzSInt> computation, int depth) {
+    this.computation = computation;
+    this.depth = depth;
+  }
+
+  /**
+   * Gets the number of local values that must be computed to compute a given value, including the
+   * value itself.
+   *
+   * @param value the value
+   * @return the depth of the value, or zero if it is not a local value still to be computed
+   */
+  static int depthOf(DRes<SInt> value) {
+    if (value instanceof SpdzLocalValue) {
+      SpdzLocalValue local = (SpdzLocalValue) value;
+      return local.value == null ? local.depth : 0;
+    }
+    return 0;
+  }
+
+  @Override
+  public SInt out() {
+    SpdzSInt result = value;
+    if (result == null) {
+      Supplier<SpdzSInt> supplier = computation;
+      if (supplier == null) {
+        // Computed by another thread in the meantime
+        return value;
+      }
+      result = supplier.get();
+      value = result;
+      computation = null;
+    }
+    return result;
+  }
+}
@@ -23,7 +23,7 @@ public class SpdzProtocolSuite implements ProtocolSuiteNumeric<SpdzResourcePool>
   public BuilderFactoryNumeric init(SpdzResourcePool resourcePool) {
     BasicNumericContext numericContext = createNumericContext(resourcePool);
     RealNumericContext realContext = createRealNumericContext();
-    return new SpdzBuilder(numericContext, realContext);
+    return new SpdzBuilder(numericContext, realContext, resourcePool);
   }
 
   BasicNumericContext createNumericContext(SpdzResourcePool resourcePool) {
@@ -15,7 +15,8 @@ import java.security.MessageDigest;
 public interface SpdzResourcePool extends NumericResourcePool {
 
   /**
-   * Gets the message digest for this protocol suite invocation.
+   * Gets the message digest for this protocol suite invocation. Native protocols may be evaluated
+   * on several threads at once, so each thread gets its own digest.
    *
    * @return the message digest
    */
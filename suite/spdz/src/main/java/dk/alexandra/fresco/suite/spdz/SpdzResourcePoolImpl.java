@@ -15,7 +15,8 @@ public class SpdzResourcePoolImpl extends ResourcePoolImpl implements SpdzResour
 
   private static final int DRBG_SEED_LENGTH = 256;
 
-  private final MessageDigest messageDigest;
+  // Per thread, since protocols may be evaluated concurrently after their first round
+  private final ThreadLocal<MessageDigest> messageDigest;
   private final OpenedValueStore<SpdzSInt, FieldElement> openedValueStore;
   private final SpdzDataSupplier dataSupplier;
   private final Function<byte[], Drbg> drbgSupplier;
@@ -37,9 +38,9 @@ public class SpdzResourcePoolImpl extends ResourcePoolImpl implements SpdzResour
     super(myId, noOfPlayers);
     this.dataSupplier = dataSupplier;
     this.openedValueStore = openedValueStore;
-    this.messageDigest = ExceptionConverter.safe(
+    this.messageDigest = ThreadLocal.withInitial(() -> ExceptionConverter.safe(
         () -> MessageDigest.getInstance("SHA-256"),
-        "Configuration error, SHA-256 is needed for Spdz");
+        "Configuration error, SHA-256 is needed for Spdz"));
     this.drbgSupplier = drbgSupplier;
     this.drbgSeedBitLength = drbgSeedBitLength;
   }
@@ -76,7 +77,7 @@ public class SpdzResourcePoolImpl extends ResourcePoolImpl implements SpdzResour
 
   @Override
   public MessageDigest getMessageDigest() {
-    return messageDigest;
+    return messageDigest.get();
   }
 
   @Override
@@ -12,7 +12,9 @@ import dk.alexandra.fresco.suite.ProtocolSuite.RoundSynchronization;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzMacCheckProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputProtocol;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzOpenedValueAccumulator;
 import java.security.SecureRandom;
+import java.util.function.Consumer;
 import java.util.stream.StreamSupport;
 
 /**
@@ -59,12 +61,18 @@ public class SpdzRoundSynchronization implements RoundSynchronization<SpdzResour
     BatchedProtocolEvaluator<SpdzResourcePool> evaluator =
         new BatchedProtocolEvaluator<>(batchStrategy, spdzProtocolSuite, batchSize);
     OpenedValueStore<SpdzSInt, FieldElement> store = resourcePool.getOpenedValueStore();
+    Consumer<byte[]> jointSeedConsumer = seed -> {
+    };
+    if (store instanceof SpdzOpenedValueAccumulator) {
+      jointSeedConsumer = ((SpdzOpenedValueAccumulator) store)::reseed;
+    }
     SpdzMacCheckProtocol macCheck = new SpdzMacCheckProtocol(
         store.popValues(),
         resourcePool.getModulus(),
         resourcePool::createRandomGenerator,
         resourcePool.getDataSupplier().getSecretSharedKey(),
-        resourcePool.getDrbgSeedBitLength());
+        resourcePool.getDrbgSeedBitLength(),
+        jointSeedConsumer);
     ProtocolBuilderNumeric sequential = spdzBuilder.createSequential();
     macCheck.buildComputation(sequential);
     evaluator.eval(sequential.build(), resourcePool, network);
@@ -32,7 +32,15 @@ public class SpdzKnownSIntProtocol extends SpdzNativeProtocol<SInt> {
     return EvaluationStatus.IS_DONE;
   }
 
-  static SpdzSInt createKnownSpdzElement(SpdzResourcePool spdzResourcePool, BigInteger input) {
+  /**
+   * Creates the shares of a known value, held by party 1, and their MAC.
+   *
+   * @param spdzResourcePool the resource pool
+   * @param input the value
+   * @return the shares of the value
+   */
+  public static SpdzSInt createKnownSpdzElement(SpdzResourcePool spdzResourcePool,
+      BigInteger input) {
     SpdzSInt elm;
     FieldElement value = spdzResourcePool.getFieldDefinition().createElement(input);
     FieldElement globalKeyShare = spdzResourcePool.getDataSupplier().getSecretSharedKey();
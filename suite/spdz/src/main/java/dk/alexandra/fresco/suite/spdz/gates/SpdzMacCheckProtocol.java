@@ -14,8 +14,11 @@ import dk.alexandra.fresco.lib.generic.CoinTossingComputation;
 import dk.alexandra.fresco.lib.generic.CommitmentComputation;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Protocol which handles the MAC check internal to SPDZ. If this protocol reaches the end, no
@@ -29,6 +32,7 @@ public class SpdzMacCheckProtocol implements Computation<Void, ProtocolBuilderNu
   private final FieldElement alpha;
   private final Function<byte[], Drbg> jointDrbgSupplier;
   private final int drbgByteLength;
+  private final Consumer<byte[]> jointSeedConsumer;
 
   /**
    * Protocol which handles the MAC check internal to SPDZ. If this protocol reaches the end, no
@@ -46,6 +50,29 @@ public class SpdzMacCheckProtocol implements Computation<Void, ProtocolBuilderNu
       final Function<byte[], Drbg> jointDrbgSupplier,
       final FieldElement alpha,
       final int drbgSeedBitLength) {
+    this(toCheck, modulus, jointDrbgSupplier, alpha, drbgSeedBitLength, seed -> {
+    });
+  }
+
+  /**
+   * Protocol which handles the MAC check internal to SPDZ, also handing the jointly tossed seed to
+   * a consumer, e.g., a {@link dk.alexandra.fresco.suite.spdz.storage.SpdzOpenedValueAccumulator}.
+   *
+   * @param toCheck opened values and corresponding macs to check
+   * @param modulus the global modulus used
+   * @param jointDrbgSupplier supplier of DRBG to be used for joint randomness
+   * @param alpha this party's key share
+   * @param drbgSeedBitLength seed length for local DRBG
+   * @param jointSeedConsumer consumer of the jointly tossed seed
+   */
+  public SpdzMacCheckProtocol(
+      final Pair<List<SpdzSInt>, List<FieldElement>> toCheck,
+      final BigInteger modulus,
+      final Function<byte[], Drbg> jointDrbgSupplier,
+      final FieldElement alpha,
+      final int drbgSeedBitLength,
+      final Consumer<byte[]> jointSeedConsumer) {
+    this.jointSeedConsumer = jointSeedConsumer;
     this.closedValues = toCheck.getFirst();
     this.openedValues = toCheck.getSecond();
     this.modulus = modulus;
@@ -65,24 +92,18 @@ public class SpdzMacCheckProtocol implements Computation<Void, ProtocolBuilderNu
     return builder
         .seq(new CoinTossingComputation(drbgByteLength, commitmentSerializer, localDrbg))
         .seq((seq, seed) -> {
+          jointSeedConsumer.accept(seed);
           Drbg jointDrbg = jointDrbgSupplier.apply(seed);
-          FieldElement[] rs = sampleRandomCoefficients(openedValues.size(), definition,
+          List<FieldElement> rs = sampleRandomCoefficients(openedValues.size(), definition,
               jointDrbg);
-          FieldElement a = definition.createElement(0);
-          int index = 0;
-          for (FieldElement openedValue : openedValues) {
-            FieldElement openedValueHidden = openedValue.multiply(rs[index++]);
-            a = a.add(openedValueHidden);
-          }
+          FieldElement a = definition.innerProduct(rs, openedValues);
 
           // compute gamma_i as the sum of all MAC's on the opened values times
           // r_j.
-          FieldElement gamma = definition.createElement(0);
-          index = 0;
-          for (SpdzSInt closedValue : closedValues) {
-            FieldElement closedValueHidden = rs[index++].multiply(closedValue.getMac());
-            gamma = gamma.add(closedValueHidden);
-          }
+          List<FieldElement> macs = closedValues.stream()
+              .map(SpdzSInt::getMac)
+              .collect(Collectors.toList());
+          FieldElement gamma = definition.innerProduct(rs, macs);
 
           // compute delta_i as: gamma_i - alpha_i*a
           FieldElement delta = gamma.subtract(alpha.multiply(a));
@@ -111,14 +132,22 @@ public class SpdzMacCheckProtocol implements Computation<Void, ProtocolBuilderNu
         });
   }
 
-  private FieldElement[] sampleRandomCoefficients(int numCoefficients,
+  /**
+   * Samples coefficients below <i>2<sup>8l - 1</sup></i>, where <i>l</i> is the number of whole
+   * bytes in the modulus, so they are less than the modulus. The random bytes are drawn at once in
+   * the serialized form of the field and deserialized as a single vector.
+   */
+  private List<FieldElement> sampleRandomCoefficients(int numCoefficients,
       FieldDefinition fieldDefinition, Drbg jointDrbg) {
-    FieldElement[] coefficients = new FieldElement[numCoefficients];
-    for (int i = 0; i < numCoefficients; i++) {
-      byte[] bytes = new byte[modulus.bitLength() / Byte.SIZE];
-      jointDrbg.nextBytes(bytes);
-      coefficients[i] = fieldDefinition.createElement(new BigInteger(bytes));
+    // the length of a serialized element
+    int byteLength = 1 + (modulus.bitLength() - 1) / Byte.SIZE;
+    int padding = byteLength - modulus.bitLength() / Byte.SIZE;
+    byte[] bytes = new byte[numCoefficients * byteLength];
+    jointDrbg.nextBytes(bytes);
+    for (int offset = 0; offset < bytes.length; offset += byteLength) {
+      Arrays.fill(bytes, offset, offset + padding, (byte) 0);
+      bytes[offset + padding] &= 0x7F;
     }
-    return coefficients;
+    return fieldDefinition.deserializeVector(bytes);
   }
 }
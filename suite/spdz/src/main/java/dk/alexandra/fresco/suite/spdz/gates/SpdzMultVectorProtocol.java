@@ -0,0 +1,100 @@
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multiplies two lists of secret values pairwise in a single native protocol.
+ *
+ * <p>Works like {@link SpdzMultProtocol}, but fetches all the triples at once and sends the shares
+ * of all the epsilons and deltas to the other parties as a single message.</p>
+ */
+public class SpdzMultVectorProtocol extends SpdzNativeProtocol<List<DRes<SInt>>> {
+
+  private final List<DRes<SInt>> left;
+  private final List<DRes<SInt>> right;
+  private List<DRes<SInt>> out;
+  private List<SpdzTriple> triples;
+  private List<SpdzSInt> epsilons;  // my shares of the differences [x]-[a]
+  private List<SpdzSInt> deltas;  // and [y]-[b].
+
+  public SpdzMultVectorProtocol(List<DRes<SInt>> left, List<DRes<SInt>> right) {
+    this.left = left;
+    this.right = right;
+  }
+
+  @Override
+  public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
+      Network network) {
+    int size = left.size();
+    int noOfPlayers = spdzResourcePool.getNoOfParties();
+    ByteSerializer<FieldElement> serializer = spdzResourcePool.getFieldDefinition();
+    if (round == 0) {
+      if (size == 0) {
+        out = new ArrayList<>();
+        return EvaluationStatus.IS_DONE;
+      }
+      triples = spdzResourcePool.getDataSupplier().getNextTriples(size);
+      epsilons = new ArrayList<>(size);
+      deltas = new ArrayList<>(size);
+      List<FieldElement> shares = new ArrayList<>(2 * size);
+      for (int i = 0; i < size; i++) {
+        SpdzTriple triple = triples.get(i);
+        SpdzSInt epsilon = ((SpdzSInt) left.get(i).out()).subtract(triple.getA());
+        SpdzSInt delta = ((SpdzSInt) right.get(i).out()).subtract(triple.getB());
+        epsilons.add(epsilon);
+        deltas.add(delta);
+        shares.add(epsilon.getShare());
+      }
+      for (SpdzSInt delta : deltas) {
+        shares.add(delta.getShare());
+      }
+      network.sendToAll(serializer.serialize(shares));
+      return EvaluationStatus.HAS_MORE_ROUNDS;
+    } else {
+      // Sum of the shares of all players; epsilons first, then deltas
+      List<FieldElement> opened = serializer.deserializeList(network.receive(1));
+      for (int i = 2; i <= noOfPlayers; i++) {
+        List<FieldElement> shares = serializer.deserializeList(network.receive(i));
+        for (int j = 0; j < opened.size(); j++) {
+          opened.set(j, opened.get(j).add(shares.get(j)));
+        }
+      }
+      FieldElement secretSharedKey = spdzResourcePool.getDataSupplier().getSecretSharedKey();
+      int myId = spdzResourcePool.getMyId();
+      out = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        FieldElement e = opened.get(i);
+        FieldElement d = opened.get(size + i);
+        FieldElement product = e.multiply(d);
+        SpdzSInt ed = new SpdzSInt(product, secretSharedKey.multiply(product));
+        SpdzTriple triple = triples.get(i);
+        out.add(triple.getC().add(triple.getB().multiply(e))
+            .add(triple.getA().multiply(d))
+            .add(ed, myId));
+      }
+      // Set the opened and closed values.
+      List<SpdzSInt> closed = new ArrayList<>(2 * size);
+      closed.addAll(epsilons);
+      closed.addAll(deltas);
+      spdzResourcePool.getOpenedValueStore().pushOpenedValues(closed, opened);
+      triples = null;
+      epsilons = null;
+      deltas = null;
+      return EvaluationStatus.IS_DONE;
+    }
+  }
+
+  @Override
+  public List<DRes<SInt>> out() {
+    return out;
+  }
+}
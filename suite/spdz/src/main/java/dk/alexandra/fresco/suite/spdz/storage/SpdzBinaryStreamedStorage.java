@@ -0,0 +1,526 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.sce.resources.storage.Storage;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.exceptions.NoMoreElementsException;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Streamed storage of SPDZ pre-processed material based on files in a compact binary format.
+ *
+ * <p>Each file holds records of a single type. The file starts with a header holding the record
+ * type, the modulus, the byte width of a field element and the number of field elements per
+ * record. The header is followed by fixed width records, each consisting of the field elements of
+ * the record (shares followed by macs) in the serialized form of the field, i.e., as unsigned
+ * big-endian integers of the given width. Input masks have an additional leading byte telling if
+ * the real value of the mask is present. Files are read sequentially through memory mapped windows.
+ * While a window is read, a background thread maps and loads the next one, and a window is unmapped
+ * as soon as it has been read.</p>
+ *
+ * <p>The supported types of objects are the types stored by the SPDZ pre-processing, i.e., the
+ * modulus as a {@link BigInteger}, the mac key share as a {@link FieldElement}, {@link SpdzTriple},
+ * {@link SpdzInputMask}, {@link SpdzSInt} and exponentiation pipes as arrays of {@link SpdzSInt},
+ * all of the same length within a single file. Non-streamable objects are kept in the given
+ * internal storage.</p>
+ */
+public class SpdzBinaryStreamedStorage implements StreamedStorage {
+
+  static final int MAGIC = 0x53505a42;
+  static final byte VERSION = 1;
+  private static final int DEFAULT_READ_AHEAD = 1 << 22;
+  private static final Consumer<ByteBuffer> UNMAPPER = createUnmapper();
+  private final Storage storage;
+  private final FieldDefinition definition;
+  private final int readAhead;
+  private final Map<String, RecordReader> readers;
+  private final Map<String, RecordWriter> writers;
+  private ExecutorService prefetcher;
+
+  /**
+   * Creates a storage which can read material of any modulus, but only write the modulus itself.
+   *
+   * @param internalStorage the storage used for non-streamable objects
+   */
+  public SpdzBinaryStreamedStorage(Storage internalStorage) {
+    this(internalStorage, null);
+  }
+
+  /**
+   * Creates a storage which reads and writes material in the given field.
+   *
+   * @param internalStorage the storage used for non-streamable objects
+   * @param definition the field of the material
+   */
+  public SpdzBinaryStreamedStorage(Storage internalStorage, FieldDefinition definition) {
+    this(internalStorage, definition, DEFAULT_READ_AHEAD);
+  }
+
+  /**
+   * Creates a storage which reads and writes material in the given field.
+   *
+   * @param internalStorage the storage used for non-streamable objects
+   * @param definition the field of the material
+   * @param readAhead number of bytes to map and load ahead of use when reading
+   */
+  public SpdzBinaryStreamedStorage(Storage internalStorage, FieldDefinition definition,
+      int readAhead) {
+    if (readAhead < 1) {
+      throw new IllegalArgumentException("Read ahead must be positive");
+    }
+    this.storage = internalStorage;
+    this.definition = definition;
+    this.readAhead = readAhead;
+    this.readers = new HashMap<>();
+    this.writers = new HashMap<>();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T extends Serializable> T getNext(String name) throws NoMoreElementsException {
+    RecordWriter writer = writers.get(name);
+    if (writer != null) {
+      writer.flush();
+    }
+    RecordReader reader = readers.get(name);
+    if (reader == null) {
+      if (prefetcher == null) {
+        prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "fresco-spdz-prefetch");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      try {
+        reader = new RecordReader(name, definition, readAhead, prefetcher);
+      } catch (IOException e) {
+        throw new NoMoreElementsException(
+            "IOException accessing store name: " + name + ". Likely the file does not exist", e);
+      }
+      readers.put(name, reader);
+    }
+    try {
+      return (T) reader.next();
+    } catch (IOException e) {
+      throw new NoMoreElementsException("No more elements available in store name: " + name, e);
+    }
+  }
+
+  @Override
+  public boolean putNext(String name, Serializable o) {
+    RecordWriter writer = writers.get(name);
+    try {
+      if (writer == null) {
+        writer = new RecordWriter(name, RecordType.of(o), o, definition);
+        writers.put(name, writer);
+      }
+      writer.write(o);
+    } catch (IOException e) {
+      throw new RuntimeException("IOException writing to store name " + name, e);
+    }
+    return true;
+  }
+
+  @Override
+  public void shutdown() {
+    for (RecordReader reader : readers.values()) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        // Do nothing - nothing can be done
+      }
+    }
+    for (RecordWriter writer : writers.values()) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        // Do nothing - nothing can be done
+      }
+    }
+    readers.clear();
+    writers.clear();
+    if (prefetcher != null) {
+      prefetcher.shutdown();
+      prefetcher = null;
+    }
+  }
+
+  @Override
+  public boolean putObject(String name, String key, Serializable o) {
+    return this.storage.putObject(name, key, o);
+  }
+
+  @Override
+  public <T extends Serializable> T getObject(String name, String key) {
+    return this.storage.getObject(name, key);
+  }
+
+  /**
+   * The types of records which can be stored.
+   */
+  enum RecordType {
+    MODULUS, FIELD_ELEMENT, SINT, INPUT_MASK, TRIPLE, EXP_PIPE;
+
+    static RecordType of(Serializable o) {
+      if (o instanceof BigInteger) {
+        return MODULUS;
+      } else if (o instanceof FieldElement) {
+        return FIELD_ELEMENT;
+      } else if (o instanceof SpdzSInt) {
+        return SINT;
+      } else if (o instanceof SpdzInputMask) {
+        return INPUT_MASK;
+      } else if (o instanceof SpdzTriple) {
+        return TRIPLE;
+      } else if (o instanceof SpdzSInt[]) {
+        return EXP_PIPE;
+      }
+      throw new IllegalArgumentException("Unsupported type " + o.getClass().getName());
+    }
+
+    int elementsPerRecord(Serializable o) {
+      switch (this) {
+        case SINT:
+          return 2;
+        case INPUT_MASK:
+          return 3;
+        case TRIPLE:
+          return 6;
+        case EXP_PIPE:
+          return 2 * ((SpdzSInt[]) o).length;
+        default:
+          return 1;
+      }
+    }
+
+    int flagBytes() {
+      return this == INPUT_MASK ? 1 : 0;
+    }
+  }
+
+  private static int byteWidth(BigInteger modulus) {
+    return Math.max(1, (modulus.bitLength() + Byte.SIZE - 1) / Byte.SIZE);
+  }
+
+  /**
+   * Creates a function releasing the memory mapping of a buffer right away rather than when the
+   * buffer is garbage collected. If this is not possible on the running JVM the mapping is left to
+   * the garbage collector.
+   */
+  private static Consumer<ByteBuffer> createUnmapper() {
+    try {
+      // Java 9 and later
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Object unsafe = theUnsafe.get(null);
+      return buffer -> {
+        try {
+          invokeCleaner.invoke(unsafe, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+          // left to the garbage collector
+        }
+      };
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Java 8
+      return buffer -> {
+        try {
+          Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+          cleanerMethod.setAccessible(true);
+          Object cleaner = cleanerMethod.invoke(buffer);
+          if (cleaner != null) {
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+          }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+          // left to the garbage collector
+        }
+      };
+    }
+  }
+
+  private static class RecordWriter {
+
+    private final DataOutputStream output;
+    private final RecordType type;
+    private final FieldDefinition definition;
+    private final int width;
+    private final int elementsPerRecord;
+
+    private RecordWriter(String name, RecordType type, Serializable first,
+        FieldDefinition definition) throws IOException {
+      BigInteger modulus;
+      if (definition != null) {
+        modulus = definition.getModulus();
+      } else if (type == RecordType.MODULUS) {
+        modulus = (BigInteger) first;
+      } else {
+        throw new IllegalStateException("A field definition is needed to store " + type);
+      }
+      this.type = type;
+      this.definition = definition;
+      this.width = byteWidth(modulus);
+      this.elementsPerRecord = type.elementsPerRecord(first);
+      this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(name)));
+      byte[] modulusBytes = modulus.toByteArray();
+      output.writeInt(MAGIC);
+      output.writeByte(VERSION);
+      output.writeByte(type.ordinal());
+      output.writeInt(modulusBytes.length);
+      output.write(modulusBytes);
+      output.writeInt(width);
+      output.writeInt(elementsPerRecord);
+    }
+
+    private void write(Serializable o) throws IOException {
+      RecordType actual = RecordType.of(o);
+      if (actual != type || actual.elementsPerRecord(o) != elementsPerRecord) {
+        throw new IllegalArgumentException(
+            "All records of a store must have the same type and size");
+      }
+      switch (type) {
+        case MODULUS:
+          writeUnsigned((BigInteger) o);
+          break;
+        case FIELD_ELEMENT:
+          writeElement((FieldElement) o);
+          break;
+        case SINT:
+          writeSInt((SpdzSInt) o);
+          break;
+        case INPUT_MASK:
+          SpdzInputMask mask = (SpdzInputMask) o;
+          FieldElement realValue = mask.getRealValue();
+          output.writeByte(realValue == null ? 0 : 1);
+          writeSInt(mask.getMask());
+          if (realValue == null) {
+            output.write(new byte[width]);
+          } else {
+            writeElement(realValue);
+          }
+          break;
+        case TRIPLE:
+          SpdzTriple triple = (SpdzTriple) o;
+          writeSInt(triple.getA());
+          writeSInt(triple.getB());
+          writeSInt(triple.getC());
+          break;
+        default:
+          for (SpdzSInt value : (SpdzSInt[]) o) {
+            writeSInt(value);
+          }
+      }
+    }
+
+    private void writeSInt(SpdzSInt value) throws IOException {
+      writeElement(value.getShare());
+      writeElement(value.getMac());
+    }
+
+    private void writeElement(FieldElement element) throws IOException {
+      output.write(definition.serialize(element));
+    }
+
+    private void writeUnsigned(BigInteger value) throws IOException {
+      byte[] bytes = value.toByteArray();
+      int significant = bytes.length;
+      int offset = 0;
+      // skip the sign byte of positive values with the most significant bit set
+      if (significant > width && bytes[0] == 0) {
+        offset = 1;
+        significant--;
+      }
+      if (significant > width) {
+        throw new IllegalArgumentException("Value does not fit in " + width + " bytes");
+      }
+      for (int i = significant; i < width; i++) {
+        output.writeByte(0);
+      }
+      output.write(bytes, offset, significant);
+    }
+
+    private void flush() {
+      try {
+        output.flush();
+      } catch (IOException e) {
+        throw new RuntimeException("IOException flushing store", e);
+      }
+    }
+
+    private void close() throws IOException {
+      output.close();
+    }
+  }
+
+  private static class RecordReader {
+
+    private final FileChannel channel;
+    private final RecordType type;
+    private final FieldDefinition definition;
+    private final int width;
+    private final int elementsPerRecord;
+    private final int recordLength;
+    private final int windowLength;
+    private final ExecutorService prefetcher;
+    // Only used by the task mapping the next window, or when no such task is running
+    private long position;
+    private ByteBuffer window;
+    private Future<MappedByteBuffer> next;
+
+    private RecordReader(String name, FieldDefinition definition, int readAhead,
+        ExecutorService prefetcher) throws IOException {
+      this.channel = FileChannel.open(Paths.get(name), StandardOpenOption.READ);
+      // the stream is deliberately not closed as that would close the channel
+      DataInputStream input = new DataInputStream(Channels.newInputStream(channel));
+      if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+        channel.close();
+        throw new IOException("Not a binary pre-processing store: " + name);
+      }
+      this.type = RecordType.values()[input.readByte()];
+      byte[] modulusBytes = new byte[input.readInt()];
+      input.readFully(modulusBytes);
+      BigInteger modulus = new BigInteger(modulusBytes);
+      if (definition == null) {
+        this.definition = new BigIntegerFieldDefinition(modulus);
+      } else if (definition.getModulus().equals(modulus)) {
+        this.definition = definition;
+      } else {
+        channel.close();
+        throw new IllegalArgumentException("Store " + name + " uses modulus " + modulus);
+      }
+      this.width = input.readInt();
+      this.elementsPerRecord = input.readInt();
+      this.recordLength = type.flagBytes() + elementsPerRecord * width;
+      this.windowLength = Math.max(1, readAhead / recordLength) * recordLength;
+      this.position = channel.position();
+      this.window = ByteBuffer.allocate(0);
+      this.prefetcher = prefetcher;
+      this.next = prefetcher.submit(this::mapNextWindow);
+    }
+
+    /**
+     * Maps and loads the window following the last one mapped.
+     *
+     * @return the window, or null if the file holds no more records
+     */
+    private MappedByteBuffer mapNextWindow() throws IOException {
+      long available = channel.size() - position;
+      if (available < recordLength) {
+        return null;
+      }
+      long length = Math.min(windowLength, available - available % recordLength);
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+      mapped.load();
+      position += length;
+      return mapped;
+    }
+
+    private MappedByteBuffer awaitNextWindow() throws IOException {
+      try {
+        return next.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while reading ahead", e);
+      } catch (ExecutionException e) {
+        throw new IOException("Unable to read ahead", e.getCause());
+      }
+    }
+
+    private Serializable next() throws IOException {
+      if (window.remaining() < recordLength) {
+        MappedByteBuffer mapped = awaitNextWindow();
+        if (mapped == null) {
+          // records may have been written since the window was read ahead
+          mapped = mapNextWindow();
+        }
+        if (mapped == null) {
+          throw new IOException("End of store reached");
+        }
+        if (window instanceof MappedByteBuffer) {
+          UNMAPPER.accept(window);
+        }
+        window = mapped;
+        next = prefetcher.submit(this::mapNextWindow);
+      }
+      switch (type) {
+        case MODULUS:
+          return readUnsigned();
+        case FIELD_ELEMENT:
+          return readElement();
+        case SINT:
+          return readSInt();
+        case INPUT_MASK:
+          boolean hasRealValue = window.get() != 0;
+          SpdzSInt mask = readSInt();
+          FieldElement realValue = readElement();
+          return hasRealValue ? new SpdzInputMask(mask, realValue) : new SpdzInputMask(mask);
+        case TRIPLE:
+          return new SpdzTriple(readSInt(), readSInt(), readSInt());
+        default:
+          SpdzSInt[] pipe = new SpdzSInt[elementsPerRecord / 2];
+          for (int i = 0; i < pipe.length; i++) {
+            pipe[i] = readSInt();
+          }
+          return pipe;
+      }
+    }
+
+    private SpdzSInt readSInt() {
+      FieldElement share = readElement();
+      return new SpdzSInt(share, readElement());
+    }
+
+    private FieldElement readElement() {
+      byte[] bytes = new byte[width];
+      window.get(bytes);
+      return definition.deserialize(bytes);
+    }
+
+    private BigInteger readUnsigned() {
+      byte[] bytes = new byte[width];
+      window.get(bytes);
+      return new BigInteger(1, bytes);
+    }
+
+    private void close() throws IOException {
+      try {
+        MappedByteBuffer mapped = awaitNextWindow();
+        if (mapped != null) {
+          UNMAPPER.accept(mapped);
+        }
+      } finally {
+        if (window instanceof MappedByteBuffer) {
+          UNMAPPER.accept(window);
+        }
+        window = ByteBuffer.allocate(0);
+        channel.close();
+      }
+    }
+  }
+}
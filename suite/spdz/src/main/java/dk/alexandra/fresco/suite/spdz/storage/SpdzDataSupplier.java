@@ -6,6 +6,8 @@ import dk.alexandra.fresco.lib.compare.zerotest.ZeroTestBruteforce;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import java.util.ArrayList;
+import java.util.List;
 
 public interface SpdzDataSupplier {
 
@@ -16,6 +18,21 @@ public interface SpdzDataSupplier {
    */
   SpdzTriple getNextTriple();
 
+  /**
+   * Supplies the next triples. Implementations able to produce triples in bulk should override
+   * this method.
+   *
+   * @param numberOfTriples the number of triples to supply
+   * @return a list of the next new triples
+   */
+  default List<SpdzTriple> getNextTriples(int numberOfTriples) {
+    List<SpdzTriple> triples = new ArrayList<>(numberOfTriples);
+    for (int i = 0; i < numberOfTriples; i++) {
+      triples.add(getNextTriple());
+    }
+    return triples;
+  }
+
   /**
    * Supplies the next exponentiation pipe. <p>An exponentiation pipe is a list of numbers in the
    * following format: r^{-1}, r, r^{2}, r^{3}, ..., r^{l}, where r is a random element, l is the
@@ -20,7 +20,9 @@ import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrgImpl;
 import dk.alexandra.fresco.tools.ot.otextension.RotList;
 import java.security.SecureRandom;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -128,6 +130,22 @@ public class SpdzMascotDataSupplier implements SpdzDataSupplier {
     return MascotFormatConverter.toSpdzTriple(triple);
   }
 
+  @Override
+  public List<SpdzTriple> getNextTriples(int numberOfTriples) {
+    ensureInitialized();
+    if (triples.size() < numberOfTriples) {
+      int missing = Math.max(batchSize, numberOfTriples - triples.size());
+      logger.trace("Getting another triple batch of size " + missing);
+      triples.addAll(mascot.getTriples(missing));
+      logger.trace("Got another triple batch");
+    }
+    List<SpdzTriple> result = new ArrayList<>(numberOfTriples);
+    for (int i = 0; i < numberOfTriples; i++) {
+      result.add(MascotFormatConverter.toSpdzTriple(triples.pop()));
+    }
+    return result;
+  }
+
   @Override
   public SpdzSInt getNextRandomFieldElement() {
     ensureInitialized();
@@ -0,0 +1,453 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.logging.PerformanceLogger;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.preprocessing.MascotFormatConverter;
+import dk.alexandra.fresco.tools.mascot.Mascot;
+import dk.alexandra.fresco.tools.mascot.MascotResourcePoolImpl;
+import dk.alexandra.fresco.tools.mascot.MascotSecurityParameters;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A data supplier based on the Mascot protocol which generates the pre-processed material ahead of
+ * time in a background thread.
+ *
+ * <p>Unlike {@link SpdzMascotDataSupplier}, which runs Mascot in the thread of the online
+ * evaluator whenever a buffer runs dry, this supplier keeps a buffer for each type of material and
+ * refills it in a dedicated thread, on a dedicated network, when it drops below its low watermark.
+ * A refill keeps adding batches until the buffer reaches its high watermark. The online evaluator
+ * only blocks if a buffer is empty, in which case the time spent waiting is recorded as a
+ * stall.</p>
+ *
+ * <p>Since Mascot requires all parties to generate the same material in the same order, the
+ * parties agree on which buffers to refill before each round of generation. A party starts a round
+ * when one of its buffers drops below the low watermark. As all parties consume the same material
+ * in the same order, every other party eventually reaches the same point and joins the round.</p>
+ *
+ * <p>Exponentiation pipes are not buffered, but are computed using the given callback when
+ * requested.</p>
+ */
+public class SpdzMascotPipelinedDataSupplier implements SpdzDataSupplier, PerformanceLogger,
+    Closeable {
+
+  public static final String PREPROCESSING_STALLS = "PREPROCESSING_STALL_COUNT";
+  public static final String PREPROCESSING_STALL_TIME = "PREPROCESSING_STALL_TIME_MS";
+  public static final String PREPROCESSING_BATCHES = "PREPROCESSING_BATCH_COUNT";
+  public static final String BUFFERED_TRIPLES = "BUFFERED_TRIPLES";
+  public static final String BUFFERED_INPUT_MASKS = "BUFFERED_INPUT_MASKS";
+  public static final String BUFFERED_RANDOM_ELEMENTS = "BUFFERED_RANDOM_ELEMENTS";
+  public static final String BUFFERED_BITS = "BUFFERED_BITS";
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(SpdzMascotPipelinedDataSupplier.class);
+  private static final long POLL_INTERVAL_MILLIS = 100;
+  private final int myId;
+  private final int instanceId;
+  private final int numberOfPlayers;
+  private final Supplier<Network> tripleNetwork;
+  private final FieldDefinition fieldDefinition;
+  private final Function<Integer, SpdzSInt[]> preprocessedValues;
+  private final FieldElement ssk;
+  private final int prgSeedLength;
+  private final int modBitLength;
+  private final Drbg drbg;
+  private final Map<Integer, RotList> seedOts;
+
+  private final Object lock = new Object();
+  private final MaterialBuffer<SpdzTriple> triples;
+  private final Map<Integer, MaterialBuffer<SpdzInputMask>> masks;
+  private final MaterialBuffer<SpdzSInt> randomElements;
+  private final MaterialBuffer<SpdzSInt> randomBits;
+  private final List<MaterialBuffer<?>> buffers;
+  private Mascot mascot;
+  private Thread producer;
+  private volatile RuntimeException producerFailure;
+  private volatile boolean closed;
+  private long stalls;
+  private long stallNanos;
+  private long batches;
+
+  /**
+   * Creates {@link SpdzMascotPipelinedDataSupplier}.
+   *
+   * @param myId this party's id
+   * @param numberOfPlayers number of players
+   * @param instanceId identifier used to distinguish parallel instances of Mascot
+   * @param tripleNetwork network supplier for the network used by the background thread. The
+   *     network must not be used by anyone else
+   * @param fieldDefinition field definition
+   * @param modBitLength bit length of modulus
+   * @param preprocessedValues callback to generate exponentiation pipes
+   * @param prgSeedLength bit length of prg
+   * @param tripleWatermarks watermarks of the triple buffer
+   * @param maskWatermarks watermarks of the input mask buffer of each party
+   * @param randomElementWatermarks watermarks of the random element buffer
+   * @param bitWatermarks watermarks of the random bit buffer
+   * @param ssk mac key share
+   * @param seedOts pre-computed base OTs
+   * @param drbg source of randomness
+   */
+  public SpdzMascotPipelinedDataSupplier(int myId, int numberOfPlayers, int instanceId,
+      Supplier<Network> tripleNetwork, FieldDefinition fieldDefinition, int modBitLength,
+      Function<Integer, SpdzSInt[]> preprocessedValues, int prgSeedLength,
+      Watermarks tripleWatermarks, Watermarks maskWatermarks, Watermarks randomElementWatermarks,
+      Watermarks bitWatermarks, FieldElement ssk, Map<Integer, RotList> seedOts, Drbg drbg) {
+    this.myId = myId;
+    this.numberOfPlayers = numberOfPlayers;
+    this.instanceId = instanceId;
+    this.tripleNetwork = tripleNetwork;
+    this.fieldDefinition = fieldDefinition;
+    this.preprocessedValues = preprocessedValues;
+    this.prgSeedLength = prgSeedLength;
+    this.modBitLength = modBitLength;
+    this.ssk = ssk;
+    this.seedOts = seedOts;
+    // Mascot runs in the background thread, so it gets its own source of randomness
+    byte[] seed = new byte[AesCtrDrbg.SEED_LENGTH];
+    drbg.nextBytes(seed);
+    this.drbg = new AesCtrDrbg(seed);
+    this.buffers = new ArrayList<>();
+    this.triples = addBuffer(tripleWatermarks, batchSize -> mascot.getTriples(batchSize).stream()
+        .map(MascotFormatConverter::toSpdzTriple).collect(Collectors.toList()));
+    this.masks = new HashMap<>();
+    for (int partyId = 1; partyId <= numberOfPlayers; partyId++) {
+      int towardsPlayerId = partyId;
+      masks.put(partyId, addBuffer(maskWatermarks,
+          batchSize -> mascot.getInputMasks(towardsPlayerId, batchSize).stream()
+              .map(MascotFormatConverter::toSpdzInputMask).collect(Collectors.toList())));
+    }
+    this.randomElements = addBuffer(randomElementWatermarks,
+        batchSize -> mascot.getRandomElements(batchSize).stream()
+            .map(MascotFormatConverter::toSpdzSInt).collect(Collectors.toList()));
+    this.randomBits = addBuffer(bitWatermarks,
+        batchSize -> mascot.getRandomBits(batchSize).stream()
+            .map(MascotFormatConverter::toSpdzSInt).collect(Collectors.toList()));
+  }
+
+  /**
+   * Creates instance of {@link SpdzMascotPipelinedDataSupplier} with default watermarks.
+   */
+  public static SpdzMascotPipelinedDataSupplier createSimpleSupplier(int myId,
+      int numberOfPlayers, Supplier<Network> tripleNetwork, int modBitLength,
+      FieldDefinition fieldDefinition, Function<Integer, SpdzSInt[]> preprocessedValues,
+      Map<Integer, RotList> seedOts, Drbg drbg, FieldElement ssk) {
+    int prgSeedLength = 256;
+    return new SpdzMascotPipelinedDataSupplier(myId, numberOfPlayers, 1, tripleNetwork,
+        fieldDefinition, modBitLength, preprocessedValues, prgSeedLength,
+        new Watermarks(256, 1024, 256), new Watermarks(16, 64, 32), new Watermarks(16, 64, 32),
+        new Watermarks(16, 64, 32), ssk, seedOts, drbg);
+  }
+
+  @Override
+  public SpdzTriple getNextTriple() {
+    return take(triples);
+  }
+
+  @Override
+  public List<SpdzTriple> getNextTriples(int numberOfTriples) {
+    List<SpdzTriple> result = new ArrayList<>(numberOfTriples);
+    for (int i = 0; i < numberOfTriples; i++) {
+      result.add(take(triples));
+    }
+    return result;
+  }
+
+  @Override
+  public SpdzSInt getNextRandomFieldElement() {
+    return take(randomElements);
+  }
+
+  @Override
+  public SpdzSInt[] getNextExpPipe() {
+    logger.trace("Getting another exp pipe");
+    SpdzSInt[] pipe = preprocessedValues.apply(modBitLength);
+    logger.trace("Got another exp pipe");
+    return pipe;
+  }
+
+  @Override
+  public SpdzInputMask getNextInputMask(int towardsPlayerId) {
+    return take(masks.get(towardsPlayerId));
+  }
+
+  @Override
+  public SpdzSInt getNextBit() {
+    return take(randomBits);
+  }
+
+  @Override
+  public FieldDefinition getFieldDefinition() {
+    return fieldDefinition;
+  }
+
+  @Override
+  public FieldElement getSecretSharedKey() {
+    return ssk;
+  }
+
+  /**
+   * Stops the background thread. Material already generated can still be used.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+    if (producer != null) {
+      producer.interrupt();
+    }
+  }
+
+  @Override
+  public void reset() {
+    synchronized (lock) {
+      stalls = 0;
+      stallNanos = 0;
+      batches = 0;
+    }
+  }
+
+  @Override
+  public Map<String, Long> getLoggedValues() {
+    Map<String, Long> values = new HashMap<>();
+    synchronized (lock) {
+      values.put(PREPROCESSING_STALLS, stalls);
+      values.put(PREPROCESSING_STALL_TIME, TimeUnit.NANOSECONDS.toMillis(stallNanos));
+      values.put(PREPROCESSING_BATCHES, batches);
+      values.put(BUFFERED_TRIPLES, (long) triples.size());
+      values.put(BUFFERED_INPUT_MASKS,
+          masks.values().stream().mapToLong(MaterialBuffer::size).sum());
+      values.put(BUFFERED_RANDOM_ELEMENTS, (long) randomElements.size());
+      values.put(BUFFERED_BITS, (long) randomBits.size());
+    }
+    return values;
+  }
+
+  private <T> MaterialBuffer<T> addBuffer(Watermarks watermarks, IntFunction<List<T>> generator) {
+    MaterialBuffer<T> buffer = new MaterialBuffer<>(watermarks, generator);
+    buffers.add(buffer);
+    return buffer;
+  }
+
+  private <T> T take(MaterialBuffer<T> buffer) {
+    ensureProducerStarted();
+    synchronized (lock) {
+      if (buffer.isEmpty()) {
+        logger.trace("Waiting for pre-processed material");
+        long start = System.nanoTime();
+        lock.notifyAll();
+        try {
+          while (buffer.isEmpty()) {
+            if (producerFailure != null || !producer.isAlive()) {
+              throw new IllegalStateException("Pre-processing failed", producerFailure);
+            }
+            lock.wait(POLL_INTERVAL_MILLIS);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while waiting for pre-processed material",
+              e);
+        } finally {
+          stalls++;
+          stallNanos += System.nanoTime() - start;
+        }
+      }
+      T element = buffer.pop();
+      if (buffer.isBelowLowWatermark()) {
+        lock.notifyAll();
+      }
+      return element;
+    }
+  }
+
+  private synchronized void ensureProducerStarted() {
+    if (producer != null) {
+      return;
+    }
+    if (closed) {
+      throw new IllegalStateException("Supplier has been closed");
+    }
+    producer = new Thread(this::produce, "Spdz-mascot-producer-" + myId + "-" + instanceId);
+    producer.setDaemon(true);
+    producer.start();
+  }
+
+  private void produce() {
+    try {
+      Network network = tripleNetwork.get();
+      int numCandidatesPerTriple = 3;
+      mascot = new Mascot(
+          new MascotResourcePoolImpl(myId, numberOfPlayers, instanceId, drbg, seedOts,
+              new MascotSecurityParameters(modBitLength, prgSeedLength,
+                  numCandidatesPerTriple), this.fieldDefinition), network, ssk);
+      boolean refilling = false;
+      while (true) {
+        boolean[] refill = new boolean[buffers.size()];
+        synchronized (lock) {
+          // once a refill has started, all parties continue until no party needs more material
+          while (!closed && !refilling
+              && buffers.stream().noneMatch(MaterialBuffer::isBelowLowWatermark)) {
+            lock.wait();
+          }
+          if (closed) {
+            return;
+          }
+          for (int i = 0; i < buffers.size(); i++) {
+            refill[i] = buffers.get(i).isBelowHighWatermark();
+          }
+        }
+        agreeOnRefill(network, refill);
+        refilling = false;
+        for (int i = 0; i < buffers.size(); i++) {
+          if (refill[i]) {
+            logger.trace("Getting another batch");
+            buffers.get(i).generate();
+            logger.trace("Got another batch");
+            refilling = true;
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      logger.debug("Pre-processing interrupted");
+    } catch (RuntimeException e) {
+      if (!closed) {
+        logger.error("Pre-processing failed", e);
+        producerFailure = e;
+      }
+    } finally {
+      synchronized (lock) {
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Exchanges the buffers each party wants to refill and updates the given array to the union.
+   */
+  private void agreeOnRefill(Network network, boolean[] refill) {
+    byte[] message = new byte[refill.length];
+    for (int i = 0; i < refill.length; i++) {
+      message[i] = (byte) (refill[i] ? 1 : 0);
+    }
+    for (int partyId = 1; partyId <= numberOfPlayers; partyId++) {
+      if (partyId != myId) {
+        network.send(partyId, message);
+      }
+    }
+    for (int partyId = 1; partyId <= numberOfPlayers; partyId++) {
+      if (partyId != myId) {
+        byte[] received = network.receive(partyId);
+        for (int i = 0; i < refill.length; i++) {
+          refill[i] |= received[i] != 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Watermarks and batch size of a buffer of pre-processed material.
+   */
+  public static class Watermarks {
+
+    private final int low;
+    private final int high;
+    private final int batchSize;
+
+    /**
+     * Creates new {@link Watermarks}.
+     *
+     * @param low generation of more material starts when the buffer holds fewer elements than this
+     * @param high generation of more material stops when the buffer holds at least this many
+     *     elements
+     * @param batchSize number of elements generated at a time
+     */
+    public Watermarks(int low, int high, int batchSize) {
+      if (low < 1 || high < low || batchSize < 1) {
+        throw new IllegalArgumentException(
+            "Watermarks must satisfy 0 < low <= high and batch size must be positive");
+      }
+      this.low = low;
+      this.high = high;
+      this.batchSize = batchSize;
+    }
+
+    public int getLow() {
+      return low;
+    }
+
+    public int getHigh() {
+      return high;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+  }
+
+  /**
+   * A buffer of some type of pre-processed material. All methods except {@link #generate()} must be
+   * called while holding the lock.
+   */
+  private class MaterialBuffer<T> {
+
+    private final ArrayDeque<T> elements;
+    private final Watermarks watermarks;
+    private final IntFunction<List<T>> generator;
+
+    private MaterialBuffer(Watermarks watermarks, IntFunction<List<T>> generator) {
+      this.elements = new ArrayDeque<>();
+      this.watermarks = watermarks;
+      this.generator = generator;
+    }
+
+    private void generate() {
+      List<T> batch = generator.apply(watermarks.getBatchSize());
+      synchronized (lock) {
+        elements.addAll(batch);
+        batches++;
+        lock.notifyAll();
+      }
+    }
+
+    private boolean isEmpty() {
+      return elements.isEmpty();
+    }
+
+    private T pop() {
+      return elements.pop();
+    }
+
+    private int size() {
+      return elements.size();
+    }
+
+    private boolean isBelowLowWatermark() {
+      return elements.size() < watermarks.getLow();
+    }
+
+    private boolean isBelowHighWatermark() {
+      return elements.size() < watermarks.getHigh();
+    }
+  }
+}
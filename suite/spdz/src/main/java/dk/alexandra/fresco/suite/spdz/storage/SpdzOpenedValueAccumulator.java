@@ -0,0 +1,138 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.sce.evaluator.DeferredUpdates;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import dk.alexandra.fresco.framework.util.OpenedValueStore;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An {@link OpenedValueStore} using constant memory, which folds the opened values into a random
+ * linear combination as they are pushed rather than storing them until the mac check.
+ * <p>
+ * For each push, a coefficient <i>r</i> is derived by hashing the opened values of the push
+ * together with a chain of all values opened before them, and the <i>j</i>'th value of the push is
+ * added to the combination with the coefficient <i>r<sup>j</sup></i>. The macs are combined with
+ * the same coefficients. Since the opened values are the same at all parties, so are the
+ * coefficients, and since the coefficients depend on the values they are applied to, a party
+ * cannot choose errors in the opened values that cancel out in the combination, except with
+ * negligible probability. The chain starts from a seed, which is replaced by the seed jointly
+ * tossed at each mac check, see {@link #reseed(byte[])}, so the coefficients of values opened after
+ * a check depend on randomness committed to before the values were opened.
+ * </p>
+ * <p>
+ * {@link #popValues()} returns the combination as a single pair of an authenticated element and an
+ * opened value, which the regular mac check verifies as it would any other opened value.
+ * </p>
+ */
+public class SpdzOpenedValueAccumulator implements OpenedValueStore<SpdzSInt, FieldElement> {
+
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  private final FieldDefinition definition;
+  private final MessageDigest digest;
+  private byte[] chain;
+  private FieldElement value;
+  private FieldElement mac;
+  private int count;
+
+  /**
+   * Creates an empty accumulator.
+   *
+   * @param definition the field definition of the values
+   */
+  public SpdzOpenedValueAccumulator(FieldDefinition definition) {
+    this.definition = definition;
+    this.digest = ExceptionConverter.safe(() -> MessageDigest.getInstance(HASH_ALGORITHM),
+        "Configuration error, " + HASH_ALGORITHM + " is needed for the opened value accumulator");
+    this.chain = new byte[digest.getDigestLength()];
+    reset();
+  }
+
+  private void reset() {
+    value = definition.createElement(0);
+    mac = definition.createElement(0);
+    count = 0;
+  }
+
+  @Override
+  public void pushOpenedValues(List<SpdzSInt> newSharesWithMacs,
+      List<FieldElement> newOpenedValues) {
+    if (DeferredUpdates.isDeferring()) {
+      DeferredUpdates.apply(() -> pushOpenedValues(newSharesWithMacs, newOpenedValues));
+      return;
+    }
+    if (newSharesWithMacs.size() != newOpenedValues.size()) {
+      throw new IllegalArgumentException("Got " + newSharesWithMacs.size() + " shares but "
+          + newOpenedValues.size() + " opened values");
+    }
+    if (newOpenedValues.isEmpty()) {
+      return;
+    }
+    digest.update(chain);
+    digest.update(definition.serialize(newOpenedValues));
+    chain = digest.digest();
+    FieldElement coefficient = definition.createElement(new BigInteger(1, chain));
+    FieldElement power = coefficient;
+    for (int i = 0; i < newOpenedValues.size(); i++) {
+      value = value.add(newOpenedValues.get(i).multiply(power));
+      mac = mac.add(newSharesWithMacs.get(i).getMac().multiply(power));
+      power = power.multiply(coefficient);
+    }
+    count += newOpenedValues.size();
+  }
+
+  @Override
+  public void pushOpenedValue(SpdzSInt newShareWithMac, FieldElement newOpenedValue) {
+    pushOpenedValues(Collections.singletonList(newShareWithMac),
+        Collections.singletonList(newOpenedValue));
+  }
+
+  /**
+   * Retrieves the combination of the values pushed since the last call, as a single authenticated
+   * element holding the combined mac, with a share of zero as the shares are not needed by the mac
+   * check, and the combined opened value.
+   *
+   * @return a pair of lists holding the combination, or empty lists if no values were pushed
+   */
+  @Override
+  public Pair<List<SpdzSInt>, List<FieldElement>> popValues() {
+    List<SpdzSInt> sharesWithMacs = new ArrayList<>(1);
+    List<FieldElement> openedValues = new ArrayList<>(1);
+    if (hasPendingValues()) {
+      sharesWithMacs.add(new SpdzSInt(definition.createElement(0), mac));
+      openedValues.add(value);
+      reset();
+    }
+    return new Pair<>(sharesWithMacs, openedValues);
+  }
+
+  /**
+   * Replaces the seed the coefficients of the values pushed from now on are derived from. The seed
+   * must be the same at all parties, e.g., the seed jointly tossed by the mac check.
+   *
+   * @param seed the seed
+   */
+  public void reseed(byte[] seed) {
+    digest.update(chain);
+    digest.update(seed);
+    chain = digest.digest();
+  }
+
+  @Override
+  public boolean hasPendingValues() {
+    return count > 0;
+  }
+
+  @Override
+  public boolean exceedsThreshold(int threshold) {
+    return count > threshold;
+  }
+}
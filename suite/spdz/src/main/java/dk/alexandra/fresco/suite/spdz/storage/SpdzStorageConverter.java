@@ -0,0 +1,119 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.sce.resources.storage.FilebasedStreamedStorageImpl;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.exceptions.NoMoreElementsException;
+import java.io.File;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts SPDZ pre-processed material stored by {@link FilebasedStreamedStorageImpl} to the
+ * format of {@link SpdzBinaryStreamedStorage}.
+ *
+ * <p>Converts the modulus, the mac key share, the triples, the exponentiation pipes, the bits and
+ * the input masks towards each party of a single storage name as used by {@link
+ * SpdzStorageDataSupplier}. Streams which are not present in the source are skipped.</p>
+ */
+public class SpdzStorageConverter {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpdzStorageConverter.class);
+
+  private SpdzStorageConverter() {
+  }
+
+  /**
+   * Converts the material of a single storage name.
+   *
+   * @param source the storage to read from
+   * @param sourceName the storage name of the material in the source
+   * @param targetName the storage name of the converted material
+   * @param noOfParties the number of parties in the computation
+   * @return the number of objects converted
+   */
+  public static long convert(StreamedStorage source, String sourceName, String targetName,
+      int noOfParties) {
+    BigInteger modulus;
+    try {
+      modulus = source.getNext(sourceName + SpdzStorageDataSupplier.MODULUS_KEY);
+    } catch (NoMoreElementsException e) {
+      throw new IllegalArgumentException("Modulus was not present in the storage "
+          + sourceName + SpdzStorageDataSupplier.MODULUS_KEY, e);
+    }
+    SpdzBinaryStreamedStorage target = new SpdzBinaryStreamedStorage(new InMemoryStorage(),
+        new BigIntegerFieldDefinition(modulus));
+    try {
+      target.putNext(targetName + SpdzStorageDataSupplier.MODULUS_KEY, modulus);
+      long converted = 1;
+      for (String stream : streamNames(noOfParties)) {
+        converted += convertStream(source, sourceName + stream, target, targetName + stream);
+      }
+      return converted;
+    } finally {
+      target.shutdown();
+    }
+  }
+
+  private static List<String> streamNames(int noOfParties) {
+    List<String> names = new ArrayList<>();
+    names.add(SpdzStorageDataSupplier.SSK_KEY);
+    names.add(SpdzStorageDataSupplier.TRIPLE_STORAGE);
+    names.add(SpdzStorageDataSupplier.EXP_PIPE_STORAGE);
+    names.add(SpdzStorageDataSupplier.BIT_STORAGE);
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      names.add(SpdzStorageDataSupplier.INPUT_STORAGE + partyId);
+    }
+    return names;
+  }
+
+  private static long convertStream(StreamedStorage source, String sourceName,
+      StreamedStorage target, String targetName) {
+    if (!new File(sourceName).exists()) {
+      return 0;
+    }
+    long converted = 0;
+    while (true) {
+      Serializable next;
+      try {
+        next = source.getNext(sourceName);
+      } catch (NoMoreElementsException e) {
+        return converted;
+      }
+      target.putNext(targetName, next);
+      converted++;
+    }
+  }
+
+  /**
+   * Converts the material of a single storage name stored in files by {@link
+   * FilebasedStreamedStorageImpl}.
+   *
+   * @param args the source storage name, the target storage name and the number of parties
+   */
+  public static void main(String[] args) {
+    if (args.length != 3) {
+      throw new IllegalArgumentException("Usage: SpdzStorageConverter <source storage name> "
+          + "<target storage name> <number of parties>");
+    }
+    int noOfParties;
+    try {
+      noOfParties = Integer.parseInt(args[2]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("The number of parties must be an integer, got "
+          + args[2], e);
+    }
+    StreamedStorage source = new FilebasedStreamedStorageImpl(new InMemoryStorage());
+    try {
+      long converted = convert(source, args[0], args[1], noOfParties);
+      logger.info("Converted {} objects from {} to {}", converted, args[0], args[1]);
+    } finally {
+      source.shutdown();
+    }
+  }
+}
@@ -3,6 +3,7 @@ package dk.alexandra.fresco.suite.spdz.storage;
 import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
 import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
 import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
 import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
 import dk.alexandra.fresco.framework.sce.resources.storage.exceptions.NoMoreElementsException;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
@@ -49,6 +50,7 @@ public class SpdzStorageDataSupplier implements SpdzDataSupplier {
 
   private FieldElement ssk;
   private FieldDefinition definition;
+  private final FieldDefinition expectedDefinition;
 
   /**
    * Creates a new supplier which takes preprocessed data from the native
@@ -60,9 +62,55 @@ public class SpdzStorageDataSupplier implements SpdzDataSupplier {
    */
   public SpdzStorageDataSupplier(StreamedStorage storage, String storageName,
       int noOfParties) {
+    this(storage, storageName, noOfParties, null);
+  }
+
+  /**
+   * Creates a new supplier which takes preprocessed data from the native storage object of FRESCO
+   * and represents it in the given field.
+   *
+   * @param storage The FRESCO native storage object
+   * @param storageName The name of the 'database' we should use (e.g. the full filename).
+   * @param noOfParties The number of parties in the computation.
+   * @param definition The field the storage creates the elements in, which must have the stored
+   *     modulus, or null to use a {@link BigIntegerFieldDefinition}
+   */
+  public SpdzStorageDataSupplier(StreamedStorage storage, String storageName,
+      int noOfParties, FieldDefinition definition) {
     this.storage = storage;
     this.storageName = storageName;
     this.inputMaskCounters = new int[noOfParties];
+    this.expectedDefinition = definition;
+  }
+
+  /**
+   * Creates a new supplier which reads preprocessed data from files in the binary format of
+   * {@link SpdzBinaryStreamedStorage}. Files in the format of {@link
+   * dk.alexandra.fresco.framework.sce.resources.storage.FilebasedStreamedStorageImpl} can be
+   * converted using {@link SpdzStorageConverter}.
+   *
+   * @param storageName The name of the 'database' we should use (e.g. the full filename).
+   * @param noOfParties The number of parties in the computation.
+   */
+  public static SpdzStorageDataSupplier createBinarySupplier(String storageName,
+      int noOfParties) {
+    return createBinarySupplier(storageName, noOfParties, null);
+  }
+
+  /**
+   * Creates a new supplier which reads preprocessed data from files in the binary format of
+   * {@link SpdzBinaryStreamedStorage}, deserializing it directly into the given field.
+   *
+   * @param storageName The name of the 'database' we should use (e.g. the full filename).
+   * @param noOfParties The number of parties in the computation.
+   * @param definition The field of the stored data, which must have the stored modulus, or null
+   *     to use a {@link BigIntegerFieldDefinition}
+   */
+  public static SpdzStorageDataSupplier createBinarySupplier(String storageName,
+      int noOfParties, FieldDefinition definition) {
+    return new SpdzStorageDataSupplier(
+        new SpdzBinaryStreamedStorage(new InMemoryStorage(), definition), storageName,
+        noOfParties, definition);
   }
 
   @Override
@@ -132,22 +180,30 @@ public class SpdzStorageDataSupplier implements SpdzDataSupplier {
   }
 
   @Override
-  public FieldDefinition getFieldDefinition() {
+  public synchronized FieldDefinition getFieldDefinition() {
     if (this.definition != null) {
       return this.definition;
     }
+    BigInteger modulus;
     try {
-      this.definition = new BigIntegerFieldDefinition(
-          this.storage.<BigInteger>getNext(storageName + MODULUS_KEY));
+      modulus = this.storage.getNext(storageName + MODULUS_KEY);
     } catch (NoMoreElementsException e) {
       throw new IllegalArgumentException("Modulus was not present in the storage "
           + storageName + MODULUS_KEY);
     }
+    if (expectedDefinition == null) {
+      this.definition = new BigIntegerFieldDefinition(modulus);
+    } else if (expectedDefinition.getModulus().equals(modulus)) {
+      this.definition = expectedDefinition;
+    } else {
+      throw new IllegalArgumentException("Storage " + storageName + MODULUS_KEY
+          + " uses modulus " + modulus);
+    }
     return this.definition;
   }
 
   @Override
-  public FieldElement getSecretSharedKey() {
+  public synchronized FieldElement getSecretSharedKey() {
     if (this.ssk != null) {
       return this.ssk;
     }
@@ -81,6 +81,18 @@ public class TestSpdzBasicArithmetic2Parties extends AbstractSpdzTest {
         PreprocessingStrategy.DUMMY, 2);
   }
 
+  @Test
+  public void test_MultAll_Sequential() {
+    runTest(new BasicArithmeticTests.TestMultAll<>(),
+        PreprocessingStrategy.DUMMY, 2);
+  }
+
+  @Test
+  public void test_MultAll_SequentialBatched_Mascot() {
+    runTest(new BasicArithmeticTests.TestMultAll<>(), EvaluationStrategy.SEQUENTIAL_BATCHED,
+        PreprocessingStrategy.MASCOT, 2, 16, 16, 16);
+  }
+
   @Test
   public void test_Sum_And_Output_Sequential() {
     runTest(new BasicArithmeticTests.TestSumAndMult<>(),
@@ -117,6 +129,24 @@ public class TestSpdzBasicArithmetic2Parties extends AbstractSpdzTest {
         PreprocessingStrategy.DUMMY, 2, 256, 128, 16);
   }
 
+  @Test
+  public void test_Lots_Of_Mults_Parallel_Batched() {
+    runTest(new BasicArithmeticTests.TestLotsMult<>(), EvaluationStrategy.PARALLEL_BATCHED,
+        PreprocessingStrategy.DUMMY, 2, 256, 128, 16);
+  }
+
+  @Test
+  public void test_Sum_And_Output_Parallel_Batched() {
+    runTest(new BasicArithmeticTests.TestSumAndMult<>(), EvaluationStrategy.PARALLEL_BATCHED,
+        PreprocessingStrategy.DUMMY, 2, 256, 128, 16);
+  }
+
+  @Test
+  public void test_Lots_Of_Inputs_Parallel_Batched() {
+    runTest(new BasicArithmeticTests.TestLotsOfInputs<>(), EvaluationStrategy.PARALLEL_BATCHED,
+        PreprocessingStrategy.DUMMY, 2, 256, 128, 16);
+  }
+
   @Test
   public void testOpenNoConversionByDefaultMascot() {
     runTest(new TestOpenNoConversionByDefault<>(),
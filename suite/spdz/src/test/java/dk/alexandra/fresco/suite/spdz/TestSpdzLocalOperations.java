@@ -0,0 +1,74 @@
+package dk.alexandra.fresco.suite.spdz;
+
+import static org.junit.Assert.assertEquals;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.ProtocolEvaluator.EvaluationStatistics;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.ModulusFinder;
+import dk.alexandra.fresco.framework.util.OpenedValueStoreImpl;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDummyDataSupplier;
+import java.math.BigInteger;
+import java.util.function.BiFunction;
+import org.junit.Test;
+
+public class TestSpdzLocalOperations {
+
+  private final FieldDefinition definition =
+      new BigIntegerFieldDefinition(ModulusFinder.findSuitableModulus(128));
+  private final SpdzProtocolSuite suite = new SpdzProtocolSuite(64);
+  private final SpdzResourcePool resourcePool = new SpdzResourcePoolImpl(1, 1,
+      new OpenedValueStoreImpl<>(),
+      new SpdzDummyDataSupplier(1, 1, definition, BigInteger.valueOf(1234)),
+      AesCtrDrbg::new);
+
+  private EvaluationStatistics run(BigInteger expected,
+      BiFunction<Numeric, DRes<SInt>, DRes<SInt>> computation) {
+    ProtocolBuilderNumeric builder = suite.init(resourcePool).createSequential();
+    DRes<BigInteger> output = builder.seq(seq -> seq.numeric().input(BigInteger.TEN, 1))
+        .seq((seq, input) -> computation.apply(seq.numeric(), input))
+        .seq((seq, result) -> seq.numeric().open(result));
+    EvaluationStatistics statistics = new BatchedProtocolEvaluator<>(
+        EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy(), suite)
+        .eval(builder.build(), resourcePool, InMemoryNetwork.createNetworks(1).get(0));
+    assertEquals(expected, output.out());
+    return statistics;
+  }
+
+  @Test
+  public void testLinearOperationsAreNotProtocols() {
+    EvaluationStatistics statistics = run(BigInteger.valueOf(2 * (10 + 3) - 10 - 7 + 10 - 1),
+        (numeric, x) -> {
+          DRes<SInt> y = numeric.mult(BigInteger.valueOf(2), numeric.add(BigInteger.valueOf(3),
+              x));
+          y = numeric.sub(numeric.sub(y, x), BigInteger.valueOf(7));
+          y = numeric.add(y, numeric.sub(BigInteger.TEN, numeric.known(BigInteger.ONE)));
+          return y;
+        });
+    // The input, the known value and the opening
+    assertEquals(3, statistics.getNativeProtocols());
+  }
+
+  @Test
+  public void testLongChain() {
+    int length = 10 * SpdzBuilder.MAX_LOCAL_DEPTH;
+    EvaluationStatistics statistics = run(BigInteger.valueOf(10 * (length + 1)),
+        (numeric, x) -> {
+          DRes<SInt> sum = x;
+          for (int i = 0; i < length; i++) {
+            sum = numeric.add(sum, x);
+          }
+          return sum;
+        });
+    // Every operation following a chain of MAX_LOCAL_DEPTH local values is a native protocol
+    assertEquals(2 + length / (SpdzBuilder.MAX_LOCAL_DEPTH + 1), statistics.getNativeProtocols());
+  }
+}
@@ -0,0 +1,58 @@
+package dk.alexandra.fresco.suite.spdz;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.MontgomeryFieldDefinition;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.lib.compare.CompareTests;
+import dk.alexandra.fresco.suite.spdz.configuration.PreprocessingStrategy;
+import java.math.BigInteger;
+import org.junit.Test;
+
+/**
+ * Runs a selection of the SPDZ tests with the {@link MontgomeryFieldDefinition} instead of the
+ * default field definition.
+ */
+public class TestSpdzMontgomeryField extends AbstractSpdzTest {
+
+  @Override
+  protected FieldDefinition createFieldDefinition(BigInteger modulus) {
+    return new MontgomeryFieldDefinition(modulus);
+  }
+
+  @Test
+  public void test_Simple_Arithmetic_Sequential() {
+    runTest(new BasicArithmeticTests.TestSimpleMultAndAdd<>(),
+        PreprocessingStrategy.DUMMY, 2);
+  }
+
+  @Test
+  public void test_MultAll_Sequential() {
+    runTest(new BasicArithmeticTests.TestMultAll<>(),
+        PreprocessingStrategy.DUMMY, 2);
+  }
+
+  @Test
+  public void test_Sum_And_Output_Sequential() {
+    runTest(new BasicArithmeticTests.TestSumAndMult<>(),
+        PreprocessingStrategy.DUMMY, 3);
+  }
+
+  @Test
+  public void test_compareLT_Sequential() {
+    runTest(new CompareTests.TestCompareLT<>(),
+        PreprocessingStrategy.DUMMY, 2);
+  }
+
+  @Test
+  public void test_Sum_And_Output_Mascot() {
+    runTest(new BasicArithmeticTests.TestSumAndMult<>(), EvaluationStrategy.SEQUENTIAL_BATCHED,
+        PreprocessingStrategy.MASCOT, 2, 16, 16, 16);
+  }
+
+  @Test
+  public void test_MultAll_Mascot() {
+    runTest(new BasicArithmeticTests.TestMultAll<>(), EvaluationStrategy.SEQUENTIAL_BATCHED,
+        PreprocessingStrategy.MASCOT, 2, 16, 16, 16);
+  }
+}
@@ -0,0 +1,236 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.builder.numeric.field.MontgomeryFieldDefinition;
+import dk.alexandra.fresco.framework.sce.resources.storage.FilebasedStreamedStorageImpl;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.exceptions.NoMoreElementsException;
+import dk.alexandra.fresco.framework.util.ModulusFinder;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSpdzBinaryStreamedStorage {
+
+  private static final int NO_OF_PARTIES = 2;
+  private final FieldDefinition definition =
+      new BigIntegerFieldDefinition(ModulusFinder.findSuitableModulus(128));
+  private File folder;
+
+  @Before
+  public void setUp() throws IOException {
+    folder = Files.createTempDirectory("spdz-binary").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    for (File file : folder.listFiles()) {
+      file.delete();
+    }
+    folder.delete();
+  }
+
+  @Test
+  public void testRoundTrip() throws NoMoreElementsException {
+    FieldElement alpha = definition.createElement(42);
+    List<SpdzTriple[]> triples = FakeTripGen.generateTriples(10, NO_OF_PARTIES, definition, alpha);
+    List<SpdzSInt[]> bits = FakeTripGen.generateBits(10, NO_OF_PARTIES, definition, alpha);
+    List<SpdzInputMask[]> masks =
+        FakeTripGen.generateInputMasks(10, 1, NO_OF_PARTIES, definition, alpha);
+    String name = new File(folder, "SPDZ_").getPath();
+    // a small read ahead makes the reader map several windows
+    StreamedStorage storage = new SpdzBinaryStreamedStorage(new InMemoryStorage(), definition, 50);
+    storage.putNext(name + SpdzStorageDataSupplier.MODULUS_KEY, definition.getModulus());
+    storage.putNext(name + SpdzStorageDataSupplier.SSK_KEY, alpha);
+    for (int i = 0; i < triples.size(); i++) {
+      storage.putNext(name + SpdzStorageDataSupplier.TRIPLE_STORAGE, triples.get(i)[0]);
+      storage.putNext(name + SpdzStorageDataSupplier.BIT_STORAGE, bits.get(i)[0]);
+      storage.putNext(name + SpdzStorageDataSupplier.INPUT_STORAGE + 1, masks.get(i)[0]);
+      storage.putNext(name + SpdzStorageDataSupplier.INPUT_STORAGE + 2, masks.get(i)[1]);
+    }
+    storage.shutdown();
+
+    SpdzStorageDataSupplier supplier =
+        SpdzStorageDataSupplier.createBinarySupplier(name, NO_OF_PARTIES);
+    assertEquals(definition.getModulus(), supplier.getFieldDefinition().getModulus());
+    assertElementEquals(alpha, supplier.getSecretSharedKey());
+    for (int i = 0; i < triples.size(); i++) {
+      SpdzTriple expected = triples.get(i)[0];
+      SpdzTriple actual = supplier.getNextTriple();
+      assertSIntEquals(expected.getA(), actual.getA());
+      assertSIntEquals(expected.getB(), actual.getB());
+      assertSIntEquals(expected.getC(), actual.getC());
+      assertSIntEquals(bits.get(i)[0], supplier.getNextBit());
+      SpdzInputMask ownMask = supplier.getNextInputMask(1);
+      assertSIntEquals(masks.get(i)[0].getMask(), ownMask.getMask());
+      assertElementEquals(masks.get(i)[0].getRealValue(), ownMask.getRealValue());
+      SpdzInputMask otherMask = supplier.getNextInputMask(2);
+      assertSIntEquals(masks.get(i)[1].getMask(), otherMask.getMask());
+      assertNull(otherMask.getRealValue());
+    }
+  }
+
+  @Test
+  public void testMontgomeryField() throws NoMoreElementsException {
+    FieldDefinition montgomery = new MontgomeryFieldDefinition(definition.getModulus());
+    FieldElement alpha = montgomery.createElement(5);
+    List<SpdzTriple[]> triples = FakeTripGen.generateTriples(20, NO_OF_PARTIES, montgomery, alpha);
+    String name = new File(folder, "MONTGOMERY_").getPath();
+    StreamedStorage storage = new SpdzBinaryStreamedStorage(new InMemoryStorage(), montgomery, 50);
+    storage.putNext(name + SpdzStorageDataSupplier.MODULUS_KEY, montgomery.getModulus());
+    for (SpdzTriple[] triple : triples) {
+      storage.putNext(name + SpdzStorageDataSupplier.TRIPLE_STORAGE, triple[0]);
+    }
+    storage.shutdown();
+
+    SpdzStorageDataSupplier supplier =
+        SpdzStorageDataSupplier.createBinarySupplier(name, NO_OF_PARTIES, montgomery);
+    assertSame(montgomery, supplier.getFieldDefinition());
+    for (SpdzTriple[] triple : triples) {
+      SpdzTriple actual = supplier.getNextTriple();
+      assertEquals(alpha.getClass(), actual.getA().getShare().getClass());
+      assertArrayEquals(montgomery.serialize(Arrays.asList(triple[0].getA().getShare(),
+          triple[0].getB().getMac(), triple[0].getC().getShare())),
+          montgomery.serialize(Arrays.asList(actual.getA().getShare(), actual.getB().getMac(),
+              actual.getC().getShare())));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSupplierWithOtherModulus() {
+    String name = new File(folder, "OTHER_").getPath();
+    StreamedStorage storage = new SpdzBinaryStreamedStorage(new InMemoryStorage(), definition);
+    storage.putNext(name + SpdzStorageDataSupplier.MODULUS_KEY, definition.getModulus());
+    storage.shutdown();
+    SpdzStorageDataSupplier.createBinarySupplier(name, NO_OF_PARTIES,
+        new BigIntegerFieldDefinition(ModulusFinder.findSuitableModulus(64)))
+        .getFieldDefinition();
+  }
+
+  @Test
+  public void testReadAfterMoreWritten() throws NoMoreElementsException {
+    String name = new File(folder, "GROWING").getPath();
+    StreamedStorage storage = new SpdzBinaryStreamedStorage(new InMemoryStorage(), definition);
+    storage.putNext(name, definition.createElement(1));
+    assertElementEquals(definition.createElement(1), storage.getNext(name));
+    // the reader has looked ahead and found no more records
+    storage.putNext(name, definition.createElement(2));
+    assertElementEquals(definition.createElement(2), storage.getNext(name));
+    storage.shutdown();
+  }
+
+  @Test
+  public void testExpPipes() throws NoMoreElementsException {
+    FieldElement alpha = definition.createElement(7);
+    List<SpdzSInt[][]> pipes = FakeTripGen.generateExpPipes(3, NO_OF_PARTIES, definition, alpha);
+    String name = new File(folder, "EXP").getPath();
+    StreamedStorage storage = new SpdzBinaryStreamedStorage(new InMemoryStorage(), definition);
+    for (SpdzSInt[][] pipe : pipes) {
+      storage.putNext(name, pipe[0]);
+    }
+    for (SpdzSInt[][] pipe : pipes) {
+      SpdzSInt[] actual = storage.getNext(name);
+      assertEquals(pipe[0].length, actual.length);
+      for (int i = 0; i < actual.length; i++) {
+        assertSIntEquals(pipe[0][i], actual[i]);
+      }
+    }
+    storage.shutdown();
+  }
+
+  @Test(expected = NoMoreElementsException.class)
+  public void testNoMoreElements() throws NoMoreElementsException {
+    String name = new File(folder, "MOD").getPath();
+    StreamedStorage storage = new SpdzBinaryStreamedStorage(new InMemoryStorage());
+    storage.putNext(name, BigInteger.TEN);
+    assertEquals(BigInteger.TEN, storage.getNext(name));
+    storage.getNext(name);
+  }
+
+  @Test(expected = NoMoreElementsException.class)
+  public void testMissingStore() throws NoMoreElementsException {
+    new SpdzBinaryStreamedStorage(new InMemoryStorage())
+        .getNext(new File(folder, "missing").getPath());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMixedTypes() {
+    String name = new File(folder, "MIXED").getPath();
+    StreamedStorage storage = new SpdzBinaryStreamedStorage(new InMemoryStorage(), definition);
+    storage.putNext(name, definition.createElement(1));
+    storage.putNext(name, BigInteger.ONE);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWriteWithoutDefinition() {
+    new SpdzBinaryStreamedStorage(new InMemoryStorage())
+        .putNext(new File(folder, "SSK").getPath(), definition.createElement(1));
+  }
+
+  @Test
+  public void testConverter() {
+    FieldElement alpha = definition.createElement(3);
+    List<SpdzTriple[]> triples = FakeTripGen.generateTriples(5, NO_OF_PARTIES, definition, alpha);
+    String sourceName = new File(folder, "SOURCE_").getPath();
+    String targetName = new File(folder, "TARGET_").getPath();
+    StreamedStorage source = new FilebasedStreamedStorageImpl(new InMemoryStorage());
+    source.putNext(sourceName + SpdzStorageDataSupplier.MODULUS_KEY, definition.getModulus());
+    source.putNext(sourceName + SpdzStorageDataSupplier.SSK_KEY, alpha);
+    for (SpdzTriple[] triple : triples) {
+      source.putNext(sourceName + SpdzStorageDataSupplier.TRIPLE_STORAGE, triple[1]);
+    }
+    source.shutdown();
+
+    source = new FilebasedStreamedStorageImpl(new InMemoryStorage());
+    long converted = SpdzStorageConverter.convert(source, sourceName, targetName, NO_OF_PARTIES);
+    source.shutdown();
+    assertEquals(2 + triples.size(), converted);
+
+    SpdzStorageDataSupplier supplier =
+        SpdzStorageDataSupplier.createBinarySupplier(targetName, NO_OF_PARTIES);
+    assertEquals(definition.getModulus(), supplier.getFieldDefinition().getModulus());
+    assertElementEquals(alpha, supplier.getSecretSharedKey());
+    for (SpdzTriple[] triple : triples) {
+      SpdzTriple actual = supplier.getNextTriple();
+      assertSIntEquals(triple[1].getA(), actual.getA());
+      assertSIntEquals(triple[1].getB(), actual.getB());
+      assertSIntEquals(triple[1].getC(), actual.getC());
+    }
+  }
+
+  private void assertSIntEquals(SpdzSInt expected, SpdzSInt actual) {
+    assertElementEquals(expected.getShare(), actual.getShare());
+    assertElementEquals(expected.getMac(), actual.getMac());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConverterMissingArguments() {
+    SpdzStorageConverter.main(new String[]{"source", "target"});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConverterNonNumericParties() {
+    SpdzStorageConverter.main(new String[]{"source", "target", "two"});
+  }
+
+  private void assertElementEquals(FieldElement expected, FieldElement actual) {
+    assertArrayEquals(definition.serialize(expected), definition.serialize(actual));
+  }
+}
@@ -0,0 +1,199 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.NetworkUtil;
+import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.ModulusFinder;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzMascotPipelinedDataSupplier.Watermarks;
+import dk.alexandra.fresco.tools.ot.base.DummyOt;
+import dk.alexandra.fresco.tools.ot.base.Ot;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class TestSpdzMascotPipelinedDataSupplier {
+
+  private static final int PRG_SEED_LENGTH = 256;
+  private static final int MOD_BIT_LENGTH = 128;
+  private static final int NUM_TRIPLES = 20;
+  private static final int NUM_ELEMENTS = 10;
+  private final FieldDefinition definition =
+      new BigIntegerFieldDefinition(ModulusFinder.findSuitableModulus(MOD_BIT_LENGTH));
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalWatermarks() {
+    new Watermarks(4, 2, 1);
+  }
+
+  @Test
+  public void testTwoParties() throws Exception {
+    int noOfParties = 2;
+    List<Integer> ports = NetworkUtil.getFreePorts(2 * noOfParties);
+    Map<Integer, NetworkConfiguration> confs =
+        NetworkUtil.getNetworkConfigurations(ports.subList(0, noOfParties));
+    Map<Integer, NetworkConfiguration> tripleConfs =
+        NetworkUtil.getNetworkConfigurations(ports.subList(noOfParties, ports.size()));
+    ExecutorService executor = Executors.newFixedThreadPool(noOfParties);
+    List<Future<Material>> futures = new ArrayList<>(noOfParties);
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      NetworkConfiguration conf = confs.get(partyId);
+      NetworkConfiguration tripleConf = tripleConfs.get(partyId);
+      futures.add(executor.submit(() -> generate(conf, tripleConf)));
+    }
+    List<Material> materials = new ArrayList<>(noOfParties);
+    for (Future<Material> future : futures) {
+      materials.add(future.get());
+    }
+    executor.shutdown();
+    FieldElement macKey = materials.stream().map(m -> m.macKeyShare)
+        .reduce(FieldElement::add).get();
+    for (int i = 0; i < NUM_TRIPLES; i++) {
+      List<SpdzSInt> left = new ArrayList<>(noOfParties);
+      List<SpdzSInt> right = new ArrayList<>(noOfParties);
+      List<SpdzSInt> products = new ArrayList<>(noOfParties);
+      for (Material material : materials) {
+        SpdzTriple triple = material.triples.get(i);
+        left.add(triple.getA());
+        right.add(triple.getB());
+        products.add(triple.getC());
+      }
+      SpdzSInt a = recombine(left);
+      SpdzSInt b = recombine(right);
+      SpdzSInt c = recombine(products);
+      assertMacCorrect(a, macKey);
+      assertMacCorrect(b, macKey);
+      assertMacCorrect(c, macKey);
+      assertEquals(toBigInteger(a.getShare().multiply(b.getShare())),
+          toBigInteger(c.getShare()));
+    }
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      List<SpdzSInt> bitShares = new ArrayList<>(noOfParties);
+      List<SpdzSInt> elementShares = new ArrayList<>(noOfParties);
+      for (Material material : materials) {
+        bitShares.add(material.bits.get(i));
+        elementShares.add(material.elements.get(i));
+      }
+      SpdzSInt bit = recombine(bitShares);
+      BigInteger bitValue = toBigInteger(bit.getShare());
+      assertTrue("Not a bit " + bitValue,
+          bitValue.equals(BigInteger.ZERO) || bitValue.equals(BigInteger.ONE));
+      assertMacCorrect(bit, macKey);
+      assertMacCorrect(recombine(elementShares), macKey);
+    }
+    for (int inputter = 1; inputter <= noOfParties; inputter++) {
+      for (int i = 0; i < NUM_ELEMENTS; i++) {
+        List<SpdzSInt> maskShares = new ArrayList<>(noOfParties);
+        FieldElement realValue = null;
+        for (int partyId = 1; partyId <= noOfParties; partyId++) {
+          SpdzInputMask mask = materials.get(partyId - 1).masks.get(inputter).get(i);
+          if (partyId == inputter) {
+            realValue = mask.getRealValue();
+          } else {
+            assertNull(mask.getRealValue());
+          }
+          maskShares.add(mask.getMask());
+        }
+        SpdzSInt recombined = recombine(maskShares);
+        assertMacCorrect(recombined, macKey);
+        assertEquals(toBigInteger(realValue), toBigInteger(recombined.getShare()));
+      }
+    }
+    for (Material material : materials) {
+      assertTrue(material.loggedValues.get(SpdzMascotPipelinedDataSupplier.PREPROCESSING_BATCHES)
+          > 0);
+      assertTrue(material.loggedValues.containsKey(
+          SpdzMascotPipelinedDataSupplier.PREPROCESSING_STALL_TIME));
+      assertTrue(material.loggedValues.get(SpdzMascotPipelinedDataSupplier.BUFFERED_TRIPLES)
+          >= 0);
+    }
+  }
+
+  private Material generate(NetworkConfiguration conf, NetworkConfiguration tripleConf)
+      throws IOException {
+    int myId = conf.getMyId();
+    int noOfParties = conf.noOfParties();
+    Drbg drbg = new AesCtrDrbg();
+    try (SocketNetwork network = new SocketNetwork(conf);
+        SocketNetwork tripleNetwork = new SocketNetwork(tripleConf)) {
+      Map<Integer, RotList> seedOts = new HashMap<>();
+      for (int otherId = 1; otherId <= noOfParties; otherId++) {
+        if (otherId != myId) {
+          Ot ot = new DummyOt(otherId, network);
+          RotList currentSeedOts = new RotList(drbg, PRG_SEED_LENGTH);
+          if (myId < otherId) {
+            currentSeedOts.send(ot);
+            currentSeedOts.receive(ot);
+          } else {
+            currentSeedOts.receive(ot);
+            currentSeedOts.send(ot);
+          }
+          seedOts.put(otherId, currentSeedOts);
+        }
+      }
+      Material material = new Material();
+      material.macKeyShare = SpdzMascotDataSupplier.createRandomSsk(definition, PRG_SEED_LENGTH);
+      // small watermarks to test that the buffers are refilled several times
+      SpdzMascotPipelinedDataSupplier supplier = new SpdzMascotPipelinedDataSupplier(myId,
+          noOfParties, 1, () -> tripleNetwork, definition, MOD_BIT_LENGTH, null,
+          PRG_SEED_LENGTH, new Watermarks(2, 8, 4), new Watermarks(1, 3, 2),
+          new Watermarks(1, 3, 2), new Watermarks(1, 3, 2), material.macKeyShare, seedOts, drbg);
+      material.triples.add(supplier.getNextTriple());
+      material.triples.addAll(supplier.getNextTriples(NUM_TRIPLES - 1));
+      for (int i = 0; i < NUM_ELEMENTS; i++) {
+        material.bits.add(supplier.getNextBit());
+        material.elements.add(supplier.getNextRandomFieldElement());
+        for (int partyId = 1; partyId <= noOfParties; partyId++) {
+          material.masks.computeIfAbsent(partyId, id -> new ArrayList<>())
+              .add(supplier.getNextInputMask(partyId));
+        }
+      }
+      material.loggedValues = supplier.getLoggedValues();
+      supplier.close();
+      return material;
+    }
+  }
+
+  private BigInteger toBigInteger(FieldElement element) {
+    return definition.convertToUnsigned(element);
+  }
+
+  private static SpdzSInt recombine(List<SpdzSInt> shares) {
+    return shares.stream().reduce(SpdzSInt::add).get();
+  }
+
+  private void assertMacCorrect(SpdzSInt recombined, FieldElement macKey) {
+    assertEquals(toBigInteger(macKey.multiply(recombined.getShare())),
+        toBigInteger(recombined.getMac()));
+  }
+
+  private static class Material {
+
+    private FieldElement macKeyShare;
+    private Map<String, Long> loggedValues;
+    private final List<SpdzTriple> triples = new ArrayList<>();
+    private final List<SpdzSInt> bits = new ArrayList<>();
+    private final List<SpdzSInt> elements = new ArrayList<>();
+    private final Map<Integer, List<SpdzInputMask>> masks = new HashMap<>();
+  }
+
+}
@@ -0,0 +1,142 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.util.ModulusFinder;
+import dk.alexandra.fresco.framework.util.OpenedValueStore;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.lib.compare.CompareTests;
+import dk.alexandra.fresco.suite.spdz.AbstractSpdzTest;
+import dk.alexandra.fresco.suite.spdz.configuration.PreprocessingStrategy;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestSpdzOpenedValueAccumulator extends AbstractSpdzTest {
+
+  private final FieldDefinition definition =
+      new BigIntegerFieldDefinition(ModulusFinder.findSuitableModulus(128));
+  private final Random random = new Random(42);
+  private final FieldElement alphaOne = randomElement();
+  private final FieldElement alphaTwo = randomElement();
+
+  @Override
+  protected OpenedValueStore<SpdzSInt, FieldElement> createOpenedValueStore(
+      SpdzDataSupplier supplier) {
+    return new SpdzOpenedValueAccumulator(supplier.getFieldDefinition());
+  }
+
+  private FieldElement randomElement() {
+    return definition.createElement(new BigInteger(definition.getModulus().bitLength() + 64,
+        random));
+  }
+
+  /**
+   * Pushes values shared between two parties to their accumulators, in batches of the given sizes,
+   * returning the sum of the deltas of the mac check.
+   */
+  private FieldElement pushAndCheck(SpdzOpenedValueAccumulator first,
+      SpdzOpenedValueAccumulator second, FieldElement error, int... batchSizes) {
+    for (int batchSize : batchSizes) {
+      List<SpdzSInt> firstShares = new ArrayList<>(batchSize);
+      List<SpdzSInt> secondShares = new ArrayList<>(batchSize);
+      List<FieldElement> openedValues = new ArrayList<>(batchSize);
+      for (int i = 0; i < batchSize; i++) {
+        FieldElement value = randomElement();
+        FieldElement share = randomElement();
+        FieldElement macShare = randomElement();
+        FieldElement mac = value.multiply(alphaOne.add(alphaTwo));
+        firstShares.add(new SpdzSInt(share, macShare));
+        secondShares.add(new SpdzSInt(value.subtract(share), mac.subtract(macShare)));
+        openedValues.add(value);
+      }
+      // Tamper with the last value
+      openedValues.set(batchSize - 1, openedValues.get(batchSize - 1).add(error));
+      if (batchSize == 1) {
+        first.pushOpenedValue(firstShares.get(0), openedValues.get(0));
+        second.pushOpenedValue(secondShares.get(0), openedValues.get(0));
+      } else {
+        first.pushOpenedValues(firstShares, openedValues);
+        second.pushOpenedValues(secondShares, openedValues);
+      }
+    }
+    Pair<List<SpdzSInt>, List<FieldElement>> firstValues = first.popValues();
+    Pair<List<SpdzSInt>, List<FieldElement>> secondValues = second.popValues();
+    assertEquals(1, firstValues.getFirst().size());
+    assertEquals(1, firstValues.getSecond().size());
+    FieldElement opened = firstValues.getSecond().get(0);
+    assertEquals(definition.convertToUnsigned(opened),
+        definition.convertToUnsigned(secondValues.getSecond().get(0)));
+    return firstValues.getFirst().get(0).getMac().subtract(alphaOne.multiply(opened))
+        .add(secondValues.getFirst().get(0).getMac().subtract(alphaTwo.multiply(opened)));
+  }
+
+  @Test
+  public void testCombinationPassesMacCheck() {
+    SpdzOpenedValueAccumulator first = new SpdzOpenedValueAccumulator(definition);
+    SpdzOpenedValueAccumulator second = new SpdzOpenedValueAccumulator(definition);
+    FieldElement deltaSum = pushAndCheck(first, second, definition.createElement(0), 1, 7, 100,
+        1);
+    assertEquals(BigInteger.ZERO, definition.convertToUnsigned(deltaSum));
+    // Check again after reseeding
+    byte[] seed = new byte[32];
+    random.nextBytes(seed);
+    first.reseed(seed);
+    second.reseed(seed);
+    deltaSum = pushAndCheck(first, second, definition.createElement(0), 13, 1);
+    assertEquals(BigInteger.ZERO, definition.convertToUnsigned(deltaSum));
+  }
+
+  @Test
+  public void testTamperedValueFailsMacCheck() {
+    SpdzOpenedValueAccumulator first = new SpdzOpenedValueAccumulator(definition);
+    SpdzOpenedValueAccumulator second = new SpdzOpenedValueAccumulator(definition);
+    FieldElement deltaSum = pushAndCheck(first, second, definition.createElement(1), 5, 1, 5);
+    assertNotEquals(BigInteger.ZERO, definition.convertToUnsigned(deltaSum));
+  }
+
+  @Test
+  public void testPendingValues() {
+    SpdzOpenedValueAccumulator store = new SpdzOpenedValueAccumulator(definition);
+    assertFalse(store.hasPendingValues());
+    assertTrue(store.popValues().getFirst().isEmpty());
+    SpdzSInt value = new SpdzSInt(randomElement(), randomElement());
+    store.pushOpenedValue(value, randomElement());
+    store.pushOpenedValue(value, randomElement());
+    assertTrue(store.hasPendingValues());
+    assertTrue(store.exceedsThreshold(1));
+    assertFalse(store.exceedsThreshold(2));
+    store.popValues();
+    assertFalse(store.hasPendingValues());
+    assertTrue(store.popValues().getSecond().isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMismatchingSizes() {
+    List<SpdzSInt> shares = new ArrayList<>();
+    shares.add(new SpdzSInt(randomElement(), randomElement()));
+    new SpdzOpenedValueAccumulator(definition).pushOpenedValues(shares, new ArrayList<>());
+  }
+
+  @Test
+  public void testSumAndMult() {
+    runTest(new BasicArithmeticTests.TestSumAndMult<>(), PreprocessingStrategy.DUMMY, 3);
+  }
+
+  @Test
+  public void testCompareLtParallel() {
+    runTest(new CompareTests.TestCompareLT<>(), EvaluationStrategy.PARALLEL_BATCHED,
+        PreprocessingStrategy.DUMMY, 2, 128, 64, 16);
+  }
+}
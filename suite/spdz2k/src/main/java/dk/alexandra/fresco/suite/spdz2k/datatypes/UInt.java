@@ -1,6 +1,7 @@
 package dk.alexandra.fresco.suite.spdz2k.datatypes;
 
 import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.util.ChunkedReduction;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.stream.Stream;
@@ -75,14 +76,17 @@ public interface UInt<T extends UInt> {
 
 
   /**
-   * Compute inner product of elements.
+   * Compute inner product of elements. Large inner products are split across the available
+   * processors.
    */
   static <S extends UInt<S>> S innerProduct(List<S> left, List<S> right) {
-    S accumulator = left.get(0).multiply(right.get(0));
-    for (int i = 1; i < left.size(); i++) {
-      accumulator = accumulator.add(left.get(i).multiply(right.get(i)));
-    }
-    return accumulator;
+    return ChunkedReduction.reduce(left.size(), (from, to) -> {
+      S accumulator = left.get(from).multiply(right.get(from));
+      for (int i = from + 1; i < to; i++) {
+        accumulator = accumulator.add(left.get(i).multiply(right.get(i)));
+      }
+      return accumulator;
+    }, UInt::add);
   }
 
   /**
@@ -0,0 +1,162 @@
+package dk.alexandra.fresco.suite.spdz2k.preprocessing;
+
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.framework.util.AesCtrDrbgFactory;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.tools.ot.base.RotBatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Correlated Oblivious Product Evaluation (COPE) over <i>Z<sub>2<sup>k + s</sup></sub></i> between
+ * this party and one other party.
+ *
+ * <p>COPE lets an <i>inputter</i> holding values <i>x<sub>1</sub>, ..., x<sub>n</sub></i> and a
+ * <i>signer</i> holding a fixed value <i>a</i> obtain an additive sharing of <i>a x<sub>1</sub>,
+ * ..., a x<sub>n</sub></i>. It is used to compute the cross terms of the macs. Each party acts as
+ * both inputter and signer towards the other party. The bits of the signer's value are used as
+ * choice bits in a single batch of random OTs, whose results seed a PRG per bit. After this
+ * initialization every extension only requires the inputter to send one message.</p>
+ */
+public class Spdz2kCope<PlainT extends CompUInt<?, ?, PlainT>> {
+
+  private final CompUIntFactory<PlainT> factory;
+  private final ByteSerializer<PlainT> serializer;
+  private final Network network;
+  private final int otherId;
+  private final int bitLength;
+  private final int byteLength;
+  private final byte[] signerValueBytes;
+  private final List<Drbg> signerPrgs;
+  private final List<Pair<Drbg, Drbg>> inputterPrgs;
+
+  /**
+   * Creates new {@link Spdz2kCope} and runs the initialization of both the inputter and the signer
+   * side, using random OTs to seed the PRGs.
+   *
+   * @param factory factory for creating ring elements
+   * @param rot random OTs with the other party
+   * @param network network to communicate with the other party over
+   * @param myId the id of this party
+   * @param otherId the id of the other party
+   * @param signerValue the value this party signs with, i.e., its share of the mac key
+   * @param seedLength the bit length of the PRG seeds
+   */
+  public Spdz2kCope(CompUIntFactory<PlainT> factory, RotBatch rot, Network network, int myId,
+      int otherId, PlainT signerValue, int seedLength) {
+    this.factory = factory;
+    this.serializer = factory.getSerializer();
+    this.network = network;
+    this.otherId = otherId;
+    this.bitLength = factory.getCompositeBitLength();
+    this.byteLength = bitLength / Byte.SIZE;
+    this.signerValueBytes = signerValue.toByteArray();
+    this.signerPrgs = new ArrayList<>(bitLength);
+    this.inputterPrgs = new ArrayList<>(bitLength);
+    // the party with the lower id initializes its signer side first
+    if (myId < otherId) {
+      initializeSigner(rot, seedLength);
+      initializeInputter(rot, seedLength);
+    } else {
+      initializeInputter(rot, seedLength);
+      initializeSigner(rot, seedLength);
+    }
+  }
+
+  private void initializeSigner(RotBatch rot, int seedLength) {
+    StrictBitVector choices = new StrictBitVector(bitLength);
+    for (int i = 0; i < bitLength; i++) {
+      choices.setBit(i, Spdz2kOtMultiplier.testBit(signerValueBytes, i), false);
+    }
+    for (StrictBitVector seed : rot.receive(choices, seedLength)) {
+      signerPrgs.add(AesCtrDrbgFactory.fromDerivedSeed(seed.toByteArray()));
+    }
+  }
+
+  private void initializeInputter(RotBatch rot, int seedLength) {
+    for (Pair<StrictBitVector, StrictBitVector> seeds : rot.send(bitLength, seedLength)) {
+      inputterPrgs.add(new Pair<>(
+          AesCtrDrbgFactory.fromDerivedSeed(seeds.getFirst().toByteArray()),
+          AesCtrDrbgFactory.fromDerivedSeed(seeds.getSecond().toByteArray())));
+    }
+  }
+
+  /**
+   * Runs the inputter side of an extension. Sends a single message to the other party.
+   *
+   * @param inputs the values to multiply with the other party's signer value
+   * @return this party's shares of the products
+   */
+  public List<PlainT> extendAsInputter(List<PlainT> inputs) {
+    int numInputs = inputs.size();
+    List<PlainT> diffs = new ArrayList<>(numInputs * bitLength);
+    List<List<PlainT>> zeroMasks = new ArrayList<>(bitLength);
+    for (Pair<Drbg, Drbg> prgs : inputterPrgs) {
+      List<PlainT> masksZero = generateMasks(prgs.getFirst(), numInputs);
+      List<PlainT> masksOne = generateMasks(prgs.getSecond(), numInputs);
+      for (int i = 0; i < numInputs; i++) {
+        diffs.add(masksZero.get(i).subtract(masksOne.get(i)).add(inputs.get(i)));
+      }
+      zeroMasks.add(masksZero);
+    }
+    network.send(otherId, serializer.serialize(diffs));
+    List<PlainT> products = new ArrayList<>(numInputs);
+    for (int i = 0; i < numInputs; i++) {
+      PlainT product = factory.zero();
+      for (int j = bitLength - 1; j >= 0; j--) {
+        product = product.add(product).add(zeroMasks.get(j).get(i));
+      }
+      products.add(product.negateUInt());
+    }
+    return products;
+  }
+
+  /**
+   * Runs the signer side of an extension. Receives a single message from the other party.
+   *
+   * @param numInputs the number of values input by the other party
+   * @return this party's shares of the products
+   */
+  public List<PlainT> extendAsSigner(int numInputs) {
+    List<List<PlainT>> masks = new ArrayList<>(bitLength);
+    for (Drbg prg : signerPrgs) {
+      masks.add(generateMasks(prg, numInputs));
+    }
+    List<PlainT> diffs = serializer.deserializeList(network.receive(otherId));
+    if (diffs.size() != numInputs * bitLength) {
+      throw new IllegalStateException(
+          "Expected " + numInputs * bitLength + " elements but received " + diffs.size());
+    }
+    List<PlainT> products = new ArrayList<>(numInputs);
+    for (int i = 0; i < numInputs; i++) {
+      PlainT product = factory.zero();
+      for (int j = bitLength - 1; j >= 0; j--) {
+        PlainT summand = masks.get(j).get(i);
+        if (Spdz2kOtMultiplier.testBit(signerValueBytes, j)) {
+          summand = summand.add(diffs.get(j * numInputs + i));
+        }
+        product = product.add(product).add(summand);
+      }
+      products.add(product);
+    }
+    return products;
+  }
+
+  private List<PlainT> generateMasks(Drbg prg, int numMasks) {
+    byte[] bytes = new byte[numMasks * byteLength];
+    prg.nextBytes(bytes);
+    List<PlainT> masks = new ArrayList<>(numMasks);
+    for (int i = 0; i < numMasks; i++) {
+      masks.add(factory.deserialize(Arrays.copyOfRange(bytes, i * byteLength,
+          (i + 1) * byteLength)));
+    }
+    return masks;
+  }
+
+}
@@ -0,0 +1,145 @@
+package dk.alexandra.fresco.suite.spdz2k.preprocessing;
+
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.tools.ot.base.RotBatch;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Two-party multiplication of elements of <i>Z<sub>2<sup>k + s</sup></sub></i> based on random
+ * OTs.
+ *
+ * <p>The <i>left</i> party holds factors <i>x<sub>1</sub>, ..., x<sub>n</sub></i> and the
+ * <i>right</i> party holds factors <i>y<sub>1</sub>, ..., y<sub>n</sub></i>. The result is an
+ * additive sharing of <i>x<sub>1</sub> y<sub>1</sub>, ..., x<sub>n</sub> y<sub>n</sub></i>. The
+ * left party uses the bits of its factors as choice bits in one random OT per bit. For each OT the
+ * right party sends <i>q<sub>0</sub> - q<sub>1</sub> + y</i>, which lets the left party compute
+ * <i>q<sub>0</sub> + x<sub>j</sub> y</i> for the <i>j</i>-th bit <i>x<sub>j</sub></i>. Since we
+ * are computing modulo a power of two, recombining these with powers of two is exact.</p>
+ *
+ * <p>Both parties must call the methods of this class in the same order, with the left party
+ * calling {@link #multiplyLeft(List, int)} whenever the right party calls {@link
+ * #multiplyRight(List, int)}.</p>
+ */
+public class Spdz2kOtMultiplier<PlainT extends CompUInt<?, ?, PlainT>> {
+
+  private final CompUIntFactory<PlainT> factory;
+  private final ByteSerializer<PlainT> serializer;
+  private final RotBatch rot;
+  private final Network network;
+  private final int otherId;
+  private final int bitLength;
+
+  /**
+   * Creates new {@link Spdz2kOtMultiplier}.
+   *
+   * @param factory factory for creating ring elements
+   * @param rot random OTs with the other party
+   * @param network network to communicate with the other party over
+   * @param otherId the id of the other party
+   */
+  public Spdz2kOtMultiplier(CompUIntFactory<PlainT> factory, RotBatch rot, Network network,
+      int otherId) {
+    this.factory = factory;
+    this.serializer = factory.getSerializer();
+    this.rot = rot;
+    this.network = network;
+    this.otherId = otherId;
+    this.bitLength = factory.getCompositeBitLength();
+  }
+
+  /**
+   * Computes this party's shares of the products of the left factors and the right factors of the
+   * other party.
+   *
+   * @param leftFactors this party's factors
+   * @param leftBitLength number of least significant bits of each left factor that may be non-zero
+   * @return shares of the products
+   */
+  public List<PlainT> multiplyLeft(List<PlainT> leftFactors, int leftBitLength) {
+    int numFactors = leftFactors.size();
+    StrictBitVector choices = new StrictBitVector(numberOfOts(numFactors, leftBitLength));
+    for (int i = 0; i < numFactors; i++) {
+      byte[] bytes = leftFactors.get(i).toByteArray();
+      for (int j = 0; j < leftBitLength; j++) {
+        choices.setBit(i * leftBitLength + j, testBit(bytes, j), false);
+      }
+    }
+    List<StrictBitVector> seeds = rot.receive(choices, bitLength);
+    List<PlainT> diffs = serializer.deserializeList(network.receive(otherId));
+    List<PlainT> products = new ArrayList<>(numFactors);
+    for (int i = 0; i < numFactors; i++) {
+      PlainT product = factory.zero();
+      // recombine by Horner's rule, starting with the most significant bit
+      for (int j = leftBitLength - 1; j >= 0; j--) {
+        int index = i * leftBitLength + j;
+        PlainT summand = factory.deserialize(seeds.get(index).toByteArray());
+        if (choices.getBit(index, false)) {
+          summand = summand.add(diffs.get(index));
+        }
+        product = product.add(product).add(summand);
+      }
+      products.add(product);
+    }
+    return products;
+  }
+
+  /**
+   * Computes this party's shares of the products of the other party's left factors and the right
+   * factors.
+   *
+   * @param rightFactors this party's factors
+   * @param leftBitLength number of least significant bits of each left factor that may be
+   *     non-zero, must be the same as used by the other party
+   * @return shares of the products
+   */
+  public List<PlainT> multiplyRight(List<PlainT> rightFactors, int leftBitLength) {
+    int numFactors = rightFactors.size();
+    List<Pair<StrictBitVector, StrictBitVector>> seeds =
+        rot.send(numberOfOts(numFactors, leftBitLength), bitLength);
+    List<PlainT> zeroSeeds = new ArrayList<>(seeds.size());
+    List<PlainT> diffs = new ArrayList<>(seeds.size());
+    for (int i = 0; i < numFactors; i++) {
+      PlainT factor = rightFactors.get(i);
+      for (int j = 0; j < leftBitLength; j++) {
+        Pair<StrictBitVector, StrictBitVector> seedPair = seeds.get(i * leftBitLength + j);
+        PlainT zeroSeed = factory.deserialize(seedPair.getFirst().toByteArray());
+        PlainT oneSeed = factory.deserialize(seedPair.getSecond().toByteArray());
+        zeroSeeds.add(zeroSeed);
+        diffs.add(zeroSeed.subtract(oneSeed).add(factor));
+      }
+    }
+    network.send(otherId, serializer.serialize(diffs));
+    List<PlainT> products = new ArrayList<>(numFactors);
+    for (int i = 0; i < numFactors; i++) {
+      PlainT product = factory.zero();
+      for (int j = leftBitLength - 1; j >= 0; j--) {
+        product = product.add(product).add(zeroSeeds.get(i * leftBitLength + j));
+      }
+      products.add(product.negateUInt());
+    }
+    return products;
+  }
+
+  /**
+   * Computes the number of OTs needed, rounded up to a whole number of bytes.
+   */
+  private static int numberOfOts(int numFactors, int leftBitLength) {
+    int numBits = numFactors * leftBitLength;
+    return (numBits + Byte.SIZE - 1) / Byte.SIZE * Byte.SIZE;
+  }
+
+  /**
+   * Returns the bit at the given index of a big-endian byte array, counting from the least
+   * significant bit.
+   */
+  static boolean testBit(byte[] bytes, int index) {
+    return ((bytes[bytes.length - 1 - index / Byte.SIZE] >>> (index % Byte.SIZE)) & 1) == 1;
+  }
+
+}
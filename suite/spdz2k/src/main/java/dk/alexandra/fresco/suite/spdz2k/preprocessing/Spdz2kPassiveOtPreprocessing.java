@@ -0,0 +1,267 @@
+package dk.alexandra.fresco.suite.spdz2k.preprocessing;
+
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.tools.cointossing.CoinTossing;
+import dk.alexandra.fresco.tools.ot.base.RotBatch;
+import dk.alexandra.fresco.tools.ot.otextension.BristolRotBatch;
+import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePool;
+import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePoolImpl;
+import dk.alexandra.fresco.tools.ot.otextension.RotFactory;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * OT based generation of pre-processing material for SPDZ2k that is only secure against passive
+ * adversaries. It follows the structure of MASCOT
+ * (<a href="https://eprint.iacr.org/2016/505.pdf">https://eprint.iacr.org/2016/505.pdf</a>) but
+ * computing over <i>Z<sub>2<sup>k + s</sup></sub></i> as described in the SPDZ2k paper (<a
+ * href="https://eprint.iacr.org/2018/482.pdf">https://eprint.iacr.org/2018/482.pdf</a>).
+ *
+ * <p>Random values are generated as local additive shares and authenticated in batches using
+ * {@link Spdz2kCope} with every other party. Products are computed pairwise with {@link
+ * Spdz2kOtMultiplier}, and random bits are computed as the XOR of a random bit from each party. All
+ * OTs are extended from the given seed OTs using the correlated OT extension of the OT tools.</p>
+ *
+ * <p>This class does not include the consistency check of the COPE inputs nor the sacrifice of
+ * triples of the actively secure protocol. A corrupt party can therefore make the other parties
+ * accept inconsistent macs or incorrect triples without this being detected, and the material
+ * must only be used where all parties are trusted to follow the protocol, such as in tests and
+ * benchmarks.</p>
+ *
+ * <p>All parties must call the methods of this class in the same order with the same arguments.
+ * Instances are not thread safe, but several instances can be run in parallel on different
+ * networks if they use distinct instance ids.</p>
+ */
+public class Spdz2kPassiveOtPreprocessing<PlainT extends CompUInt<?, ?, PlainT>> {
+
+  private final int myId;
+  private final int noOfParties;
+  private final CompUIntFactory<PlainT> factory;
+  private final PlainT macKeyShare;
+  private final Drbg drbg;
+  private final int byteLength;
+  private final Map<Integer, Spdz2kOtMultiplier<PlainT>> multipliers;
+  private final Map<Integer, Spdz2kCope<PlainT>> copes;
+
+  /**
+   * Creates new {@link Spdz2kPassiveOtPreprocessing} and initializes the OT extension and COPE
+   * instances with every other party.
+   *
+   * @param myId this party's id
+   * @param noOfParties number of parties
+   * @param instanceId identifier used to distinguish parallel instances
+   * @param network network to run the pre-processing on
+   * @param factory factory for creating ring elements
+   * @param macKeyShare this party's share of the mac key
+   * @param seedOts pre-computed base OTs with each other party
+   * @param prgSeedLength bit length of PRG seeds, i.e., the computational security parameter.
+   *     Must be the same as the number of seed OTs
+   * @param lambdaSecurityParam the statistical security parameter of the OT extension
+   * @param drbg source of randomness
+   */
+  public Spdz2kPassiveOtPreprocessing(int myId, int noOfParties, int instanceId, Network network,
+      CompUIntFactory<PlainT> factory, PlainT macKeyShare, Map<Integer, RotList> seedOts,
+      int prgSeedLength, int lambdaSecurityParam, Drbg drbg) {
+    this.myId = myId;
+    this.noOfParties = noOfParties;
+    this.factory = factory;
+    this.macKeyShare = macKeyShare;
+    this.drbg = drbg;
+    this.byteLength = factory.getCompositeBitLength() / Byte.SIZE;
+    this.multipliers = new TreeMap<>();
+    this.copes = new TreeMap<>();
+    // initialize in order of the other party's id so each pair is handled in the same order by all
+    for (int otherId = 1; otherId <= noOfParties; otherId++) {
+      if (otherId != myId) {
+        CoinTossing coinTossing = new CoinTossing(myId, otherId, drbg);
+        coinTossing.initialize(network);
+        OtExtensionResourcePool otResources = new OtExtensionResourcePoolImpl(myId, otherId,
+            prgSeedLength, lambdaSecurityParam, instanceId, drbg, coinTossing,
+            seedOts.get(otherId));
+        RotBatch rot = new BristolRotBatch(new RotFactory(otResources, network), prgSeedLength,
+            lambdaSecurityParam);
+        multipliers.put(otherId, new Spdz2kOtMultiplier<>(factory, rot, network, otherId));
+        copes.put(otherId,
+            new Spdz2kCope<>(factory, rot, network, myId, otherId, macKeyShare, prgSeedLength));
+      }
+    }
+  }
+
+  /**
+   * Generates a batch of multiplication triples.
+   *
+   * @param numTriples number of triples to generate
+   * @return this party's shares of the triples
+   */
+  public List<Spdz2kTriple<PlainT>> getTriples(int numTriples) {
+    List<PlainT> left = sampleRandom(numTriples);
+    List<PlainT> right = sampleRandom(numTriples);
+    List<PlainT> products = new ArrayList<>(numTriples);
+    for (int i = 0; i < numTriples; i++) {
+      products.add(left.get(i).multiply(right.get(i)));
+    }
+    int bitLength = factory.getCompositeBitLength();
+    for (Map.Entry<Integer, Spdz2kOtMultiplier<PlainT>> entry : multipliers.entrySet()) {
+      Spdz2kOtMultiplier<PlainT> multiplier = entry.getValue();
+      List<PlainT> leftCrossTerms;
+      List<PlainT> rightCrossTerms;
+      if (myId < entry.getKey()) {
+        leftCrossTerms = multiplier.multiplyLeft(left, bitLength);
+        rightCrossTerms = multiplier.multiplyRight(right, bitLength);
+      } else {
+        rightCrossTerms = multiplier.multiplyRight(right, bitLength);
+        leftCrossTerms = multiplier.multiplyLeft(left, bitLength);
+      }
+      for (int i = 0; i < numTriples; i++) {
+        products.set(i, products.get(i).add(leftCrossTerms.get(i)).add(rightCrossTerms.get(i)));
+      }
+    }
+    List<PlainT> shares = new ArrayList<>(3 * numTriples);
+    shares.addAll(left);
+    shares.addAll(right);
+    shares.addAll(products);
+    List<Spdz2kSInt<PlainT>> authenticated = authenticate(shares);
+    List<Spdz2kTriple<PlainT>> triples = new ArrayList<>(numTriples);
+    for (int i = 0; i < numTriples; i++) {
+      triples.add(new Spdz2kTriple<>(
+          authenticated.get(i),
+          authenticated.get(numTriples + i),
+          authenticated.get(2 * numTriples + i)));
+    }
+    return triples;
+  }
+
+  /**
+   * Generates a batch of input masks for the given input party.
+   *
+   * @param towardPlayerId the id of the input party
+   * @param numMasks number of masks to generate
+   * @return this party's shares of the masks, including the value of the masks if this party is
+   *     the input party
+   */
+  public List<Spdz2kInputMask<PlainT>> getInputMasks(int towardPlayerId, int numMasks) {
+    List<PlainT> values;
+    if (myId == towardPlayerId) {
+      values = sampleRandom(numMasks);
+    } else {
+      values = new ArrayList<>(numMasks);
+      for (int i = 0; i < numMasks; i++) {
+        values.add(factory.zero());
+      }
+    }
+    List<Spdz2kSInt<PlainT>> authenticated = authenticate(values);
+    List<Spdz2kInputMask<PlainT>> masks = new ArrayList<>(numMasks);
+    for (int i = 0; i < numMasks; i++) {
+      if (myId == towardPlayerId) {
+        masks.add(new Spdz2kInputMask<>(authenticated.get(i), values.get(i)));
+      } else {
+        masks.add(new Spdz2kInputMask<>(authenticated.get(i)));
+      }
+    }
+    return masks;
+  }
+
+  /**
+   * Generates a batch of random elements.
+   *
+   * @param numElements number of elements to generate
+   * @return this party's shares of the elements
+   */
+  public List<Spdz2kSInt<PlainT>> getRandomElements(int numElements) {
+    return authenticate(sampleRandom(numElements));
+  }
+
+  /**
+   * Generates a batch of random bits.
+   *
+   * <p>Each party samples a random bit and the parties compute the XOR of these one party at a
+   * time as <i>c + b - 2 c b</i>, where <i>c</i> is shared among the previous parties and <i>b</i>
+   * is known by the current party, so the products only require a single OT per party and bit.</p>
+   *
+   * @param numBits number of bits to generate
+   * @return this party's shares of the bits
+   */
+  public List<Spdz2kSInt<PlainT>> getRandomBits(int numBits) {
+    byte[] randomBytes = new byte[(numBits + Byte.SIZE - 1) / Byte.SIZE];
+    drbg.nextBytes(randomBytes);
+    List<PlainT> bits = new ArrayList<>(numBits);
+    List<PlainT> shares = new ArrayList<>(numBits);
+    for (int i = 0; i < numBits; i++) {
+      boolean bit = ((randomBytes[i / Byte.SIZE] >>> (i % Byte.SIZE)) & 1) == 1;
+      bits.add(factory.createElement(bit ? 1 : 0));
+      shares.add(myId == 1 ? bits.get(i) : factory.zero());
+    }
+    for (int partyId = 2; partyId <= noOfParties; partyId++) {
+      if (myId == partyId) {
+        List<PlainT> updated = new ArrayList<>(bits);
+        for (int otherId = 1; otherId < partyId; otherId++) {
+          List<PlainT> products = multipliers.get(otherId).multiplyLeft(bits, 1);
+          subtractTwice(updated, products);
+        }
+        shares = updated;
+      } else if (myId < partyId) {
+        List<PlainT> products = multipliers.get(partyId).multiplyRight(shares, 1);
+        subtractTwice(shares, products);
+      }
+    }
+    return authenticate(shares);
+  }
+
+  /**
+   * Authenticates a batch of additively shared values by computing shares of the macs.
+   */
+  private List<Spdz2kSInt<PlainT>> authenticate(List<PlainT> shares) {
+    int numShares = shares.size();
+    List<PlainT> macShares = new ArrayList<>(numShares);
+    for (PlainT share : shares) {
+      macShares.add(share.multiply(macKeyShare));
+    }
+    // all messages are sent before receiving any, so the order of the parties does not matter
+    for (Spdz2kCope<PlainT> cope : copes.values()) {
+      addAll(macShares, cope.extendAsInputter(shares));
+    }
+    for (Spdz2kCope<PlainT> cope : copes.values()) {
+      addAll(macShares, cope.extendAsSigner(numShares));
+    }
+    List<Spdz2kSInt<PlainT>> authenticated = new ArrayList<>(numShares);
+    for (int i = 0; i < numShares; i++) {
+      authenticated.add(new Spdz2kSInt<>(shares.get(i), macShares.get(i)));
+    }
+    return authenticated;
+  }
+
+  private List<PlainT> sampleRandom(int numElements) {
+    byte[] bytes = new byte[numElements * byteLength];
+    drbg.nextBytes(bytes);
+    List<PlainT> elements = new ArrayList<>(numElements);
+    for (int i = 0; i < numElements; i++) {
+      byte[] elementBytes = new byte[byteLength];
+      System.arraycopy(bytes, i * byteLength, elementBytes, 0, byteLength);
+      elements.add(factory.deserialize(elementBytes));
+    }
+    return elements;
+  }
+
+  private void addAll(List<PlainT> values, List<PlainT> summands) {
+    for (int i = 0; i < values.size(); i++) {
+      values.set(i, values.get(i).add(summands.get(i)));
+    }
+  }
+
+  private void subtractTwice(List<PlainT> values, List<PlainT> subtrahends) {
+    for (int i = 0; i < values.size(); i++) {
+      PlainT subtrahend = subtrahends.get(i);
+      values.set(i, values.get(i).subtract(subtrahend.add(subtrahend)));
+    }
+  }
+
+}
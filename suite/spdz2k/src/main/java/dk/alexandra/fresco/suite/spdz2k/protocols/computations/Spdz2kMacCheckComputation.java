@@ -140,8 +140,8 @@ public class Spdz2kMacCheckComputation<
   private List<PlainT> sampleCoefficients(Drbg drbg, CompUIntFactory<PlainT> factory,
       int numCoefficients) {
     List<PlainT> randomCoefficients = new ArrayList<>(numCoefficients);
+    byte[] bytes = new byte[factory.getHighBitLength() / Byte.SIZE];
     for (int i = 0; i < numCoefficients; i++) {
-      byte[] bytes = new byte[factory.getHighBitLength() / Byte.SIZE];
       drbg.nextBytes(bytes);
       randomCoefficients.add(factory.deserialize(bytes));
     }
@@ -0,0 +1,258 @@
+package dk.alexandra.fresco.suite.spdz2k.resource.storage;
+
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.suite.spdz2k.preprocessing.Spdz2kPassiveOtPreprocessing;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A data supplier generating the pre-processing material using OTs, see {@link
+ * Spdz2kPassiveOtPreprocessing}. The material is only secure against passive adversaries, so this
+ * supplier must not be used where a party may deviate from the protocol.
+ *
+ * <p>Multiplication triples are generated by a background thread on a dedicated network, which
+ * keeps a buffer of triples topped up while the online phase is running. The thread is started by
+ * the first request for a triple. The remaining material is generated in batches on demand, on a
+ * second network. Each party must use the supplier in the same order, as is the case when all
+ * parties run the same application. Both networks must be kept open until {@link #close()} is
+ * called.</p>
+ */
+public class Spdz2kPassiveOtDataSupplier<PlainT extends CompUInt<?, ?, PlainT>> implements
+    Spdz2kDataSupplier<PlainT>, Closeable {
+
+  /**
+   * Default bit length of the PRG seeds, i.e., the computational security parameter.
+   */
+  public static final int DEFAULT_PRG_SEED_LENGTH = 256;
+  /**
+   * Default statistical security parameter of the OT extension.
+   */
+  public static final int DEFAULT_LAMBDA_SECURITY_PARAM = 64;
+  /**
+   * Default number of triples in a batch. A batch of 1021 triples requires 1021 * 128 OTs in each
+   * direction. Together with the 256 + 64 OTs sacrificed by the extension this just fits in the
+   * 2^17 OTs the extension produces, so only few OTs are wasted.
+   */
+  public static final int DEFAULT_TRIPLE_BATCH_SIZE = 1021;
+  /**
+   * Default batch size of the other material.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  private static final Logger logger = LoggerFactory.getLogger(Spdz2kPassiveOtDataSupplier.class);
+  private static final long POLL_INTERVAL_MILLIS = 100;
+  private final int myId;
+  private final int noOfParties;
+  private final Supplier<Network> network;
+  private final Supplier<Network> tripleNetwork;
+  private final CompUIntFactory<PlainT> factory;
+  private final PlainT macKeyShare;
+  private final Map<Integer, RotList> seedOts;
+  private final int prgSeedLength;
+  private final int lambdaSecurityParam;
+  private final int batchSize;
+  private final int tripleBatchSize;
+  private final Drbg drbg;
+  private final Drbg tripleDrbg;
+
+  private final BlockingQueue<Spdz2kTriple<PlainT>> triples;
+  private final Map<Integer, ArrayDeque<Spdz2kInputMask<PlainT>>> masks;
+  private final ArrayDeque<Spdz2kSInt<PlainT>> randomElements;
+  private final ArrayDeque<Spdz2kSInt<PlainT>> randomBits;
+  private Spdz2kPassiveOtPreprocessing<PlainT> preprocessing;
+  private Thread tripleProducer;
+  private volatile RuntimeException tripleProducerFailure;
+  private volatile boolean closed;
+
+  /**
+   * Creates new {@link Spdz2kPassiveOtDataSupplier}.
+   *
+   * @param myId this party's id
+   * @param noOfParties number of parties
+   * @param network network supplier for the network used to generate all material but triples
+   * @param tripleNetwork network supplier for the network used to generate triples
+   * @param factory factory for creating ring elements
+   * @param macKeyShare this party's share of the mac key
+   * @param seedOts pre-computed base OTs with each other party
+   * @param prgSeedLength bit length of PRG seeds, must be the same as the number of seed OTs
+   * @param lambdaSecurityParam the statistical security parameter of the OT extension
+   * @param batchSize batch size in which input masks, random elements and bits are generated
+   * @param tripleBatchSize batch size in which triples are generated
+   * @param tripleBufferSize maximum number of triples generated ahead of time
+   * @param drbg source of randomness
+   */
+  public Spdz2kPassiveOtDataSupplier(int myId, int noOfParties, Supplier<Network> network,
+      Supplier<Network> tripleNetwork, CompUIntFactory<PlainT> factory, PlainT macKeyShare,
+      Map<Integer, RotList> seedOts, int prgSeedLength, int lambdaSecurityParam, int batchSize,
+      int tripleBatchSize, int tripleBufferSize, Drbg drbg) {
+    if (tripleBufferSize < tripleBatchSize) {
+      throw new IllegalArgumentException(
+          "Triple buffer size must be at least the triple batch size");
+    }
+    this.myId = myId;
+    this.noOfParties = noOfParties;
+    this.network = network;
+    this.tripleNetwork = tripleNetwork;
+    this.factory = factory;
+    this.macKeyShare = macKeyShare;
+    this.seedOts = seedOts;
+    this.prgSeedLength = prgSeedLength;
+    this.lambdaSecurityParam = lambdaSecurityParam;
+    this.batchSize = batchSize;
+    this.tripleBatchSize = tripleBatchSize;
+    // the triple producer runs in its own thread, so it gets its own source of randomness
+    byte[] tripleSeed = new byte[AesCtrDrbg.SEED_LENGTH];
+    drbg.nextBytes(tripleSeed);
+    this.tripleDrbg = new AesCtrDrbg(tripleSeed);
+    this.drbg = drbg;
+    this.triples = new ArrayBlockingQueue<>(tripleBufferSize);
+    this.masks = new HashMap<>();
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      masks.put(partyId, new ArrayDeque<>());
+    }
+    this.randomElements = new ArrayDeque<>();
+    this.randomBits = new ArrayDeque<>();
+    logger.warn("Pre-processing material is only secure against passive adversaries");
+  }
+
+  /**
+   * Creates {@link Spdz2kPassiveOtDataSupplier} using the default parameters.
+   */
+  public static <PlainT extends CompUInt<?, ?, PlainT>> Spdz2kPassiveOtDataSupplier<PlainT>
+      createSimpleSupplier(int myId, int noOfParties, Supplier<Network> network,
+      Supplier<Network> tripleNetwork, CompUIntFactory<PlainT> factory, PlainT macKeyShare,
+      Map<Integer, RotList> seedOts, Drbg drbg) {
+    return new Spdz2kPassiveOtDataSupplier<>(myId, noOfParties, network, tripleNetwork, factory,
+        macKeyShare, seedOts, DEFAULT_PRG_SEED_LENGTH, DEFAULT_LAMBDA_SECURITY_PARAM,
+        DEFAULT_BATCH_SIZE, DEFAULT_TRIPLE_BATCH_SIZE, 4 * DEFAULT_TRIPLE_BATCH_SIZE, drbg);
+  }
+
+  @Override
+  public Spdz2kTriple<PlainT> getNextTripleShares() {
+    ensureTripleProducerStarted();
+    try {
+      Spdz2kTriple<PlainT> triple = triples.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      while (triple == null) {
+        if (tripleProducerFailure != null || !tripleProducer.isAlive()) {
+          throw new IllegalStateException("Triple generation failed", tripleProducerFailure);
+        }
+        triple = triples.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      return triple;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for triples", e);
+    }
+  }
+
+  @Override
+  public Spdz2kInputMask<PlainT> getNextInputMask(int towardPlayerId) {
+    ensureInitialized();
+    ArrayDeque<Spdz2kInputMask<PlainT>> inputMasks = masks.get(towardPlayerId);
+    if (inputMasks.isEmpty()) {
+      logger.trace("Getting another mask batch");
+      inputMasks.addAll(preprocessing.getInputMasks(towardPlayerId, batchSize));
+      logger.trace("Got another mask batch");
+    }
+    return inputMasks.pop();
+  }
+
+  @Override
+  public Spdz2kSInt<PlainT> getNextBitShare() {
+    ensureInitialized();
+    if (randomBits.isEmpty()) {
+      logger.trace("Getting another bit batch");
+      randomBits.addAll(preprocessing.getRandomBits(batchSize));
+      logger.trace("Got another bit batch");
+    }
+    return randomBits.pop();
+  }
+
+  @Override
+  public PlainT getSecretSharedKey() {
+    return macKeyShare;
+  }
+
+  @Override
+  public Spdz2kSInt<PlainT> getNextRandomElementShare() {
+    ensureInitialized();
+    if (randomElements.isEmpty()) {
+      logger.trace("Getting another random element batch");
+      randomElements.addAll(preprocessing.getRandomElements(batchSize));
+      logger.trace("Got another random element batch");
+    }
+    return randomElements.pop();
+  }
+
+  /**
+   * Stops the background generation of triples. Triples already generated can still be used.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    if (tripleProducer != null) {
+      tripleProducer.interrupt();
+    }
+  }
+
+  private void ensureInitialized() {
+    if (preprocessing != null) {
+      return;
+    }
+    preprocessing = new Spdz2kPassiveOtPreprocessing<>(myId, noOfParties, 1, network.get(),
+        factory, macKeyShare, seedOts, prgSeedLength, lambdaSecurityParam, drbg);
+  }
+
+  private void ensureTripleProducerStarted() {
+    if (tripleProducer != null) {
+      return;
+    }
+    if (closed) {
+      throw new IllegalStateException("Supplier has been closed");
+    }
+    tripleProducer = new Thread(this::produceTriples, "Spdz2k-triple-producer-" + myId);
+    tripleProducer.setDaemon(true);
+    tripleProducer.start();
+  }
+
+  private void produceTriples() {
+    try {
+      Spdz2kPassiveOtPreprocessing<PlainT> triplePreprocessing =
+          new Spdz2kPassiveOtPreprocessing<>(myId, noOfParties, 2, tripleNetwork.get(), factory,
+              macKeyShare, seedOts, prgSeedLength, lambdaSecurityParam, tripleDrbg);
+      while (!closed) {
+        logger.trace("Getting another triple batch");
+        List<Spdz2kTriple<PlainT>> batch = triplePreprocessing.getTriples(tripleBatchSize);
+        logger.trace("Got another triple batch");
+        for (Spdz2kTriple<PlainT> triple : batch) {
+          triples.put(triple);
+        }
+      }
+    } catch (InterruptedException e) {
+      logger.debug("Triple producer interrupted");
+    } catch (RuntimeException e) {
+      if (!closed) {
+        logger.error("Triple producer failed", e);
+        tripleProducerFailure = e;
+      }
+    }
+  }
+
+}
@@ -15,11 +15,13 @@ import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
 import dk.alexandra.fresco.suite.ProtocolSuiteNumeric;
 import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePool;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public abstract class AbstractSpdz2kTest<Spdz2kResourcePoolT extends Spdz2kResourcePool<?>> {
 
@@ -36,17 +38,26 @@ public abstract class AbstractSpdz2kTest<Spdz2kResourcePoolT extends Spdz2kResou
   protected void runTest(
       TestThreadFactory<Spdz2kResourcePoolT, ProtocolBuilderNumeric> f,
       EvaluationStrategy evalStrategy, int noOfParties) {
-    List<Integer> ports = NetworkUtil.getFreePorts(2 * noOfParties);
+    int noOfPreprocessingNetworks = getNoOfPreprocessingNetworks();
+    List<Integer> ports = NetworkUtil.getFreePorts((2 + noOfPreprocessingNetworks) * noOfParties);
     Map<Integer, NetworkConfiguration> netConf =
         NetworkUtil.getNetworkConfigurations(ports.subList(0, noOfParties));
     Map<Integer, NetworkConfiguration> coinTossingNetConf = NetworkUtil
-        .getNetworkConfigurations(ports.subList(noOfParties, ports.size()));
+        .getNetworkConfigurations(ports.subList(noOfParties, 2 * noOfParties));
+    List<Map<Integer, NetworkConfiguration>> preprocessingNetConfs = new ArrayList<>();
+    for (int i = 2; i < 2 + noOfPreprocessingNetworks; i++) {
+      preprocessingNetConfs.add(NetworkUtil
+          .getNetworkConfigurations(ports.subList(i * noOfParties, (i + 1) * noOfParties)));
+    }
 
     Map<Integer, TestThreadRunner.TestThreadConfiguration<Spdz2kResourcePoolT, ProtocolBuilderNumeric>> conf =
         new HashMap<>();
     for (int playerId : netConf.keySet()) {
       NetworkConfiguration partyNetConf = netConf.get(playerId);
       NetworkConfiguration coinTossingPartyNetConf = coinTossingNetConf.get(playerId);
+      List<NetworkConfiguration> preprocessingPartyNetConfs = preprocessingNetConfs.stream()
+          .map(confs -> confs.get(playerId))
+          .collect(Collectors.toList());
       ProtocolSuiteNumeric<Spdz2kResourcePoolT> ps = createProtocolSuite();
       BatchEvaluationStrategy<Spdz2kResourcePoolT> batchEvaluationStrategy =
           evalStrategy.getStrategy();
@@ -60,7 +71,7 @@ public abstract class AbstractSpdz2kTest<Spdz2kResourcePoolT extends Spdz2kResou
           new TestThreadRunner.TestThreadConfiguration<>(
               sce,
               () -> createResourcePool(playerId, noOfParties,
-                  () -> new SocketNetwork(coinTossingPartyNetConf)),
+                  () -> new SocketNetwork(coinTossingPartyNetConf), preprocessingPartyNetConfs),
               () -> new SocketNetwork(partyNetConf));
 
       conf.put(playerId, ttc);
@@ -71,6 +82,26 @@ public abstract class AbstractSpdz2kTest<Spdz2kResourcePoolT extends Spdz2kResou
   protected abstract Spdz2kResourcePoolT createResourcePool(int playerId, int noOfParties,
       Supplier<Network> networkSupplier);
 
+  /**
+   * Creates the resource pool of a party that needs additional networks to generate its
+   * pre-processing material. By default the additional networks are ignored.
+   *
+   * @param preprocessingNetConfs configurations of the additional networks of this party, as many
+   *     as returned by {@link #getNoOfPreprocessingNetworks()}
+   */
+  protected Spdz2kResourcePoolT createResourcePool(int playerId, int noOfParties,
+      Supplier<Network> networkSupplier, List<NetworkConfiguration> preprocessingNetConfs) {
+    return createResourcePool(playerId, noOfParties, networkSupplier);
+  }
+
+  /**
+   * Returns the number of additional networks each party needs for generating pre-processing
+   * material.
+   */
+  protected int getNoOfPreprocessingNetworks() {
+    return 0;
+  }
+
   protected abstract ProtocolSuiteNumeric<Spdz2kResourcePoolT> createProtocolSuite();
 
 }
@@ -0,0 +1,138 @@
+package dk.alexandra.fresco.suite.spdz2k;
+
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.ProtocolSuiteNumeric;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128Factory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePool;
+import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePoolImpl;
+import dk.alexandra.fresco.suite.spdz2k.resource.storage.Spdz2kOpenedValueStoreImpl;
+import dk.alexandra.fresco.suite.spdz2k.resource.storage.Spdz2kPassiveOtDataSupplier;
+import dk.alexandra.fresco.tools.ot.base.DummyOt;
+import dk.alexandra.fresco.tools.ot.base.Ot;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Runs a selection of the arithmetic tests with pre-processing material generated by {@link
+ * Spdz2kPassiveOtDataSupplier}.
+ */
+public class TestSpdz2kBasicArithmetic128PassiveOt
+    extends AbstractSpdz2kTest<Spdz2kResourcePool<CompUInt128>> {
+
+  private static final int PRG_SEED_LENGTH = 256;
+  private final List<Closeable> toClose = Collections.synchronizedList(new ArrayList<>());
+
+  @After
+  public void closeSuppliers() throws IOException {
+    synchronized (toClose) {
+      for (Closeable closeable : toClose) {
+        closeable.close();
+      }
+      toClose.clear();
+    }
+  }
+
+  @Test
+  public void testInput() {
+    runTest(new BasicArithmeticTests.TestInput<>(), EvaluationStrategy.SEQUENTIAL_BATCHED);
+  }
+
+  @Test
+  public void testMultiply() {
+    runTest(new BasicArithmeticTests.TestMultiply<>(), EvaluationStrategy.SEQUENTIAL_BATCHED);
+  }
+
+  @Test
+  public void testSumAndMult() {
+    runTest(new BasicArithmeticTests.TestSumAndMult<>(), EvaluationStrategy.SEQUENTIAL_BATCHED);
+  }
+
+  @Test
+  public void testRandomBit() {
+    runTest(new BasicArithmeticTests.TestRandomBit<>(), EvaluationStrategy.SEQUENTIAL_BATCHED);
+  }
+
+  @Test
+  public void testRandomElement() {
+    runTest(new BasicArithmeticTests.TestRandomElement<>(), EvaluationStrategy.SEQUENTIAL_BATCHED);
+  }
+
+  @Override
+  protected int getNoOfPreprocessingNetworks() {
+    return 2;
+  }
+
+  @Override
+  protected Spdz2kResourcePool<CompUInt128> createResourcePool(int playerId, int noOfParties,
+      Supplier<Network> networkSupplier) {
+    throw new UnsupportedOperationException("Pre-processing networks are required");
+  }
+
+  @Override
+  protected Spdz2kResourcePool<CompUInt128> createResourcePool(int playerId, int noOfParties,
+      Supplier<Network> networkSupplier, List<NetworkConfiguration> preprocessingNetConfs) {
+    CompUIntFactory<CompUInt128> factory = new CompUInt128Factory();
+    SocketNetwork network = new SocketNetwork(preprocessingNetConfs.get(0));
+    SocketNetwork tripleNetwork = new SocketNetwork(preprocessingNetConfs.get(1));
+    Drbg drbg = new AesCtrDrbg();
+    Spdz2kPassiveOtDataSupplier<CompUInt128> supplier = new Spdz2kPassiveOtDataSupplier<>(playerId,
+        noOfParties, () -> network, () -> tripleNetwork, factory, factory.createRandom(),
+        getSeedOts(playerId, noOfParties, drbg, network), PRG_SEED_LENGTH, 64, 16, 64, 128, drbg);
+    // the supplier must be closed before the networks
+    toClose.add(supplier);
+    toClose.add(network);
+    toClose.add(tripleNetwork);
+    Spdz2kResourcePool<CompUInt128> resourcePool =
+        new Spdz2kResourcePoolImpl<>(
+            playerId,
+            noOfParties, null,
+            new Spdz2kOpenedValueStoreImpl<>(),
+            supplier,
+            factory);
+    resourcePool.initializeJointRandomness(networkSupplier, AesCtrDrbg::new, 32);
+    return resourcePool;
+  }
+
+  private Map<Integer, RotList> getSeedOts(int myId, int noOfParties, Drbg drbg,
+      Network network) {
+    Map<Integer, RotList> seedOts = new HashMap<>();
+    for (int otherId = 1; otherId <= noOfParties; otherId++) {
+      if (myId != otherId) {
+        Ot ot = new DummyOt(otherId, network);
+        RotList currentSeedOts = new RotList(drbg, PRG_SEED_LENGTH);
+        if (myId < otherId) {
+          currentSeedOts.send(ot);
+          currentSeedOts.receive(ot);
+        } else {
+          currentSeedOts.receive(ot);
+          currentSeedOts.send(ot);
+        }
+        seedOts.put(otherId, currentSeedOts);
+      }
+    }
+    return seedOts;
+  }
+
+  @Override
+  protected ProtocolSuiteNumeric<Spdz2kResourcePool<CompUInt128>> createProtocolSuite() {
+    return new Spdz2kProtocolSuiteK64();
+  }
+
+}
@@ -0,0 +1,185 @@
+package dk.alexandra.fresco.suite.spdz2k.resource.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.NetworkUtil;
+import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128Factory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.tools.ot.base.DummyOt;
+import dk.alexandra.fresco.tools.ot.base.Ot;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class TestSpdz2kPassiveOtDataSupplier {
+
+  private static final int PRG_SEED_LENGTH = 256;
+  private static final int NUM_TRIPLES = 20;
+  private static final int NUM_ELEMENTS = 10;
+
+  @Test
+  public void testTwoParties() throws Exception {
+    testSupplier(2);
+  }
+
+  @Test
+  public void testThreeParties() throws Exception {
+    testSupplier(3);
+  }
+
+  private void testSupplier(int noOfParties) throws Exception {
+    List<Integer> ports = NetworkUtil.getFreePorts(2 * noOfParties);
+    Map<Integer, NetworkConfiguration> confs =
+        NetworkUtil.getNetworkConfigurations(ports.subList(0, noOfParties));
+    Map<Integer, NetworkConfiguration> tripleConfs =
+        NetworkUtil.getNetworkConfigurations(ports.subList(noOfParties, ports.size()));
+    ExecutorService executor = Executors.newFixedThreadPool(noOfParties);
+    List<Future<Material>> futures = new ArrayList<>(noOfParties);
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      NetworkConfiguration conf = confs.get(partyId);
+      NetworkConfiguration tripleConf = tripleConfs.get(partyId);
+      futures.add(executor.submit(() -> generate(conf, tripleConf)));
+    }
+    List<Material> materials = new ArrayList<>(noOfParties);
+    for (Future<Material> future : futures) {
+      materials.add(future.get());
+    }
+    executor.shutdown();
+    CompUInt128 macKey = materials.stream().map(m -> m.macKeyShare)
+        .reduce(CompUInt128::add).get();
+    for (int i = 0; i < NUM_TRIPLES; i++) {
+      List<Spdz2kSInt<CompUInt128>> left = new ArrayList<>(noOfParties);
+      List<Spdz2kSInt<CompUInt128>> right = new ArrayList<>(noOfParties);
+      List<Spdz2kSInt<CompUInt128>> products = new ArrayList<>(noOfParties);
+      for (Material material : materials) {
+        Spdz2kTriple<CompUInt128> triple = material.triples.get(i);
+        left.add(triple.getLeft());
+        right.add(triple.getRight());
+        products.add(triple.getProduct());
+      }
+      Spdz2kSInt<CompUInt128> a = recombine(left);
+      Spdz2kSInt<CompUInt128> b = recombine(right);
+      Spdz2kSInt<CompUInt128> c = recombine(products);
+      assertMacCorrect(a, macKey);
+      assertMacCorrect(b, macKey);
+      assertMacCorrect(c, macKey);
+      assertEquals(a.getShare().multiply(b.getShare()).toBigInteger(),
+          c.getShare().toBigInteger());
+    }
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      List<Spdz2kSInt<CompUInt128>> bitShares = new ArrayList<>(noOfParties);
+      List<Spdz2kSInt<CompUInt128>> elementShares = new ArrayList<>(noOfParties);
+      for (Material material : materials) {
+        bitShares.add(material.bits.get(i));
+        elementShares.add(material.elements.get(i));
+      }
+      Spdz2kSInt<CompUInt128> bit = recombine(bitShares);
+      BigInteger bitValue = bit.getShare().toBigInteger();
+      assertTrue("Not a bit " + bitValue,
+          bitValue.equals(BigInteger.ZERO) || bitValue.equals(BigInteger.ONE));
+      assertMacCorrect(bit, macKey);
+      assertMacCorrect(recombine(elementShares), macKey);
+    }
+    for (int inputter = 1; inputter <= noOfParties; inputter++) {
+      for (int i = 0; i < NUM_ELEMENTS; i++) {
+        List<Spdz2kSInt<CompUInt128>> maskShares = new ArrayList<>(noOfParties);
+        CompUInt128 openValue = null;
+        for (int partyId = 1; partyId <= noOfParties; partyId++) {
+          Spdz2kInputMask<CompUInt128> mask =
+              materials.get(partyId - 1).masks.get(inputter).get(i);
+          if (partyId == inputter) {
+            openValue = mask.getOpenValue();
+          } else {
+            assertNull(mask.getOpenValue());
+          }
+          maskShares.add(mask.getMaskShare());
+        }
+        Spdz2kSInt<CompUInt128> recombined = recombine(maskShares);
+        assertMacCorrect(recombined, macKey);
+        assertEquals(openValue.toBigInteger(), recombined.getShare().toBigInteger());
+      }
+    }
+  }
+
+  private Material generate(NetworkConfiguration conf, NetworkConfiguration tripleConf)
+      throws IOException {
+    int myId = conf.getMyId();
+    int noOfParties = conf.noOfParties();
+    CompUInt128Factory factory = new CompUInt128Factory();
+    Drbg drbg = new AesCtrDrbg();
+    try (SocketNetwork network = new SocketNetwork(conf);
+        SocketNetwork tripleNetwork = new SocketNetwork(tripleConf)) {
+      Map<Integer, RotList> seedOts = new HashMap<>();
+      for (int otherId = 1; otherId <= noOfParties; otherId++) {
+        if (otherId != myId) {
+          Ot ot = new DummyOt(otherId, network);
+          RotList currentSeedOts = new RotList(drbg, PRG_SEED_LENGTH);
+          if (myId < otherId) {
+            currentSeedOts.send(ot);
+            currentSeedOts.receive(ot);
+          } else {
+            currentSeedOts.receive(ot);
+            currentSeedOts.send(ot);
+          }
+          seedOts.put(otherId, currentSeedOts);
+        }
+      }
+      Material material = new Material();
+      material.macKeyShare = factory.createRandom();
+      // small batches to test that several batches are generated
+      Spdz2kPassiveOtDataSupplier<CompUInt128> supplier = new Spdz2kPassiveOtDataSupplier<>(myId,
+          noOfParties, () -> network, () -> tripleNetwork, factory, material.macKeyShare, seedOts,
+          PRG_SEED_LENGTH, 64, 4, 8, 16, drbg);
+      for (int i = 0; i < NUM_TRIPLES; i++) {
+        material.triples.add(supplier.getNextTripleShares());
+      }
+      for (int i = 0; i < NUM_ELEMENTS; i++) {
+        material.bits.add(supplier.getNextBitShare());
+        material.elements.add(supplier.getNextRandomElementShare());
+        for (int partyId = 1; partyId <= noOfParties; partyId++) {
+          material.masks.computeIfAbsent(partyId, id -> new ArrayList<>())
+              .add(supplier.getNextInputMask(partyId));
+        }
+      }
+      supplier.close();
+      return material;
+    }
+  }
+
+  private static Spdz2kSInt<CompUInt128> recombine(List<Spdz2kSInt<CompUInt128>> shares) {
+    return shares.stream().reduce(Spdz2kSInt::add).get();
+  }
+
+  private static void assertMacCorrect(Spdz2kSInt<CompUInt128> recombined, CompUInt128 macKey) {
+    assertArrayEquals(macKey.multiply(recombined.getShare()).toByteArray(),
+        recombined.getMacShare().toByteArray());
+  }
+
+  private static class Material {
+
+    private CompUInt128 macKeyShare;
+    private final List<Spdz2kTriple<CompUInt128>> triples = new ArrayList<>();
+    private final List<Spdz2kSInt<CompUInt128>> bits = new ArrayList<>();
+    private final List<Spdz2kSInt<CompUInt128>> elements = new ArrayList<>();
+    private final Map<Integer, List<Spdz2kInputMask<CompUInt128>>> masks = new HashMap<>();
+  }
+
+}
@@ -11,6 +11,8 @@ import dk.alexandra.fresco.suite.tinytables.online.protocols.TinyTablesNOTProtoc
 import dk.alexandra.fresco.suite.tinytables.online.protocols.TinyTablesOpenToAllProtocol;
 import dk.alexandra.fresco.suite.tinytables.online.protocols.TinyTablesXORProtocol;
 import dk.alexandra.fresco.suite.tinytables.prepro.TinyTablesPreproProtocolSuite;
+import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesOnlineStorage;
+import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesPackedStorage;
 import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesStorage;
 import java.io.File;
 import java.io.FileInputStream;
@@ -45,7 +47,7 @@ public class TinyTablesProtocolSuite
     implements ProtocolSuite<ResourcePoolImpl, ProtocolBuilderBinary> {
 
   private final File tinyTablesFile;
-  private TinyTablesStorage storage;
+  private TinyTablesOnlineStorage storage;
   private static volatile Map<Integer, TinyTablesProtocolSuite> instances = new HashMap<>();
   private static final Logger logger = LoggerFactory.getLogger(TinyTablesProtocolSuite.class);
 
@@ -66,7 +68,13 @@ public class TinyTablesProtocolSuite
     return b;
   }
 
-  private TinyTablesStorage loadTinyTables(File file) throws IOException, ClassNotFoundException {
+  private TinyTablesOnlineStorage loadTinyTables(File file)
+      throws IOException, ClassNotFoundException {
+    if (TinyTablesPackedStorage.isPackedStorage(file)) {
+      logger.info("Mapping TinyTables from " + file);
+      return TinyTablesPackedStorage.open(file);
+    }
+    // TinyTables stored by earlier versions are serialized Java objects
     FileInputStream fin = new FileInputStream(file);
     ObjectInputStream is = new ObjectInputStream(fin);
     logger.info("Loading TinyTabels from " + file);
@@ -75,7 +83,7 @@ public class TinyTablesProtocolSuite
     return storage;
   }
 
-  public TinyTablesStorage getStorage() {
+  public TinyTablesOnlineStorage getStorage() {
     return this.storage;
   }
 
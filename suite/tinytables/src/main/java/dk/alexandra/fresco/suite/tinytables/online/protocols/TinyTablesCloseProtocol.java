@@ -39,8 +39,8 @@ public class TinyTablesCloseProtocol extends TinyTablesProtocol<SBool> {
     TinyTablesProtocolSuite ps = TinyTablesProtocolSuite.getInstance(resourcePool.getMyId());
     if (round == 0) {
       if (resourcePool.getMyId() == this.inputter) {
-        TinyTablesElement r = ps.getStorage().getMaskShare(id);
-        TinyTablesElement e = TinyTablesElement.getInstance(this.in ^ r.getShare());
+        boolean r = ps.getStorage().getShare(id);
+        TinyTablesElement e = TinyTablesElement.getInstance(this.in ^ r);
         network.sendToAll(new byte[]{BooleanSerializer.toBytes(e.getShare())});
       }
       return EvaluationStatus.HAS_MORE_ROUNDS;
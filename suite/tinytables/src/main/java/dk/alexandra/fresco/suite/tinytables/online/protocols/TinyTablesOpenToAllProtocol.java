@@ -46,8 +46,8 @@ public class TinyTablesOpenToAllProtocol extends TinyTablesProtocol<Boolean> {
      * and all the shares of the mask.
      */
     if (round == 0) {
-      TinyTablesElement myR = ps.getStorage().getMaskShare(id);
-      network.sendToAll(new byte[]{BooleanSerializer.toBytes(myR.getShare())});
+      boolean myR = ps.getStorage().getShare(id);
+      network.sendToAll(new byte[]{BooleanSerializer.toBytes(myR)});
       return EvaluationStatus.HAS_MORE_ROUNDS;
     } else {
       // round > 0
@@ -6,7 +6,7 @@ import dk.alexandra.fresco.framework.builder.binary.ProtocolBuilderBinary;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.suite.ProtocolSuite;
 import dk.alexandra.fresco.suite.tinytables.online.TinyTablesProtocolSuite;
-import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesStorage;
+import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesPackedStorageWriter;
 
 /**
  * <p>
@@ -26,8 +26,9 @@ import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesStorage;
  * </p>
  *
  * <p>
- * The masking values and TinyTables are stored in a {@link TinyTablesStorage} which can be stored
- * for later use in the online phase. In order to avoid leaks, you should not reuse the values from
+ * The masking values and TinyTables are written to a file by a {@link
+ * TinyTablesPackedStorageWriter} as they are computed, and the file is memory mapped by the online
+ * phase. In order to avoid leaks, you should not reuse the values from
  * a preprocessing in multiple evaluations of a protocol, but should instead preprocess once per
  * evaluation. Note that all the values calculated during the preprocessing phase is saved with a
  * protocols ID as key, which is simply incremented on each created protocol, it is important that
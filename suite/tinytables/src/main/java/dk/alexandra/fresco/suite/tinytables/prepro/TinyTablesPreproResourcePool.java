@@ -16,21 +16,17 @@ import dk.alexandra.fresco.suite.tinytables.ot.TinyTablesOt;
 import dk.alexandra.fresco.suite.tinytables.prepro.protocols.TinyTablesPreproANDProtocol;
 import dk.alexandra.fresco.suite.tinytables.prepro.protocols.TinyTablesPreproProtocol;
 import dk.alexandra.fresco.suite.tinytables.storage.BatchTinyTablesTripleProvider;
-import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesStorage;
-import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesStorageImpl;
+import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesPackedStorageWriter;
 import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesTripleProvider;
-import dk.alexandra.fresco.suite.tinytables.util.TinyTablesTripleGenerator;
+import dk.alexandra.fresco.suite.tinytables.util.TinyTablesRotTripleGenerator;
+import dk.alexandra.fresco.suite.tinytables.util.TripleGenerator;
 import dk.alexandra.fresco.suite.tinytables.util.Util;
 import dk.alexandra.fresco.tools.cointossing.CoinTossing;
-import dk.alexandra.fresco.tools.ot.otextension.BristolOtFactory;
 import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePool;
 import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePoolImpl;
 import dk.alexandra.fresco.tools.ot.otextension.RotFactory;
 import dk.alexandra.fresco.tools.ot.otextension.RotList;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -47,7 +43,7 @@ public class TinyTablesPreproResourcePool extends ResourcePoolImpl {
 
   private final Drng drng;
   private final List<TinyTablesPreproANDProtocol> unprocessedAnds;
-  private final TinyTablesStorage storage;
+  private final TinyTablesPackedStorageWriter storage;
   private final File tinyTablesFile;
   private final Supplier<TinyTablesTripleProvider> supplier;
   private TinyTablesTripleProvider tinyTablesTripleProvider;
@@ -59,7 +55,7 @@ public class TinyTablesPreproResourcePool extends ResourcePoolImpl {
    * @param myId The ID of the MPC party.
    * @param baseOt OT functionality for the base OTs
    * @param drbg Secure bit randomness generator
-   * @param otBatchSize The amount of OTs to preprocess in a batch
+   * @param otBatchSize Not used, the OTs for a batch of triples are extended at once
    * @param tinyTablesFile file for data
    */
   public TinyTablesPreproResourcePool(int myId, TinyTablesOt baseOt, Drbg drbg,
@@ -67,7 +63,7 @@ public class TinyTablesPreproResourcePool extends ResourcePoolImpl {
       int otBatchSize, File tinyTablesFile, Supplier<Network> network) {
     super(myId, 2);
     this.unprocessedAnds = Collections.synchronizedList(new ArrayList<>());
-    this.storage = new TinyTablesStorageImpl();
+    this.storage = new TinyTablesPackedStorageWriter(tinyTablesFile);
     this.tinyTablesFile = tinyTablesFile;
     this.drng = new DrngImpl(drbg);
     this.supplier = () -> {
@@ -87,12 +83,10 @@ public class TinyTablesPreproResourcePool extends ResourcePoolImpl {
         rotList.send(baseOt);
       }
       ct.initialize(network.get());
-      // Setup the OT extension
+      // Setup the OT extension, each batch of triples is generated from a single extension
       RotFactory rotFactory = new RotFactory(otExtRes, network.get());
-      BristolOtFactory otFactory = new BristolOtFactory(rotFactory, otExtRes, network.get(),
-          otBatchSize);
-      TinyTablesTripleGenerator generator =
-          new TinyTablesTripleGenerator(getMyId(), getDrng(), otFactory);
+      TripleGenerator generator = new TinyTablesRotTripleGenerator(getMyId(), drbg,
+          rotFactory, computationalSecurity, statisticalSecurity);
       return new BatchTinyTablesTripleProvider(generator, TRIP_BATCH_SIZE);
     };
   }
@@ -172,24 +166,17 @@ public class TinyTablesPreproResourcePool extends ResourcePoolImpl {
       tinyTablesTripleProvider.close();
     }
     /*
-     * Store the TinyTables to a file.
+     * The TinyTables are streamed to the file during preprocessing, so only the remaining pages and
+     * the header has to be written.
      */
     ExceptionConverter.safe(() -> {
-      storeTinyTables(storage, tinyTablesFile);
+      storage.close();
       LOGGER.info("TinyTables stored to " + tinyTablesFile);
       return null;
     }, "Failed to store TinyTables");
   }
 
-  private void storeTinyTables(TinyTablesStorage tinyTablesStorage, File file) throws IOException {
-    file.createNewFile();
-    FileOutputStream fout = new FileOutputStream(file);
-    ObjectOutputStream oos = new ObjectOutputStream(fout);
-    oos.writeObject(tinyTablesStorage);
-    oos.close();
-  }
-
-  public TinyTablesStorage getStorage() {
+  public TinyTablesPackedStorageWriter getStorage() {
     return storage;
   }
 }
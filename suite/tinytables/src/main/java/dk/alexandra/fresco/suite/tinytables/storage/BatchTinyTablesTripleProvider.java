@@ -1,7 +1,7 @@
 package dk.alexandra.fresco.suite.tinytables.storage;
 
 import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesTriple;
-import dk.alexandra.fresco.suite.tinytables.util.TinyTablesTripleGenerator;
+import dk.alexandra.fresco.suite.tinytables.util.TripleGenerator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -18,10 +18,10 @@ public class BatchTinyTablesTripleProvider implements TinyTablesTripleProvider {
 
   private final static Logger logger = LoggerFactory.getLogger(BatchTinyTablesTripleProvider.class);
   private Queue<TinyTablesTriple> triples = new ConcurrentLinkedQueue<>();
-  private TinyTablesTripleGenerator generator;
+  private TripleGenerator generator;
   private int batchSize;
 
-  public BatchTinyTablesTripleProvider(TinyTablesTripleGenerator generator, int batchSize) {
+  public BatchTinyTablesTripleProvider(TripleGenerator generator, int batchSize) {
     this.generator = generator;
     this.batchSize = batchSize;
     generateNewTriples();
@@ -0,0 +1,169 @@
+package dk.alexandra.fresco.suite.tinytables.storage;
+
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTable;
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesElement;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * Read-only storage of TinyTables and mask shares in a packed file which is memory mapped, so the
+ * values are only read from disk when used by the online phase. Files in this format are written
+ * by {@link TinyTablesPackedStorageWriter}.
+ * </p>
+ *
+ * <p>
+ * The file starts with a header holding the number of protocol ids covered by the file. The header
+ * is followed by the TinyTables using four bits per id, two ids per byte with the lowest id in the
+ * least significant bits, and then the mask shares using one bit per id, eight ids per byte with
+ * the lowest id in the least significant bit. The file ends with two bits per id, four ids per
+ * byte, recording which ids have a TinyTable, bit <i>2(id mod 4)</i>, and which have a mask share,
+ * bit <i>2(id mod 4) + 1</i>. Ids without a TinyTable or a mask share are stored as zeros.
+ * </p>
+ */
+public class TinyTablesPackedStorage implements TinyTablesOnlineStorage {
+
+  static final int MAGIC = 0x54544253;
+  static final byte VERSION = 2;
+  static final int HEADER_LENGTH = Integer.BYTES + 1 + Integer.BYTES;
+  private static final TinyTable[] TABLES = new TinyTable[16];
+
+  static {
+    for (int i = 0; i < TABLES.length; i++) {
+      TinyTablesElement[] values = new TinyTablesElement[4];
+      for (int j = 0; j < values.length; j++) {
+        values[j] = TinyTablesElement.getInstance(((i >>> j) & 1) == 1);
+      }
+      TABLES[i] = new TinyTable(values);
+    }
+  }
+
+  private final int numberOfIds;
+  private final ByteBuffer tables;
+  private final ByteBuffer masks;
+  private final ByteBuffer stored;
+
+  private TinyTablesPackedStorage(int numberOfIds, ByteBuffer tables, ByteBuffer masks,
+      ByteBuffer stored) {
+    this.numberOfIds = numberOfIds;
+    this.tables = tables;
+    this.masks = masks;
+    this.stored = stored;
+  }
+
+  /**
+   * Memory maps a file written by {@link TinyTablesPackedStorageWriter}.
+   *
+   * @param file the file to map
+   * @return the storage backed by the file
+   * @throws IOException if the file cannot be read or is not in the packed format
+   */
+  public static TinyTablesPackedStorage open(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // keep reading until the header is complete
+      }
+      header.flip();
+      if (header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC
+          || header.get() != VERSION) {
+        throw new IOException("Not a packed TinyTables file: " + file);
+      }
+      int numberOfIds = header.getInt();
+      long tablesLength = tablesLength(numberOfIds);
+      long masksLength = masksLength(numberOfIds);
+      long storedLength = storedLength(numberOfIds);
+      if (channel.size() < HEADER_LENGTH + tablesLength + masksLength + storedLength) {
+        throw new IOException("Truncated TinyTables file: " + file);
+      }
+      // the mappings stay valid after the channel is closed
+      ByteBuffer tables = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, tablesLength);
+      ByteBuffer masks =
+          channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH + tablesLength, masksLength);
+      ByteBuffer stored = channel.map(FileChannel.MapMode.READ_ONLY,
+          HEADER_LENGTH + tablesLength + masksLength, storedLength);
+      return new TinyTablesPackedStorage(numberOfIds, tables, masks, stored);
+    }
+  }
+
+  /**
+   * Checks if the given file starts with the header of the packed format.
+   *
+   * @param file the file to check
+   * @return true if the file is in the packed format
+   * @throws IOException if the file cannot be read
+   */
+  public static boolean isPackedStorage(File file) throws IOException {
+    try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+      return file.length() >= HEADER_LENGTH && input.readInt() == MAGIC;
+    }
+  }
+
+  @Override
+  public TinyTable getTinyTable(int id) {
+    if (!isStored(id, 0)) {
+      return null;
+    }
+    return TABLES[(tables.get(id >>> 1) >>> ((id & 1) * 4)) & 0x0F];
+  }
+
+  @Override
+  public boolean getShare(int id) {
+    if (!isStored(id, 1)) {
+      throw new IllegalArgumentException("No mask share stored for id " + id);
+    }
+    return ((masks.get(id >>> 3) >>> (id & 7)) & 1) == 1;
+  }
+
+  private boolean isStored(int id, int kind) {
+    return id >= 0 && id < numberOfIds
+        && ((stored.get(id >>> 2) >>> (storedBit(id) + kind)) & 1) == 1;
+  }
+
+  /**
+   * Returns the number of protocol ids covered by this storage.
+   */
+  public int getNumberOfIds() {
+    return numberOfIds;
+  }
+
+  /**
+   * Encodes a TinyTable as four bits, where bit <i>2c + d</i> holds entry <i>(c, d)</i>.
+   */
+  static int encode(TinyTable table) {
+    int nibble = 0;
+    for (int i = 0; i < 4; i++) {
+      TinyTablesElement c = TinyTablesElement.getInstance((i & 2) != 0);
+      TinyTablesElement d = TinyTablesElement.getInstance((i & 1) != 0);
+      if (table.getValue(c, d).getShare()) {
+        nibble |= 1 << i;
+      }
+    }
+    return nibble;
+  }
+
+  static long tablesLength(int numberOfIds) {
+    return (numberOfIds + 1L) / 2;
+  }
+
+  static long masksLength(int numberOfIds) {
+    return (numberOfIds + 7L) / 8;
+  }
+
+  static long storedLength(int numberOfIds) {
+    return (numberOfIds + 3L) / 4;
+  }
+
+  /**
+   * Gets the position of the bit recording whether a TinyTable is stored for an id. The next bit
+   * records whether a mask share is stored.
+   */
+  static int storedBit(int id) {
+    return (id & 3) * 2;
+  }
+}
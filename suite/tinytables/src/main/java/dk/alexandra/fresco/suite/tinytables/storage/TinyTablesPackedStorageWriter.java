@@ -0,0 +1,246 @@
+package dk.alexandra.fresco.suite.tinytables.storage;
+
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTable;
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesElement;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Writes TinyTables and mask shares to a file in the format read by {@link
+ * TinyTablesPackedStorage} while the preprocessing phase is running.
+ * </p>
+ *
+ * <p>
+ * Values may be stored in any order of protocol ids. Only a bounded number of pages of the file is
+ * kept in memory, so the memory used does not grow with the size of the circuit. The mask shares
+ * and the record of which ids have values are kept in temporary files next to the target file until
+ * the writer is closed.
+ * </p>
+ */
+public class TinyTablesPackedStorageWriter implements Closeable {
+
+  static final int DEFAULT_PAGE_SIZE = 1 << 16;
+  static final int DEFAULT_CACHED_PAGES = 16;
+  private static final int HEADER_OFFSET = TinyTablesPackedStorage.HEADER_LENGTH;
+
+  private final File file;
+  private final int pageSize;
+  private final int cachedPages;
+  private PagedFile tables;
+  private PagedFile masks;
+  private PagedFile stored;
+  private int numberOfIds;
+  private boolean closed;
+
+  /**
+   * Creates a new writer for the given file. The file is not touched until the first value is
+   * stored.
+   *
+   * @param file the file to write to
+   */
+  public TinyTablesPackedStorageWriter(File file) {
+    this(file, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+  }
+
+  TinyTablesPackedStorageWriter(File file, int pageSize, int cachedPages) {
+    if (pageSize <= 0 || cachedPages <= 0) {
+      throw new IllegalArgumentException("Page size and number of cached pages must be positive");
+    }
+    this.file = file;
+    this.pageSize = pageSize;
+    this.cachedPages = cachedPages;
+  }
+
+  /**
+   * Store a {@link TinyTable} for the protocol with the given <code>id</code>.
+   *
+   * @param id the id of the protocol
+   * @param table the TinyTable
+   */
+  public synchronized void storeTinyTable(int id, TinyTable table) {
+    open();
+    int shift = (id & 1) * 4;
+    tables.update(HEADER_OFFSET + (id >>> 1), 0x0F << shift,
+        TinyTablesPackedStorage.encode(table) << shift);
+    markStored(id, 0);
+    numberOfIds = Math.max(numberOfIds, id + 1);
+  }
+
+  /**
+   * Store the mask share picked for the protocol with the given <code>id</code>.
+   *
+   * @param id the id of the protocol
+   * @param r the mask share
+   */
+  public synchronized void storeMaskShare(int id, TinyTablesElement r) {
+    open();
+    int bit = 1 << (id & 7);
+    masks.update(id >>> 3, bit, r.getShare() ? bit : 0);
+    markStored(id, 1);
+    numberOfIds = Math.max(numberOfIds, id + 1);
+  }
+
+  private void markStored(int id, int kind) {
+    int bit = 1 << (TinyTablesPackedStorage.storedBit(id) + kind);
+    stored.update(id >>> 2, bit, bit);
+  }
+
+  /**
+   * Returns the file written by this writer.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  private void open() {
+    if (closed) {
+      throw new IllegalStateException("Writer has been closed");
+    }
+    if (tables == null) {
+      try {
+        tables = new PagedFile(new RandomAccessFile(file, "rw"));
+        tables.file.setLength(0);
+        masks = new PagedFile(new RandomAccessFile(masksFile(), "rw"));
+        masks.file.setLength(0);
+        stored = new PagedFile(new RandomAccessFile(storedFile(), "rw"));
+        stored.file.setLength(0);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to open " + file, e);
+      }
+    }
+  }
+
+  private File masksFile() {
+    return new File(file.getPath() + ".masks");
+  }
+
+  private File storedFile() {
+    return new File(file.getPath() + ".stored");
+  }
+
+  /**
+   * Writes the remaining values and the header to the file. A writer which has not stored any
+   * values writes a file covering no ids.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    open();
+    closed = true;
+    try {
+      tables.flush();
+      masks.flush();
+      stored.flush();
+      long tablesEnd = HEADER_OFFSET + TinyTablesPackedStorage.tablesLength(numberOfIds);
+      tables.file.setLength(tablesEnd);
+      tables.file.seek(tablesEnd);
+      append(masks, TinyTablesPackedStorage.masksLength(numberOfIds));
+      append(stored, TinyTablesPackedStorage.storedLength(numberOfIds));
+      tables.file.seek(0);
+      tables.file.writeInt(TinyTablesPackedStorage.MAGIC);
+      tables.file.writeByte(TinyTablesPackedStorage.VERSION);
+      tables.file.writeInt(numberOfIds);
+    } finally {
+      tables.file.close();
+      masks.file.close();
+      stored.file.close();
+      masksFile().delete();
+      storedFile().delete();
+    }
+  }
+
+  /**
+   * Appends the first bytes of a temporary file to the end of the target file.
+   */
+  private void append(PagedFile source, long length) throws IOException {
+    source.file.seek(0);
+    byte[] buffer = new byte[pageSize];
+    long remaining = length;
+    while (remaining > 0) {
+      int toRead = (int) Math.min(buffer.length, remaining);
+      int read = source.file.read(buffer, 0, toRead);
+      if (read <= 0) {
+        // bytes never written are zero
+        Arrays.fill(buffer, 0, toRead, (byte) 0);
+        read = toRead;
+      }
+      tables.file.write(buffer, 0, read);
+      remaining -= read;
+    }
+  }
+
+  /**
+   * A file which is read and written through a bounded cache of pages, evicting the least recently
+   * used page when the cache is full.
+   */
+  private class PagedFile {
+
+    private final RandomAccessFile file;
+    private final LinkedHashMap<Long, byte[]> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+    private PagedFile(RandomAccessFile file) {
+      this.file = file;
+    }
+
+    private void update(long position, int mask, int value) {
+      byte[] page = getPage(position / pageSize);
+      int offset = (int) (position % pageSize);
+      page[offset] = (byte) ((page[offset] & ~mask) | (value & mask));
+    }
+
+    private byte[] getPage(long index) {
+      byte[] page = pages.get(index);
+      if (page == null) {
+        try {
+          if (pages.size() >= cachedPages) {
+            Iterator<Map.Entry<Long, byte[]>> eldest = pages.entrySet().iterator();
+            Map.Entry<Long, byte[]> entry = eldest.next();
+            writePage(entry.getKey(), entry.getValue());
+            eldest.remove();
+          }
+          page = readPage(index);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Unable to access " + getFile(), e);
+        }
+        pages.put(index, page);
+      }
+      return page;
+    }
+
+    private byte[] readPage(long index) throws IOException {
+      byte[] page = new byte[pageSize];
+      long position = index * pageSize;
+      if (position < file.length()) {
+        file.seek(position);
+        int offset = 0;
+        int read;
+        while (offset < pageSize && (read = file.read(page, offset, pageSize - offset)) > 0) {
+          offset += read;
+        }
+      }
+      return page;
+    }
+
+    private void writePage(long index, byte[] page) throws IOException {
+      file.seek(index * pageSize);
+      file.write(page);
+    }
+
+    private void flush() throws IOException {
+      for (Map.Entry<Long, byte[]> entry : pages.entrySet()) {
+        writePage(entry.getKey(), entry.getValue());
+      }
+      pages.clear();
+    }
+  }
+}
@@ -11,7 +11,7 @@ import java.io.Serializable;
  * @author Jonas Lindstrøm (jonas.lindstrom@alexandra.dk)
  *
  */
-public interface TinyTablesStorage extends Serializable {
+public interface TinyTablesStorage extends TinyTablesOnlineStorage, Serializable {
 
 	/**
 	 * Store a {@link TinyTable} for the protocol with the given <code>id</code>
@@ -34,4 +34,9 @@ public class TinyTablesStorageImpl implements TinyTablesStorage {
 		return maskShares.get(id);
 	}
 
+	@Override
+	public boolean getShare(int id) {
+		return maskShares.get(id).getShare();
+	}
+
 }
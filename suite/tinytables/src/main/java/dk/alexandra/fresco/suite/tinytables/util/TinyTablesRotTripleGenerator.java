@@ -0,0 +1,98 @@
+package dk.alexandra.fresco.suite.tinytables.util;
+
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesTriple;
+import dk.alexandra.fresco.tools.ot.otextension.BristolRotBatch;
+import dk.alexandra.fresco.tools.ot.otextension.RotFactory;
+import dk.alexandra.fresco.tools.ot.otextension.RotReceiver;
+import dk.alexandra.fresco.tools.ot.otextension.RotSender;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Generates multiplication triples directly from a single random OT extension per batch, instead of
+ * doing two separate OTs per triple like {@link TinyTablesTripleGenerator}.
+ * </p>
+ *
+ * <p>
+ * Player 1 acts as sender and player 2 as receiver in two random OTs per triple. In a random OT
+ * with messages <i>s<sub>0</sub>, s<sub>1</sub></i> and random choice bit <i>c</i> the receiver
+ * learns <i>s<sub>c</sub> = s<sub>0</sub> + c(s<sub>0</sub> + s<sub>1</sub>)</i>, which is an
+ * additive sharing of the product of the sender's random bit <i>s<sub>0</sub> + s<sub>1</sub></i>
+ * and the receivers choice <i>c</i>. The first OT of a triple shares the cross term
+ * <i>a<sub>1</sub>b<sub>2</sub></i> and the second shares <i>a<sub>2</sub>b<sub>1</sub></i>, so
+ * apart from the OT extension itself no messages are exchanged.
+ * </p>
+ */
+public class TinyTablesRotTripleGenerator implements TripleGenerator {
+
+  private final int playerId;
+  private final Drbg drbg;
+  private final RotFactory rotFactory;
+  private final int computationalSecurity;
+  private final int statisticalSecurity;
+  private RotSender sender;
+  private RotReceiver receiver;
+
+  /**
+   * Creates a new triple generator.
+   *
+   * @param playerId the id of the player to generate triples for
+   * @param drbg a source of randomness for the choice bits of the receiver
+   * @param rotFactory factory for the random OT extension between the two players
+   * @param computationalSecurity the computational security parameter of the OT extension
+   * @param statisticalSecurity the statistical security parameter of the OT extension
+   */
+  public TinyTablesRotTripleGenerator(int playerId, Drbg drbg, RotFactory rotFactory,
+      int computationalSecurity, int statisticalSecurity) {
+    this.playerId = playerId;
+    this.drbg = drbg;
+    this.rotFactory = rotFactory;
+    this.computationalSecurity = computationalSecurity;
+    this.statisticalSecurity = statisticalSecurity;
+  }
+
+  /**
+   * Generate new multiplication triples (a,b,c). The two players need to call this method at the
+   * same time and with the same amount parameter.
+   */
+  @Override
+  public List<TinyTablesTriple> generate(int amount) {
+    int size = BristolRotBatch.computeExtensionSize(2 * amount, computationalSecurity,
+        statisticalSecurity);
+    List<TinyTablesTriple> triples = new ArrayList<>(amount);
+    if (playerId == 1) {
+      if (sender == null) {
+        sender = rotFactory.createSender();
+      }
+      Pair<List<StrictBitVector>, List<StrictBitVector>> messages = sender.extend(size);
+      List<StrictBitVector> zeroMessages = messages.getFirst();
+      List<StrictBitVector> oneMessages = messages.getSecond();
+      for (int i = 0; i < amount; i++) {
+        boolean x = zeroMessages.get(2 * i).getBit(0);
+        boolean a = x ^ oneMessages.get(2 * i).getBit(0);
+        boolean y = zeroMessages.get(2 * i + 1).getBit(0);
+        boolean b = y ^ oneMessages.get(2 * i + 1).getBit(0);
+        triples.add(TinyTablesTriple.fromShares(a, b, a & b ^ x ^ y));
+      }
+    }
+    if (playerId == 2) {
+      if (receiver == null) {
+        receiver = rotFactory.createReceiver();
+      }
+      StrictBitVector choices = new StrictBitVector(size, drbg);
+      List<StrictBitVector> messages = receiver.extend(choices);
+      for (int i = 0; i < amount; i++) {
+        // The choice bits of the two OTs are our shares of b and a respectively
+        boolean b = choices.getBit(2 * i, false);
+        boolean a = choices.getBit(2 * i + 1, false);
+        boolean c = messages.get(2 * i).getBit(0) ^ messages.get(2 * i + 1).getBit(0) ^ a & b;
+        triples.add(TinyTablesTriple.fromShares(a, b, c));
+      }
+    }
+    return triples;
+  }
+}
@@ -7,7 +7,10 @@ import dk.alexandra.fresco.tools.ot.base.Ot;
 import java.util.ArrayList;
 import java.util.List;
 
-public class TinyTablesTripleGenerator {
+/**
+ * Generates multiplication triples using two OTs per triple.
+ */
+public class TinyTablesTripleGenerator implements TripleGenerator {
 
   private final int playerId;
   private final Ot ot;
@@ -30,6 +33,7 @@ public class TinyTablesTripleGenerator {
    * Generate new multiplication triples (a,b,c). The two players need to call this method at the
    * same time and with the same amount parameter.
    */
+  @Override
   public List<TinyTablesTriple> generate(int amount) {
 
     List<TinyTablesTriple> triples = new ArrayList<>();
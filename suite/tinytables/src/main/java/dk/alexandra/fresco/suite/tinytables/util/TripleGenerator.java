@@ -0,0 +1,19 @@
+package dk.alexandra.fresco.suite.tinytables.util;
+
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesTriple;
+import java.util.List;
+
+/**
+ * Generates shares of multiplication triples together with the other player.
+ */
+public interface TripleGenerator {
+
+  /**
+   * Generate new multiplication triples (a,b,c). The two players need to call this method at the
+   * same time and with the same amount parameter.
+   *
+   * @param amount the number of triples to generate
+   * @return this player's shares of the triples
+   */
+  List<TinyTablesTriple> generate(int amount);
+}
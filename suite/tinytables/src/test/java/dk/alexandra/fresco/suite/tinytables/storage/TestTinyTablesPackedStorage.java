@@ -0,0 +1,144 @@
+package dk.alexandra.fresco.suite.tinytables.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTable;
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesElement;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTinyTablesPackedStorage {
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("tinytables", ".bin");
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    int numberOfIds = 1001;
+    Random random = new Random(42);
+    TinyTablesStorageImpl expected = new TinyTablesStorageImpl();
+    List<Integer> ids = new ArrayList<>();
+    for (int id = 0; id < numberOfIds; id++) {
+      ids.add(id);
+    }
+    Collections.shuffle(ids, random);
+    // small pages make the writer evict pages several times
+    TinyTablesPackedStorageWriter writer = new TinyTablesPackedStorageWriter(file, 7, 3);
+    for (int id : ids) {
+      if (id % 3 == 0) {
+        TinyTablesElement mask = TinyTablesElement.getInstance(random.nextBoolean());
+        expected.storeMaskShare(id, mask);
+        writer.storeMaskShare(id, mask);
+      } else {
+        TinyTablesElement[] values = new TinyTablesElement[4];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = TinyTablesElement.getInstance(random.nextBoolean());
+        }
+        TinyTable table = new TinyTable(values);
+        expected.storeTinyTable(id, table);
+        writer.storeTinyTable(id, table);
+      }
+    }
+    writer.close();
+    assertFalse(new File(file.getPath() + ".masks").exists());
+    assertFalse(new File(file.getPath() + ".stored").exists());
+
+    assertTrue(TinyTablesPackedStorage.isPackedStorage(file));
+    TinyTablesPackedStorage storage = TinyTablesPackedStorage.open(file);
+    assertEquals(numberOfIds, storage.getNumberOfIds());
+    for (int id = 0; id < numberOfIds; id++) {
+      if (id % 3 == 0) {
+        assertEquals(expected.getShare(id), storage.getShare(id));
+        assertNull(storage.getTinyTable(id));
+      } else {
+        TinyTable table = storage.getTinyTable(id);
+        for (int c = 0; c < 2; c++) {
+          for (int d = 0; d < 2; d++) {
+            TinyTablesElement left = TinyTablesElement.getInstance(c == 1);
+            TinyTablesElement right = TinyTablesElement.getInstance(d == 1);
+            assertEquals(expected.getTinyTable(id).getValue(left, right).getShare(),
+                table.getValue(left, right).getShare());
+          }
+        }
+      }
+    }
+    assertNull(storage.getTinyTable(numberOfIds));
+  }
+
+  @Test
+  public void testMissingIds() throws IOException {
+    TinyTablesPackedStorageWriter writer = new TinyTablesPackedStorageWriter(file);
+    writer.storeTinyTable(5, new TinyTable(new TinyTablesElement[]{
+        TinyTablesElement.getInstance(false), TinyTablesElement.getInstance(false),
+        TinyTablesElement.getInstance(false), TinyTablesElement.getInstance(false)}));
+    writer.close();
+    TinyTablesPackedStorage storage = TinyTablesPackedStorage.open(file);
+    assertEquals(6, storage.getNumberOfIds());
+    // an all-zero table is stored, the ids before it are not
+    assertNotNull(storage.getTinyTable(5));
+    for (int id = 0; id < 5; id++) {
+      assertNull(storage.getTinyTable(id));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingShare() throws IOException {
+    TinyTablesPackedStorageWriter writer = new TinyTablesPackedStorageWriter(file);
+    writer.storeMaskShare(3, TinyTablesElement.getInstance(true));
+    writer.close();
+    TinyTablesPackedStorage.open(file).getShare(2);
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    new TinyTablesPackedStorageWriter(file).close();
+    TinyTablesPackedStorage storage = TinyTablesPackedStorage.open(file);
+    assertEquals(0, storage.getNumberOfIds());
+    assertNull(storage.getTinyTable(0));
+  }
+
+  @Test
+  public void testLegacyFormatDetected() throws IOException {
+    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+      out.writeObject(new TinyTablesStorageImpl());
+    }
+    assertFalse(TinyTablesPackedStorage.isPackedStorage(file));
+  }
+
+  @Test(expected = IOException.class)
+  public void testOpenLegacyFormat() throws IOException {
+    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+      out.writeObject(new TinyTablesStorageImpl());
+    }
+    TinyTablesPackedStorage.open(file);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStoreAfterClose() throws IOException {
+    TinyTablesPackedStorageWriter writer = new TinyTablesPackedStorageWriter(file);
+    writer.close();
+    writer.storeMaskShare(0, TinyTablesElement.getInstance(true));
+  }
+}
@@ -0,0 +1,89 @@
+package dk.alexandra.fresco.suite.tinytables.util;
+
+import static org.junit.Assert.assertEquals;
+
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.NetworkUtil;
+import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesTriple;
+import dk.alexandra.fresco.suite.tinytables.ot.TinyTablesDummyOt;
+import dk.alexandra.fresco.suite.tinytables.ot.TinyTablesOt;
+import dk.alexandra.fresco.tools.cointossing.CoinTossing;
+import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePool;
+import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePoolImpl;
+import dk.alexandra.fresco.tools.ot.otextension.RotFactory;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class TestTinyTablesRotTripleGenerator {
+
+  private static final int COMPUTATIONAL_SECURITY = 128;
+  private static final int STATISTICAL_SECURITY = 40;
+
+  @Test
+  public void testGenerate() throws Exception {
+    Map<Integer, NetworkConfiguration> confs =
+        NetworkUtil.getNetworkConfigurations(NetworkUtil.getFreePorts(2));
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    List<Future<List<TinyTablesTriple>>> futures = new ArrayList<>();
+    for (int playerId = 1; playerId <= 2; playerId++) {
+      NetworkConfiguration conf = confs.get(playerId);
+      // generate two batches to test that the OT extension is reused
+      futures.add(executor.submit(() -> generate(conf, 100, 1000)));
+    }
+    List<TinyTablesTriple> first = futures.get(0).get();
+    List<TinyTablesTriple> second = futures.get(1).get();
+    executor.shutdown();
+    assertEquals(1100, first.size());
+    assertEquals(1100, second.size());
+    int nonZeroProducts = 0;
+    for (int i = 0; i < first.size(); i++) {
+      boolean a = first.get(i).getA().getShare() ^ second.get(i).getA().getShare();
+      boolean b = first.get(i).getB().getShare() ^ second.get(i).getB().getShare();
+      boolean c = first.get(i).getC().getShare() ^ second.get(i).getC().getShare();
+      assertEquals(a & b, c);
+      if (c) {
+        nonZeroProducts++;
+      }
+    }
+    // the triples should be random, so about a quarter of the products are one
+    assertEquals(275, nonZeroProducts, 75);
+  }
+
+  private List<TinyTablesTriple> generate(NetworkConfiguration conf, int... batches) {
+    int myId = conf.getMyId();
+    int otherId = Util.otherPlayerId(myId);
+    Drbg drbg = new AesCtrDrbg(new byte[32]);
+    try (SocketNetwork network = new SocketNetwork(conf)) {
+      TinyTablesOt baseOt = new TinyTablesDummyOt(otherId);
+      baseOt.init(network);
+      RotList rotList = new RotList(drbg, COMPUTATIONAL_SECURITY);
+      if (myId < otherId) {
+        rotList.send(baseOt);
+        rotList.receive(baseOt);
+      } else {
+        rotList.receive(baseOt);
+        rotList.send(baseOt);
+      }
+      CoinTossing ct = new CoinTossing(myId, otherId, drbg);
+      ct.initialize(network);
+      OtExtensionResourcePool resources = new OtExtensionResourcePoolImpl(myId, otherId,
+          COMPUTATIONAL_SECURITY, STATISTICAL_SECURITY, 1, drbg, ct, rotList);
+      TinyTablesRotTripleGenerator generator = new TinyTablesRotTripleGenerator(myId, drbg,
+          new RotFactory(resources, network), COMPUTATIONAL_SECURITY, STATISTICAL_SECURITY);
+      List<TinyTablesTriple> triples = new ArrayList<>();
+      for (int amount : batches) {
+        triples.addAll(generator.generate(amount));
+      }
+      return triples;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.binary.Binary;
+import dk.alexandra.fresco.framework.builder.binary.ProtocolBuilderBinary;
+import dk.alexandra.fresco.framework.value.SBool;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Encrypts a block with AES-128, where party 1 inputs the key and party 2 the plain text, and opens
+ * the cipher text.
+ */
+class AesApplication implements Application<List<Boolean>, ProtocolBuilderBinary> {
+
+  private static final int BLOCK_SIZE = 128;
+
+  private final int myId;
+
+  AesApplication(int myId) {
+    this.myId = myId;
+  }
+
+  @Override
+  public DRes<List<Boolean>> buildComputation(ProtocolBuilderBinary builder) {
+    return builder.seq(seq -> {
+      Binary binary = seq.binary();
+      List<DRes<SBool>> key = new ArrayList<>(BLOCK_SIZE);
+      List<DRes<SBool>> plainText = new ArrayList<>(BLOCK_SIZE);
+      for (int i = 0; i < BLOCK_SIZE; i++) {
+        // the inputs of the other party are ignored
+        key.add(binary.input(myId == 1 && i % 3 == 0, 1));
+        plainText.add(binary.input(myId == 2 && i % 5 == 0, 2));
+      }
+      return seq.bristol().AES(plainText, key);
+    }).par((par, cipherText) -> {
+      Binary binary = par.binary();
+      List<DRes<Boolean>> opened =
+          cipherText.stream().map(binary::open).collect(Collectors.toList());
+      return () -> opened;
+    }).seq((seq, opened) -> () -> opened.stream().map(DRes::out).collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,43 @@
+package dk.alexandra.fresco.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON, such that the results of different releases
+ * can be compared by tools.
+ * <p>
+ * Usage: <code>java -jar fresco-benchmarks.jar [regex] [result file]</code>, where the regular
+ * expression selects the benchmarks to run, by default all of them, and the results are written to
+ * <code>fresco-benchmarks.json</code> unless another file is given. For all other options of JMH,
+ * use <code>java -cp fresco-benchmarks.jar org.openjdk.jmh.Main</code>.
+ * </p>
+ */
+public class BenchmarkRunner {
+
+  private static final String DEFAULT_INCLUDE = BenchmarkRunner.class.getPackage().getName();
+  private static final String DEFAULT_RESULT = "fresco-benchmarks.json";
+
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args the benchmarks to include and the result file, both optional
+   * @throws RunnerException if a benchmark fails
+   */
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+    String result = args.length > 1 ? args[1] : DEFAULT_RESULT;
+    Options options = new OptionsBuilder()
+        .include(include)
+        .resultFormat(ResultFormatType.JSON)
+        .result(result)
+        .build();
+    new Runner(options).run();
+  }
+}
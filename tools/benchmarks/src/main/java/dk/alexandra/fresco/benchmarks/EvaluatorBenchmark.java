@@ -0,0 +1,112 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the inner loop of the {@link BatchedProtocolEvaluator}, i.e., building an application
+ * and evaluating its native protocols, for a single party of the dummy arithmetic suite. The
+ * native protocols do not communicate, so the score is the number of protocols per second the
+ * evaluator and builders can handle. Wide applications are a single parallel scope of
+ * multiplications, deep applications a chain of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+  private static final int PROTOCOLS = 16384;
+  private static final BigInteger MODULUS =
+      new BigInteger("340282366920938463463374607431768211283");
+
+  @Param({"SEQUENTIAL_BATCHED", "PARALLEL_BATCHED"})
+  public EvaluationStrategy strategy;
+
+  @Param({"wide", "deep"})
+  public String shape;
+
+  private DummyArithmeticProtocolSuite suite;
+  private DummyArithmeticResourcePool resourcePool;
+  private ProtocolEvaluator<DummyArithmeticResourcePool> evaluator;
+  private Network network;
+
+  /**
+   * Creates the suite and evaluator of a single party.
+   */
+  @Setup
+  public void setup() {
+    FieldDefinition definition = new BigIntegerFieldDefinition(MODULUS);
+    suite = new DummyArithmeticProtocolSuite(definition, 64, 16);
+    resourcePool = new DummyArithmeticResourcePoolImpl(1, 1, definition);
+    evaluator = new BatchedProtocolEvaluator<>(strategy.getStrategy(), suite);
+    network = InMemoryNetwork.createNetworks(1).get(0);
+  }
+
+  /**
+   * Builds and evaluates the application, the score is per native protocol.
+   *
+   * @return the output of the application
+   */
+  @Benchmark
+  @OperationsPerInvocation(PROTOCOLS)
+  public SInt evaluate() {
+    BuilderFactoryNumeric factory = suite.init(resourcePool);
+    ProtocolBuilderNumeric builder = factory.createSequential();
+    DRes<SInt> output = shape.equals("wide") ? buildWide(builder) : buildDeep(builder);
+    evaluator.eval(builder.build(), resourcePool, network);
+    return output.out();
+  }
+
+  private static DRes<SInt> buildWide(ProtocolBuilderNumeric builder) {
+    return builder.seq(seq -> seq.numeric().known(BigInteger.valueOf(3))).par((par, value) -> {
+      Numeric numeric = par.numeric();
+      DRes<SInt> last = null;
+      // the known value is the first of the protocols
+      for (int i = 1; i < PROTOCOLS; i++) {
+        last = numeric.mult(value, value);
+      }
+      return last;
+    });
+  }
+
+  private static DRes<SInt> buildDeep(ProtocolBuilderNumeric builder) {
+    return builder.seq(seq -> {
+      Numeric numeric = seq.numeric();
+      DRes<SInt> value = numeric.known(BigInteger.valueOf(3));
+      for (int i = 1; i < PROTOCOLS; i++) {
+        value = numeric.mult(value, value);
+      }
+      return value;
+    });
+  }
+}
@@ -0,0 +1,105 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.builder.numeric.field.MersennePrimeFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.MontgomeryFieldDefinition;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the arithmetic and serialization of the field definitions, all over the prime
+ * 2^128 - 173 such that the implementations can be compared directly. Serialization of lists goes
+ * through {@link FieldDefinition#serialize(List)}, which is backed by the package private
+ * <code>FieldUtils</code> for the BigInteger and Mersenne prime fields.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldElementBenchmark {
+
+  private static final int BIT_LENGTH = 128;
+  private static final int CONSTANT = 173;
+  private static final BigInteger MODULUS =
+      BigInteger.ONE.shiftLeft(BIT_LENGTH).subtract(BigInteger.valueOf(CONSTANT));
+  private static final int LIST_SIZE = 1024;
+
+  @Param({"BigInteger", "Montgomery", "MersennePrime"})
+  public String field;
+
+  private FieldDefinition definition;
+  private FieldElement left;
+  private FieldElement right;
+  private List<FieldElement> elements;
+  private byte[] serialized;
+
+  /**
+   * Creates the field and random elements.
+   */
+  @Setup
+  public void setup() {
+    switch (field) {
+      case "BigInteger":
+        definition = new BigIntegerFieldDefinition(MODULUS);
+        break;
+      case "Montgomery":
+        definition = new MontgomeryFieldDefinition(MODULUS);
+        break;
+      case "MersennePrime":
+        definition = new MersennePrimeFieldDefinition(BIT_LENGTH, CONSTANT);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown field " + field);
+    }
+    Random random = new Random(0);
+    left = randomElement(random);
+    right = randomElement(random);
+    elements = new ArrayList<>(LIST_SIZE);
+    for (int i = 0; i < LIST_SIZE; i++) {
+      elements.add(randomElement(random));
+    }
+    serialized = definition.serialize(elements);
+  }
+
+  private FieldElement randomElement(Random random) {
+    return definition.createElement(new BigInteger(BIT_LENGTH, random).mod(MODULUS));
+  }
+
+  @Benchmark
+  public FieldElement add() {
+    return left.add(right);
+  }
+
+  @Benchmark
+  public FieldElement multiply() {
+    return left.multiply(right);
+  }
+
+  @Benchmark
+  public byte[] serializeList() {
+    return definition.serialize(elements);
+  }
+
+  @Benchmark
+  public List<FieldElement> deserializeList() {
+    return definition.deserializeList(serialized);
+  }
+}
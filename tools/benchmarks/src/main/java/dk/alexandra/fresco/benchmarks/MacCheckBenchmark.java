@@ -0,0 +1,115 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.builder.numeric.field.MersennePrimeFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.MontgomeryFieldDefinition;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the local arithmetic of a SPDZ mac check of a million opened values, i.e., the inner
+ * products of the random coefficients with the opened values and with the macs, over the prime
+ * 2^128 - 173. With the <code>bulk</code> kernel the inner products are computed by {@link
+ * FieldDefinition#innerProduct(List, List)}, which reduces once and splits the work across the
+ * available processors. With the <code>sequential</code> kernel each product and sum is reduced,
+ * as the mac check used to do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MacCheckBenchmark {
+
+  private static final int BIT_LENGTH = 128;
+  private static final int CONSTANT = 173;
+  private static final BigInteger MODULUS =
+      BigInteger.ONE.shiftLeft(BIT_LENGTH).subtract(BigInteger.valueOf(CONSTANT));
+  private static final int SIZE = 1 << 20;
+
+  @Param({"BigInteger", "Montgomery", "MersennePrime"})
+  public String field;
+
+  @Param({"bulk", "sequential"})
+  public String kernel;
+
+  private FieldDefinition definition;
+  private List<FieldElement> coefficients;
+  private List<FieldElement> openedValues;
+  private List<FieldElement> macs;
+  private FieldElement alpha;
+
+  /**
+   * Creates the field and random coefficients, opened values and macs.
+   */
+  @Setup
+  public void setup() {
+    switch (field) {
+      case "BigInteger":
+        definition = new BigIntegerFieldDefinition(MODULUS);
+        break;
+      case "Montgomery":
+        definition = new MontgomeryFieldDefinition(MODULUS);
+        break;
+      case "MersennePrime":
+        definition = new MersennePrimeFieldDefinition(BIT_LENGTH, CONSTANT);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown field " + field);
+    }
+    Random random = new Random(0);
+    alpha = randomElement(random);
+    coefficients = new ArrayList<>(SIZE);
+    openedValues = new ArrayList<>(SIZE);
+    macs = new ArrayList<>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      coefficients.add(randomElement(random));
+      openedValues.add(randomElement(random));
+      macs.add(randomElement(random));
+    }
+  }
+
+  private FieldElement randomElement(Random random) {
+    return definition.createElement(new BigInteger(BIT_LENGTH, random).mod(MODULUS));
+  }
+
+  /**
+   * Computes this party's delta of the mac check, <i>gamma - alpha a</i>.
+   *
+   * @return the delta
+   */
+  @Benchmark
+  public FieldElement delta() {
+    FieldElement a = innerProduct(coefficients, openedValues);
+    FieldElement gamma = innerProduct(coefficients, macs);
+    return gamma.subtract(alpha.multiply(a));
+  }
+
+  private FieldElement innerProduct(List<FieldElement> left, List<FieldElement> right) {
+    if (kernel.equals("bulk")) {
+      return definition.innerProduct(left, right);
+    }
+    FieldElement sum = definition.createElement(0);
+    for (int i = 0; i < left.size(); i++) {
+      sum = sum.add(left.get(i).multiply(right.get(i)));
+    }
+    return sum;
+  }
+}
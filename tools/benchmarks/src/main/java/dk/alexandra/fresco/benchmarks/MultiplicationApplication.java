@@ -0,0 +1,51 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Multiplies a number of pairs of secret values in parallel and opens the products, such that the
+ * benchmarks of arithmetic suites include the MAC check of the openings.
+ */
+class MultiplicationApplication implements Application<List<BigInteger>, ProtocolBuilderNumeric> {
+
+  private final int multiplications;
+
+  MultiplicationApplication(int multiplications) {
+    this.multiplications = multiplications;
+  }
+
+  @Override
+  public DRes<List<BigInteger>> buildComputation(ProtocolBuilderNumeric builder) {
+    return builder.par(par -> {
+      Numeric numeric = par.numeric();
+      List<DRes<SInt>> left = new ArrayList<>(multiplications);
+      List<DRes<SInt>> right = new ArrayList<>(multiplications);
+      for (int i = 0; i < multiplications; i++) {
+        left.add(numeric.known(BigInteger.valueOf(i)));
+        right.add(numeric.known(BigInteger.valueOf(i + 1)));
+      }
+      return () -> new Pair<>(left, right);
+    }).par((par, factors) -> {
+      Numeric numeric = par.numeric();
+      List<DRes<SInt>> products = new ArrayList<>(multiplications);
+      for (int i = 0; i < multiplications; i++) {
+        products.add(numeric.mult(factors.getFirst().get(i), factors.getSecond().get(i)));
+      }
+      return () -> products;
+    }).par((par, products) -> {
+      Numeric numeric = par.numeric();
+      List<DRes<BigInteger>> opened =
+          products.stream().map(numeric::open).collect(Collectors.toList());
+      return () -> opened;
+    }).seq((seq, opened) -> () -> opened.stream().map(DRes::out).collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,176 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.NetworkBatchDecorator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a round of the {@link NetworkBatchDecorator}: batching a number of messages to the
+ * other party, flushing and reading the messages back. The underlying network loops the batches
+ * back to the sender, so only the framing and copying of the decorator is measured.
+ * <p>
+ * With the <code>varint</code> framing the current decorator is used. With the
+ * <code>baseline</code> framing a copy of the decorator from before the varint framing is used,
+ * which prefixes each message by a single byte and allocates new streams per party and round. The
+ * baseline only supports messages of at most 127 bytes, so the message sizes are small, see {@link
+ * NetworkBatchDecoratorLargeMessageBenchmark} for large messages. A round of 10000 messages
+ * corresponds to a batch of 10k gates each sending a field element.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkBatchDecoratorBenchmark {
+
+  private static final int OTHER_PARTY = 2;
+
+  @Param({"varint", "baseline"})
+  public String framing;
+
+  @Param({"1", "64", "10000"})
+  public int messages;
+
+  @Param({"16", "120"})
+  public int messageSize;
+
+  private Network network;
+  private Runnable flush;
+  private byte[] message;
+
+  @Setup
+  public void setup() {
+    if (framing.equals("varint")) {
+      NetworkBatchDecorator decorator = new NetworkBatchDecorator(2, new LoopbackNetwork());
+      network = decorator;
+      flush = decorator::flush;
+    } else {
+      BaselineNetworkBatchDecorator decorator =
+          new BaselineNetworkBatchDecorator(2, new LoopbackNetwork());
+      network = decorator;
+      flush = decorator::flush;
+    }
+    message = new byte[messageSize];
+  }
+
+  /**
+   * Sends, flushes and receives a round of messages.
+   *
+   * @return the last message received
+   */
+  @Benchmark
+  public byte[] round() {
+    for (int i = 0; i < messages; i++) {
+      network.send(OTHER_PARTY, message);
+    }
+    flush.run();
+    byte[] received = null;
+    for (int i = 0; i < messages; i++) {
+      received = network.receive(OTHER_PARTY);
+    }
+    return received;
+  }
+
+  /**
+   * A network giving back the data sent, regardless of the parties.
+   */
+  static class LoopbackNetwork implements Network {
+
+    private final Queue<byte[]> sent = new ArrayDeque<>();
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      sent.add(data);
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      return sent.remove();
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return 2;
+    }
+  }
+
+  /**
+   * Copy of the {@link NetworkBatchDecorator} before messages were framed by varints.
+   */
+  private static class BaselineNetworkBatchDecorator implements Network {
+
+    private final int noOfParties;
+    private final Network network;
+    private final Map<Integer, ByteArrayOutputStream> output;
+    private final Map<Integer, ByteArrayInputStream> input;
+
+    BaselineNetworkBatchDecorator(int noOfParties, Network network) {
+      this.noOfParties = noOfParties;
+      this.network = network;
+      this.output = new HashMap<>();
+      this.input = new HashMap<>();
+    }
+
+    @Override
+    public byte[] receive(int id) {
+      ByteArrayInputStream byteInputStream = input.get(id);
+      if (byteInputStream == null) {
+        byte[] partyData = network.receive(id);
+        byteInputStream = new ByteArrayInputStream(partyData);
+        input.put(id, byteInputStream);
+      }
+      int count = byteInputStream.read();
+      byte[] bytes = new byte[count];
+      byteInputStream.read(bytes, 0, count);
+      return bytes;
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return noOfParties;
+    }
+
+    @Override
+    public void send(int id, byte[] data) {
+      ByteArrayOutputStream buffer = this.output
+          .computeIfAbsent(id, (i) -> new ByteArrayOutputStream());
+      if (data.length > Byte.MAX_VALUE) {
+        throw new IllegalStateException(
+            "Current implementation only supports small packages, data.length=" + data.length);
+      }
+      buffer.write(data.length);
+      buffer.write(data, 0, data.length);
+    }
+
+    void flush() {
+      for (int i = 1; i <= noOfParties; i++) {
+        if (output.containsKey(i)) {
+          ByteArrayOutputStream byteArrayOutputStream = output.get(i);
+          byte[] data = byteArrayOutputStream.toByteArray();
+          network.send(i, data);
+        }
+        output.remove(i);
+      }
+      input.clear();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.benchmarks.NetworkBatchDecoratorBenchmark.LoopbackNetwork;
+import dk.alexandra.fresco.framework.sce.evaluator.NetworkBatchDecorator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a round of the {@link NetworkBatchDecorator} with messages larger than the 127 bytes
+ * supported by the framing used before, e.g., serialized vectors of field elements. See {@link
+ * NetworkBatchDecoratorBenchmark} for the comparison with that framing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkBatchDecoratorLargeMessageBenchmark {
+
+  private static final int OTHER_PARTY = 2;
+
+  @Param({"1", "64"})
+  public int messages;
+
+  @Param({"1024", "1048576"})
+  public int messageSize;
+
+  private NetworkBatchDecorator network;
+  private byte[] message;
+
+  @Setup
+  public void setup() {
+    network = new NetworkBatchDecorator(2, new LoopbackNetwork());
+    message = new byte[messageSize];
+  }
+
+  /**
+   * Sends, flushes and receives a round of messages.
+   *
+   * @return the last message received
+   */
+  @Benchmark
+  public byte[] round() {
+    for (int i = 0; i < messages; i++) {
+      network.send(OTHER_PARTY, message);
+    }
+    network.flush();
+    byte[] received = null;
+    for (int i = 0; i < messages; i++) {
+      received = network.receive(OTHER_PARTY);
+    }
+    return received;
+  }
+}
@@ -0,0 +1,53 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Runs the parties of a benchmark concurrently, one thread per party.
+ */
+class PartyRunner implements Closeable {
+
+  private final int noOfParties;
+  private final ExecutorService executor;
+
+  PartyRunner(int noOfParties) {
+    this.noOfParties = noOfParties;
+    this.executor = Executors.newFixedThreadPool(noOfParties, r -> {
+      Thread thread = new Thread(r, "Benchmark-party");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Runs a task for each party and waits for all of them to finish.
+   *
+   * @param task the task, given the id of the party
+   * @param <OutputT> the result of the task
+   * @return the results, the result of party i at index i - 1
+   */
+  <OutputT> List<OutputT> run(IntFunction<OutputT> task) {
+    List<Future<OutputT>> futures = new ArrayList<>(noOfParties);
+    for (int id = 1; id <= noOfParties; id++) {
+      int partyId = id;
+      futures.add(executor.submit(() -> task.apply(partyId)));
+    }
+    List<OutputT> results = new ArrayList<>(noOfParties);
+    for (Future<OutputT> future : futures) {
+      results.add(ExceptionConverter.safe(future::get, "Party failed"));
+    }
+    return results;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
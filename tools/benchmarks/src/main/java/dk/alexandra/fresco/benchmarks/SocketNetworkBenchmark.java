@@ -0,0 +1,134 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.Party;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.NetworkConfigurationImpl;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.network.socket.NioSocketNetwork;
+import dk.alexandra.fresco.framework.network.socket.SocketNetwork;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the socket based networks over the loopback interface. Party 2 echoes every message
+ * back to party 1, which measures the round trip time of a single message and the throughput of a
+ * burst of messages, as sent by a batch of protocols.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SocketNetworkBenchmark {
+
+  private static final int BURST = 64;
+
+  @Param({"SocketNetwork", "NioSocketNetwork"})
+  public String network;
+
+  @Param({"16", "1024", "65536"})
+  public int messageSize;
+
+  private CloseableNetwork first;
+  private CloseableNetwork second;
+  private Thread echo;
+  private byte[] message;
+
+  /**
+   * Connects the two parties and starts echoing at party 2.
+   */
+  @Setup
+  public void setup() {
+    Map<Integer, NetworkConfiguration> confs = createConfigurations();
+    try (PartyRunner runner = new PartyRunner(2)) {
+      List<CloseableNetwork> networks = runner.run(id -> connect(confs.get(id)));
+      first = networks.get(0);
+      second = networks.get(1);
+    }
+    message = new byte[messageSize];
+    echo = new Thread(() -> {
+      byte[] data = second.receive(1);
+      while (data.length > 0) {
+        second.send(1, data);
+        data = second.receive(1);
+      }
+    }, "Echo");
+    echo.start();
+  }
+
+  private CloseableNetwork connect(NetworkConfiguration conf) {
+    return network.equals("NioSocketNetwork") ? new NioSocketNetwork(conf)
+        : new SocketNetwork(conf);
+  }
+
+  private static Map<Integer, NetworkConfiguration> createConfigurations() {
+    Map<Integer, Party> parties = new HashMap<>();
+    for (int id = 1; id <= 2; id++) {
+      ServerSocket socket = ExceptionConverter.safe(() -> new ServerSocket(0),
+          "Could not find a free port");
+      parties.put(id, new Party(id, "localhost", socket.getLocalPort()));
+      ExceptionConverter.safe(() -> {
+        socket.close();
+        return null;
+      }, "Could not close server socket");
+    }
+    Map<Integer, NetworkConfiguration> confs = new HashMap<>();
+    for (int id = 1; id <= 2; id++) {
+      confs.put(id, new NetworkConfigurationImpl(id, parties));
+    }
+    return confs;
+  }
+
+  /**
+   * Stops the echoing and closes the networks.
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    first.send(2, new byte[0]);
+    echo.join();
+    first.close();
+    second.close();
+  }
+
+  @Benchmark
+  public byte[] roundTrip() {
+    first.send(2, message);
+    return first.receive(2);
+  }
+
+  /**
+   * Sends a burst of messages before receiving the echoes, the score is per message.
+   *
+   * @return the last echo
+   */
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public byte[] burst() {
+    for (int i = 0; i < BURST; i++) {
+      first.send(2, message);
+    }
+    byte[] received = null;
+    for (int i = 0; i < BURST; i++) {
+      received = first.receive(2);
+    }
+    return received;
+  }
+}
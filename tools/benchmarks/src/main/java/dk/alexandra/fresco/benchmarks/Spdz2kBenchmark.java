@@ -0,0 +1,106 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.suite.spdz2k.Spdz2kProtocolSuiteK64;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128Factory;
+import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePool;
+import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePoolImpl;
+import dk.alexandra.fresco.suite.spdz2k.resource.storage.Spdz2kDummyDataSupplier;
+import dk.alexandra.fresco.suite.spdz2k.resource.storage.Spdz2kOpenedValueStoreImpl;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the online phase of SPDZ2k with k = 64, with dummy pre-processing and all parties
+ * running in this JVM over an {@link InMemoryNetwork}. The score is the number of multiplications
+ * per second, including opening the products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Spdz2kBenchmark {
+
+  private static final int MULTIPLICATIONS = 1024;
+
+  @Param({"2", "3"})
+  public int parties;
+
+  private List<InMemoryNetwork> networks;
+  private List<Spdz2kResourcePool<CompUInt128>> resourcePools;
+  private List<SecureComputationEngine<Spdz2kResourcePool<CompUInt128>, ProtocolBuilderNumeric>>
+      engines;
+  private PartyRunner runner;
+  private MultiplicationApplication application;
+
+  /**
+   * Creates the parties.
+   */
+  @Setup
+  public void setup() {
+    networks = InMemoryNetwork.createNetworks(parties);
+    runner = new PartyRunner(parties);
+    // the joint randomness is agreed on by coin tossing, so the parties are created concurrently,
+    // on networks of their own as the networks are closed afterwards
+    List<InMemoryNetwork> coinTossingNetworks = InMemoryNetwork.createNetworks(parties);
+    resourcePools = runner.run(id -> createResourcePool(id, coinTossingNetworks.get(id - 1)));
+    engines = new ArrayList<>(parties);
+    for (int id = 1; id <= parties; id++) {
+      Spdz2kProtocolSuiteK64 suite = new Spdz2kProtocolSuiteK64();
+      engines.add(new SecureComputationEngineImpl<>(suite,
+          new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy(),
+              suite)));
+    }
+    application = new MultiplicationApplication(MULTIPLICATIONS);
+  }
+
+  private Spdz2kResourcePool<CompUInt128> createResourcePool(int id, Network network) {
+    CompUInt128Factory factory = new CompUInt128Factory();
+    Spdz2kResourcePool<CompUInt128> resourcePool = new Spdz2kResourcePoolImpl<>(id, parties, null,
+        new Spdz2kOpenedValueStoreImpl<>(),
+        new Spdz2kDummyDataSupplier<>(id, parties, factory.createRandom(), factory), factory);
+    resourcePool.initializeJointRandomness(() -> network, AesCtrDrbg::new, 32);
+    return resourcePool;
+  }
+
+  /**
+   * Shuts down the parties.
+   */
+  @TearDown
+  public void tearDown() {
+    engines.forEach(SecureComputationEngine::shutdownSCE);
+    runner.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MULTIPLICATIONS)
+  public List<List<BigInteger>> multiply() {
+    return runner.run(id -> engines.get(id - 1)
+        .runApplication(application, resourcePools.get(id - 1), networks.get(id - 1)));
+  }
+}
@@ -0,0 +1,112 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128Factory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.suite.spdz2k.resource.storage.Spdz2kPassiveOtDataSupplier;
+import dk.alexandra.fresco.tools.ot.base.DummyOt;
+import dk.alexandra.fresco.tools.ot.base.Ot;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the passively secure OT based pre-processing of SPDZ2k with k = 64, i.e., the rate at
+ * which the {@link Spdz2kPassiveOtDataSupplier} of each party delivers multiplication triples. The
+ * seed OTs are done with a dummy OT, so only the OT extension and triple generation are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class Spdz2kTripleBenchmark {
+
+  private static final int TRIPLES = Spdz2kPassiveOtDataSupplier.DEFAULT_TRIPLE_BATCH_SIZE;
+
+  @Param({"2", "3"})
+  public int parties;
+
+  private PartyRunner runner;
+  private List<Spdz2kPassiveOtDataSupplier<CompUInt128>> suppliers;
+
+  /**
+   * Runs the seed OTs between all pairs of parties and creates their suppliers.
+   */
+  @Setup
+  public void setup() {
+    List<InMemoryNetwork> networks = InMemoryNetwork.createNetworks(parties);
+    List<InMemoryNetwork> tripleNetworks = InMemoryNetwork.createNetworks(parties);
+    runner = new PartyRunner(parties);
+    suppliers = runner.run(id -> {
+      CompUInt128Factory factory = new CompUInt128Factory();
+      InMemoryNetwork network = networks.get(id - 1);
+      InMemoryNetwork tripleNetwork = tripleNetworks.get(id - 1);
+      Drbg drbg = new AesCtrDrbg();
+      Map<Integer, RotList> seedOts = new HashMap<>();
+      for (int otherId = 1; otherId <= parties; otherId++) {
+        if (otherId != id) {
+          Ot ot = new DummyOt(otherId, network);
+          RotList currentSeedOts =
+              new RotList(drbg, Spdz2kPassiveOtDataSupplier.DEFAULT_PRG_SEED_LENGTH);
+          if (id < otherId) {
+            currentSeedOts.send(ot);
+            currentSeedOts.receive(ot);
+          } else {
+            currentSeedOts.receive(ot);
+            currentSeedOts.send(ot);
+          }
+          seedOts.put(otherId, currentSeedOts);
+        }
+      }
+      return Spdz2kPassiveOtDataSupplier.createSimpleSupplier(id, parties, () -> network,
+          () -> tripleNetwork, factory, factory.createRandom(), seedOts, drbg);
+    });
+  }
+
+  /**
+   * Stops the triple producers.
+   */
+  @TearDown
+  public void tearDown() {
+    suppliers.forEach(Spdz2kPassiveOtDataSupplier::close);
+    runner.close();
+  }
+
+  /**
+   * Takes a batch of triples at each party, the score is per triple.
+   *
+   * @return the last triple of each party
+   */
+  @Benchmark
+  @OperationsPerInvocation(TRIPLES)
+  public List<Spdz2kTriple<CompUInt128>> triples() {
+    return runner.run(id -> {
+      Spdz2kPassiveOtDataSupplier<CompUInt128> supplier = suppliers.get(id - 1);
+      Spdz2kTriple<CompUInt128> triple = null;
+      for (int i = 0; i < TRIPLES; i++) {
+        triple = supplier.getNextTripleShares();
+      }
+      return triple;
+    });
+  }
+}
@@ -0,0 +1,106 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.MontgomeryFieldDefinition;
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.OpenedValueStoreImpl;
+import dk.alexandra.fresco.suite.spdz.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
+import dk.alexandra.fresco.suite.spdz.SpdzResourcePoolImpl;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDummyDataSupplier;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the online phase of SPDZ, with dummy pre-processing and all parties running in this
+ * JVM over an {@link InMemoryNetwork}. The score is the number of multiplications per second,
+ * including opening the products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpdzBenchmark {
+
+  private static final int MULTIPLICATIONS = 1024;
+  private static final BigInteger MODULUS =
+      new BigInteger("340282366920938463463374607431768211283");
+  private static final int MAX_BIT_LENGTH = 64;
+
+  @Param({"BigInteger", "Montgomery"})
+  public String field;
+
+  @Param({"2", "3"})
+  public int parties;
+
+  private List<InMemoryNetwork> networks;
+  private List<SpdzResourcePool> resourcePools;
+  private List<SecureComputationEngine<SpdzResourcePool, ProtocolBuilderNumeric>> engines;
+  private PartyRunner runner;
+  private MultiplicationApplication application;
+
+  /**
+   * Creates the parties.
+   */
+  @Setup
+  public void setup() {
+    FieldDefinition definition = field.equals("Montgomery")
+        ? new MontgomeryFieldDefinition(MODULUS)
+        : new BigIntegerFieldDefinition(MODULUS);
+    BigInteger macKeyShare = new BigInteger(MODULUS.bitLength(), new Random(0)).mod(MODULUS);
+    networks = InMemoryNetwork.createNetworks(parties);
+    resourcePools = new ArrayList<>(parties);
+    engines = new ArrayList<>(parties);
+    for (int id = 1; id <= parties; id++) {
+      resourcePools.add(new SpdzResourcePoolImpl(id, parties, new OpenedValueStoreImpl<>(),
+          new SpdzDummyDataSupplier(id, parties, definition, macKeyShare), AesCtrDrbg::new));
+      SpdzProtocolSuite suite = new SpdzProtocolSuite(MAX_BIT_LENGTH);
+      engines.add(new SecureComputationEngineImpl<>(suite,
+          new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy(),
+              suite)));
+    }
+    runner = new PartyRunner(parties);
+    application = new MultiplicationApplication(MULTIPLICATIONS);
+  }
+
+  /**
+   * Shuts down the parties.
+   */
+  @TearDown
+  public void tearDown() {
+    engines.forEach(SecureComputationEngine::shutdownSCE);
+    runner.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MULTIPLICATIONS)
+  public List<List<BigInteger>> multiply() {
+    return runner.run(id -> engines.get(id - 1)
+        .runApplication(application, resourcePools.get(id - 1), networks.get(id - 1)));
+  }
+}
@@ -0,0 +1,200 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolEvaluator.EvaluationStatistics;
+import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.OpenedValueStoreImpl;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.spdz.SpdzProtocolSuite;
+import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
+import dk.alexandra.fresco.suite.spdz.SpdzResourcePoolImpl;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzAddProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzAddProtocolKnownLeft;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzMultProtocolKnownLeft;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocol;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDummyDataSupplier;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a linear-algebra heavy SPDZ application, the affine map <i>Ax + b - x</i> of a secret
+ * vector <i>x</i> by a public matrix <i>A</i> and vector <i>b</i>, followed by opening the result,
+ * for a single party with dummy pre-processing. With <code>local</code> linear operations the
+ * application is built with the SPDZ builder, which computes the linear operations locally and
+ * only appends the inputs and openings as native protocols. With <code>native</code> linear
+ * operations each of them is appended as a native protocol, as the SPDZ builder used to do. The
+ * score is the number of applications per second, and the native protocols and batches evaluated
+ * per application are reported as the <code>protocols</code> and <code>batches</code> counters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpdzLinearAlgebraBenchmark {
+
+  private static final BigInteger MODULUS =
+      new BigInteger("340282366920938463463374607431768211283");
+  private static final int MAX_BIT_LENGTH = 64;
+
+  @Param({"local", "native"})
+  public String linear;
+
+  @Param({"16", "64"})
+  public int dimension;
+
+  private SpdzProtocolSuite suite;
+  private SpdzResourcePool resourcePool;
+  private ProtocolEvaluator<SpdzResourcePool> evaluator;
+  private Network network;
+  private List<List<BigInteger>> matrix;
+  private List<BigInteger> vector;
+
+  /**
+   * The native protocols and batches evaluated by the last application.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+
+    public long protocols;
+    public long batches;
+  }
+
+  /**
+   * Creates the party and the public matrix and vector.
+   */
+  @Setup
+  public void setup() {
+    FieldDefinition definition = new BigIntegerFieldDefinition(MODULUS);
+    BigInteger macKeyShare = new BigInteger(MODULUS.bitLength(), new Random(0)).mod(MODULUS);
+    suite = new SpdzProtocolSuite(MAX_BIT_LENGTH);
+    resourcePool = new SpdzResourcePoolImpl(1, 1, new OpenedValueStoreImpl<>(),
+        new SpdzDummyDataSupplier(1, 1, definition, macKeyShare), AesCtrDrbg::new);
+    evaluator = new BatchedProtocolEvaluator<>(
+        EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy(), suite);
+    network = InMemoryNetwork.createNetworks(1).get(0);
+    Random random = new Random(1);
+    matrix = new ArrayList<>(dimension);
+    vector = new ArrayList<>(dimension);
+    for (int i = 0; i < dimension; i++) {
+      List<BigInteger> row = new ArrayList<>(dimension);
+      for (int j = 0; j < dimension; j++) {
+        row.add(BigInteger.valueOf(random.nextInt(1 << 16)));
+      }
+      matrix.add(row);
+      vector.add(BigInteger.valueOf(random.nextInt(1 << 16)));
+    }
+  }
+
+  /**
+   * Builds and evaluates the application.
+   *
+   * @param counters the counters to report the native protocols and batches in
+   * @return the opened result
+   */
+  @Benchmark
+  public List<DRes<BigInteger>> evaluate(Counters counters) {
+    BuilderFactoryNumeric factory = suite.init(resourcePool);
+    ProtocolBuilderNumeric builder = factory.createSequential();
+    DRes<List<DRes<BigInteger>>> output = builder.par(par -> {
+      Numeric numeric = par.numeric();
+      List<DRes<SInt>> x = new ArrayList<>(dimension);
+      for (int i = 0; i < dimension; i++) {
+        x.add(numeric.input(BigInteger.valueOf(i), 1));
+      }
+      return () -> x;
+    }).par((par, x) -> {
+      List<DRes<SInt>> y = new ArrayList<>(dimension);
+      for (int i = 0; i < dimension; i++) {
+        int row = i;
+        y.add(par.seq(seq -> affine(seq, matrix.get(row), vector.get(row), x, x.get(row))));
+      }
+      return () -> y;
+    }).par((par, y) -> {
+      List<DRes<BigInteger>> opened = new ArrayList<>(dimension);
+      for (DRes<SInt> value : y) {
+        opened.add(par.numeric().open(value));
+      }
+      return () -> opened;
+    });
+    EvaluationStatistics statistics = evaluator.eval(builder.build(), resourcePool, network);
+    counters.protocols = statistics.getNativeProtocols();
+    counters.batches = statistics.getBatches();
+    return output.out();
+  }
+
+  /**
+   * Computes the inner product of a row and <i>x</i>, plus an entry of <i>b</i> minus an entry of
+   * <i>x</i>, summing the products in a tree.
+   */
+  private DRes<SInt> affine(ProtocolBuilderNumeric builder, List<BigInteger> row,
+      BigInteger constant, List<DRes<SInt>> x, DRes<SInt> subtrahend) {
+    return builder.par(par -> {
+      List<DRes<SInt>> products = new ArrayList<>(row.size());
+      for (int j = 0; j < row.size(); j++) {
+        products.add(mult(par, row.get(j), x.get(j)));
+      }
+      return () -> products;
+    }).whileLoop(terms -> terms.size() > 1, (seq, terms) -> seq.par(par -> {
+      List<DRes<SInt>> sums = new ArrayList<>((terms.size() + 1) / 2);
+      for (int j = 0; j + 1 < terms.size(); j += 2) {
+        sums.add(add(par, terms.get(j), terms.get(j + 1)));
+      }
+      if (terms.size() % 2 == 1) {
+        sums.add(terms.get(terms.size() - 1));
+      }
+      return () -> sums;
+    })).seq((seq, terms) -> sub(seq, add(seq, constant, terms.get(0)), subtrahend));
+  }
+
+  private DRes<SInt> mult(ProtocolBuilderNumeric builder, BigInteger a, DRes<SInt> b) {
+    return linear.equals("local")
+        ? builder.numeric().mult(a, b)
+        : builder.append(new SpdzMultProtocolKnownLeft(a, b));
+  }
+
+  private DRes<SInt> add(ProtocolBuilderNumeric builder, DRes<SInt> a, DRes<SInt> b) {
+    return linear.equals("local")
+        ? builder.numeric().add(a, b)
+        : builder.append(new SpdzAddProtocol(a, b));
+  }
+
+  private DRes<SInt> add(ProtocolBuilderNumeric builder, BigInteger a, DRes<SInt> b) {
+    return linear.equals("local")
+        ? builder.numeric().add(a, b)
+        : builder.append(new SpdzAddProtocolKnownLeft(a, b));
+  }
+
+  private DRes<SInt> sub(ProtocolBuilderNumeric builder, DRes<SInt> a, DRes<SInt> b) {
+    return linear.equals("local")
+        ? builder.numeric().sub(a, b)
+        : builder.append(new SpdzSubtractProtocol(a, b));
+  }
+}
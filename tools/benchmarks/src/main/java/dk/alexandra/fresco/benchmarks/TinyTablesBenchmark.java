@@ -0,0 +1,120 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.builder.binary.ProtocolBuilderBinary;
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.suite.tinytables.online.TinyTablesProtocolSuite;
+import dk.alexandra.fresco.suite.tinytables.ot.TinyTablesDummyOt;
+import dk.alexandra.fresco.suite.tinytables.prepro.TinyTablesPreproProtocolSuite;
+import dk.alexandra.fresco.suite.tinytables.prepro.TinyTablesPreproResourcePool;
+import dk.alexandra.fresco.suite.tinytables.util.Util;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks an AES-128 encryption with TinyTables, both parties running in this JVM over an
+ * {@link InMemoryNetwork}. The pre-processing includes the dummy base OTs and the OT extension
+ * setup, as a new resource pool is needed for every run. The online phase evaluates the tables
+ * pre-processed once during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TinyTablesBenchmark {
+
+  private static final int PARTIES = 2;
+  private static final int COMPUTATIONAL_SECURITY = 128;
+  private static final int STATISTICAL_SECURITY = 40;
+  private static final int OT_BATCH_SIZE = 128;
+
+  private File directory;
+  private List<InMemoryNetwork> networks;
+  private List<SecureComputationEngine<TinyTablesPreproResourcePool, ProtocolBuilderBinary>>
+      preprocessingEngines;
+  private List<SecureComputationEngine<ResourcePoolImpl, ProtocolBuilderBinary>> onlineEngines;
+  private PartyRunner runner;
+
+  /**
+   * Creates the parties and pre-processes the tables for the online benchmark.
+   */
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("tinytables").toFile();
+    networks = InMemoryNetwork.createNetworks(PARTIES);
+    preprocessingEngines = new ArrayList<>(PARTIES);
+    onlineEngines = new ArrayList<>(PARTIES);
+    for (int id = 1; id <= PARTIES; id++) {
+      TinyTablesPreproProtocolSuite preprocessingSuite = new TinyTablesPreproProtocolSuite();
+      preprocessingEngines.add(new SecureComputationEngineImpl<>(preprocessingSuite,
+          new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy(),
+              preprocessingSuite)));
+      TinyTablesProtocolSuite onlineSuite = new TinyTablesProtocolSuite(id, getFile(id));
+      onlineEngines.add(new SecureComputationEngineImpl<>(onlineSuite,
+          new BatchedProtocolEvaluator<>(EvaluationStrategy.SEQUENTIAL_BATCHED.getStrategy(),
+              onlineSuite)));
+    }
+    runner = new PartyRunner(PARTIES);
+    preprocessAes();
+  }
+
+  private File getFile(int id) {
+    return new File(directory, "TinyTables_" + id);
+  }
+
+  /**
+   * Shuts down the parties and deletes the tables.
+   */
+  @TearDown
+  public void tearDown() {
+    preprocessingEngines.forEach(SecureComputationEngine::shutdownSCE);
+    onlineEngines.forEach(SecureComputationEngine::shutdownSCE);
+    runner.close();
+    for (int id = 1; id <= PARTIES; id++) {
+      getFile(id).delete();
+    }
+    directory.delete();
+  }
+
+  @Benchmark
+  public List<List<Boolean>> preprocessAes() {
+    return runner.run(id -> {
+      InMemoryNetwork network = networks.get(id - 1);
+      TinyTablesPreproResourcePool resourcePool = new TinyTablesPreproResourcePool(id,
+          new TinyTablesDummyOt(Util.otherPlayerId(id)), new AesCtrDrbg(new byte[32]),
+          COMPUTATIONAL_SECURITY, STATISTICAL_SECURITY, OT_BATCH_SIZE, getFile(id),
+          () -> network);
+      return preprocessingEngines.get(id - 1)
+          .runApplication(new AesApplication(id), resourcePool, network);
+    });
+  }
+
+  @Benchmark
+  public List<List<Boolean>> evaluateAes() {
+    return runner.run(id -> onlineEngines.get(id - 1)
+        .runApplication(new AesApplication(id), new ResourcePoolImpl(id, PARTIES),
+            networks.get(id - 1)));
+  }
+}
@@ -0,0 +1,98 @@
+package dk.alexandra.fresco.benchmarks;
+
+import dk.alexandra.fresco.framework.network.InMemoryNetwork;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesTriple;
+import dk.alexandra.fresco.suite.tinytables.ot.TinyTablesDummyOt;
+import dk.alexandra.fresco.suite.tinytables.ot.TinyTablesOt;
+import dk.alexandra.fresco.suite.tinytables.util.TinyTablesRotTripleGenerator;
+import dk.alexandra.fresco.suite.tinytables.util.Util;
+import dk.alexandra.fresco.tools.cointossing.CoinTossing;
+import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePool;
+import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePoolImpl;
+import dk.alexandra.fresco.tools.ot.otextension.RotFactory;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the generation of TinyTables multiplication triples from a random OT extension by
+ * the {@link TinyTablesRotTripleGenerator}, for two parties in this JVM. The base OTs and OT
+ * extension setup are done once, so the score is the number of triples per second in a steady
+ * state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TinyTablesTripleBenchmark {
+
+  private static final int PARTIES = 2;
+  private static final int TRIPLES = 8192;
+  private static final int COMPUTATIONAL_SECURITY = 128;
+  private static final int STATISTICAL_SECURITY = 40;
+
+  private PartyRunner runner;
+  private List<TinyTablesRotTripleGenerator> generators;
+
+  /**
+   * Runs the base OTs and sets up the OT extension between the parties.
+   */
+  @Setup
+  public void setup() {
+    List<InMemoryNetwork> networks = InMemoryNetwork.createNetworks(PARTIES);
+    runner = new PartyRunner(PARTIES);
+    generators = runner.run(id -> {
+      int otherId = Util.otherPlayerId(id);
+      InMemoryNetwork network = networks.get(id - 1);
+      Drbg drbg = new AesCtrDrbg(new byte[32]);
+      TinyTablesOt baseOt = new TinyTablesDummyOt(otherId);
+      baseOt.init(network);
+      RotList rotList = new RotList(drbg, COMPUTATIONAL_SECURITY);
+      if (id < otherId) {
+        rotList.send(baseOt);
+        rotList.receive(baseOt);
+      } else {
+        rotList.receive(baseOt);
+        rotList.send(baseOt);
+      }
+      CoinTossing coinTossing = new CoinTossing(id, otherId, drbg);
+      coinTossing.initialize(network);
+      OtExtensionResourcePool resources = new OtExtensionResourcePoolImpl(id, otherId,
+          COMPUTATIONAL_SECURITY, STATISTICAL_SECURITY, 1, drbg, coinTossing, rotList);
+      return new TinyTablesRotTripleGenerator(id, drbg, new RotFactory(resources, network),
+          COMPUTATIONAL_SECURITY, STATISTICAL_SECURITY);
+    });
+  }
+
+  @TearDown
+  public void tearDown() {
+    runner.close();
+  }
+
+  /**
+   * Generates a batch of triples at each party, the score is per triple.
+   *
+   * @return the triples of each party
+   */
+  @Benchmark
+  @OperationsPerInvocation(TRIPLES)
+  public List<List<TinyTablesTriple>> generate() {
+    return runner.run(id -> generators.get(id - 1).generate(TRIPLES));
+  }
+}
@@ -1,8 +1,8 @@
 package dk.alexandra.fresco.tools.mascot.field;
 
-import dk.alexandra.fresco.framework.builder.numeric.Addable;
 import dk.alexandra.fresco.framework.builder.numeric.field.FieldDefinition;
 import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElementVector;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -14,7 +14,7 @@ import java.util.stream.Stream;
 public final class FieldElementUtils {
 
   private final FieldDefinition definition;
-  private final List<FieldElement> generators;
+  private final FieldElementVector generators;
 
   /**
    * Creates new {@link FieldElementUtils}.
@@ -26,18 +26,19 @@ public final class FieldElementUtils {
     this.generators = precomputeGenerators();
   }
 
-  private List<FieldElement> precomputeGenerators() {
+  private FieldElementVector precomputeGenerators() {
     List<FieldElement> generators = new ArrayList<>(definition.getBitLength());
     BigInteger current = BigInteger.ONE;
     for (int i = 0; i < definition.getBitLength(); i++) {
       generators.add(definition.createElement(current));
       current = current.shiftLeft(1);
     }
-    return generators;
+    return definition.createVector(generators);
   }
 
   /**
-   * Multiplies two lists of field elements, pair-wise.
+   * Multiplies two lists of field elements, pair-wise. If the left factors are a {@link
+   * FieldElementVector} the result is a vector as well.
    *
    * @param leftFactors left factors
    * @param rightFactors right factors
@@ -48,6 +49,11 @@ public final class FieldElementUtils {
     if (leftFactors.size() != rightFactors.size()) {
       throw new IllegalArgumentException("Lists must be same size");
     }
+    if (leftFactors instanceof FieldElementVector) {
+      FieldElementVector products = ((FieldElementVector) leftFactors).copy();
+      products.multiplyInPlace(rightFactors);
+      return products;
+    }
     return pairWiseMultiplyStream(leftFactors, rightFactors).collect(Collectors.toList());
   }
 
@@ -68,7 +74,8 @@ public final class FieldElementUtils {
   }
 
   /**
-   * Computes inner product of two lists of field elements.
+   * Computes inner product of two lists of field elements, see {@link
+   * FieldDefinition#innerProduct(List, List)}.
    *
    * @param left left factors
    * @param right right factors
@@ -78,17 +85,23 @@ public final class FieldElementUtils {
     if (left.size() != right.size()) {
       throw new IllegalArgumentException("Lists must have same size");
     }
-    return Addable.sum(pairWiseMultiplyStream(left, right));
+    return definition.innerProduct(left, right);
   }
 
   /**
-   * Multiplies each value in list by scalar.
+   * Multiplies each value in list by scalar. If the values are a {@link FieldElementVector} the
+   * result is a vector as well.
    *
    * @param values list of factors
    * @param scalar scalar factor
    * @return list of products
    */
   public List<FieldElement> scalarMultiply(List<FieldElement> values, FieldElement scalar) {
+    if (values instanceof FieldElementVector) {
+      FieldElementVector products = ((FieldElementVector) values).copy();
+      products.scaleInPlace(scalar);
+      return products;
+    }
     return values.stream().map(scalar::multiply).collect(Collectors.toList());
   }
 
@@ -103,6 +116,9 @@ public final class FieldElementUtils {
     if (elements.size() > definition.getBitLength()) {
       throw new IllegalArgumentException("Number of elements cannot exceed bit-length");
     }
+    if (elements.size() == generators.size()) {
+      return generators.innerProduct(elements);
+    }
     return innerProduct(elements, generators.subList(0, elements.size()));
   }
 
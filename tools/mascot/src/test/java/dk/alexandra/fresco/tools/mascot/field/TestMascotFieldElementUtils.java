@@ -2,6 +2,8 @@ package dk.alexandra.fresco.tools.mascot.field;
 
 import dk.alexandra.fresco.framework.builder.numeric.field.BigIntegerFieldDefinition;
 import dk.alexandra.fresco.framework.builder.numeric.field.FieldElement;
+import dk.alexandra.fresco.framework.builder.numeric.field.FieldElementVector;
+import dk.alexandra.fresco.framework.builder.numeric.field.MontgomeryFieldDefinition;
 import dk.alexandra.fresco.tools.mascot.CustomAsserts;
 import dk.alexandra.fresco.tools.mascot.MascotTestUtils;
 import java.math.BigInteger;
@@ -41,6 +43,25 @@ public class TestMascotFieldElementUtils {
     CustomAsserts.assertEquals(definition, expected, actual);
   }
 
+  @Test
+  public void testVectorOperations() {
+    MontgomeryFieldDefinition definition = new MontgomeryFieldDefinition(modulus);
+    FieldElementUtils fieldElementUtils = new FieldElementUtils(definition);
+    FieldElementVector left =
+        definition.createVector(MascotTestUtils.generateSingleRow(leftArr, definition));
+    List<FieldElement> right = MascotTestUtils.generateSingleRow(rightArr, definition);
+    CustomAsserts.assertEquals(definition,
+        MascotTestUtils.generateSingleRow(new int[]{5, 12, 21, 32}, definition),
+        fieldElementUtils.pairWiseMultiply(left, right));
+    CustomAsserts.assertEquals(definition,
+        MascotTestUtils.generateSingleRow(new int[]{2, 4, 6, 8}, definition),
+        fieldElementUtils.scalarMultiply(left, definition.createElement(2)));
+    CustomAsserts.assertEquals(definition, definition.createElement(70),
+        fieldElementUtils.innerProduct(right, left));
+    CustomAsserts.assertEquals(definition,
+        MascotTestUtils.generateSingleRow(leftArr, definition), left);
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void pairWiseMultipleLengthMismatch() {
     fieldElementUtils.pairWiseMultiply(left, right.subList(0, 2));